@@ -127,6 +127,7 @@ public abstract class HillbilliesApplication<O extends HillbilliesOptions, F, V
 				stage.centerOnScreen();
 				GameLoop loop = new GameLoop(game);
 				loop.setMaxTimeStep(0.20);
+				game.setGameLoop(loop);
 				loop.start();
 			});
 
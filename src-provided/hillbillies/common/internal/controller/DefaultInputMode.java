@@ -9,6 +9,7 @@ import hillbillies.common.internal.ui.IHillbilliesView;
 import hillbillies.common.internal.ui.viewmodel.IViewModel;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.input.MouseEvent;
+import ogp.framework.game.GameLoop;
 
 public class DefaultInputMode implements InputMode {
 	private final HillbilliesGameController<?> gameController;
@@ -86,11 +87,34 @@ public class DefaultInputMode implements InputMode {
 			gameController.exit();
 			e.consume();
 			break;
+		case PAGE_UP:
+			changeTimeScale(2);
+			e.consume();
+			break;
+		case PAGE_DOWN:
+			changeTimeScale(0.5);
+			e.consume();
+			break;
+		case HOME:
+			changeTimeScale(0);
+			e.consume();
+			break;
 		default:
 			break;
 		}
 	}
 
+	/**
+	 * Multiply the time scale of the game by the given factor, or reset it to
+	 * 1 if the factor is 0.
+	 */
+	protected void changeTimeScale(double factor) {
+		GameLoop loop = getGameController().getGameLoop();
+		if (loop != null) {
+			loop.setTimeScale(factor == 0 ? 1 : loop.timeScaleProperty().get() * factor);
+		}
+	}
+
 	@Override
 	public void objectClicked(Object object, MouseEvent e) {
 		getSelection().select(object, !(e.isControlDown() || e.isMetaDown()));
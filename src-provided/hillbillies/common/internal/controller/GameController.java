@@ -17,16 +17,20 @@ import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.SetChangeListener;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.input.MouseEvent;
+import ogp.framework.game.GameLoop;
+import ogp.framework.game.IFramedGameController;
 import ogp.framework.util.ModelException;
 
 public abstract class GameController<V extends IHillbilliesView> implements HillbilliesGameController<V> {
 
 	private final Object facade;
+	private final Object facadeLock = new Object();
 	private V view;
 	private final HillbilliesOptions options;
+	private GameLoop gameLoop;
 
 	public GameController(Object facade, HillbilliesOptions options) {
-		this.facade = facade;
+		this.facade = this instanceof IFramedGameController ? SynchronizedFacade.wrap(facade, facadeLock) : facade;
 		this.options = options;
 		switchInputMode(createDefaultInputMode());
 	}
@@ -63,6 +67,18 @@ public abstract class GameController<V extends IHillbilliesView> implements Hill
 
 	private final UserInputHandler inputHander = new InputDelegator();
 
+	@Override
+	public GameLoop getGameLoop() {
+		return gameLoop;
+	}
+
+	public void setGameLoop(GameLoop gameLoop) {
+		this.gameLoop = gameLoop;
+		if (view != null) {
+			view.setGameLoop(gameLoop);
+		}
+	}
+
 	public void setView(V view) {
 		this.view = view;
 		view.setUserInputHandler(inputHander);
@@ -73,6 +89,15 @@ public abstract class GameController<V extends IHillbilliesView> implements Hill
 		return facade;
 	}
 
+	/**
+	 * Return the lock every call to the facade holds if the game is updated on
+	 * a simulation thread of its own, so that calls from the UI thread never
+	 * see a world in the middle of a tick.
+	 */
+	protected Object getFacadeLock() {
+		return facadeLock;
+	}
+
 	protected void handleError(ModelException e) {
 		if (getOptions().printModelExceptionTraces().getValue()) {
 			getView().setStatusText("ERROR: " + e.getMessage());
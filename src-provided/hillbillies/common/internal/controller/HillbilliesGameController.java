@@ -6,6 +6,7 @@ import hillbillies.common.internal.providers.ActionExecutor;
 import hillbillies.common.internal.providers.SelectionProvider;
 import hillbillies.common.internal.providers.WorldInfoProvider;
 import hillbillies.common.internal.ui.IHillbilliesView;
+import ogp.framework.game.GameLoop;
 import ogp.framework.game.IGameController;
 
 public interface HillbilliesGameController<V extends IHillbilliesView> extends IGameController<V> {
@@ -23,4 +24,9 @@ public interface HillbilliesGameController<V extends IHillbilliesView> extends I
 	void switchInputMode(InputMode newMode);
 	
 	HillbilliesOptions getOptions();
+
+	/**
+	 * Return the loop running the game, or null if it is not running yet.
+	 */
+	GameLoop getGameLoop();
 }
@@ -0,0 +1,64 @@
+package hillbillies.common.internal.controller;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * For internal GUI use only.
+ *
+ * Wraps a facade so that every call to it holds a given lock.
+ *
+ * Iterators and collections the facade returns may be live views of the
+ * model, which would be read after the lock is released. They are copied
+ * while the lock is still held, so the caller only ever sees a snapshot.
+ */
+public final class SynchronizedFacade {
+
+	private SynchronizedFacade() {
+	}
+
+	/**
+	 * Return a proxy implementing all interfaces of the given facade, that
+	 * calls the facade while holding the given lock.
+	 */
+	public static Object wrap(Object facade, Object lock) {
+		Set<Class<?>> interfaces = new LinkedHashSet<>();
+		for (Class<?> type = facade.getClass(); type != null; type = type.getSuperclass())
+			interfaces.addAll(Arrays.asList(type.getInterfaces()));
+		return Proxy.newProxyInstance(facade.getClass().getClassLoader(), interfaces.toArray(new Class<?>[0]),
+				(proxy, method, args) -> {
+					synchronized (lock) {
+						try {
+							return copy(method.getReturnType(), method.invoke(facade, args));
+						} catch (InvocationTargetException e) {
+							throw e.getCause();
+						}
+					}
+				});
+	}
+
+	private static Object copy(Class<?> type, Object result) {
+		if (result == null) {
+			return null;
+		}
+		if (type == Iterator.class) {
+			List<Object> elements = new ArrayList<>();
+			((Iterator<?>) result).forEachRemaining(elements::add);
+			return elements.iterator();
+		}
+		if (type == Set.class) {
+			return new LinkedHashSet<>((Collection<?>) result);
+		}
+		if (type == List.class || type == Collection.class) {
+			return new ArrayList<>((Collection<?>) result);
+		}
+		return result;
+	}
+}
@@ -0,0 +1,98 @@
+package hillbillies.common.internal.map;
+
+import java.util.BitSet;
+
+/**
+ * For internal GUI use only.
+ *
+ * The set of cells of a 3D map that changed since the last time the map
+ * notified its batch listeners, with the box around them.
+ */
+public class DirtyRegion {
+
+	@FunctionalInterface
+	public static interface CellConsumer {
+		public void accept(int x, int y, int z);
+	}
+
+	private final int nbX, nbY, nbXY;
+	private final BitSet cells;
+	private int minX, minY, minZ, maxX, maxY, maxZ;
+
+	public DirtyRegion(int nbX, int nbY, int nbZ) {
+		this.nbX = nbX;
+		this.nbY = nbY;
+		this.nbXY = nbX * nbY;
+		this.cells = new BitSet(nbXY * nbZ);
+		clear();
+	}
+
+	public void add(int x, int y, int z) {
+		cells.set(z * nbXY + y * nbX + x);
+		minX = Math.min(minX, x);
+		minY = Math.min(minY, y);
+		minZ = Math.min(minZ, z);
+		maxX = Math.max(maxX, x);
+		maxY = Math.max(maxY, y);
+		maxZ = Math.max(maxZ, z);
+	}
+
+	public boolean contains(int x, int y, int z) {
+		return minX <= x && x <= maxX && minY <= y && y <= maxY && minZ <= z && z <= maxZ
+				&& cells.get(z * nbXY + y * nbX + x);
+	}
+
+	public boolean isEmpty() {
+		return cells.isEmpty();
+	}
+
+	public int getNbCells() {
+		return cells.cardinality();
+	}
+
+	/** Lowest x-coordinate of a changed cell (inclusive) */
+	public int getMinX() {
+		return minX;
+	}
+
+	/** Lowest y-coordinate of a changed cell (inclusive) */
+	public int getMinY() {
+		return minY;
+	}
+
+	/** Lowest z-coordinate of a changed cell (inclusive) */
+	public int getMinZ() {
+		return minZ;
+	}
+
+	/** Highest x-coordinate of a changed cell (inclusive) */
+	public int getMaxX() {
+		return maxX;
+	}
+
+	/** Highest y-coordinate of a changed cell (inclusive) */
+	public int getMaxY() {
+		return maxY;
+	}
+
+	/** Highest z-coordinate of a changed cell (inclusive) */
+	public int getMaxZ() {
+		return maxZ;
+	}
+
+	/**
+	 * Pass every changed cell to the given consumer, once, ordered by z, then
+	 * y, then x.
+	 */
+	public void forEach(CellConsumer consumer) {
+		for (int index = cells.nextSetBit(0); index >= 0; index = cells.nextSetBit(index + 1)) {
+			consumer.accept(index % nbX, (index % nbXY) / nbX, index / nbXY);
+		}
+	}
+
+	public void clear() {
+		cells.clear();
+		minX = minY = minZ = Integer.MAX_VALUE;
+		maxX = maxY = maxZ = Integer.MIN_VALUE;
+	}
+}
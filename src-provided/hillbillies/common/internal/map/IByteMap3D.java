@@ -19,6 +19,15 @@ public interface IByteMap3D {
 		public void onChange(int x, int y, int z, byte oldValue, byte newValue);
 	}
 
+	/**
+	 * Listener notified once per batch of changes, instead of once per cell.
+	 * The region is only valid during the call.
+	 */
+	@FunctionalInterface
+	public static interface BatchListener {
+		public void onChanges(DirtyRegion region);
+	}
+
 
 	default void fill(ValueProvider provider) {
 		for (int x = 0; x < getNbX(); x++) {
@@ -35,10 +44,22 @@ public interface IByteMap3D {
 	byte getValue(int worldX, int worldY, int worldZ);
 	void setValue(int x, int y, int z, byte value);
 
+	/**
+	 * Set the value of each of the given cells {x, y, z} to the value of the
+	 * given provider, as one batch of changes.
+	 */
+	default void setValues(Iterable<int[]> cells, ValueProvider provider) {
+		for (int[] cell : cells) {
+			setValue(cell[0], cell[1], cell[2], provider.getValue(cell[0], cell[1], cell[2]));
+		}
+	}
+
 	int getNbX();
 	int getNbY();
 	int getNbZ();
 
 	void addListener(Listener listener);
 
+	void addBatchListener(BatchListener listener);
+
 }
@@ -21,6 +21,7 @@ import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
+import ogp.framework.game.GameLoop;
 import ogp.framework.ui.FPSCounter;
 
 public abstract class HillbilliesView implements IHillbilliesView {
@@ -38,6 +39,8 @@ public abstract class HillbilliesView implements IHillbilliesView {
 	private final Label status;
 	private final HillbilliesOptions options;
 	private InfoArea infoArea;
+	private final FPSCounter fps;
+	private final Label debugInfo;
 
 	public HillbilliesView(ViewProviders providers, HillbilliesOptions options) {
 		this.providers = providers;
@@ -63,8 +66,8 @@ public abstract class HillbilliesView implements IHillbilliesView {
 		HBox.setMargin(levelSlider.getRoot(), new Insets(5));
 		leftPanel.getChildren().add(mmSlider);
 
-		FPSCounter fps = new FPSCounter();
-		Label debugInfo = new Label();
+		fps = new FPSCounter();
+		debugInfo = new Label();
 		debugInfo.textProperty().bind(Bindings.format("%.1f fps", fps.fpsEstimateProperty()));
 		leftPanel.getChildren().add(debugInfo);
 
@@ -83,6 +86,21 @@ public abstract class HillbilliesView implements IHillbilliesView {
 		fps.start();
 	}
 
+	@Override
+	public void setGameLoop(GameLoop loop) {
+		debugInfo.textProperty().bind(Bindings.format("%.1f fps, %.0f ticks/s at %sx, lag %.2f s/s",
+				fps.fpsEstimateProperty(), loop.tickRateProperty(),
+				Bindings.createStringBinding(() -> formatTimeScale(loop.timeScaleProperty().get()),
+						loop.timeScaleProperty()),
+				loop.lagProperty()));
+	}
+
+	private static String formatTimeScale(double timeScale) {
+		if (timeScale < 1)
+			return "1/" + Math.round(1 / timeScale);
+		return Long.toString(Math.round(timeScale));
+	}
+
 	public HillbilliesOptions getOptions() {
 		return options;
 	}
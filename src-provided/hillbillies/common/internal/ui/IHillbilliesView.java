@@ -3,6 +3,7 @@ package hillbillies.common.internal.ui;
 import hillbillies.common.internal.inputmodes.UserInputHandler;
 import hillbillies.common.internal.ui.viewmodel.IViewModel;
 import javafx.scene.Parent;
+import ogp.framework.game.GameLoop;
 import ogp.framework.game.IGameView;
 
 public interface IHillbilliesView extends IGameView {
@@ -20,5 +21,10 @@ public interface IHillbilliesView extends IGameView {
 	void setHighlightCurrentTile(boolean b);
 
 	Parent getRoot();
+
+	/**
+	 * Show the speed and lag of the given loop running the game.
+	 */
+	void setGameLoop(GameLoop loop);
 	
 }
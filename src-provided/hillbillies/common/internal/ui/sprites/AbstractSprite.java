@@ -41,6 +41,20 @@ public abstract class AbstractSprite<T, InfoProvider> {
 
 	public abstract void update();
 
+	/**
+	 * Make this sprite show the given object instead, as if it were new.
+	 */
+	public void reuseFor(T object) {
+		this.object = object;
+		reset();
+	}
+
+	/**
+	 * Forget the state this sprite kept for its previous object.
+	 */
+	protected void reset() {
+	}
+
 	public T getObject() {
 		return object;
 	}
@@ -0,0 +1,63 @@
+package hillbillies.common.internal.ui.sprites;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps sprites that are no longer shown, per type of object, so they can be
+ * shown for another object of that type instead of creating a new sprite.
+ *
+ * A released sprite keeps its node in the scene graph, hidden, so showing it
+ * again does not change the scene graph.
+ */
+public class SpritePool {
+
+	public static final int DEFAULT_MAX_FREE_PER_TYPE = 128;
+
+	private final Map<Class<?>, Deque<AbstractSprite<?, ?>>> free = new HashMap<>();
+	private final int maxFreePerType;
+
+	public SpritePool() {
+		this(DEFAULT_MAX_FREE_PER_TYPE);
+	}
+
+	public SpritePool(int maxFreePerType) {
+		this.maxFreePerType = maxFreePerType;
+	}
+
+	/**
+	 * Return a released sprite for objects of the type of the given object,
+	 * now showing the given object, or null if there is none.
+	 */
+	@SuppressWarnings("unchecked")
+	public AbstractSprite<?, ?> acquire(Object object) {
+		Deque<AbstractSprite<?, ?>> sprites = free.get(object.getClass());
+		if (sprites == null || sprites.isEmpty()) {
+			return null;
+		}
+		AbstractSprite<Object, ?> sprite = (AbstractSprite<Object, ?>) sprites.pop();
+		sprite.reuseFor(object);
+		sprite.getGraph().setVisible(true);
+		sprite.update();
+		return sprite;
+	}
+
+	/**
+	 * Hide the given sprite and keep it for another object of the same type.
+	 *
+	 * @return false if the pool for that type is full; the sprite is then not
+	 *         kept, and its node should be removed from the scene graph
+	 */
+	public boolean release(AbstractSprite<?, ?> sprite) {
+		sprite.getGraph().setVisible(false);
+		Deque<AbstractSprite<?, ?>> sprites = free.computeIfAbsent(sprite.getObject().getClass(),
+				type -> new ArrayDeque<>());
+		if (sprites.size() >= maxFreePerType) {
+			return false;
+		}
+		sprites.push(sprite);
+		return true;
+	}
+}
@@ -78,6 +78,29 @@ public interface IViewModel {
 	
 	void addNewSpriteListener(NewSpriteListener listener);
 
+	/**
+	 * A listener for sprites that are no longer shown and are not kept for
+	 * reuse either, so their node must leave the scene graph.
+	 */
+	@FunctionalInterface
+	public static interface DiscardedSpriteListener {
+		public void discardedSprite(AbstractSprite<?, ?> sprite);
+	}
+
+	void addDiscardedSpriteListener(DiscardedSpriteListener listener);
+
+	/**
+	 * Add a listener that is run after the sprites are refreshed, once per
+	 * frame.
+	 */
+	void addSpritesRefreshedListener(Runnable listener);
+
+	/**
+	 * Do not create sprites for objects that would be shown deeper than the
+	 * given depth below the current level.
+	 */
+	void setMaxSpriteDepth(int maxSpriteDepth);
+
 
 	@FunctionalInterface
 	public static interface VisibleTileRefreshListener {
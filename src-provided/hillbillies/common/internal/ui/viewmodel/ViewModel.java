@@ -1,22 +1,25 @@
 package hillbillies.common.internal.ui.viewmodel;
 
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Set;
 
+import hillbillies.common.internal.map.DirtyRegion;
 import hillbillies.common.internal.map.IByteMap3D;
 import hillbillies.common.internal.providers.UnitInfoProvider;
 import hillbillies.common.internal.providers.WorldInfoProvider;
 import hillbillies.common.internal.ui.sprites.AbstractSprite;
 import hillbillies.common.internal.ui.sprites.SpriteFactory;
+import hillbillies.common.internal.ui.sprites.SpritePool;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.ReadOnlyDoubleProperty;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.geometry.Rectangle2D;
-import javafx.scene.layout.Pane;
 
 public abstract class ViewModel implements IViewModel {
 
@@ -76,14 +79,27 @@ public abstract class ViewModel implements IViewModel {
 		xTileOffset.addListener(e -> updateAllVisibleTiles());
 		yTileOffset.addListener(e -> updateAllVisibleTiles());
 
-		mapCache.addListener(this::worldTileChanged);
+		mapCache.addBatchListener(this::worldTilesChanged);
 	}
 
-	protected void worldTileChanged(int worldX, int worldY, int worldZ, byte oldValue, byte newValue) {
-		if (isWorldTileVisible(worldX, worldY, worldZ)) {
-			int visibleX = worldTileToVisibleTileX(worldX);
-			int visibleY = worldTileToVisibleTileY(worldY);
-			updateVisibleTileAndNotify(visibleX, visibleY);
+	/**
+	 * Update every visible tile that shows one of the changed world tiles,
+	 * once, however many of its world tiles changed.
+	 */
+	protected void worldTilesChanged(DirtyRegion region) {
+		if (region.getMaxX() < xTileOffset.get() || xTileOffset.get() + nbVisibleTilesX <= region.getMinX()
+				|| region.getMaxY() < yTileOffset.get() || yTileOffset.get() + nbVisibleTilesY <= region.getMinY()
+				|| getCurrentZLevel() < region.getMinZ()) {
+			return;
+		}
+		BitSet visibleTiles = new BitSet(nbVisibleTilesX * nbVisibleTilesY);
+		region.forEach((worldX, worldY, worldZ) -> {
+			if (isWorldTileVisible(worldX, worldY, worldZ)) {
+				visibleTiles.set(worldTileToVisibleTileX(worldX) + worldTileToVisibleTileY(worldY) * nbVisibleTilesX);
+			}
+		});
+		for (int tile = visibleTiles.nextSetBit(0); tile >= 0; tile = visibleTiles.nextSetBit(tile + 1)) {
+			updateVisibleTileAndNotify(tile % nbVisibleTilesX, tile / nbVisibleTilesX);
 		}
 	}
 
@@ -253,25 +269,56 @@ public abstract class ViewModel implements IViewModel {
 
 	private Set<AbstractSprite<?, ?>> visibleSprites = new HashSet<>();
 
+	private final SpritePool spritePool = new SpritePool();
+
+	/**
+	 * The largest depth at which sprites are shown; objects deeper down do
+	 * not get a sprite.
+	 */
+	private int maxSpriteDepth = Integer.MAX_VALUE;
+
+	/** Half the height of the tallest sprite, in meters */
+	protected static final double MAX_SPRITE_HALF_SIZE_Z = 0.5;
+
+	@Override
+	public void setMaxSpriteDepth(int maxSpriteDepth) {
+		this.maxSpriteDepth = maxSpriteDepth;
+	}
+
+	/**
+	 * Return the lowest z-coordinate, in meters, an object can have and still
+	 * be shown at a depth no larger than the maximal sprite depth.
+	 */
+	protected double getLowestSpriteZ() {
+		if (maxSpriteDepth == Integer.MAX_VALUE)
+			return Double.NEGATIVE_INFINITY;
+		return (getCurrentZLevel() - maxSpriteDepth) * getMeterPerTile() - MAX_SPRITE_HALF_SIZE_Z;
+	}
+
 	protected void refreshSprites() {
 		Set<Object> visibleObjects = new HashSet<>(getVisibleObjects());
 
-		Set<AbstractSprite<?, ?>> spritesToRemove = new HashSet<>();
-		for (AbstractSprite<?, ?> sprite : visibleSprites) {
-			if (!visibleObjects.contains(sprite.getObject())) {
-				sprite.getGraph().setVisible(false);
-				spritesToRemove.add(sprite);
-				if (sprite.getGraph() != null && sprite.getGraph().getParent() != null) {
-					((Pane) sprite.getGraph().getParent()).getChildren().remove(sprite.getGraph());
-				}
-			} else {
+		for (Iterator<AbstractSprite<?, ?>> it = visibleSprites.iterator(); it.hasNext();) {
+			AbstractSprite<?, ?> sprite = it.next();
+			if (visibleObjects.remove(sprite.getObject())) {
 				sprite.update();
-				visibleObjects.remove(sprite.getObject());
+			} else {
+				it.remove();
+				if (!spritePool.release(sprite)) {
+					for (DiscardedSpriteListener listener : discardedSpriteListeners) {
+						listener.discardedSprite(sprite);
+					}
+				}
 			}
 		}
-		visibleSprites.removeAll(spritesToRemove);
 
 		for (Object object : visibleObjects) {
+			AbstractSprite<?, ?> pooledSprite = spritePool.acquire(object);
+			if (pooledSprite != null) {
+				visibleSprites.add(pooledSprite);
+				updateSpriteZLevel(pooledSprite);
+				continue;
+			}
 			AbstractSprite<?, ?> newSprite = SpriteFactory.INSTANCE.create(object);
 			visibleSprites.add(newSprite);
 			newSprite.screenXProperty().bind(newSprite.worldXProperty().multiply(getPixelsPerMeter())
@@ -285,6 +332,17 @@ public abstract class ViewModel implements IViewModel {
 			newSprite.worldZProperty().addListener(s -> updateSpriteZLevel(newSprite));
 			updateSpriteZLevel(newSprite);
 		}
+
+		for (Runnable listener : spritesRefreshedListeners) {
+			listener.run();
+		}
+	}
+
+	private final Set<Runnable> spritesRefreshedListeners = new HashSet<>();
+
+	@Override
+	public void addSpritesRefreshedListener(Runnable listener) {
+		spritesRefreshedListeners.add(listener);
 	}
 
 	private void updateSpriteZLevels() {
@@ -322,6 +380,13 @@ public abstract class ViewModel implements IViewModel {
 		spriteListeners.add(listener);
 	}
 
+	private final Set<DiscardedSpriteListener> discardedSpriteListeners = new HashSet<>();
+
+	@Override
+	public void addDiscardedSpriteListener(DiscardedSpriteListener listener) {
+		discardedSpriteListeners.add(listener);
+	}
+
 	@Override
 	public Set<AbstractSprite<?, ?>> getVisibleSprites() {
 		return Collections.unmodifiableSet(visibleSprites);
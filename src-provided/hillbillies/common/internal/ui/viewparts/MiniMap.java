@@ -1,6 +1,7 @@
 package hillbillies.common.internal.ui.viewparts;
 
 import hillbillies.common.internal.Constants;
+import hillbillies.common.internal.map.DirtyRegion;
 import hillbillies.common.internal.map.IByteMap3D;
 import hillbillies.common.internal.ui.viewmodel.IViewModel;
 import javafx.geometry.Point2D;
@@ -49,7 +50,7 @@ public class MiniMap<T> {
 		root.getChildren().add(viewport);
 
 		viewModel.currentZLevelProperty().addListener(c -> updateImage());
-		map.addListener((x, y, z, oldValue, newValue) -> updateImageAt(x, y, z, getTypeFor(newValue)));
+		map.addBatchListener(this::updateImageIn);
 		updateImage();
 	}
 
@@ -104,6 +105,21 @@ public class MiniMap<T> {
 		gc.fillRect(x * mmPixelsPerTile, y * mmPixelsPerTile, Math.ceil(mmPixelsPerTile), Math.ceil(mmPixelsPerTile));
 	}
 
+	/**
+	 * Redraw the changed tiles of the shown level, once per batch of changes.
+	 */
+	protected void updateImageIn(DirtyRegion region) {
+		int z = viewModel.currentZLevelProperty().get();
+		if (z < region.getMinZ() || region.getMaxZ() < z)
+			return;
+		for (int y = region.getMinY(); y <= region.getMaxY(); y++) {
+			for (int x = region.getMinX(); x <= region.getMaxX(); x++) {
+				if (region.contains(x, y, z))
+					updateImageAt(x, y, z, getTypeFor(map.getValue(x, y, z)));
+			}
+		}
+	}
+
 	protected void updateImage() {
 		int nbX = map.getNbX();
 		int nbY = map.getNbY();
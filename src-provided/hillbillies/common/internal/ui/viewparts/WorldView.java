@@ -1,5 +1,13 @@
 package hillbillies.common.internal.ui.viewparts;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import hillbillies.common.internal.inputmodes.UserInputHandler;
 import hillbillies.common.internal.options.HillbilliesOptions;
 import hillbillies.common.internal.ui.sprites.AbstractSprite;
@@ -44,6 +52,18 @@ public class WorldView {
 	private UserInputHandler userInputHandler;
 
 	private boolean registerSpriteClicks = true;
+
+	/**
+	 * Sprites whose depth changed since the last refresh, and may have to move
+	 * to another panel.
+	 */
+	private final Set<AbstractSprite<?, ?>> spritesToReparent = new LinkedHashSet<>();
+
+	/**
+	 * Sprites that are no longer shown nor kept for reuse, whose node must
+	 * leave its panel.
+	 */
+	private final Set<AbstractSprite<?, ?>> spritesToDetach = new LinkedHashSet<>();
 	private boolean highlightCurrentTile;
 
 	public static WorldView create(IViewModel viewModel, HillbilliesOptions options) {
@@ -93,6 +113,9 @@ public class WorldView {
 	protected void setupViewModel() {
 		viewModel.addVisibleTileRefreshListener(this::refreshVisibleTile);
 		viewModel.addNewSpriteListener(this::attachNewSprite);
+		viewModel.addDiscardedSpriteListener(this::detachSprite);
+		viewModel.addSpritesRefreshedListener(this::updateSpriteParents);
+		viewModel.setMaxSpriteDepth(getMaxDepth());
 
 		for (int visibleX = 0; visibleX < viewModel.getNbVisibleTilesX(); visibleX++) {
 			for (int visibleY = 0; visibleY < viewModel.getNbVisibleTilesY(); visibleY++) {
@@ -103,6 +126,7 @@ public class WorldView {
 		for (AbstractSprite<?, ?> sprite : viewModel.getVisibleSprites()) {
 			attachNewSprite(sprite);
 		}
+		updateSpriteParents();
 	}
 
 	protected void refreshVisibleTile(int visibleX, int visibleY, int visibleZ) {
@@ -342,7 +366,7 @@ public class WorldView {
 	}
 
 	protected void attachNewSprite(AbstractSprite<?, ?> newSprite) {
-		newSprite.depthProperty().addListener(e -> updateSpriteParent(newSprite));
+		newSprite.depthProperty().addListener(e -> spritesToReparent.add(newSprite));
 		newSprite.getGraph().layoutXProperty().bind(newSprite.screenXProperty());
 		newSprite.getGraph().layoutYProperty().bind(newSprite.screenYProperty());
 
@@ -354,7 +378,7 @@ public class WorldView {
 				e.consume();
 			}
 		});
-		updateSpriteParent(newSprite);
+		spritesToReparent.add(newSprite);
 	}
 
 	public boolean getRegisterSpriteClicks() {
@@ -378,6 +402,47 @@ public class WorldView {
 		}
 	}
 
+	protected void detachSprite(AbstractSprite<?, ?> sprite) {
+		spritesToReparent.remove(sprite);
+		spritesToDetach.add(sprite);
+	}
+
+	/**
+	 * Move the sprites whose depth changed to the panel of their new depth,
+	 * and remove the discarded sprites from their panel, with one change to
+	 * the children of every panel involved.
+	 */
+	protected void updateSpriteParents() {
+		if (spritesToReparent.isEmpty() && spritesToDetach.isEmpty()) {
+			return;
+		}
+		Map<Pane, Set<Node>> removals = new HashMap<>();
+		Map<Pane, List<Node>> additions = new HashMap<>();
+		for (AbstractSprite<?, ?> sprite : spritesToDetach) {
+			Node node = sprite.getGraph();
+			if (node.getParent() != null) {
+				removals.computeIfAbsent((Pane) node.getParent(), parent -> new HashSet<>()).add(node);
+			}
+		}
+		spritesToDetach.clear();
+		for (AbstractSprite<?, ?> sprite : spritesToReparent) {
+			int depthToShow = sprite.depthProperty().get();
+			Node node = sprite.getGraph();
+			Pane newParent = depthToShow >= 0 && depthToShow <= getMaxDepth() ? spritePanels[depthToShow] : null;
+			if (node.getParent() != newParent) {
+				if (node.getParent() != null) {
+					removals.computeIfAbsent((Pane) node.getParent(), parent -> new HashSet<>()).add(node);
+				}
+				if (newParent != null) {
+					additions.computeIfAbsent(newParent, parent -> new ArrayList<>()).add(node);
+				}
+			}
+		}
+		spritesToReparent.clear();
+		removals.forEach((parent, nodes) -> parent.getChildren().removeAll(nodes));
+		additions.forEach((parent, nodes) -> parent.getChildren().addAll(nodes));
+	}
+
 	public void setHighlightCurrentTile(boolean value) {
 		this.highlightCurrentTile = value;
 		if (!value) {
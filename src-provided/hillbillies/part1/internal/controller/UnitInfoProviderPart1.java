@@ -169,14 +169,17 @@ public class UnitInfoProviderPart1 implements UnitInfoProvider {
 	@Override
 	public int getOrientationInDegrees(Unit unit) {
 		try {
-			double orientationInRadians = facade.getOrientation(unit);
-			return (int) ((180.0 * orientationInRadians / Math.PI) + 360) % 360;
+			return toDegrees(facade.getOrientation(unit));
 		} catch (ModelException e) {
 			handleError(e);
 		}
 		return 0;
 	}
 
+	protected static int toDegrees(double orientationInRadians) {
+		return (int) ((180.0 * orientationInRadians / Math.PI) + 360) % 360;
+	}
+
 	@Override
 	public Optional<double[]> getPosition(Unit unit) {
 		try {
@@ -143,6 +143,16 @@ public class UnitSprite extends AbstractSprite<Unit, UnitInfoProvider> {
 		updateAnimation();
 	}
 
+	@Override
+	protected void reset() {
+		if (currentAnimation != null) {
+			currentAnimation.getBaseIndex().removeListener(viewportListener);
+			currentAnimation.getAnimation().stop();
+			currentAnimation = null;
+		}
+		selected.set(false);
+	}
+
 	protected void updateSelected() {
 		selected.set(getInfoProvider().isSelected(getUnit()));
 	}
@@ -209,4 +209,14 @@ public class Facade extends hillbillies.part1.facade.Facade implements IFacade {
 		return world.getAllLogs();
 	}
 
+	@Override
+	public Set<Object> getObjectsInBox(World world, double minX, double minY, double minZ, double maxX,
+			double maxY, double maxZ) throws ModelException {
+		try {
+			return world.getObjectsInBox(minX, minY, minZ, maxX, maxY, maxZ);
+		} catch (Throwable e) {
+			throw new ModelException();
+		}
+	}
+
 }
\ No newline at end of file
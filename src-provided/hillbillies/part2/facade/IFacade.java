@@ -435,4 +435,32 @@ public interface IFacade extends hillbillies.part1.facade.IFacade {
 	 */
 	public Set<Log> getLogs(World world) throws ModelException;
 
+	/* BOX QUERIES */
+
+	/**
+	 * Return all units, boulders and logs of the given world whose position
+	 * lies in the given box.
+	 * 
+	 * @param world
+	 *            The world from which to retrieve the objects.
+	 * @param minX
+	 *            The lowest x-coordinate of the box, included.
+	 * @param minY
+	 *            The lowest y-coordinate of the box, included.
+	 * @param minZ
+	 *            The lowest z-coordinate of the box, included.
+	 * @param maxX
+	 *            The highest x-coordinate of the box, excluded.
+	 * @param maxY
+	 *            The highest y-coordinate of the box, excluded.
+	 * @param maxZ
+	 *            The highest z-coordinate of the box, excluded.
+	 * @return A set containing the units, boulders and logs present in the
+	 *         given world whose position lies in the given box.
+	 * @throws ModelException
+	 *             A precondition was violated or an exception was thrown.
+	 */
+	public Set<Object> getObjectsInBox(World world, double minX, double minY, double minZ, double maxX,
+			double maxY, double maxZ) throws ModelException;
+
 }
@@ -1,13 +1,15 @@
 package hillbillies.part2.internal.controller;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicReference;
 
 import hillbillies.common.internal.controller.GameController;
 import hillbillies.common.internal.inputmodes.InputMode;
@@ -25,27 +27,64 @@ import hillbillies.part2.internal.map.GameMap;
 import hillbillies.part2.internal.providers.IGameObjectInfoProvider;
 import hillbillies.part2.internal.providers.WorldInfoProvider2;
 import hillbillies.part2.internal.ui.IHillbilliesView2;
+import hillbillies.part2.internal.controller.WorldFrame.UnitState;
 import hillbillies.part2.internal.ui.ViewProviders2;
 import hillbillies.part2.listener.TerrainChangeListener;
+import ogp.framework.game.IFramedGameController;
 import ogp.framework.util.ModelException;
 
-public class GameControllerPart2 extends GameController<IHillbilliesView2> implements IGameController2 {
+public class GameControllerPart2 extends GameController<IHillbilliesView2>
+		implements IGameController2, IFramedGameController<IHillbilliesView2> {
 
 	private World world;
 
 	private final GameMap map;
 
 	private final Set<TerrainChangeListener> listeners = new HashSet<>();
+
+	/**
+	 * The cubes that changed since the latest frame was published; the GUI
+	 * listeners hear about them when a frame holding them is shown.
+	 */
+	private final List<int[]> changedCubes = new ArrayList<>();
+
 	private TerrainChangeListener modelListener = new TerrainChangeListener() {
 
 		@Override
 		public void notifyTerrainChanged(int x, int y, int z) {
-			for (TerrainChangeListener listener : new HashSet<>(listeners)) {
-				listener.notifyTerrainChanged(x, y, z);
+			synchronized (changedCubes) {
+				changedCubes.add(new int[] { x, y, z });
+			}
+		}
+
+		@Override
+		public void notifyTerrainChanged(List<int[]> cubes) {
+			synchronized (changedCubes) {
+				changedCubes.addAll(cubes);
 			}
 		}
 	};
 
+	private final AtomicReference<WorldFrame> latestFrame = new AtomicReference<>();
+
+	/**
+	 * The frame the view shows, the frame before it and how far the view is
+	 * between the two. Only used on the UI thread.
+	 */
+	private WorldFrame shownFrame, baseFrame;
+	private double shownAlpha;
+
+	/**
+	 * The size of the world and the type of each of its cubes as of the shown
+	 * frame, with {@link #ANCHORED} set for the cubes that are solid and
+	 * connected to the border. Read once when the world is created and then
+	 * only updated from the changed cubes of the frames that are shown.
+	 */
+	private final int nbX, nbY, nbZ;
+	private final byte[] shownTerrain;
+
+	private static final byte ANCHORED = (byte) 0x80;
+
 	public GameControllerPart2(IFacade facade, Part2Options options, GameMap map) throws ModelException {
 		super(facade, options);
 		this.map = map;
@@ -63,6 +102,16 @@ public class GameControllerPart2 extends GameController<IHillbilliesView2> imple
 
 		world = facade.createWorld(types, modelListener);
 
+		nbX = facade.getNbCubesX(world);
+		nbY = facade.getNbCubesY(world);
+		nbZ = facade.getNbCubesZ(world);
+		shownTerrain = new byte[nbX * nbY * nbZ];
+		for (int z = 0; z < nbZ; z++)
+			for (int y = 0; y < nbY; y++)
+				for (int x = 0; x < nbX; x++)
+					shownTerrain[terrainIndex(x, y, z)] = terrainValue(facade.getCubeType(world, x, y, z),
+							facade.isSolidConnectedToBorder(world, x, y, z));
+
 		getSelectionProvider().addListener(e -> selectionUpdated());
 	}
 
@@ -105,94 +154,59 @@ public class GameControllerPart2 extends GameController<IHillbilliesView2> imple
 
 		@Override
 		public int getNbZTiles() {
-			try {
-				return getFacade().getNbCubesZ(world);
-			} catch (ModelException e) {
-				handleError(e);
-				return 50;
-			}
+			return nbZ;
 		}
 
 		@Override
 		public int getNbYTiles() {
-			try {
-				return getFacade().getNbCubesY(world);
-			} catch (ModelException e) {
-				handleError(e);
-				return 50;
-			}
+			return nbY;
 		}
 
 		@Override
 		public int getNbXTiles() {
-			try {
-				return getFacade().getNbCubesX(world);
-			} catch (ModelException e) {
-				handleError(e);
-				return 50;
-			}
+			return nbX;
 		}
 
 		@Override
 		public CubeType getCubeTypeAt(int x, int y, int z) {
-			try {
-				CubeType result = CubeType.fromByte((byte) getFacade().getCubeType(world, x, y, z));
-				return result;
-			} catch (ModelException e) {
+			if (!isInWorld(x, y, z))
 				return CubeType.EMPTY;
-			}
+			return CubeType.fromByte((byte) (shownTerrain[terrainIndex(x, y, z)] & ~ANCHORED));
 		};
 
 		@Override
 		public boolean isAnchored(int x, int y, int z) {
-			try {
-				return getFacade().isSolidConnectedToBorder(world, x, y, z);
-			} catch (ModelException e) {
-				handleError(e);
-			}
-			return false;
+			return isInWorld(x, y, z) && (shownTerrain[terrainIndex(x, y, z)] & ANCHORED) != 0;
 		};
 
 		@Override
 		public Set<?> getObjectsInBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
-			Set<Object> result = new HashSet<>();
-			result.addAll(getObjectsOfTypeInBox(Unit.class, minX, minY, minZ, maxX, maxY, maxZ, getFacade()::getUnits,
-					getFacade()::isAlive, getFacade()::getPosition));
-			result.addAll(getObjectsOfTypeInBox(Boulder.class, minX, minY, minZ, maxX, maxY, maxZ,
-					getFacade()::getBoulders, b -> true, getFacade()::getPosition));
-			result.addAll(getObjectsOfTypeInBox(Log.class, minX, minY, minZ, maxX, maxY, maxZ, getFacade()::getLogs,
-					l -> true, getFacade()::getPosition));
-			return result;
+			if (shownFrame != null) {
+				return shownFrame.getObjectsInBox(new double[] { minX, minY, minZ },
+						new double[] { maxX, maxY, maxZ });
+			}
+			try {
+				Set<Object> result = getFacade().getObjectsInBox(world, minX, minY, minZ, maxX, maxY, maxZ);
+				if (result != null)
+					return result;
+			} catch (ModelException e) {
+				handleError(e);
+			}
+			return Collections.emptySet();
 		}
 
 	};
 
-	@FunctionalInterface
-	private static interface MEFunction<T, R> {
-		public R apply(T obj) throws ModelException;
+	private boolean isInWorld(int x, int y, int z) {
+		return 0 <= x && x < nbX && 0 <= y && y < nbY && 0 <= z && z < nbZ;
 	}
 
-	protected <T> Set<T> getObjectsOfTypeInBox(Class<T> type, double minX, double minY, double minZ, double maxX,
-			double maxY, double maxZ, MEFunction<World, Set<T>> objects, MEFunction<T, Boolean> isAlive,
-			MEFunction<T, double[]> position) {
-		try {
-			Set<T> objs = objects.apply(world);
-			if (objs != null) {
-				final double[] min = new double[] { minX, minY, minZ };
-				final double[] max = new double[] { maxX, maxY, maxZ };
-				return objs.stream().filter(o -> {
-					try {
-						return isAlive.apply(o) && liesInBox(position.apply(o), min, max);
-					} catch (ModelException e) {
-						handleError(e);
-						return false;
-					}
-				}).collect(Collectors.toSet());
-			}
-		} catch (ModelException e) {
-			handleError(e);
-		}
-		return Collections.emptySet();
+	private int terrainIndex(int x, int y, int z) {
+		return x + nbX * (y + nbY * z);
+	}
+
+	private static byte terrainValue(int type, boolean anchored) {
+		return (byte) (anchored ? type | ANCHORED : type);
 	}
 
 	protected static boolean liesInBox(double[] position, double[] low, double[] high) {
@@ -224,21 +238,116 @@ public class GameControllerPart2 extends GameController<IHillbilliesView2> imple
 	public void updateGame(double dt) {
 		try {
 			getFacade().advanceTime(world, dt);
-			deselectDeadUnit();
 		} catch (ModelException e) {
 			handleError(e);
 		}
 	}
 
-	protected void deselectDeadUnit() {
-		getSelectedUnit().ifPresent(unit -> {
+	@Override
+	public void publishFrame() {
+		Map<Unit, UnitState> units = new HashMap<>();
+		Map<Log, double[]> logs = new HashMap<>();
+		Map<Boulder, double[]> boulders = new HashMap<>();
+		List<int[]> cubes;
+		byte[] types;
+		boolean[] anchored;
+		synchronized (changedCubes) {
+			cubes = new ArrayList<>(changedCubes);
+			changedCubes.clear();
+		}
+		types = new byte[cubes.size()];
+		anchored = new boolean[cubes.size()];
+		synchronized (getFacadeLock()) {
+			IFacade facade = getFacade();
 			try {
-				if (!getFacade().isAlive(unit)) {
-					getSelectionProvider().getSelection().clear();
+				for (int i = 0; i < cubes.size(); i++) {
+					int[] cube = cubes.get(i);
+					types[i] = (byte) facade.getCubeType(world, cube[0], cube[1], cube[2]);
+					anchored[i] = facade.isSolidConnectedToBorder(world, cube[0], cube[1], cube[2]);
 				}
 			} catch (ModelException e) {
 				handleError(e);
 			}
+			try {
+				for (Unit unit : facade.getUnits(world)) {
+					if (facade.isAlive(unit)) {
+						units.put(unit, new UnitState(facade.getPosition(unit), facade.getOrientation(unit),
+								facade.isAttacking(unit), facade.isWorking(unit), facade.isMoving(unit),
+								facade.isResting(unit), facade.isSprinting(unit), facade.isCarryingLog(unit),
+								facade.isCarryingBoulder(unit), facade.getFaction(unit),
+								facade.getCurrentHitPoints(unit), facade.getCurrentStaminaPoints(unit)));
+					}
+				}
+				for (Log log : facade.getLogs(world))
+					logs.put(log, facade.getPosition(log));
+				for (Boulder boulder : facade.getBoulders(world))
+					boulders.put(boulder, facade.getPosition(boulder));
+			} catch (ModelException e) {
+				handleError(e);
+			}
+		}
+		latestFrame.set(new WorldFrame(latestFrame.get(), units, logs, boulders, cubes, types, anchored));
+	}
+
+	@Override
+	public void showLatestFrame(double alpha) {
+		WorldFrame latest = latestFrame.get();
+		shownAlpha = alpha;
+		if (latest == null || latest == shownFrame)
+			return;
+		List<WorldFrame> skipped = new ArrayList<>();
+		for (WorldFrame frame = latest; frame != null && frame != shownFrame; frame = frame.getPrevious())
+			skipped.add(frame);
+		List<int[]> cubes = new ArrayList<>();
+		for (int i = skipped.size() - 1; i >= 0; i--) {
+			WorldFrame frame = skipped.get(i);
+			List<int[]> changed = frame.getChangedCubes();
+			for (int j = 0; j < changed.size(); j++) {
+				int[] cube = changed.get(j);
+				shownTerrain[terrainIndex(cube[0], cube[1], cube[2])] = terrainValue(
+						frame.getChangedType(j).getByteValue(), frame.isChangedAnchored(j));
+			}
+			cubes.addAll(changed);
+		}
+		baseFrame = latest.getPrevious();
+		if (baseFrame != null)
+			baseFrame.cutPrevious();
+		shownFrame = latest;
+		if (!cubes.isEmpty()) {
+			for (TerrainChangeListener listener : new HashSet<>(listeners)) {
+				listener.notifyTerrainChanged(cubes);
+			}
+		}
+		deselectDeadUnit();
+	}
+
+	@Override
+	public WorldFrame getShownFrame() {
+		return shownFrame;
+	}
+
+	@Override
+	public double[] getShownPosition(Unit unit) {
+		if (shownFrame == null)
+			return null;
+		UnitState state = shownFrame.getUnitState(unit);
+		if (state == null)
+			return null;
+		double[] position = state.getPosition();
+		UnitState base = baseFrame == null ? null : baseFrame.getUnitState(unit);
+		if (base != null) {
+			position[0] = base.getX() + shownAlpha * (position[0] - base.getX());
+			position[1] = base.getY() + shownAlpha * (position[1] - base.getY());
+			position[2] = base.getZ() + shownAlpha * (position[2] - base.getZ());
+		}
+		return position;
+	}
+
+	protected void deselectDeadUnit() {
+		getSelectedUnit().ifPresent(unit -> {
+			if (shownFrame != null && shownFrame.getUnitState(unit) == null) {
+				getSelectionProvider().getSelection().clear();
+			}
 		});
 	}
 
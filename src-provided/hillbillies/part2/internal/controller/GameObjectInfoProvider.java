@@ -1,5 +1,6 @@
 package hillbillies.part2.internal.controller;
 
+import java.util.Optional;
 import java.util.function.Consumer;
 
 import hillbillies.model.Boulder;
@@ -8,9 +9,15 @@ import hillbillies.model.Log;
 import hillbillies.model.Unit;
 import hillbillies.part1.internal.controller.UnitInfoProviderPart1;
 import hillbillies.part2.facade.IFacade;
+import hillbillies.part2.internal.controller.WorldFrame.UnitState;
 import hillbillies.part2.internal.providers.IGameObjectInfoProvider;
 import ogp.framework.util.ModelException;
 
+/**
+ * Provides the view with the state of units and materials. The state that is
+ * drawn every frame is read from the frame the game controller shows, and only
+ * read from the facade before the first frame.
+ */
 public class GameObjectInfoProvider extends UnitInfoProviderPart1 implements IGameObjectInfoProvider {
 
 	public GameObjectInfoProvider(IGameController2 game, Consumer<ModelException> errorHandler) {
@@ -27,6 +34,83 @@ public class GameObjectInfoProvider extends UnitInfoProviderPart1 implements IGa
 		return (IFacade) super.getFacade();
 	}
 
+	private UnitState getShownState(Unit unit) {
+		WorldFrame frame = getGame().getShownFrame();
+		return frame == null ? null : frame.getUnitState(unit);
+	}
+
+	@Override
+	public Optional<double[]> getPosition(Unit unit) {
+		double[] position = getGame().getShownPosition(unit);
+		if (position != null)
+			return Optional.of(position);
+		return super.getPosition(unit);
+	}
+
+	@Override
+	public int getOrientationInDegrees(Unit unit) {
+		UnitState state = getShownState(unit);
+		if (state != null)
+			return toDegrees(state.getOrientation());
+		return super.getOrientationInDegrees(unit);
+	}
+
+	@Override
+	public boolean isAttacking(Unit unit) {
+		UnitState state = getShownState(unit);
+		if (state != null)
+			return state.isAttacking();
+		return super.isAttacking(unit);
+	}
+
+	@Override
+	public boolean isWorking(Unit unit) {
+		UnitState state = getShownState(unit);
+		if (state != null)
+			return state.isWorking();
+		return super.isWorking(unit);
+	}
+
+	@Override
+	public boolean isWalking(Unit unit) {
+		UnitState state = getShownState(unit);
+		if (state != null)
+			return state.isWalking();
+		return super.isWalking(unit);
+	}
+
+	@Override
+	public boolean isResting(Unit unit) {
+		UnitState state = getShownState(unit);
+		if (state != null)
+			return state.isResting();
+		return super.isResting(unit);
+	}
+
+	@Override
+	public boolean isSprinting(Unit unit) {
+		UnitState state = getShownState(unit);
+		if (state != null)
+			return state.isSprinting();
+		return super.isSprinting(unit);
+	}
+
+	@Override
+	public int getHitpoints(Unit unit) {
+		UnitState state = getShownState(unit);
+		if (state != null)
+			return state.getHitpoints();
+		return super.getHitpoints(unit);
+	}
+
+	@Override
+	public int getStaminapoints(Unit unit) {
+		UnitState state = getShownState(unit);
+		if (state != null)
+			return state.getStaminapoints();
+		return super.getStaminapoints(unit);
+	}
+
 	@Override
 	public int getExperiencePoints(Unit unit) {
 		try {
@@ -39,6 +123,9 @@ public class GameObjectInfoProvider extends UnitInfoProviderPart1 implements IGa
 
 	@Override
 	public boolean isCarryingLog(Unit unit) {
+		UnitState state = getShownState(unit);
+		if (state != null)
+			return state.isCarryingLog();
 		try {
 			return getFacade().isCarryingLog(unit);
 		} catch (ModelException e) {
@@ -49,6 +136,9 @@ public class GameObjectInfoProvider extends UnitInfoProviderPart1 implements IGa
 
 	@Override
 	public boolean isCarryingBoulder(Unit unit) {
+		UnitState state = getShownState(unit);
+		if (state != null)
+			return state.isCarryingBoulder();
 		try {
 			return getFacade().isCarryingBoulder(unit);
 		} catch (ModelException e) {
@@ -59,6 +149,9 @@ public class GameObjectInfoProvider extends UnitInfoProviderPart1 implements IGa
 
 	@Override
 	public Faction getFaction(Unit unit) {
+		UnitState state = getShownState(unit);
+		if (state != null)
+			return state.getFaction();
 		try {
 			return getFacade().getFaction(unit);
 		} catch (ModelException e) {
@@ -79,6 +172,10 @@ public class GameObjectInfoProvider extends UnitInfoProviderPart1 implements IGa
 
 	@Override
 	public double[] getPosition(Boulder object) {
+		WorldFrame frame = getGame().getShownFrame();
+		double[] position = frame == null ? null : frame.getPosition(object);
+		if (position != null)
+			return position;
 		try {
 			return getFacade().getPosition(object);
 		} catch (ModelException e) {
@@ -89,6 +186,10 @@ public class GameObjectInfoProvider extends UnitInfoProviderPart1 implements IGa
 
 	@Override
 	public double[] getPosition(Log object) {
+		WorldFrame frame = getGame().getShownFrame();
+		double[] position = frame == null ? null : frame.getPosition(object);
+		if (position != null)
+			return position;
 		try {
 			return getFacade().getPosition(object);
 		} catch (ModelException e) {
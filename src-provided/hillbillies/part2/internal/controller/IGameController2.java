@@ -22,6 +22,19 @@ public interface IGameController2 extends IGameController1<IHillbilliesView2> {
 	void spawnUnits(int n);
 
 	boolean isPlayerUnit(Unit u);
+
+	/**
+	 * Return the frame of the world the view shows, or null if no frame has
+	 * been shown yet.
+	 */
+	WorldFrame getShownFrame();
+
+	/**
+	 * Return the position at which the view shows the given unit, between its
+	 * positions in the shown frame and the frame before it, or null if the
+	 * unit is not in the shown frame.
+	 */
+	double[] getShownPosition(Unit u);
 	
 	@Override
 	Part2Options getOptions();
@@ -0,0 +1,290 @@
+package hillbillies.part2.internal.controller;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import hillbillies.model.Boulder;
+import hillbillies.model.Faction;
+import hillbillies.model.Log;
+import hillbillies.model.Unit;
+import hillbillies.part2.internal.map.CubeType;
+
+/**
+ * An immutable view of the state of a world that is drawn, taken after one
+ * tick of the simulation.
+ *
+ * A frame holds the units and materials that are alive, and the terrain cubes
+ * that changed during its tick together with their new type and whether they
+ * are anchored, so the UI thread never has to read the terrain of the world
+ * itself. Frames are linked to the frame published
+ * before them, so the UI thread can collect the terrain changes of the ticks it
+ * skipped and interpolate between two ticks.
+ */
+public final class WorldFrame {
+
+	/**
+	 * The state of one unit in a frame.
+	 */
+	public static final class UnitState {
+		private final double[] position;
+		private final double orientation;
+		private final boolean attacking, working, walking, resting, sprinting;
+		private final boolean carryingLog, carryingBoulder;
+		private final Faction faction;
+		private final int hitpoints, staminapoints;
+
+		UnitState(double[] position, double orientation, boolean attacking, boolean working, boolean walking,
+				boolean resting, boolean sprinting, boolean carryingLog, boolean carryingBoulder, Faction faction,
+				int hitpoints, int staminapoints) {
+			this.position = position;
+			this.orientation = orientation;
+			this.attacking = attacking;
+			this.working = working;
+			this.walking = walking;
+			this.resting = resting;
+			this.sprinting = sprinting;
+			this.carryingLog = carryingLog;
+			this.carryingBoulder = carryingBoulder;
+			this.faction = faction;
+			this.hitpoints = hitpoints;
+			this.staminapoints = staminapoints;
+		}
+
+		public double[] getPosition() {
+			return position.clone();
+		}
+
+		double getX() {
+			return position[0];
+		}
+
+		double getY() {
+			return position[1];
+		}
+
+		double getZ() {
+			return position[2];
+		}
+
+		/**
+		 * Return the orientation of the unit, in radians.
+		 */
+		public double getOrientation() {
+			return orientation;
+		}
+
+		public boolean isAttacking() {
+			return attacking;
+		}
+
+		public boolean isWorking() {
+			return working;
+		}
+
+		public boolean isWalking() {
+			return walking;
+		}
+
+		public boolean isResting() {
+			return resting;
+		}
+
+		public boolean isSprinting() {
+			return sprinting;
+		}
+
+		public boolean isCarryingLog() {
+			return carryingLog;
+		}
+
+		public boolean isCarryingBoulder() {
+			return carryingBoulder;
+		}
+
+		public Faction getFaction() {
+			return faction;
+		}
+
+		public int getHitpoints() {
+			return hitpoints;
+		}
+
+		public int getStaminapoints() {
+			return staminapoints;
+		}
+	}
+
+	private final long tick;
+	private final Map<Unit, UnitState> units;
+	private final Map<Log, double[]> logs;
+	private final Map<Boulder, double[]> boulders;
+	private final List<int[]> changedCubes;
+	private final byte[] changedTypes;
+	private final boolean[] changedAnchored;
+
+	/**
+	 * The units, logs and boulders of this frame, bucketed by the column of
+	 * cubes {x, y} they lie in, so a box query only looks at the columns the
+	 * box covers.
+	 */
+	private final Map<Long, List<Object>> columns = new HashMap<>();
+
+	/**
+	 * The frame published before this one, or null if it is no longer needed.
+	 * Only read and cut on the UI thread.
+	 */
+	private WorldFrame previous;
+
+	WorldFrame(WorldFrame previous, Map<Unit, UnitState> units, Map<Log, double[]> logs,
+			Map<Boulder, double[]> boulders, List<int[]> changedCubes, byte[] changedTypes,
+			boolean[] changedAnchored) {
+		if (changedTypes.length != changedCubes.size() || changedAnchored.length != changedCubes.size())
+			throw new IllegalArgumentException("Every changed cube needs a type and an anchored flag");
+		this.previous = previous;
+		this.tick = previous == null ? 0 : previous.tick + 1;
+		this.units = Collections.unmodifiableMap(units);
+		this.logs = Collections.unmodifiableMap(logs);
+		this.boulders = Collections.unmodifiableMap(boulders);
+		this.changedCubes = Collections.unmodifiableList(changedCubes);
+		this.changedTypes = changedTypes;
+		this.changedAnchored = changedAnchored;
+		units.forEach((unit, state) -> addToColumn(unit, state.position));
+		logs.forEach(this::addToColumn);
+		boulders.forEach(this::addToColumn);
+	}
+
+	private void addToColumn(Object object, double[] position) {
+		if (position == null)
+			return;
+		columns.computeIfAbsent(columnKey((int) Math.floor(position[0]), (int) Math.floor(position[1])),
+				key -> new ArrayList<>(2)).add(object);
+	}
+
+	private static long columnKey(int x, int y) {
+		return ((long) x << 32) | (y & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Return the number of frames published before this one.
+	 */
+	public long getTick() {
+		return tick;
+	}
+
+	public Set<Unit> getUnits() {
+		return units.keySet();
+	}
+
+	/**
+	 * Return the state of the given unit in this frame, or null if the unit is
+	 * not alive in this frame.
+	 */
+	public UnitState getUnitState(Unit unit) {
+		return units.get(unit);
+	}
+
+	public Set<Log> getLogs() {
+		return logs.keySet();
+	}
+
+	public Set<Boulder> getBoulders() {
+		return boulders.keySet();
+	}
+
+	/**
+	 * Return the position of the given log in this frame, or null if it is
+	 * not in the world in this frame.
+	 */
+	public double[] getPosition(Log log) {
+		double[] position = logs.get(log);
+		return position == null ? null : position.clone();
+	}
+
+	/**
+	 * Return the position of the given boulder in this frame, or null if it
+	 * is not in the world in this frame.
+	 */
+	public double[] getPosition(Boulder boulder) {
+		double[] position = boulders.get(boulder);
+		return position == null ? null : position.clone();
+	}
+
+	/**
+	 * Return the coordinates {x, y, z} of the terrain cubes that changed type
+	 * during the tick of this frame.
+	 */
+	public List<int[]> getChangedCubes() {
+		return changedCubes;
+	}
+
+	/**
+	 * Return the type of the changed cube at the given index in
+	 * {@link #getChangedCubes()}, at the end of the tick of this frame.
+	 */
+	public CubeType getChangedType(int index) {
+		return CubeType.fromByte(changedTypes[index]);
+	}
+
+	/**
+	 * Return whether the changed cube at the given index in
+	 * {@link #getChangedCubes()} is solid and connected to the border, at the
+	 * end of the tick of this frame.
+	 */
+	public boolean isChangedAnchored(int index) {
+		return changedAnchored[index];
+	}
+
+	/**
+	 * Return the units, logs and boulders of this frame whose position lies in
+	 * the box from min (inclusive) to max (exclusive).
+	 */
+	public Set<Object> getObjectsInBox(double[] min, double[] max) {
+		Set<Object> result = new HashSet<>();
+		int minX = (int) Math.floor(min[0]), maxX = (int) Math.ceil(max[0]) - 1;
+		int minY = (int) Math.floor(min[1]), maxY = (int) Math.ceil(max[1]) - 1;
+		if (maxX < minX || maxY < minY)
+			return result;
+		if ((long) (maxX - minX + 1) * (maxY - minY + 1) > columns.size()) {
+			for (List<Object> column : columns.values())
+				addInBox(column, min, max, result);
+		} else {
+			for (int x = minX; x <= maxX; x++)
+				for (int y = minY; y <= maxY; y++) {
+					List<Object> column = columns.get(columnKey(x, y));
+					if (column != null)
+						addInBox(column, min, max, result);
+				}
+		}
+		return result;
+	}
+
+	private void addInBox(List<Object> column, double[] min, double[] max, Set<Object> result) {
+		for (Object object : column) {
+			double[] position = getPositionOf(object);
+			if (min[0] <= position[0] && position[0] < max[0] && min[1] <= position[1] && position[1] < max[1]
+					&& min[2] <= position[2] && position[2] < max[2])
+				result.add(object);
+		}
+	}
+
+	private double[] getPositionOf(Object object) {
+		if (object instanceof Unit)
+			return units.get(object).position;
+		if (object instanceof Log)
+			return logs.get(object);
+		return boulders.get(object);
+	}
+
+	WorldFrame getPrevious() {
+		return previous;
+	}
+
+	void cutPrevious() {
+		previous = null;
+	}
+}
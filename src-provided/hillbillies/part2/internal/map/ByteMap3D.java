@@ -3,6 +3,7 @@ package hillbillies.part2.internal.map;
 import java.util.HashSet;
 import java.util.Set;
 
+import hillbillies.common.internal.map.DirtyRegion;
 import hillbillies.common.internal.map.IByteMap3D;
 
 /**
@@ -24,6 +25,7 @@ public class ByteMap3D implements IByteMap3D {
 		this.tileTypes = new byte[nbXY * nbZ];
 		for (int i = 0; i < tileTypes.length; i++)
 			tileTypes[i] = -1;
+		this.changes = new DirtyRegion(nbX, nbY, nbZ);
 	}
 
 	@Override
@@ -56,6 +58,19 @@ public class ByteMap3D implements IByteMap3D {
 
 	@Override
 	public void setValue(int x, int y, int z, byte value) {
+		setValueInBatch(x, y, z, value);
+		fireChanges();
+	}
+
+	@Override
+	public void setValues(Iterable<int[]> cells, ValueProvider provider) {
+		for (int[] cell : cells) {
+			setValueInBatch(cell[0], cell[1], cell[2], provider.getValue(cell[0], cell[1], cell[2]));
+		}
+		fireChanges();
+	}
+
+	private void setValueInBatch(int x, int y, int z, byte value) {
 		if (!isValidIndex(x, y, z))
 			throw new AssertionError("Invalid coordinates: " + x + ", " + y + ", " + z);
 
@@ -66,14 +81,30 @@ public class ByteMap3D implements IByteMap3D {
 			fireChange(x, y, z, oldValue, value);
 		}
 	}
-	
+
 	private void fireChange(int x, int y, int z, byte oldValue, byte newValue) {
 		for (Listener listener : listeners) {
 			listener.onChange(x, y, z, oldValue, newValue);
 		}
+		changes.add(x, y, z);
+	}
+
+	/**
+	 * Notify the batch listeners of the cells changed since the last batch.
+	 */
+	private void fireChanges() {
+		if (changes.isEmpty())
+			return;
+		for (BatchListener listener : batchListeners) {
+			listener.onChanges(changes);
+		}
+		changes.clear();
 	}
 
+	private final DirtyRegion changes;
+
 	private final Set<Listener> listeners = new HashSet<>();
+	private final Set<BatchListener> batchListeners = new HashSet<>();
 
 	@Override
 	public void addListener(Listener listener) {
@@ -84,6 +115,15 @@ public class ByteMap3D implements IByteMap3D {
 		listeners.remove(listener);
 	}
 
+	@Override
+	public void addBatchListener(BatchListener listener) {
+		batchListeners.add(listener);
+	}
+
+	public void removeBatchListener(BatchListener listener) {
+		batchListeners.remove(listener);
+	}
+
 	@Override
 	public void fill(ValueProvider provider) {
 		for (int z = 0; z < nbZ; z++) {
@@ -101,6 +141,7 @@ public class ByteMap3D implements IByteMap3D {
 				}
 			}
 		}
+		fireChanges();
 	}
 
 	@Override
@@ -70,6 +70,16 @@ public class GameMap {
 		return result;
 	}
 
+	/**
+	 * Create a game map with the given terrain types, indexed [x][y][z], such
+	 * as those of a binary world file.
+	 */
+	public static GameMap fromTerrainTypes(int[][][] types) {
+		GameMap result = new GameMap(types.length, types[0].length, types[0][0].length);
+		result.getMap().fill((x, y, z) -> (byte) types[x][y][z]);
+		return result;
+	}
+
 	@Override
 	public String toString() {
 		return String.format("GameMap (%dx%dx%d)", getNbTilesX(), getNbTilesY(), getNbTilesZ());
@@ -69,6 +69,14 @@ public class UnitSprite2 extends UnitSprite {
 		super.update();
 	}
 
+	@Override
+	protected void reset() {
+		super.reset();
+		this.factionIndex = -1;
+		this.carriesBoulder = false;
+		this.carriesLog = false;
+	}
+
 	protected void updateCarries() {
 		this.carriesBoulder = getInfoProvider().isCarryingBoulder(getUnit());
 		this.carriesLog = getInfoProvider().isCarryingLog(getUnit());
@@ -1,5 +1,7 @@
 package hillbillies.part2.listener;
 
+import java.util.List;
+
 /**
  * A listener for communicating terrain changes to the GUI.
  * 
@@ -25,4 +27,20 @@ public interface TerrainChangeListener {
 	 *            The z-coordinate of the cube that has changed type
 	 */
 	public void notifyTerrainChanged(int x, int y, int z);
+
+	/**
+	 * Notify the GUI that the terrain cubes at the given positions have all
+	 * been changed by the same event, such as a cave-in.
+	 * 
+	 * By default, {@link #notifyTerrainChanged(int, int, int)} is invoked for
+	 * every cube; listeners that can handle a group of changes at once may
+	 * override this method.
+	 * 
+	 * @param cubes
+	 *            The coordinates {x, y, z} of the cubes that have changed type
+	 */
+	public default void notifyTerrainChanged(List<int[]> cubes) {
+		for (int[] cube : cubes)
+			notifyTerrainChanged(cube[0], cube[1], cube[2]);
+	}
 }
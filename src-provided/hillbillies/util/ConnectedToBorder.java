@@ -2,35 +2,43 @@ package hillbillies.util;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
-import java.util.Deque;
-import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
-import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * Interface for a (somewhat efficient) algorithm that determines whether a
  * solid cube is connected to a border of the world through other directly
  * adjacent solid cubes.
- * 
+ *
  * The algorithm assumes two things: (1) initially, the entire world is solid;
  * (2) a cube can only transition from solid to passable.
- * 
+ *
  * USAGE: Create ONE instance of {@link ConnectedToBorder} for a world,
  * initialized with the dimensions of the world. Initially, the world is assumed
  * to be completely composed of SOLID tiles. Update the algorithm state using
  * the {@link #changeSolidToPassable(int, int, int)} method. At any point, use
  * the {@link #isSolidConnectedToBorder(int, int, int)} method to find out if a
  * cube is connected to the world.
- * 
+ *
  * @author Koen Yskout
- * 
+ *
  * @note The problem to solve is an instance of the 'decremental dynamic
  *       connectivity' graph problem; better algorithms probably exist.
+ *
+ * @note Cubes are identified by their flat index x + y*nbX + z*nbX*nbY. When a
+ *       cube becomes passable, a depth-first search is started from each of
+ *       its solid neighbours, always trying the direction of the nearest
+ *       border first. The searches advance in turn, one cube at a time, so a
+ *       small piece of rock that got cut loose is found without waiting for
+ *       the search through the surrounding rock mass; searches that meet are
+ *       merged. All bookkeeping uses reusable primitive arrays, marked with a
+ *       stamp per operation instead of being cleared.
+ *
+ * @note Per cube, the state takes two bits. The marks of the searches are kept
+ *       in pages that are only allocated when a search reaches them, and are
+ *       dropped between operations once they take too much memory, so large
+ *       worlds only pay for the regions that were searched recently.
  */
 
 public class ConnectedToBorder {
@@ -38,7 +46,7 @@ public class ConnectedToBorder {
 	/**
 	 * Create a new instance of the algorithm, initialized for a world of the
 	 * given dimensions where all cubes are solid.
-	 * 
+	 *
 	 * @param nbX
 	 * @param nbY
 	 * @param nbZ
@@ -47,17 +55,22 @@ public class ConnectedToBorder {
 		this.nbX = nbX;
 		this.nbY = nbY;
 		this.nbZ = nbZ;
-		this.passable = new boolean[nbX * nbY * nbZ];
-		this.notConnected = new boolean[nbX * nbY * nbZ];
+		this.nbXY = nbX * nbY;
+		this.nbCubes = nbX * nbY * nbZ;
+		this.passable = new BitSet(nbCubes);
+		this.notConnected = new BitSet(nbCubes);
+		this.marks = new int[(nbCubes + PAGE_MASK) >>> PAGE_SHIFT][];
+		for (int i = 0; i < NB_DIRECTIONS; i++)
+			this.searches[i] = new Search();
 	}
 
 	/**
 	 * Returns whether the cube at the given position is a solid cube that is
 	 * connected to a border of the world through other directly adjacent solid
 	 * cubes.
-	 * 
+	 *
 	 * @note The result is pre-computed, so this query returns immediately.
-	 * 
+	 *
 	 * @param x
 	 *            The x-coordinate of the cube to test
 	 * @param y
@@ -68,24 +81,24 @@ public class ConnectedToBorder {
 	 */
 	public boolean isSolidConnectedToBorder(int x, int y, int z) {
 		int index = getIndex(x, y, z);
-		return isSolid(index) && !notConnected[index];
+		return isSolid(index) && !notConnected.get(index);
 	}
 
 	/**
 	 * Make the cube at the given position solid instead of passable, and return
 	 * the list of coordinates that became connected to a border of the world
 	 * due to this change.
-	 * 
+	 *
 	 * @note This operation possibly iterates over the whole world, so it could
 	 *       take some time.
-	 * 
+	 *
 	 * @param x
 	 *            The x-coordinate of the cube to make solid
 	 * @param y
 	 *            The y-coordinate of the cube to make solid
 	 * @param z
 	 *            The z-coordinate of the cube to make solid
-	 * 
+	 *
 	 * @return The list of cube coordinates (where each coordinate is an array
 	 *         {x, y, z}) that have become connected to the border by performing
 	 *         this change. If non-empty, this always includes the provided
@@ -96,97 +109,245 @@ public class ConnectedToBorder {
 		if (isSolid(index)) {
 			return Collections.emptyList();
 		}
-		passable[index] = false;
-		List<Integer> coord = Arrays.asList(x, y, z);
-		// if the coordinate is at the border, or one of its solid neighbours is known to be connected, the coordinate becomes connected as well
-		// any adjacent non-connected neighbours now also become connected, and this repeats recursively
-		if (isBorder(coord) || getDirectlyAdjacentSolids(coord).stream().anyMatch(c -> isSolidConnectedToBorder(c.get(0), c.get(1), c.get(2)))) {
-			List<int[]> result = new ArrayList<>();
-			Set<List<Integer>> alreadyMadeConnected = new HashSet<>();
-			Queue<List<Integer>> stillToMakeConnected = new LinkedList<>();
-			stillToMakeConnected.add(coord);
-			while (!stillToMakeConnected.isEmpty()) {
-				List<Integer> coordToMakeConnected = stillToMakeConnected.poll();
-				if (alreadyMadeConnected.contains(coordToMakeConnected)) {
-					continue;
-				}
-				notConnected[getIndex(coordToMakeConnected)] = false;
-				alreadyMadeConnected.add(coordToMakeConnected);
-				result.add(new int[] { coordToMakeConnected.get(0), coordToMakeConnected.get(1), coordToMakeConnected.get(2) });
-				for (List<Integer> neighbour : getDirectlyAdjacentSolids(coordToMakeConnected)) {
-					if (!alreadyMadeConnected.contains(neighbour) && !isSolidConnectedToBorder(neighbour.get(0), neighbour.get(1), neighbour.get(2))) {
-						stillToMakeConnected.add(neighbour);
-					}
+		passable.clear(index);
+		// if the coordinate is at the border, or one of its solid neighbours is
+		// known to be connected, the coordinate becomes connected as well
+		// any adjacent non-connected neighbours now also become connected, and
+		// this repeats recursively
+		boolean connected = isBorder(index);
+		for (int direction = 0; direction < NB_DIRECTIONS && !connected; direction++) {
+			int neighbour = getNeighbour(index, direction);
+			connected = neighbour >= 0 && isSolid(neighbour) && !notConnected.get(neighbour);
+		}
+		if (!connected)
+			return Collections.emptyList();
+
+		List<int[]> result = new ArrayList<>();
+		int stamp = nextStamp();
+		Search queue = searches[0];
+		queue.clear();
+		queue.push(index);
+		setMark(index, stamp, 0);
+		while (queue.stackSize > 0) {
+			int cube = queue.stack[--queue.stackSize];
+			notConnected.clear(cube);
+			result.add(getCoordinate(cube));
+			for (int direction = 0; direction < NB_DIRECTIONS; direction++) {
+				int neighbour = getNeighbour(cube, direction);
+				if (neighbour >= 0 && !isMarked(neighbour, stamp) && isSolid(neighbour)
+						&& notConnected.get(neighbour)) {
+					setMark(neighbour, stamp, 0);
+					queue.push(neighbour);
 				}
 			}
-			return result;
 		}
-		return Collections.emptyList();
+		return result;
 	}
 
-	
 	/**
 	 * Make the cube at the given position passable instead of solid, and return
 	 * the list of coordinates that are no longer connected to a border of the
 	 * world due to this change.
-	 * 
+	 *
 	 * @note This operation possibly iterates over the whole world, so it could
 	 *       take some time.
-	 * 
+	 *
 	 * @param x
 	 *            The x-coordinate of the cube to make passable
 	 * @param y
 	 *            The y-coordinate of the cube to make passable
 	 * @param z
 	 *            The z-coordinate of the cube to make passable
-	 * 
+	 *
 	 * @return The list of cube coordinates (where each coordinate is an array
 	 *         {x, y, z}) that have become disconnected from the border by
 	 *         performing this change.
 	 */
 	public List<int[]> changeSolidToPassable(int x, int y, int z) {
 		int index = getIndex(x, y, z);
-		if (passable[index])
+		if (passable.get(index))
 			return Collections.emptyList();
 
-		passable[index] = true;
-		notConnected[index] = true;
+		passable.set(index);
+		notConnected.set(index);
 
-		Set<List<Integer>> knownConnectedToBorder = new HashSet<>();
-		Set<List<Integer>> knownNotConnectedToBorder = new HashSet<>();
-		List<int[]> changed = new ArrayList<>();
-		// get all solid neighbours
-		for (List<Integer> neighbour : getDirectlyAdjacentSolids(Arrays.asList(x, y, z))) {
-			if (knownConnectedToBorder.contains(neighbour) || knownNotConnectedToBorder.contains(neighbour)) {
-				// if we already know the state of this neighbour, go to the
-				// next one
+		// start a search from every solid neighbour that is still connected;
+		// neighbours that were already disconnected stay disconnected and did
+		// not change
+		int stamp = nextStamp();
+		int nbSearches = 0;
+		for (int direction = 0; direction < NB_DIRECTIONS; direction++) {
+			int neighbour = getNeighbour(index, direction);
+			if (neighbour < 0 || !isSolid(neighbour) || notConnected.get(neighbour) || isMarked(neighbour, stamp))
 				continue;
-			} else {
-				// if we don't already know the state of this neighbour, try to
-				// find a path to the border
-				// We want to keep track of all cubes tested while trying to
-				// find a path.
-				Set<List<Integer>> testedWhenFindingPath = new HashSet<>();
-				if (!existsPathToBorder(neighbour, knownConnectedToBorder, knownNotConnectedToBorder,
-						testedWhenFindingPath)) {
-					// no path is found, so all tested cubes are definitely NOT
-					// connected to the border
-					for (List<Integer> testedCoord : testedWhenFindingPath) {
-						knownNotConnectedToBorder.add(testedCoord);
-						notConnected[getIndex(testedCoord)] = true;
-						changed.add(new int[] { testedCoord.get(0), testedCoord.get(1), testedCoord.get(2) });
+			Search search = searches[nbSearches];
+			search.clear();
+			searchParent[nbSearches] = nbSearches;
+			searchState[nbSearches] = isBorder(neighbour) ? CONNECTED : ACTIVE;
+			visit(neighbour, nbSearches, stamp);
+			nbSearches++;
+		}
+
+		// advance the active searches in turn until each of them has either
+		// reached the border or run out of cubes
+		List<int[]> changed = new ArrayList<>();
+		int steps = 0;
+		boolean active = true;
+		while (active) {
+			active = false;
+			for (int i = 0; i < nbSearches; i++) {
+				if (searchParent[i] != i || searchState[i] != ACTIVE)
+					continue;
+				active = true;
+				// this might take a long time - check if the impatient user has
+				// stopped us yet
+				if ((++steps & 0xFFF) == 0 && Thread.currentThread().isInterrupted())
+					throw new IllegalStateException();
+				step(i, stamp);
+				if (searchState[i] == DISCONNECTED) {
+					Search search = searches[i];
+					for (int v = 0; v < search.visitedSize; v++) {
+						int cube = search.visited[v];
+						notConnected.set(cube);
+						changed.add(getCoordinate(cube));
 					}
-				} else {
-					// neighbour is still connected via some path; don't
-					// change anything (but now we also know that all tested
-					// cubes are also definitely connected)
-					knownConnectedToBorder.addAll(testedWhenFindingPath);
 				}
 			}
 		}
 		return changed;
 	}
 
+	/**
+	 * Make all cubes that are marked in the given array passable at once, and
+	 * return the list of coordinates that are no longer connected to a border
+	 * of the world due to this change.
+	 *
+	 * @param passable
+	 *            For every cube, whether it should become passable, indexed
+	 *            by x + y*nbX + z*nbX*nbY. Cubes that are not marked keep
+	 *            their state.
+	 *
+	 * @return The list of cube coordinates (where each coordinate is an array
+	 *         {x, y, z}) that have become disconnected from the border by
+	 *         performing this change, in increasing order of their index.
+	 *
+	 * @see #changeAllSolidToPassable(BitSet)
+	 */
+	public List<int[]> changeAllSolidToPassable(boolean[] passable) {
+		if (passable.length != nbCubes)
+			throw new IllegalArgumentException();
+		return changeAllSolidToPassable(toBitSet(passable));
+	}
+
+	/**
+	 * Make all cubes whose index is set in the given bit set passable at once,
+	 * and return the list of coordinates that are no longer connected to a
+	 * border of the world due to this change.
+	 *
+	 * @note Instead of a search per cube, this operation computes the
+	 *       connectivity of the whole world with one flood fill starting from
+	 *       all solid cubes at the border, so it is meant for loading a world.
+	 *
+	 * @param passable
+	 *            The indices x + y*nbX + z*nbX*nbY of the cubes that should
+	 *            become passable. Cubes that are not set keep their state.
+	 *
+	 * @return The list of cube coordinates (where each coordinate is an array
+	 *         {x, y, z}) that have become disconnected from the border by
+	 *         performing this change, in increasing order of their index.
+	 */
+	public List<int[]> changeAllSolidToPassable(BitSet passable) {
+		if (passable.length() > nbCubes)
+			throw new IllegalArgumentException();
+		this.passable.or(passable);
+
+		BitSet reached = new BitSet(nbCubes);
+		Search stack = searches[0];
+		stack.clear();
+		for (int index = this.passable.nextClearBit(0); index < nbCubes; index = this.passable
+				.nextClearBit(index + 1))
+			if (isBorder(index)) {
+				reached.set(index);
+				stack.push(index);
+			}
+		while (stack.stackSize > 0) {
+			int cube = stack.stack[--stack.stackSize];
+			for (int direction = 0; direction < NB_DIRECTIONS; direction++) {
+				int neighbour = getNeighbour(cube, direction);
+				if (neighbour >= 0 && !reached.get(neighbour) && isSolid(neighbour)) {
+					reached.set(neighbour);
+					stack.push(neighbour);
+				}
+			}
+		}
+
+		// the solid cubes that were connected before, but are not reached now
+		BitSet disconnected = reached;
+		disconnected.flip(0, nbCubes);
+		disconnected.andNot(this.passable);
+		disconnected.andNot(notConnected);
+		notConnected.or(this.passable);
+		notConnected.or(disconnected);
+
+		// do not hold on to the stack of the flood fill, which may be large
+		searches[0] = new Search();
+
+		List<int[]> changed = new ArrayList<>();
+		for (int index = disconnected.nextSetBit(0); index >= 0; index = disconnected.nextSetBit(index + 1))
+			changed.add(getCoordinate(index));
+		return changed;
+	}
+
+	/**
+	 * Restore the state of the algorithm from the given arrays, without any
+	 * search.
+	 *
+	 * @param passable
+	 *            For every cube, whether it is passable, indexed by x + y*nbX +
+	 *            z*nbX*nbY.
+	 * @param connected
+	 *            For every cube, whether it is a solid cube that is connected
+	 *            to a border of the world, indexed like passable.
+	 *
+	 * @see #restoreState(BitSet, BitSet)
+	 */
+	public void restoreState(boolean[] passable, boolean[] connected) {
+		if (passable.length != nbCubes || connected.length != nbCubes)
+			throw new IllegalArgumentException();
+		restoreState(toBitSet(passable), toBitSet(connected));
+	}
+
+	/**
+	 * Restore the state of the algorithm from the given bit sets, without any
+	 * search.
+	 *
+	 * @note This operation is meant for restoring a saved world, whose
+	 *       connectivity was computed before; the given state is not checked.
+	 *
+	 * @param passable
+	 *            The indices x + y*nbX + z*nbX*nbY of the passable cubes.
+	 * @param connected
+	 *            The indices of the solid cubes that are connected to a border
+	 *            of the world.
+	 */
+	public void restoreState(BitSet passable, BitSet connected) {
+		if (passable.length() > nbCubes || connected.length() > nbCubes)
+			throw new IllegalArgumentException();
+		this.passable.clear();
+		this.passable.or(passable);
+		this.notConnected.set(0, nbCubes);
+		this.notConnected.andNot(connected);
+		this.notConnected.or(passable);
+	}
+
+	private static BitSet toBitSet(boolean[] values) {
+		BitSet result = new BitSet(values.length);
+		for (int index = 0; index < values.length; index++)
+			if (values[index])
+				result.set(index);
+		return result;
+	}
+
 	/*
 	 * THE FIELDS AND OPERATIONS BELOW ARE PRIVATE AND MAY NOT BE USED BY YOUR
 	 * IMPLEMENTATION
@@ -195,80 +356,235 @@ public class ConnectedToBorder {
 	private final int nbX;
 	private final int nbY;
 	private final int nbZ;
+	private final int nbXY;
+	private final int nbCubes;
 
-	private final boolean[] passable;
-	private final boolean[] notConnected;
+	private final BitSet passable;
+	private final BitSet notConnected;
 
-	private int getIndex(List<Integer> coord) {
-		return getIndex(coord.get(0), coord.get(1), coord.get(2));
+	/**
+	 * The mark of every cube, in pages of PAGE_SIZE cubes that are null until a
+	 * search reaches them: the stamp of the last operation that visited the
+	 * cube, times SEARCH_BITS, plus the search of that operation that visited
+	 * it.
+	 */
+	private final int[][] marks;
+	private int nbPages;
+	private int stamp;
+
+	private static final int PAGE_SHIFT = 12;
+	private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+	private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+	/**
+	 * The number of pages of marks that are kept between operations.
+	 */
+	private static final int MAX_PAGES = 1024;
+
+	private static final int SEARCH_BITS = 3;
+	private static final int MAX_STAMP = (1 << (31 - SEARCH_BITS)) - 1;
+
+	private static final int NB_DIRECTIONS = 6;
+
+	private static final byte ACTIVE = 0;
+	private static final byte CONNECTED = 1;
+	private static final byte DISCONNECTED = 2;
+
+	/**
+	 * The searches of the current operation, at most one per direction. A
+	 * search that met another one points to it in searchParent.
+	 */
+	private final Search[] searches = new Search[NB_DIRECTIONS];
+	private final int[] searchParent = new int[NB_DIRECTIONS];
+	private final byte[] searchState = new byte[NB_DIRECTIONS];
+
+	/**
+	 * A depth-first search through solid cubes, keeping its stack and the
+	 * cubes it visited in growable primitive arrays.
+	 */
+	private static class Search {
+
+		int[] stack = new int[64];
+		int stackSize;
+		int[] visited = new int[64];
+		int visitedSize;
+
+		void clear() {
+			stackSize = 0;
+			visitedSize = 0;
+		}
+
+		void push(int index) {
+			if (stackSize == stack.length)
+				stack = Arrays.copyOf(stack, 2 * stackSize);
+			stack[stackSize++] = index;
+		}
+
+		void addVisited(int index) {
+			if (visitedSize == visited.length)
+				visited = Arrays.copyOf(visited, 2 * visitedSize);
+			visited[visitedSize++] = index;
+		}
+
+		void addAll(Search other) {
+			for (int i = 0; i < other.stackSize; i++)
+				push(other.stack[i]);
+			for (int i = 0; i < other.visitedSize; i++)
+				addVisited(other.visited[i]);
+			other.clear();
+		}
 	}
 
-	private int getIndex(int x, int y, int z) {
-		return x + y * nbX + z * (nbX * nbY);
+	/**
+	 * Start a new operation, dropping the pages of marks if there are too many
+	 * of them; the marks of earlier operations are no longer needed.
+	 */
+	private int nextStamp() {
+		stamp++;
+		if (stamp > MAX_STAMP || nbPages > MAX_PAGES) {
+			Arrays.fill(marks, null);
+			nbPages = 0;
+			if (stamp > MAX_STAMP)
+				stamp = 1;
+		}
+		return stamp;
 	}
 
-	private boolean isSolid(int index) {
-		return !passable[index];
+	private int getMark(int index) {
+		int[] page = marks[index >>> PAGE_SHIFT];
+		return page == null ? 0 : page[index & PAGE_MASK];
 	}
 
-	private boolean isBorder(List<Integer> coord) {
-		int x = coord.get(0);
-		int y = coord.get(1);
-		int z = coord.get(2);
-		return x == 0 || x == nbX - 1 || y == 0 || y == nbY - 1 || z == 0 || z == nbZ - 1;
+	private void setMark(int index, int stamp, int search) {
+		int[] page = marks[index >>> PAGE_SHIFT];
+		if (page == null) {
+			page = new int[PAGE_SIZE];
+			marks[index >>> PAGE_SHIFT] = page;
+			nbPages++;
+		}
+		page[index & PAGE_MASK] = stamp << SEARCH_BITS | search;
 	}
 
-	private final int[][] directAdjacentOffsets = new int[][] { { -1, 0, 0 }, { +1, 0, 0 }, { 0, -1, 0 }, { 0, +1, 0 },
-			{ 0, 0, -1 }, { 0, 0, +1 } };
-
-	private boolean existsPathToBorder(List<Integer> origin, Set<List<Integer>> knownAdjacent,
-			Set<List<Integer>> knownNonAdjacent, Set<List<Integer>> visited) {
-		// visited == part of solid blob connected to origin that has been
-		// visited (but not necessarily tested)
-		Deque<List<Integer>> cubesToVisit = new LinkedList<>();
-		cubesToVisit.add(origin);
-		visited.add(origin);
-		while (!cubesToVisit.isEmpty()) {
-			// this might take a long time - check if the impatient user has
-			// stopped us yet
-			if (Thread.currentThread().isInterrupted()) {
-				throw new IllegalStateException();
-			}
-			List<Integer> cube = cubesToVisit.pollFirst();
-			if (knownAdjacent.contains(cube)) {
-				return true;
-			}
-			if (knownNonAdjacent.contains(cube)) {
-				return false;
-			}
-			if (isBorder(cube)) {
-				knownAdjacent.add(cube);
-				return true;
-			}
-			for (List<Integer> neighbour : getDirectlyAdjacentSolids(cube)) {
-				if (!visited.contains(neighbour)) {
-					visited.add(neighbour);
-					cubesToVisit.addFirst(neighbour);
+	private boolean isMarked(int index, int stamp) {
+		return getMark(index) >>> SEARCH_BITS == stamp;
+	}
+
+	private void visit(int index, int search, int stamp) {
+		setMark(index, stamp, search);
+		searches[search].push(index);
+		searches[search].addVisited(index);
+	}
+
+	private int findSearch(int search) {
+		while (searchParent[search] != search)
+			search = searchParent[search];
+		return search;
+	}
+
+	/**
+	 * Advance the given search by one cube, updating its state. A search that
+	 * meets another active search is joined with it, the largest one
+	 * continuing in the place of both.
+	 */
+	private void step(int search, int stamp) {
+		Search current = searches[search];
+		if (current.stackSize == 0) {
+			searchState[search] = DISCONNECTED;
+			return;
+		}
+		int cube = current.stack[--current.stackSize];
+		int x = cube % nbX;
+		int y = (cube / nbX) % nbY;
+		int z = cube / nbXY;
+		// push the direction of the nearest border last, so it is tried first
+		int best = 0;
+		int bestDistance = x;
+		if (nbX - 1 - x < bestDistance) {
+			best = 1;
+			bestDistance = nbX - 1 - x;
+		}
+		if (y < bestDistance) {
+			best = 2;
+			bestDistance = y;
+		}
+		if (nbY - 1 - y < bestDistance) {
+			best = 3;
+			bestDistance = nbY - 1 - y;
+		}
+		if (z < bestDistance) {
+			best = 4;
+			bestDistance = z;
+		}
+		if (nbZ - 1 - z < bestDistance)
+			best = 5;
+		for (int i = 1; i <= NB_DIRECTIONS; i++) {
+			int neighbour = getNeighbour(cube, (best + i) % NB_DIRECTIONS);
+			if (neighbour < 0 || !isSolid(neighbour))
+				continue;
+			int mark = getMark(neighbour);
+			if (mark >>> SEARCH_BITS == stamp) {
+				int other = findSearch(mark & ((1 << SEARCH_BITS) - 1));
+				if (other == search)
+					continue;
+				if (searchState[other] == CONNECTED) {
+					searchState[search] = CONNECTED;
+					return;
 				}
+				// both searches are in the same piece of rock: continue as one
+				int small = searches[other].visitedSize < current.visitedSize ? other : search;
+				int large = small == other ? search : other;
+				searches[large].addAll(searches[small]);
+				searchParent[small] = large;
+				if (small == search)
+					return;
+				continue;
+			}
+			visit(neighbour, search, stamp);
+			if (isBorder(neighbour)) {
+				searchState[search] = CONNECTED;
+				return;
 			}
 		}
-		return false;
 	}
 
-	private List<List<Integer>> getDirectlyAdjacentSolids(List<Integer> coord) {
-		return getDirectlyAdjacentCoordinates(coord).filter(c -> {
-			int x = c.get(0);
-			int y = c.get(1);
-			int z = c.get(2);
-			return x >= 0 && x < nbX && y >= 0 && y < nbY && z >= 0 && z < nbZ && isSolid(getIndex(c));
-		}).collect(Collectors.toList());
+	private int getIndex(int x, int y, int z) {
+		return x + y * nbX + z * nbXY;
+	}
+
+	private int[] getCoordinate(int index) {
+		return new int[] { index % nbX, (index / nbX) % nbY, index / nbXY };
 	}
 
-	private Stream<List<Integer>> getDirectlyAdjacentCoordinates(List<Integer> coord) {
-		List<int[]> shuffledOffsets = new ArrayList<>(Arrays.asList(directAdjacentOffsets));
-		Collections.shuffle(shuffledOffsets);
-		return shuffledOffsets.stream().map(
-				offset -> Arrays.asList(coord.get(0) + offset[0], coord.get(1) + offset[1], coord.get(2) + offset[2]));
+	/**
+	 * Return the index of the neighbour of the given cube in the given
+	 * direction (-x, +x, -y, +y, -z, +z), or -1 if it lies outside the world.
+	 */
+	private int getNeighbour(int index, int direction) {
+		switch (direction) {
+		case 0:
+			return index % nbX == 0 ? -1 : index - 1;
+		case 1:
+			return index % nbX == nbX - 1 ? -1 : index + 1;
+		case 2:
+			return (index / nbX) % nbY == 0 ? -1 : index - nbX;
+		case 3:
+			return (index / nbX) % nbY == nbY - 1 ? -1 : index + nbX;
+		case 4:
+			return index < nbXY ? -1 : index - nbXY;
+		default:
+			return index + nbXY >= nbCubes ? -1 : index + nbXY;
+		}
+	}
+
+	private boolean isSolid(int index) {
+		return !passable.get(index);
+	}
+
+	private boolean isBorder(int index) {
+		int x = index % nbX;
+		int y = (index / nbX) % nbY;
+		int z = index / nbXY;
+		return x == 0 || x == nbX - 1 || y == 0 || y == nbY - 1 || z == 0 || z == nbZ - 1;
 	}
 
 	@Override
@@ -3,9 +3,25 @@ package ogp.framework.game;
 import javafx.animation.AnimationTimer;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleWrapper;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleDoubleProperty;
 
+/**
+ * Updates a game and refreshes its view.
+ *
+ * For an {@link IFramedGameController}, the game is updated at a fixed rate on
+ * a simulation thread, and the UI thread only shows the latest frame the game
+ * published, so a slow update does not drop frames and a slow frame does not
+ * slow the game. Other games are updated on the UI thread, right before every
+ * refresh.
+ *
+ * The game runs at a time scale: every second of real time, the game is
+ * updated by that many seconds of in-game time, split into updates of at most
+ * the maximum time step. Updates that do not fit in the CPU budget of a frame
+ * are dropped, and counted as lag.
+ */
 public class GameLoop {
 	private final AnimationTimer mainLoop;
 
@@ -16,21 +32,103 @@ public class GameLoop {
 
 	private double maxTimeStep;
 
+	private static final double DEFAULT_SIMULATION_STEP = 1.0 / 30;
+
+	/**
+	 * The number of steps the simulation thread may lag behind before it stops
+	 * catching up.
+	 */
+	private static final int MAX_LAG_STEPS = 5;
+
+	private double simulationStep = DEFAULT_SIMULATION_STEP;
+
+	public static final double MIN_TIME_SCALE = 1.0 / 8;
+	public static final double MAX_TIME_SCALE = 256;
+
+	private final ReadOnlyDoubleWrapper timeScale = new ReadOnlyDoubleWrapper(1);
+
+	/**
+	 * The real time, in seconds, the updates of one frame (or of one step of
+	 * the simulation thread) may take.
+	 */
+	private static final double DEFAULT_FRAME_BUDGET = 0.012;
+
+	private double frameBudget = DEFAULT_FRAME_BUDGET;
+
+	private final ReadOnlyDoubleWrapper tickRate = new ReadOnlyDoubleWrapper();
+	private final ReadOnlyDoubleWrapper lag = new ReadOnlyDoubleWrapper();
+
+	private final IFramedGameController<?> framedGame;
+
+	private Thread simulation;
+
+	private volatile boolean simulationPaused;
+	private volatile double simulationTimeScale = 1;
+	private volatile double simulatedTime;
+	private volatile long lastFrameNanos;
+	private volatile double currentStep;
+
+	/**
+	 * The exception that ended the simulation thread, to be rethrown on the UI
+	 * thread.
+	 */
+	private volatile RuntimeException simulationFailure;
+
+	/**
+	 * The number of updates so far and the in-game time dropped so far; only
+	 * written by the thread that updates the game.
+	 */
+	private volatile long nbTicks;
+	private volatile double droppedTime;
+
 	public GameLoop(IGameController<?> game) {
 		IGameView view = game.getView();
 		this.maxTimeStep = DEFAULT_MAX_IN_GAME_TIMESTEP;
+		this.framedGame = game instanceof IFramedGameController ? (IFramedGameController<?>) game : null;
+		paused.addListener((property, oldValue, newValue) -> simulationPaused = newValue);
+		timeScale.addListener((property, oldValue, newValue) -> simulationTimeScale = newValue.doubleValue());
+		if (framedGame != null) {
+			mainLoop = new AnimationTimer() {
+				@Override
+				public void handle(long now) {
+					RuntimeException failure = simulationFailure;
+					if (failure != null) {
+						// the world may be left in the middle of a tick
+						simulationFailure = null;
+						GameLoop.this.stop();
+						throw failure;
+					}
+					updateStatistics(now);
+					if (!paused.get()) {
+						inGameTime.set(simulatedTime);
+						double alpha = (System.nanoTime() - lastFrameNanos) / (currentStep * 1e9);
+						framedGame.showLatestFrame(Math.max(0, Math.min(1, alpha)));
+						view.refreshDisplay();
+					}
+				}
+			};
+			return;
+		}
 		mainLoop = new AnimationTimer() {
 			private long previous = 0;
 
 			@Override
 			public void handle(long now) {
+				updateStatistics(now);
 				if (!paused.get()) {
 					if (previous > 0) {
-						double dt = (now - previous) / 1e9;
-						double dtStep = Math.min(dt, getMaxTimeStep());
-						for (int i = 0; i < dtStep / dt; i++) {
+						double dt = (now - previous) / 1e9 * timeScale.get();
+						int nbSteps = Math.max(1, (int) Math.ceil(dt / getMaxTimeStep()));
+						double dtStep = dt / nbSteps;
+						long deadline = System.nanoTime() + (long) (frameBudget * 1e9);
+						for (int i = 0; i < nbSteps; i++) {
+							if (i > 0 && System.nanoTime() > deadline) {
+								droppedTime += (nbSteps - i) * dtStep;
+								break;
+							}
 							inGameTime.set(inGameTime.get() + dtStep);
 							game.updateGame(dtStep);
+							nbTicks++;
 						}
 					}
 					view.refreshDisplay();
@@ -48,6 +146,52 @@ public class GameLoop {
 		this.maxTimeStep = maxTimeStep;
 	}
 
+	/**
+	 * Return the in-game time of one update on the simulation thread.
+	 */
+	public double getSimulationStep() {
+		return Math.min(simulationStep, getMaxTimeStep());
+	}
+
+	public void setSimulationStep(double simulationStep) {
+		this.simulationStep = simulationStep;
+	}
+
+	/**
+	 * The number of in-game seconds per real second.
+	 */
+	public ReadOnlyDoubleProperty timeScaleProperty() {
+		return timeScale.getReadOnlyProperty();
+	}
+
+	/**
+	 * Set the time scale, clamped between {@link #MIN_TIME_SCALE} and
+	 * {@link #MAX_TIME_SCALE}.
+	 */
+	public void setTimeScale(double timeScale) {
+		this.timeScale.set(Math.max(MIN_TIME_SCALE, Math.min(MAX_TIME_SCALE, timeScale)));
+	}
+
+	public void setFrameBudget(double frameBudget) {
+		this.frameBudget = frameBudget;
+	}
+
+	/**
+	 * The number of updates of the game per real second, over the last
+	 * second.
+	 */
+	public ReadOnlyDoubleProperty tickRateProperty() {
+		return tickRate.getReadOnlyProperty();
+	}
+
+	/**
+	 * The in-game time that was dropped per real second, over the last second,
+	 * because the updates did not fit in the frame budget.
+	 */
+	public ReadOnlyDoubleProperty lagProperty() {
+		return lag.getReadOnlyProperty();
+	}
+
 	public DoubleProperty inGameTimeProperty() {
 		return inGameTime;
 	}
@@ -57,14 +201,106 @@ public class GameLoop {
 	}
 
 	public void start() {
+		if (framedGame != null && simulation == null) {
+			simulatedTime = inGameTime.get();
+			currentStep = getSimulationStep();
+			simulation = new Thread(this::simulate, "Simulation");
+			simulation.setDaemon(true);
+			simulation.start();
+		}
 		mainLoop.start();
 	}
 
 	public void stop() {
 		mainLoop.stop();
+		if (simulation != null) {
+			simulation.interrupt();
+			simulation = null;
+		}
 	}
 
 	public void togglePause() {
 		paused.set(!paused.get());
 	}
+
+	private long statisticsStart;
+	private long statisticsTicks;
+	private double statisticsDroppedTime;
+
+	private void updateStatistics(long now) {
+		if (statisticsStart == 0) {
+			statisticsStart = now;
+		} else if (now - statisticsStart > 1e9) {
+			double dt = (now - statisticsStart) / 1e9;
+			long ticks = nbTicks;
+			double dropped = droppedTime;
+			tickRate.set((ticks - statisticsTicks) / dt);
+			lag.set((dropped - statisticsDroppedTime) / dt);
+			statisticsStart = now;
+			statisticsTicks = ticks;
+			statisticsDroppedTime = dropped;
+		}
+	}
+
+	/**
+	 * Update the game at a fixed rate until the simulation thread is
+	 * interrupted, publishing a frame after every round of updates.
+	 *
+	 * Every step of real time, the game is owed that step times the time scale
+	 * of in-game time, which is paid in updates of one step each (or longer
+	 * ones when sped up), as long as they fit in the frame budget.
+	 *
+	 * An exception thrown by an update ends the simulation thread; the UI
+	 * thread then stops the loop and rethrows it.
+	 */
+	private void simulate() {
+		long next = System.nanoTime();
+		double owed = 0;
+		while (!Thread.currentThread().isInterrupted()) {
+			double step = getSimulationStep();
+			long stepNanos = (long) (step * 1e9);
+			long now = System.nanoTime();
+			if (now < next) {
+				try {
+					Thread.sleep((next - now) / 1000000, (int) ((next - now) % 1000000));
+				} catch (InterruptedException e) {
+					return;
+				}
+				continue;
+			}
+			if (!simulationPaused) {
+				double scale = simulationTimeScale;
+				// when sped up, pay with fewer, longer updates, up to the maximum
+				double update = Math.min(getMaxTimeStep(), step * Math.max(1, scale));
+				owed += step * scale;
+				long deadline = System.nanoTime() + Math.min((long) (frameBudget * 1e9), stepNanos);
+				boolean updated = false;
+				try {
+					while (owed > update - 1e-9 && (!updated || System.nanoTime() < deadline)) {
+						framedGame.updateGame(update);
+						simulatedTime += update;
+						owed -= update;
+						nbTicks++;
+						updated = true;
+					}
+					if (updated)
+						framedGame.publishFrame();
+				} catch (RuntimeException e) {
+					simulationFailure = e;
+					return;
+				}
+				if (owed > update - 1e-9) {
+					droppedTime += owed - owed % update;
+					owed %= update;
+				}
+				if (updated) {
+					currentStep = Math.max(step, step / scale);
+					lastFrameNanos = System.nanoTime();
+				}
+			}
+			next += stepNanos;
+			if (System.nanoTime() - next > MAX_LAG_STEPS * stepNanos)
+				next = System.nanoTime();
+		}
+	}
 }
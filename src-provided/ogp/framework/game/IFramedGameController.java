@@ -0,0 +1,31 @@
+package ogp.framework.game;
+
+/**
+ * A game controller whose game can be updated on a simulation thread of its
+ * own.
+ *
+ * After every update, the simulation thread asks the controller to publish an
+ * immutable frame of the state the view shows. Before every refresh of the
+ * view, the UI thread asks the controller to show the latest published frame,
+ * so the view never has to read the game while it is being updated.
+ */
+public interface IFramedGameController<V extends IGameView> extends IGameController<V> {
+
+	/**
+	 * Publish a frame of the current state of the game. Called on the
+	 * simulation thread, right after {@link #updateGame(double)}.
+	 */
+	public void publishFrame();
+
+	/**
+	 * Make the latest published frame the one the view shows. Called on the UI
+	 * thread, right before the view is refreshed.
+	 *
+	 * @param alpha
+	 *            the part of a simulation step that has passed since the latest
+	 *            frame was published, between 0 and 1, to interpolate between
+	 *            that frame and the one before it
+	 */
+	public void showLatestFrame(double alpha);
+
+}
@@ -0,0 +1,79 @@
+package hillbillies.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import hillbillies.model.Cube;
+import hillbillies.model.Task;
+import hillbillies.model.TaskFactory;
+import hillbillies.model.Unit;
+import hillbillies.model.World;
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+import hillbillies.part3.programs.TaskParser;
+
+/**
+ * a benchmark measuring World.advanceTime with the maximal time step, in a
+ * world populated with units under default behaviour and scheduled tasks
+ *
+ * @author Ellen & Marte
+ */
+public class AdvanceTimeBenchmark extends Benchmark {
+
+	public AdvanceTimeBenchmark() {
+		super("advanceTime");
+	}
+
+	@Override
+	public void setUpTrial(int[][][] terrain, BenchmarkSettings settings) throws IOException {
+		this.terrain = terrain;
+		this.settings = settings;
+		this.tickPool = settings.parallelism > 0 ? new ForkJoinPool(settings.parallelism) : null;
+		this.taskTexts.clear();
+		for (String taskFile : settings.taskFiles)
+			this.taskTexts.add(new String(Files.readAllBytes(Paths.get(settings.getTaskFile(taskFile))),
+					StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * build a new world and populate it, always in the same way
+	 */
+	@Override
+	public void setUpIteration() {
+		Random random = new Random(this.settings.seed);
+		this.world = new World(this.terrain, new DefaultTerrainChangeListener());
+		this.world.setTickPool(this.tickPool);
+		List<Cube> stableCubes = getStableCubes(this.world);
+		List<Unit> units = addUnits(this.world, stableCubes, this.settings.nbUnits, true, random);
+		if (units.isEmpty() || this.taskTexts.isEmpty())
+			return;
+		for (int i = 0; i < this.settings.nbTasks; i++) {
+			Cube selected = stableCubes.get(random.nextInt(stableCubes.size()));
+			List<int[]> selectedCubes = Collections
+					.singletonList(new int[] { selected.getX(), selected.getY(), selected.getZ() });
+			Optional<List<Task>> tasks = TaskParser.create(new TaskFactory())
+					.parseString(this.taskTexts.get(i % this.taskTexts.size()), selectedCubes);
+			if (tasks.isPresent())
+				for (Task task : tasks.get())
+					units.get(i % units.size()).getFaction().getScheduler().addTask(task);
+		}
+	}
+
+	@Override
+	public void operation(int operation) {
+		this.world.advanceTime(0.2f);
+	}
+
+	private int[][][] terrain;
+	private BenchmarkSettings settings;
+	private final List<String> taskTexts = new ArrayList<String>();
+	private ForkJoinPool tickPool;
+	private World world;
+}
@@ -0,0 +1,100 @@
+package hillbillies.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import hillbillies.model.Cube;
+import hillbillies.model.Unit;
+import hillbillies.model.World;
+
+/**
+ * a class of benchmarks measuring one operation on the model, repeated a
+ * fixed number of times per iteration
+ *
+ * @note	setUpTrial is called once per map, setUpIteration before every
+ * 			iteration; neither is timed. All randomness in the set up comes from
+ * 			the given seed, so two runs with the same seed measure the same work.
+ *
+ * @author Ellen & Marte
+ */
+public abstract class Benchmark {
+
+	/**
+	 * create a new benchmark with the given name
+	 */
+	protected Benchmark(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * return the name of this benchmark
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	private final String name;
+
+	/**
+	 * prepare the state shared by all iterations on the given map
+	 *
+	 * @param terrain
+	 *            the terrain of the map, as read from its .wrld file
+	 * @param settings
+	 *            the settings of this run
+	 */
+	public abstract void setUpTrial(int[][][] terrain, BenchmarkSettings settings) throws IOException;
+
+	/**
+	 * prepare the state for the next iteration
+	 */
+	public void setUpIteration() {
+	}
+
+	/**
+	 * perform the measured operation for the given time in the iteration
+	 *
+	 * @param operation
+	 *            the number of the operation within the iteration, from 0
+	 */
+	public abstract void operation(int operation);
+
+	/**
+	 * return all cubes of the given world a unit can stand in, in a fixed
+	 * order
+	 */
+	static List<Cube> getStableCubes(World world) {
+		List<Cube> result = new ArrayList<Cube>();
+		for (int z = 0; z < world.getNbCubesZ(); z++)
+			for (int y = 0; y < world.getNbCubesY(); y++)
+				for (int x = 0; x < world.getNbCubesX(); x++) {
+					Cube cube = new Cube(x, y, z);
+					if (cube.getCenter().isStableForUnitIn(world))
+						result.add(cube);
+				}
+		return result;
+	}
+
+	/**
+	 * add the given number of units to the given world, on stable cubes
+	 * chosen by the given random generator
+	 *
+	 * @return the units that were added
+	 */
+	static List<Unit> addUnits(World world, List<Cube> stableCubes, int nbUnits, boolean enableDefaultBehaviour,
+			Random random) {
+		List<Unit> result = new ArrayList<Unit>();
+		for (int i = 0; i < nbUnits && !stableCubes.isEmpty(); i++) {
+			Cube cube = stableCubes.get(random.nextInt(stableCubes.size()));
+			Unit unit = new Unit(cube.getX() + 0.5, cube.getY() + 0.5, cube.getZ() + 0.5, "Ellen",
+					25 + random.nextInt(76), 25 + random.nextInt(76), 25 + random.nextInt(76), 100,
+					enableDefaultBehaviour);
+			world.addUnit(unit);
+			if (unit.getWorld() == world)
+				result.add(unit);
+		}
+		return result;
+	}
+}
@@ -0,0 +1,168 @@
+package hillbillies.benchmark;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import hillbillies.headless.HeadlessRunner;
+
+/**
+ * a class running benchmarks on the bundled maps and reporting the time per
+ * operation
+ *
+ * @note	every benchmark is run on every map for a number of warm up
+ * 			iterations, which are not reported, followed by a number of measured
+ * 			iterations. The time of one iteration is divided by its number of
+ * 			operations; the mean and standard deviation over the measured
+ * 			iterations are reported.
+ *
+ * @author Ellen & Marte
+ */
+public class BenchmarkRunner {
+
+	/**
+	 * create a new benchmark runner with the given settings, reporting to the
+	 * given stream
+	 *
+	 * @throws IllegalArgumentException
+	 *             the settings or the stream are not effective
+	 */
+	public BenchmarkRunner(BenchmarkSettings settings, PrintStream out) throws IllegalArgumentException {
+		if (settings == null || out == null)
+			throw new IllegalArgumentException();
+		this.settings = settings;
+		this.out = out;
+	}
+
+	private final BenchmarkSettings settings;
+	private final PrintStream out;
+
+	/**
+	 * return the benchmarks covering the hot paths of the model
+	 */
+	public static List<Benchmark> getAllBenchmarks() {
+		return Arrays.asList(new AdvanceTimeBenchmark(), new PathPlanningBenchmark(), new CaveInBenchmark(),
+				new TaskParserBenchmark(), new TaskExecutionBenchmark());
+	}
+
+	/**
+	 * run all benchmarks whose name matches the filter of the settings on all
+	 * maps of the settings
+	 *
+	 * @throws IOException
+	 *             a map or task file could not be read
+	 */
+	public void runAll() throws IOException {
+		this.out.printf("%-14s %-10s %14s %14s %12s%n", "benchmark", "map", "us/op", "error", "ops/s");
+		for (String map : this.settings.maps) {
+			int[][][] terrain = HeadlessRunner.loadTerrain(this.settings.getMapFile(map));
+			for (Benchmark benchmark : getAllBenchmarks())
+				if (benchmark.getName().contains(this.settings.filter))
+					this.report(benchmark, map, this.run(benchmark, terrain));
+		}
+	}
+
+	/**
+	 * run the given benchmark on the given terrain
+	 *
+	 * @return the nanoseconds per operation of every measured iteration
+	 */
+	public double[] run(Benchmark benchmark, int[][][] terrain) throws IOException {
+		benchmark.setUpTrial(terrain, this.settings);
+		for (int i = 0; i < this.settings.warmupIterations; i++)
+			this.runIteration(benchmark);
+		double[] result = new double[this.settings.measurementIterations];
+		for (int i = 0; i < result.length; i++)
+			result[i] = this.runIteration(benchmark);
+		return result;
+	}
+
+	/**
+	 * run one iteration of the given benchmark
+	 *
+	 * @return the nanoseconds per operation of the iteration
+	 */
+	private double runIteration(Benchmark benchmark) {
+		benchmark.setUpIteration();
+		int nbOperations = this.settings.operationsPerIteration;
+		long start = System.nanoTime();
+		for (int operation = 0; operation < nbOperations; operation++)
+			benchmark.operation(operation);
+		return (double) (System.nanoTime() - start) / nbOperations;
+	}
+
+	/**
+	 * report the mean and standard deviation of the given measurements
+	 */
+	private void report(Benchmark benchmark, String map, double[] nanosPerOperation) {
+		double mean = 0;
+		for (double nanos : nanosPerOperation)
+			mean += nanos / nanosPerOperation.length;
+		double variance = 0;
+		for (double nanos : nanosPerOperation)
+			variance += (nanos - mean) * (nanos - mean) / Math.max(1, nanosPerOperation.length - 1);
+		this.out.printf("%-14s %-10s %14.3f %14.3f %12.1f%n", benchmark.getName(), map, mean / 1e3,
+				Math.sqrt(variance) / 1e3, mean > 0 ? 1e9 / mean : Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * run the benchmarks from the command line
+	 *
+	 * usage: BenchmarkRunner [-maps m1,m2,...] [-dir resourceDirectory]
+	 * [-tasks file1,file2,...] [-units n] [-nbtasks m] [-seed s] [-warmup w]
+	 * [-iterations i] [-ops o] [-filter name] [-parallel threads]
+	 */
+	public static void main(String[] args) throws IOException {
+		BenchmarkSettings settings = new BenchmarkSettings();
+		for (int i = 0; i < args.length; i++) {
+			String option = args[i];
+			if (i + 1 >= args.length)
+				throw new IllegalArgumentException("Missing value for " + option);
+			String value = args[++i];
+			switch (option) {
+			case "-maps":
+				settings.maps = new ArrayList<String>(Arrays.asList(value.split(",")));
+				break;
+			case "-dir":
+				settings.resourceDirectory = value;
+				break;
+			case "-tasks":
+				settings.taskFiles = new ArrayList<String>(Arrays.asList(value.split(",")));
+				break;
+			case "-units":
+				settings.nbUnits = Integer.parseInt(value);
+				break;
+			case "-nbtasks":
+				settings.nbTasks = Integer.parseInt(value);
+				break;
+			case "-seed":
+				settings.seed = Long.parseLong(value);
+				break;
+			case "-warmup":
+				settings.warmupIterations = Integer.parseInt(value);
+				break;
+			case "-iterations":
+				settings.measurementIterations = Integer.parseInt(value);
+				break;
+			case "-ops":
+				settings.operationsPerIteration = Integer.parseInt(value);
+				break;
+			case "-parallel":
+				settings.parallelism = Integer.parseInt(value);
+				break;
+			case "-filter":
+				settings.filter = value;
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option: " + option);
+			}
+		}
+		if (settings.operationsPerIteration <= 0 || settings.measurementIterations <= 0
+				|| settings.warmupIterations < 0 || settings.nbUnits < 0 || settings.nbTasks < 0
+				|| settings.parallelism < 0)
+			throw new IllegalArgumentException("Counts must be positive");
+		new BenchmarkRunner(settings, System.out).runAll();
+	}
+}
@@ -0,0 +1,61 @@
+package hillbillies.benchmark;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * a test suite for the class BenchmarkRunner
+ * @author Ellen & Marte
+ *
+ */
+public class BenchmarkRunnerTest {
+
+	private BenchmarkSettings settings;
+	private ByteArrayOutputStream output;
+	private BenchmarkRunner runner;
+
+	@Before
+	public void setUp() {
+		this.settings = new BenchmarkSettings();
+		this.settings.maps = Arrays.asList("15x15x15");
+		this.settings.taskFiles = Arrays.asList("dig.txt");
+		this.settings.nbUnits = 5;
+		this.settings.nbTasks = 3;
+		this.settings.warmupIterations = 0;
+		this.settings.measurementIterations = 2;
+		this.settings.operationsPerIteration = 5;
+		this.output = new ByteArrayOutputStream();
+		this.runner = new BenchmarkRunner(this.settings, new PrintStream(this.output));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void constructor_IllegalCase() {
+		new BenchmarkRunner(null, System.out);
+	}
+
+	@Test
+	public void run_allBenchmarks() throws IOException {
+		int[][][] terrain = new int[10][10][4];
+		for (Benchmark benchmark : BenchmarkRunner.getAllBenchmarks()) {
+			double[] result = this.runner.run(benchmark, terrain);
+			assertEquals(2, result.length);
+			assertTrue(result[0] >= 0 && result[1] >= 0);
+		}
+	}
+
+	@Test
+	public void runAll_filter() throws IOException {
+		this.settings.filter = "caveIn";
+		this.runner.runAll();
+		String[] lines = this.output.toString().trim().split("\n");
+		assertEquals(2, lines.length);
+		assertTrue(lines[1].startsWith("caveIn"));
+	}
+}
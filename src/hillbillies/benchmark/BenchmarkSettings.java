@@ -0,0 +1,82 @@
+package hillbillies.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * a class collecting the settings of a benchmark run
+ *
+ * @author Ellen & Marte
+ */
+public class BenchmarkSettings {
+
+	/**
+	 * the maps to run every benchmark on, by file name without extension
+	 */
+	List<String> maps = new ArrayList<String>(Arrays.asList("15x15x15", "20x20x10", "20x20x40", "20x40x10",
+			"25x25x25", "50x50x10", "50x50x50", "80x80x10", "80x80x80"));
+
+	/**
+	 * the directory containing the .wrld files and the tasks directory
+	 */
+	String resourceDirectory = "src-provided/resources";
+
+	/**
+	 * the task files to schedule, relative to the tasks directory
+	 */
+	List<String> taskFiles = new ArrayList<String>(Arrays.asList("dig.txt", "digtunnel.txt", "digtunnel_if.txt",
+			"goto_10_10_10.txt", "operate_workshop.txt"));
+
+	/**
+	 * the number of units under default behaviour to add to every world
+	 */
+	int nbUnits = 50;
+
+	/**
+	 * the number of tasks to schedule in every world, spread over the factions
+	 */
+	int nbTasks = 0;
+
+	/**
+	 * the number of threads the worlds plan the paths of their units on, 0 to
+	 * plan them one by one
+	 */
+	int parallelism = 0;
+
+	/**
+	 * the seed of all randomness in the set up of the benchmarks
+	 */
+	long seed = 42;
+
+	/**
+	 * the number of iterations that are run but not reported, and the number
+	 * that are reported
+	 */
+	int warmupIterations = 3;
+	int measurementIterations = 5;
+
+	/**
+	 * the number of operations in every iteration
+	 */
+	int operationsPerIteration = 100;
+
+	/**
+	 * only benchmarks whose name contains this text are run
+	 */
+	String filter = "";
+
+	/**
+	 * return the text of the given task file
+	 */
+	String getTaskFile(String taskFile) {
+		return this.resourceDirectory + "/tasks/" + taskFile;
+	}
+
+	/**
+	 * return the path of the .wrld file of the given map
+	 */
+	String getMapFile(String map) {
+		return this.resourceDirectory + "/" + map + ".wrld";
+	}
+}
@@ -0,0 +1,57 @@
+package hillbillies.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import hillbillies.model.Cube;
+import hillbillies.model.TerrainType;
+import hillbillies.model.World;
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+
+/**
+ * a benchmark measuring World.setTerrainType, every operation digging away a
+ * solid cube and letting the cubes no longer connected to the border cave in
+ *
+ * @author Ellen & Marte
+ */
+public class CaveInBenchmark extends Benchmark {
+
+	public CaveInBenchmark() {
+		super("caveIn");
+	}
+
+	@Override
+	public void setUpTrial(int[][][] terrain, BenchmarkSettings settings) {
+		this.terrain = terrain;
+		Random random = new Random(settings.seed);
+		List<Cube> solidCubes = new ArrayList<Cube>();
+		for (int x = 0; x < terrain.length; x++)
+			for (int y = 0; y < terrain[x].length; y++)
+				for (int z = 0; z < terrain[x][y].length; z++)
+					if (terrain[x][y][z] == 1 || terrain[x][y][z] == 2)
+						solidCubes.add(new Cube(x, y, z));
+		this.targets = new Cube[settings.operationsPerIteration];
+		for (int i = 0; i < this.targets.length && !solidCubes.isEmpty(); i++)
+			this.targets[i] = solidCubes.remove(random.nextInt(solidCubes.size()));
+	}
+
+	/**
+	 * start again from the terrain as read from the map
+	 */
+	@Override
+	public void setUpIteration() {
+		this.world = new World(this.terrain, new DefaultTerrainChangeListener());
+	}
+
+	@Override
+	public void operation(int operation) {
+		Cube target = this.targets[operation];
+		if (target != null)
+			this.world.setTerrainType(target, TerrainType.AIR);
+	}
+
+	private int[][][] terrain;
+	private Cube[] targets;
+	private World world;
+}
@@ -0,0 +1,43 @@
+package hillbillies.benchmark;
+
+import java.util.List;
+import java.util.Random;
+
+import hillbillies.model.Cube;
+import hillbillies.model.Unit;
+import hillbillies.model.World;
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+
+/**
+ * a benchmark measuring the path planning done by Unit.moveTo, every
+ * operation sending a unit to a new destination
+ *
+ * @author Ellen & Marte
+ */
+public class PathPlanningBenchmark extends Benchmark {
+
+	public PathPlanningBenchmark() {
+		super("moveTo");
+	}
+
+	@Override
+	public void setUpTrial(int[][][] terrain, BenchmarkSettings settings) {
+		Random random = new Random(settings.seed);
+		World world = new World(terrain, new DefaultTerrainChangeListener());
+		List<Cube> stableCubes = getStableCubes(world);
+		this.units = addUnits(world, stableCubes, Math.max(1, settings.nbUnits), false, random);
+		this.destinations = new Cube[settings.operationsPerIteration];
+		for (int i = 0; i < this.destinations.length && !stableCubes.isEmpty(); i++)
+			this.destinations[i] = stableCubes.get(random.nextInt(stableCubes.size()));
+	}
+
+	@Override
+	public void operation(int operation) {
+		if (this.units.isEmpty() || this.destinations[operation] == null)
+			return;
+		this.units.get(operation % this.units.size()).moveTo(this.destinations[operation]);
+	}
+
+	private List<Unit> units;
+	private Cube[] destinations;
+}
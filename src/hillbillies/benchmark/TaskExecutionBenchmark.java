@@ -0,0 +1,107 @@
+package hillbillies.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import hillbillies.model.Counter;
+import hillbillies.model.Cube;
+import hillbillies.model.Scheduler;
+import hillbillies.model.Task;
+import hillbillies.model.TaskFactory;
+import hillbillies.model.Unit;
+import hillbillies.model.World;
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+import hillbillies.part3.programs.TaskParser;
+
+/**
+ * a benchmark measuring the execution of tasks, without the units performing
+ * their actions
+ *
+ * @note	every operation lets every unit finish its action at once and
+ * 			continue its task with the budget of one tick, until its next
+ * 			action. A unit that has finished its task starts it again.
+ *
+ * @author Ellen & Marte
+ */
+public class TaskExecutionBenchmark extends Benchmark {
+
+	public TaskExecutionBenchmark() {
+		super("taskExecution");
+	}
+
+	@Override
+	public void setUpTrial(int[][][] terrain, BenchmarkSettings settings) throws IOException {
+		this.terrain = terrain;
+		this.settings = settings;
+		// the budget of a tick of 0.2 seconds
+		this.counter.setMaxValue(200);
+		this.taskTexts.clear();
+		for (String taskFile : settings.taskFiles)
+			this.taskTexts.add(new String(Files.readAllBytes(Paths.get(settings.getTaskFile(taskFile))),
+					StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * build a new world with units, each assigned one of the tasks
+	 */
+	@Override
+	public void setUpIteration() {
+		Random random = new Random(this.settings.seed);
+		this.world = new World(this.terrain, new DefaultTerrainChangeListener());
+		// a first tick without time, so units finishing an action at once have
+		// a counter to continue their task with
+		this.world.advanceTime(0);
+		List<Cube> stableCubes = getStableCubes(this.world);
+		this.units = addUnits(this.world, stableCubes, this.settings.nbUnits, false, random);
+		this.tasks.clear();
+		for (String text : this.taskTexts) {
+			Cube selected = stableCubes.get(random.nextInt(stableCubes.size()));
+			Optional<List<Task>> tasks = TaskParser.create(new TaskFactory()).parseString(text,
+					Collections.singletonList(new int[] { selected.getX(), selected.getY(), selected.getZ() }));
+			if (tasks.isPresent())
+				this.tasks.addAll(tasks.get());
+		}
+		if (this.tasks.isEmpty())
+			this.units.clear();
+		for (int i = 0; i < this.units.size(); i++)
+			this.assignTask(i);
+	}
+
+	private Task assignTask(int unitIndex) {
+		Unit unit = this.units.get(unitIndex);
+		Task task = this.tasks.get(unitIndex % this.tasks.size());
+		Task copy = new Task(task.getName(), task.getPriority(), task.getProgram(), task.getCube());
+		Scheduler scheduler = unit.getFaction().getScheduler();
+		scheduler.addTask(copy);
+		scheduler.assignTaskToUnit(copy, unit);
+		return copy;
+	}
+
+	@Override
+	public void operation(int operation) {
+		for (int i = 0; i < this.units.size(); i++) {
+			Task task = this.units.get(i).getTask();
+			if (task == null)
+				task = this.assignTask(i);
+			else
+				task.finishAction();
+			this.counter.reset();
+			task.execute(this.counter);
+		}
+	}
+
+	private int[][][] terrain;
+	private BenchmarkSettings settings;
+	private final List<String> taskTexts = new ArrayList<String>();
+	private final List<Task> tasks = new ArrayList<Task>();
+	private final Counter counter = new Counter();
+	private World world;
+	private List<Unit> units;
+}
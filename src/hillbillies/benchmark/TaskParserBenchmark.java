@@ -0,0 +1,61 @@
+package hillbillies.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import hillbillies.model.TaskFactory;
+import hillbillies.part3.programs.TaskParser;
+
+/**
+ * a benchmark measuring TaskParser.parseString, every operation parsing one
+ * of the task files of the settings into tasks
+ *
+ * @note	task files the parser rejects are left out, so that their error
+ * 			reporting is not measured.
+ *
+ * @author Ellen & Marte
+ */
+public class TaskParserBenchmark extends Benchmark {
+
+	public TaskParserBenchmark() {
+		super("parseString");
+	}
+
+	@Override
+	public void setUpTrial(int[][][] terrain, BenchmarkSettings settings) throws IOException {
+		this.selectedCubes = Collections.singletonList(new int[] { 0, 0, 0 });
+		this.taskTexts.clear();
+		for (String taskFile : settings.taskFiles) {
+			String text = new String(Files.readAllBytes(Paths.get(settings.getTaskFile(taskFile))),
+					StandardCharsets.UTF_8);
+			if (TaskParser.create(new TaskFactory()).parseString(text, this.selectedCubes).isPresent())
+				this.taskTexts.add(text);
+		}
+	}
+
+	@Override
+	public void operation(int operation) {
+		if (!this.taskTexts.isEmpty())
+			this.nbTasksParsed += TaskParser.create(new TaskFactory())
+					.parseString(this.taskTexts.get(operation % this.taskTexts.size()), this.selectedCubes)
+					.map(List::size).orElse(0);
+	}
+
+	/**
+	 * return the number of tasks parsed so far, keeping the results of the
+	 * parser in use
+	 */
+	public long getNbTasksParsed() {
+		return this.nbTasksParsed;
+	}
+
+	private long nbTasksParsed;
+
+	private List<int[]> selectedCubes;
+	private final List<String> taskTexts = new ArrayList<String>();
+}
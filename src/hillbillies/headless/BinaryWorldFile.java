@@ -0,0 +1,288 @@
+package hillbillies.headless;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import be.kuleuven.cs.som.annotate.*;
+import hillbillies.model.ChunkedTerrainStore;
+import hillbillies.model.World;
+import hillbillies.part2.listener.TerrainChangeListener;
+
+/**
+ * a class of worlds read from or written to the compact binary world format
+ *
+ * @note	a file starts with a header of the magic number, the version of the
+ * 			format and the number of cubes in the x, y and z direction, each as
+ * 			a big-endian int. The terrain types follow at two bits per cube,
+ * 			four cubes per byte with the first cube in the lowest bits, in the
+ * 			order of ByteMap3D: index == z*nbX*nbY + y*nbX + x.
+ * @note	files are read by mapping them into memory, and decoded straight
+ * 			into the flat array a world is created from, without parsing
+ * 			text.
+ *
+ * @invar	every terrain type is the associated integer of a terrain type,
+ * 			in [0,3]
+ *
+ * @author Ellen & Marte
+ */
+public class BinaryWorldFile {
+
+	/**
+	 * the extension of files in the binary world format
+	 */
+	public static final String EXTENSION = ".bwrld";
+
+	/**
+	 * the magic number every file in the binary world format starts with,
+	 * "HBWF" in ASCII
+	 */
+	public static final int MAGIC = 0x48425746;
+
+	/**
+	 * the version of the format written by this class
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * the number of bytes in the header
+	 */
+	private static final int HEADER_SIZE = 5 * Integer.BYTES;
+
+	/**
+	 * create a new binary world with the given dimensions and terrain types
+	 *
+	 * @param nbX
+	 *            the number of cubes in the x direction
+	 * @param nbY
+	 *            the number of cubes in the y direction
+	 * @param nbZ
+	 *            the number of cubes in the z direction
+	 * @param terrainTypes
+	 *            the associated integers of the terrain types of all cubes,
+	 *            indexed like ByteMap3D; the new world takes this array over
+	 * @throws IllegalArgumentException
+	 *             a dimension is not positive, the array does not have
+	 *             nbX*nbY*nbZ elements or it contains integers not in [0,3]
+	 */
+	public BinaryWorldFile(int nbX, int nbY, int nbZ, byte[] terrainTypes) throws IllegalArgumentException {
+		if (nbX <= 0 || nbY <= 0 || nbZ <= 0 || terrainTypes == null
+				|| terrainTypes.length != (long) nbX * nbY * nbZ)
+			throw new IllegalArgumentException();
+		for (byte terrainType : terrainTypes)
+			if (terrainType < 0 || terrainType > 3)
+				throw new IllegalArgumentException();
+		this.nbX = nbX;
+		this.nbY = nbY;
+		this.nbZ = nbZ;
+		this.terrainTypes = terrainTypes;
+	}
+
+	/**
+	 * create a new binary world with the given terrain types
+	 *
+	 * @param terrainTypes
+	 *            the terrain types, indexed [x][y][z]
+	 * @throws IllegalArgumentException
+	 *             the given array is empty or contains integers not in [0,3]
+	 */
+	public static BinaryWorldFile fromTerrainTypes(int[][][] terrainTypes) throws IllegalArgumentException {
+		if (terrainTypes.length == 0 || terrainTypes[0].length == 0 || terrainTypes[0][0].length == 0)
+			throw new IllegalArgumentException();
+		int nbX = terrainTypes.length, nbY = terrainTypes[0].length, nbZ = terrainTypes[0][0].length;
+		byte[] result = new byte[nbX * nbY * nbZ];
+		for (int x = 0; x < nbX; x++)
+			for (int y = 0; y < nbY; y++)
+				for (int z = 0; z < nbZ; z++)
+					result[(z * nbY + y) * nbX + x] = (byte) terrainTypes[x][y][z];
+		return new BinaryWorldFile(nbX, nbY, nbZ, result);
+	}
+
+	/**
+	 * return the number of cubes in the x, y and z direction of this world
+	 */
+	@Basic
+	@Immutable
+	public int getNbX() {
+		return this.nbX;
+	}
+
+	@Basic
+	@Immutable
+	public int getNbY() {
+		return this.nbY;
+	}
+
+	@Basic
+	@Immutable
+	public int getNbZ() {
+		return this.nbZ;
+	}
+
+	private final int nbX, nbY, nbZ;
+
+	/**
+	 * return the associated integer of the terrain type of the cube with the
+	 * given coordinates
+	 */
+	public int getTerrainType(int x, int y, int z) {
+		return this.terrainTypes[(z * this.nbY + y) * this.nbX + x];
+	}
+
+	/**
+	 * the associated integers of the terrain types of all cubes, indexed like
+	 * ByteMap3D
+	 */
+	private final byte[] terrainTypes;
+
+	/**
+	 * return the terrain types of this world, indexed [x][y][z]
+	 */
+	public int[][][] toTerrainTypes() {
+		int[][][] result = new int[this.nbX][this.nbY][this.nbZ];
+		for (int x = 0; x < this.nbX; x++)
+			for (int y = 0; y < this.nbY; y++)
+				for (int z = 0; z < this.nbZ; z++)
+					result[x][y][z] = this.getTerrainType(x, y, z);
+		return result;
+	}
+
+	/**
+	 * return a new world with the terrain of this binary world
+	 *
+	 * @effect |new World(getNbX(), getNbY(), getNbZ(), terrain types,
+	 *         modelListener)
+	 */
+	public World createWorld(TerrainChangeListener modelListener) {
+		return new World(this.nbX, this.nbY, this.nbZ, this.terrainTypes, modelListener);
+	}
+
+	// READING AND WRITING//
+
+	/**
+	 * read the binary world in the given file
+	 *
+	 * @param file
+	 *            the file to read
+	 * @return the world described in the given file
+	 * @throws IOException
+	 *             the file could not be read, or is not a binary world of a
+	 *             known version
+	 */
+	public static BinaryWorldFile read(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() < HEADER_SIZE)
+				throw new IOException("Not a binary world: " + file);
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.getInt() != MAGIC)
+				throw new IOException("Not a binary world: " + file);
+			int version = buffer.getInt();
+			if (version != VERSION)
+				throw new IOException("Unknown version " + version + " of binary world: " + file);
+			int nbX = buffer.getInt(), nbY = buffer.getInt(), nbZ = buffer.getInt();
+			if (nbX <= 0 || nbY <= 0 || nbZ <= 0 || (long) nbX * nbY * nbZ > Integer.MAX_VALUE - 8)
+				throw new IOException("Invalid dimensions of binary world: " + file);
+			byte[] terrainTypes = new byte[nbX * nbY * nbZ];
+			if (buffer.remaining() < packedSize(terrainTypes.length))
+				throw new IOException("Unexpected end of binary world: " + file);
+			unpack(buffer, terrainTypes);
+			return new BinaryWorldFile(nbX, nbY, nbZ, terrainTypes);
+		}
+	}
+
+	/**
+	 * write this binary world to the given file, replacing its contents
+	 *
+	 * @param file
+	 *            the file to write
+	 * @throws IOException
+	 *             the file could not be written
+	 */
+	public void write(Path file) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + packedSize(this.terrainTypes.length));
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(this.nbX).putInt(this.nbY).putInt(this.nbZ);
+		pack(this.terrainTypes, buffer);
+		buffer.flip();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+		}
+	}
+
+	/**
+	 * return the number of bytes the given number of cubes takes at two bits
+	 * per cube
+	 */
+	private static int packedSize(int nbCubes) {
+		return (nbCubes + 3) / 4;
+	}
+
+	private static void pack(byte[] terrainTypes, ByteBuffer buffer) {
+		int full = terrainTypes.length & ~3;
+		for (int index = 0; index < full; index += 4)
+			buffer.put((byte) (terrainTypes[index] | terrainTypes[index + 1] << 2 | terrainTypes[index + 2] << 4
+					| terrainTypes[index + 3] << 6));
+		if (full < terrainTypes.length) {
+			int last = 0;
+			for (int index = full; index < terrainTypes.length; index++)
+				last |= terrainTypes[index] << (2 * (index - full));
+			buffer.put((byte) last);
+		}
+	}
+
+	private static void unpack(ByteBuffer buffer, byte[] terrainTypes) {
+		int full = terrainTypes.length & ~3;
+		for (int index = 0; index < full; index += 4) {
+			int packed = buffer.get();
+			terrainTypes[index] = (byte) (packed & 3);
+			terrainTypes[index + 1] = (byte) (packed >> 2 & 3);
+			terrainTypes[index + 2] = (byte) (packed >> 4 & 3);
+			terrainTypes[index + 3] = (byte) (packed >> 6 & 3);
+		}
+		if (full < terrainTypes.length) {
+			int last = buffer.get();
+			for (int index = full; index < terrainTypes.length; index++)
+				terrainTypes[index] = (byte) (last >> (2 * (index - full)) & 3);
+		}
+	}
+
+	// COMMAND LINE//
+
+	/**
+	 * write this world to the given file as a chunked world file
+	 *
+	 * @effect |ChunkedTerrainStore.write(file, getNbX(), getNbY(), getNbZ(),
+	 *         this::getTerrainType)
+	 */
+	public void writeChunked(Path file) throws IOException {
+		ChunkedTerrainStore.write(file, this.nbX, this.nbY, this.nbZ, this::getTerrainType);
+	}
+
+	/**
+	 * convert .wrld files to the binary world format, or to a chunked world
+	 * file if the target ends in ChunkedTerrainStore.EXTENSION
+	 *
+	 * usage: BinaryWorldFile world.wrld [world.bwrld | world.cwrld]
+	 *
+	 * @note	without a second argument, the binary world is written next to
+	 * 			the given file, with the extension replaced
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0 || args.length > 2) {
+			System.err.println("usage: BinaryWorldFile world.wrld [world" + EXTENSION + " | world"
+					+ ChunkedTerrainStore.EXTENSION + "]");
+			System.exit(1);
+		}
+		String target = args.length == 2 ? args[1] : args[0].replaceFirst("\\.wrld$", "") + EXTENSION;
+		BinaryWorldFile world = fromTerrainTypes(HeadlessRunner.loadTerrain(args[0]));
+		if (target.endsWith(ChunkedTerrainStore.EXTENSION))
+			world.writeChunked(Paths.get(target));
+		else
+			world.write(Paths.get(target));
+	}
+}
@@ -0,0 +1,105 @@
+package hillbillies.headless;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import hillbillies.model.Cube;
+import hillbillies.model.World;
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+
+/**
+ * a test suite for the class BinaryWorldFile, comparing written and read
+ * worlds with the text format
+ * @author Ellen & Marte
+ *
+ */
+public class BinaryWorldFileTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private int[][][] terrainTypes;
+
+	@Before
+	public void setUp() {
+		Random random = new Random(42);
+		// 7*5*3 cubes, so the last byte is only partly used
+		this.terrainTypes = new int[7][5][3];
+		for (int x = 0; x < 7; x++)
+			for (int y = 0; y < 5; y++)
+				for (int z = 0; z < 3; z++)
+					this.terrainTypes[x][y][z] = random.nextInt(4);
+	}
+
+	@Test
+	public void read_SameAsWritten() throws IOException {
+		Path file = this.folder.newFile("world" + BinaryWorldFile.EXTENSION).toPath();
+		BinaryWorldFile.fromTerrainTypes(this.terrainTypes).write(file);
+		assertEquals(20 + (7 * 5 * 3 + 3) / 4, Files.size(file));
+		BinaryWorldFile world = BinaryWorldFile.read(file);
+		assertEquals(7, world.getNbX());
+		assertEquals(5, world.getNbY());
+		assertEquals(3, world.getNbZ());
+		assertArrayEquals(this.terrainTypes, world.toTerrainTypes());
+	}
+
+	@Test
+	public void main_ConvertsTextWorld() throws IOException {
+		File text = this.folder.newFile("world.wrld");
+		StringBuilder contents = new StringBuilder("7 5 3\n");
+		for (int z = 2; z >= 0; z--) {
+			contents.append("\n");
+			for (int y = 0; y < 5; y++) {
+				for (int x = 0; x < 7; x++)
+					contents.append(".RSW".charAt(this.terrainTypes[x][y][z]));
+				contents.append("\n");
+			}
+		}
+		Files.write(text.toPath(), contents.toString().getBytes(StandardCharsets.UTF_8));
+		BinaryWorldFile.main(new String[] { text.getPath() });
+		String binary = new File(this.folder.getRoot(), "world" + BinaryWorldFile.EXTENSION).getPath();
+		assertArrayEquals(HeadlessRunner.loadTerrain(text.getPath()), HeadlessRunner.loadTerrain(binary));
+	}
+
+	@Test
+	public void createWorld_SameAsFromArray() throws IOException {
+		this.terrainTypes = new int[7][5][3];
+		this.terrainTypes[3][2][0] = 1;
+		this.terrainTypes[3][2][1] = 1;
+		this.terrainTypes[0][0][0] = 1;
+		this.terrainTypes[2][2][2] = 2;
+		World expected = new World(this.terrainTypes, new DefaultTerrainChangeListener());
+		World world = BinaryWorldFile.fromTerrainTypes(this.terrainTypes)
+				.createWorld(new DefaultTerrainChangeListener());
+		for (int x = 0; x < 7; x++)
+			for (int y = 0; y < 5; y++)
+				for (int z = 0; z < 3; z++)
+					assertEquals(expected.getTerrainTypeInt(new Cube(x, y, z)),
+							world.getTerrainTypeInt(new Cube(x, y, z)));
+		// the tree in the air caves in in both worlds
+		assertEquals(expected.getAllMaterials().size(), world.getAllMaterials().size());
+	}
+
+	@Test(expected = IOException.class)
+	public void read_NotABinaryWorld() throws IOException {
+		Path file = this.folder.newFile("world" + BinaryWorldFile.EXTENSION).toPath();
+		Files.write(file, "7 5 3\n\n.......\n.......".getBytes(StandardCharsets.UTF_8));
+		BinaryWorldFile.read(file);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void constructor_IllegalTerrainType() {
+		new BinaryWorldFile(1, 1, 2, new byte[] { 0, 4 });
+	}
+}
@@ -0,0 +1,511 @@
+package hillbillies.headless;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import be.kuleuven.cs.som.annotate.*;
+import hillbillies.model.ChunkedTerrainStore;
+import hillbillies.model.Faction;
+import hillbillies.model.Task;
+import hillbillies.model.TaskFactory;
+import hillbillies.model.World;
+import hillbillies.model.WorldEventLog;
+import hillbillies.part2.internal.map.GameMap;
+import hillbillies.part2.internal.map.GameMapReader;
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+import hillbillies.part3.programs.TaskParser;
+
+/**
+ * a class of runners that advance the time of a game world in fixed steps,
+ * without a graphical user interface
+ *
+ * @note	by default the world is advanced as fast as possible; with a pace,
+ * 			the runner sleeps so that game time runs pace times as fast as
+ * 			wall-clock time.
+ *
+ * @invar	the time step of a runner is always in ]0, 0.2]
+ *
+ * @author Ellen & Marte
+ */
+public class HeadlessRunner implements Closeable {
+
+	/**
+	 * the largest time step World.advanceTime accepts
+	 */
+	public static final double MAX_TIME_STEP = 0.2;
+
+	/**
+	 * the number of bytes the loaded chunks of a chunked world may take, if no
+	 * other budget is given
+	 */
+	public static final long DEFAULT_MEMORY_BUDGET = 64L << 20;
+
+	/**
+	 * create a new runner for the given world
+	 *
+	 * @param world
+	 *            the world to advance
+	 * @post the time step of this new runner is MAX_TIME_STEP, it runs
+	 *       unpaced, without a maximum number of ticks and without reporting
+	 * @throws IllegalArgumentException
+	 *             the given world is null
+	 */
+	public HeadlessRunner(World world) throws IllegalArgumentException {
+		if (world == null)
+			throw new IllegalArgumentException();
+		this.world = world;
+	}
+
+	/**
+	 * create a new world from the given .wrld file, or from the resource with
+	 * that name if there is no such file, or from the given binary world file
+	 * if its name ends in BinaryWorldFile.EXTENSION
+	 *
+	 * @param filename
+	 *            the name of the file to read
+	 * @return a new world with the terrain described in the given file
+	 * @effect |loadWorld(filename, DEFAULT_MEMORY_BUDGET)
+	 * @throws IOException
+	 *             the file could not be read
+	 */
+	public static World loadWorld(String filename) throws IOException {
+		return loadWorld(filename, DEFAULT_MEMORY_BUDGET);
+	}
+
+	/**
+	 * create a new world from the given file, like loadWorld(filename), or
+	 * from the given chunked world file if its name ends in
+	 * ChunkedTerrainStore.EXTENSION
+	 *
+	 * @param filename
+	 *            the name of the file to read
+	 * @param memoryBudget
+	 *            the number of bytes the loaded chunks of a chunked world may
+	 *            take
+	 * @throws IOException
+	 *             the file could not be read
+	 */
+	public static World loadWorld(String filename, long memoryBudget) throws IOException {
+		if (filename.endsWith(ChunkedTerrainStore.EXTENSION))
+			return World.fromChunkedFile(Paths.get(filename), memoryBudget, new DefaultTerrainChangeListener());
+		if (filename.endsWith(BinaryWorldFile.EXTENSION))
+			return BinaryWorldFile.read(Paths.get(filename)).createWorld(new DefaultTerrainChangeListener());
+		return new World(loadTerrain(filename), new DefaultTerrainChangeListener());
+	}
+
+	/**
+	 * read the terrain of the given .wrld file, or of the resource with that
+	 * name if there is no such file, or of the given binary world file if its
+	 * name ends in BinaryWorldFile.EXTENSION
+	 *
+	 * @param filename
+	 *            the name of the file to read
+	 * @return the terrain types described in the given file, indexed [x][y][z]
+	 * @throws IOException
+	 *             the file could not be read, or is a chunked world file,
+	 *             which is not loaded as a whole
+	 */
+	public static int[][][] loadTerrain(String filename) throws IOException {
+		if (filename.endsWith(ChunkedTerrainStore.EXTENSION))
+			throw new IOException("Chunked worlds can only be loaded with loadWorld: " + filename);
+		if (filename.endsWith(BinaryWorldFile.EXTENSION))
+			return BinaryWorldFile.read(Paths.get(filename)).toTerrainTypes();
+		GameMapReader reader = new GameMapReader();
+		GameMap map;
+		if (new File(filename).exists())
+			map = reader.readFromFile(filename);
+		else
+			map = reader.readFromResource(filename);
+		if (map == null)
+			throw new IOException("Could not read world: " + filename);
+
+		int[][][] types = new int[map.getNbTilesX()][map.getNbTilesY()][map.getNbTilesZ()];
+		for (int x = 0; x < types.length; x++)
+			for (int y = 0; y < types[x].length; y++)
+				for (int z = 0; z < types[x][y].length; z++)
+					types[x][y][z] = map.getTypeAt(x, y, z).getByteValue();
+		return types;
+	}
+
+	/**
+	 * return the world of this runner
+	 */
+	@Basic
+	@Immutable
+	public World getWorld() {
+		return this.world;
+	}
+
+	private final World world;
+
+	/**
+	 * close the world of this runner
+	 *
+	 * @effect |this.getWorld().close()
+	 * @throws IOException
+	 *             the world could not be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		this.getWorld().close();
+	}
+
+	/**
+	 * spawn the given number of random units in the world of this runner
+	 *
+	 * @param nbUnits
+	 *            the number of units to spawn
+	 * @param enableDefaultBehaviour
+	 *            whether the spawned units should have default behaviour
+	 * @effect spawn nbUnits units |for i in 1..nbUnits:
+	 *         this.getWorld().spawnUnit(enableDefaultBehaviour)
+	 */
+	public void spawnUnits(int nbUnits, boolean enableDefaultBehaviour) {
+		for (int i = 0; i < nbUnits; i++)
+			this.getWorld().spawnUnit(enableDefaultBehaviour);
+	}
+
+	/**
+	 * parse the given task text and schedule a copy of the resulting tasks in
+	 * the scheduler of every active faction
+	 *
+	 * @param text
+	 *            the text of the task, in the hillbillies task language
+	 * @param selectedCubes
+	 *            the cubes to use as selected cubes, one task is created per
+	 *            cube
+	 * @return the number of tasks scheduled
+	 * @throws IllegalArgumentException
+	 *             the given text could not be parsed
+	 */
+	public int scheduleTasks(String text, List<int[]> selectedCubes) throws IllegalArgumentException {
+		int nbScheduled = 0;
+		for (Faction faction : this.getWorld().getAllActiveFactions()) {
+			TaskParser<?, ?, Task> parser = TaskParser.create(new TaskFactory());
+			List<Task> tasks = parser.parseString(text, selectedCubes)
+					.orElseThrow(() -> new IllegalArgumentException("Parsing failed: " + parser.getErrors()));
+			for (Task task : tasks) {
+				faction.getScheduler().addTask(task);
+				nbScheduled++;
+			}
+		}
+		return nbScheduled;
+	}
+
+	/**
+	 * read the given task file and schedule its tasks in every active faction
+	 *
+	 * @effect |this.scheduleTasks(contents of the file, selectedCubes)
+	 * @throws IOException
+	 *             the file could not be read
+	 */
+	public int scheduleTaskFile(String filename, List<int[]> selectedCubes) throws IOException {
+		String text = new String(Files.readAllBytes(Paths.get(filename)), StandardCharsets.UTF_8);
+		return this.scheduleTasks(text, selectedCubes);
+	}
+
+	// SETTINGS//
+
+	/**
+	 * return the game time in seconds the world is advanced every tick
+	 */
+	@Basic
+	public double getTimeStep() {
+		return this.timeStep;
+	}
+
+	/**
+	 * set the time step of this runner to the given value
+	 *
+	 * @throws IllegalArgumentException
+	 *             the given time step is not in ]0, MAX_TIME_STEP]
+	 */
+	public void setTimeStep(double timeStep) throws IllegalArgumentException {
+		if (!(timeStep > 0 && timeStep <= MAX_TIME_STEP))
+			throw new IllegalArgumentException();
+		this.timeStep = timeStep;
+	}
+
+	private double timeStep = MAX_TIME_STEP;
+
+	/**
+	 * return the number of ticks after which run stops, 0 if it never stops
+	 * by itself
+	 */
+	@Basic
+	public long getMaxTicks() {
+		return this.maxTicks;
+	}
+
+	/**
+	 * @throws IllegalArgumentException
+	 *             the given number is negative
+	 */
+	public void setMaxTicks(long maxTicks) throws IllegalArgumentException {
+		if (maxTicks < 0)
+			throw new IllegalArgumentException();
+		this.maxTicks = maxTicks;
+	}
+
+	private long maxTicks;
+
+	/**
+	 * return how many times faster than wall-clock time the game time runs,
+	 * 0 if the world is advanced as fast as possible
+	 */
+	@Basic
+	public double getPace() {
+		return this.pace;
+	}
+
+	/**
+	 * @throws IllegalArgumentException
+	 *             the given pace is negative or not a number
+	 */
+	public void setPace(double pace) throws IllegalArgumentException {
+		if (!(pace >= 0))
+			throw new IllegalArgumentException();
+		this.pace = pace;
+	}
+
+	private double pace;
+
+	/**
+	 * set the stream the progress of this runner is reported to and the
+	 * wall-clock seconds between two reports
+	 *
+	 * @param out
+	 *            the stream to report to, null to stop reporting
+	 * @param interval
+	 *            the number of seconds between two reports
+	 * @throws IllegalArgumentException
+	 *             the given interval is not positive
+	 */
+	public void setReporting(PrintStream out, double interval) throws IllegalArgumentException {
+		if (!(interval > 0))
+			throw new IllegalArgumentException();
+		this.reportStream = out;
+		this.reportInterval = interval;
+	}
+
+	private PrintStream reportStream;
+	private double reportInterval = 1;
+
+	// RUNNING//
+
+	/**
+	 * advance the world of this runner by one time step
+	 *
+	 * @effect |this.getWorld().advanceTime((float) this.getTimeStep())
+	 * @post the number of ticks is incremented by one
+	 */
+	public void step() {
+		this.getWorld().advanceTime((float) this.getTimeStep());
+		this.ticks++;
+		this.gameTime += this.getTimeStep();
+	}
+
+	/**
+	 * advance the world tick after tick, until the maximum number of ticks is
+	 * reached or stop is called
+	 *
+	 * @effect step as long as the maximum number of ticks is not reached
+	 */
+	public void run() {
+		this.stopped = false;
+		long start = System.nanoTime();
+		long nextReport = start + (long) (this.reportInterval * 1e9);
+		long ticksAtStart = this.ticks;
+		long lastReportTicks = this.ticks;
+		long lastReport = start;
+		while (!this.stopped && (this.getMaxTicks() == 0 || this.ticks < this.getMaxTicks())) {
+			this.step();
+			long now = System.nanoTime();
+			if (this.getPace() > 0) {
+				long due = start + (long) ((this.ticks - ticksAtStart) * this.getTimeStep() / this.getPace() * 1e9);
+				if (due > now) {
+					sleepNanos(due - now);
+					now = System.nanoTime();
+				}
+			}
+			if (this.reportStream != null && now >= nextReport) {
+				this.report(this.ticks - lastReportTicks, now - lastReport);
+				lastReportTicks = this.ticks;
+				lastReport = now;
+				nextReport = now + (long) (this.reportInterval * 1e9);
+			}
+		}
+		this.elapsedNanos += System.nanoTime() - start;
+		if (this.reportStream != null)
+			this.reportStream.printf("done: %d ticks, %.1f s game time, %.1f ticks/s%n", this.ticks, this.gameTime,
+					this.getTicksPerSecond());
+	}
+
+	/**
+	 * stop a run in progress after the current tick
+	 */
+	public void stop() {
+		this.stopped = true;
+	}
+
+	private volatile boolean stopped;
+
+	private void report(long ticks, long nanos) {
+		this.reportStream.printf("tick %d, %.1f s game time, %d units, %.1f ticks/s%n", this.ticks, this.gameTime,
+				this.getWorld().getAllUnits().size(), ticks / (nanos / 1e9));
+	}
+
+	private static void sleepNanos(long nanos) {
+		try {
+			Thread.sleep(nanos / 1000000, (int) (nanos % 1000000));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// STATISTICS//
+
+	/**
+	 * return the number of ticks this runner has advanced its world
+	 */
+	@Basic
+	public long getTicks() {
+		return this.ticks;
+	}
+
+	private long ticks;
+
+	/**
+	 * return the game time in seconds this runner has advanced its world
+	 */
+	@Basic
+	public double getGameTime() {
+		return this.gameTime;
+	}
+
+	private double gameTime;
+
+	/**
+	 * return the wall-clock time in nanoseconds spent in run
+	 */
+	@Basic
+	public long getElapsedNanos() {
+		return this.elapsedNanos;
+	}
+
+	private long elapsedNanos;
+
+	/**
+	 * return the average number of ticks per wall-clock second spent in run
+	 */
+	public double getTicksPerSecond() {
+		if (this.elapsedNanos == 0)
+			return 0;
+		return this.ticks / (this.elapsedNanos / 1e9);
+	}
+
+	// COMMAND LINE//
+
+	/**
+	 * run a world from the command line
+	 *
+	 * usage: HeadlessRunner world.wrld [-units n] [-nodefault] [-tasks file]
+	 * [-selected x,y,z] [-dt seconds] [-ticks n] [-pace factor] [-report
+	 * seconds] [-parallel threads] [-budget megabytes] [-seed n] [-log file]
+	 *
+	 * @note	the budget only applies to chunked worlds, and is read before
+	 * 			the world is loaded
+	 * @note	with a seed, the units are spawned and the world runs the same
+	 * 			way every time, and the state hash of the world is printed at
+	 * 			the end so runs can be compared
+	 * @note	with a log, every change to the world is written to the given
+	 * 			file as a WorldEventLog, including the units spawned
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			System.err.println("usage: HeadlessRunner world.wrld [-units n] [-nodefault] [-tasks file] "
+					+ "[-selected x,y,z] [-dt seconds] [-ticks n] [-pace factor] [-report seconds] [-parallel threads] "
+					+ "[-budget megabytes] [-seed n] [-log file]");
+			System.exit(1);
+		}
+		long memoryBudget = DEFAULT_MEMORY_BUDGET;
+		for (int i = 1; i < args.length - 1; i++)
+			if (args[i].equals("-budget"))
+				memoryBudget = Long.parseLong(args[i + 1]) << 20;
+		HeadlessRunner runner = new HeadlessRunner(loadWorld(args[0], memoryBudget));
+		int nbUnits = 10;
+		boolean enableDefaultBehaviour = true;
+		List<String> taskFiles = new ArrayList<String>();
+		List<int[]> selectedCubes = new ArrayList<int[]>();
+		double reportInterval = 1;
+		boolean seeded = false;
+		WorldEventLog eventLog = null;
+		for (int i = 1; i < args.length; i++) {
+			switch (args[i]) {
+			case "-units":
+				nbUnits = Integer.parseInt(args[++i]);
+				break;
+			case "-nodefault":
+				enableDefaultBehaviour = false;
+				break;
+			case "-tasks":
+				taskFiles.add(args[++i]);
+				break;
+			case "-selected":
+				String[] coordinates = args[++i].split(",");
+				selectedCubes.add(new int[] { Integer.parseInt(coordinates[0]), Integer.parseInt(coordinates[1]),
+						Integer.parseInt(coordinates[2]) });
+				break;
+			case "-dt":
+				runner.setTimeStep(Double.parseDouble(args[++i]));
+				break;
+			case "-ticks":
+				runner.setMaxTicks(Long.parseLong(args[++i]));
+				break;
+			case "-pace":
+				runner.setPace(Double.parseDouble(args[++i]));
+				break;
+			case "-report":
+				reportInterval = Double.parseDouble(args[++i]);
+				break;
+			case "-parallel":
+				runner.getWorld().setTickPool(new ForkJoinPool(Integer.parseInt(args[++i])));
+				break;
+			case "-budget":
+				// already used to load the world
+				i++;
+				break;
+			case "-seed":
+				runner.getWorld().setSeed(Long.parseLong(args[++i]));
+				seeded = true;
+				break;
+			case "-log":
+				eventLog = new WorldEventLog(Paths.get(args[++i]));
+				runner.getWorld().setEventLog(eventLog);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option: " + args[i]);
+			}
+		}
+		runner.spawnUnits(nbUnits, enableDefaultBehaviour);
+		if (selectedCubes.isEmpty())
+			selectedCubes.add(new int[] { 0, 0, 0 });
+		for (String taskFile : taskFiles)
+			runner.scheduleTaskFile(taskFile, selectedCubes);
+		runner.setReporting(System.out, reportInterval);
+		runner.run();
+		if (eventLog != null)
+			eventLog.close();
+		if (seeded)
+			System.out.printf("state hash: %016x%n", runner.getWorld().getStateHash());
+		runner.close();
+	}
+}
@@ -0,0 +1,62 @@
+package hillbillies.headless;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import hillbillies.model.World;
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+
+/**
+ * a test suite for the class HeadlessRunner
+ * @author Ellen & Marte
+ *
+ */
+public class HeadlessRunnerTest {
+
+	private HeadlessRunner runner;
+
+	@Before
+	public void setUp() {
+		this.runner = new HeadlessRunner(new World(new int[10][10][3], new DefaultTerrainChangeListener()));
+		this.runner.spawnUnits(5, true);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void constructor_IllegalCase() {
+		new HeadlessRunner(null);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void setTimeStep_TooBig() {
+		this.runner.setTimeStep(0.3);
+	}
+
+	@Test
+	public void step_LegalCase() {
+		this.runner.setTimeStep(0.1);
+		this.runner.step();
+		this.runner.step();
+		assertEquals(2, this.runner.getTicks());
+		assertEquals(0.2, this.runner.getGameTime(), 1e-9);
+	}
+
+	@Test
+	public void run_maxTicks() {
+		this.runner.setMaxTicks(50);
+		this.runner.run();
+		assertEquals(50, this.runner.getTicks());
+		assertEquals(10.0, this.runner.getGameTime(), 1e-9);
+		assertTrue(this.runner.getTicksPerSecond() > 0);
+	}
+
+	@Test
+	public void run_paced() {
+		this.runner.setMaxTicks(5);
+		this.runner.setTimeStep(0.02);
+		this.runner.setPace(1);
+		this.runner.run();
+		assertTrue(this.runner.getElapsedNanos() >= 90000000L);
+	}
+}
@@ -0,0 +1,32 @@
+package hillbillies.model;
+
+/**
+ * a class storing all terrain types of a terrain grid in one array of bytes
+ *
+ * @author Ellen & Marte
+ */
+class ArrayTerrainStore implements TerrainStore {
+
+	/**
+	 * create a new store with the terrain types in the given array
+	 *
+	 * @param cubes
+	 *            the associated integers of the terrain types of all cubes, by
+	 *            index; the store takes this array over
+	 */
+	ArrayTerrainStore(byte[] cubes) {
+		this.cubes = cubes;
+	}
+
+	private final byte[] cubes;
+
+	@Override
+	public byte get(int index) {
+		return this.cubes[index];
+	}
+
+	@Override
+	public void set(int index, byte value) {
+		this.cubes[index] = value;
+	}
+}
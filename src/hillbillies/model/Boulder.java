@@ -16,4 +16,13 @@ public class Boulder extends Material {
 		super();
 	}
 
+	/**
+	 * create a new Boulder with the given weight
+	 * 
+	 * @effect	create a new material with the given weight
+	 */
+	Boulder(int weight) throws IllegalArgumentException {
+		super(weight);
+	}
+
 }
@@ -0,0 +1,381 @@
+package hillbillies.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * a class storing the terrain types of a terrain grid in chunks of
+ * CHUNK_SIZE^3 cubes, loaded from a chunked world file when they are first
+ * used
+ *
+ * @note	a chunked world file starts with a header of the magic number, the
+ * 			version of the format, the number of cubes in the x, y and z
+ * 			direction and the size of a chunk, each as a big-endian int. The
+ * 			chunks follow by chunk index, (cz*nbChunksY + cy)*nbChunksX + cx,
+ * 			each as CHUNK_SIZE^3 bytes indexed (lz*CHUNK_SIZE + ly)*CHUNK_SIZE
+ * 			+ lx, so every chunk can be read on its own. Cubes of a chunk that
+ * 			lie outside the world are 0.
+ * @note	when loading a chunk would exceed the memory budget, the least
+ * 			recently used chunk that is clean (not changed since it was loaded)
+ * 			and not pinned (holding no units or materials) is evicted first. A
+ * 			changed chunk is never written back to the file, so it stays in
+ * 			memory; if no chunk can be evicted, the budget is exceeded.
+ * @note	the paths of units can be planned on several threads at once, so
+ * 			reading a chunk that is loaded takes no lock and loading, evicting
+ * 			and changing chunks hold the lock of the store. A reader still
+ * 			holding a chunk that was evicted meanwhile reads the right terrain
+ * 			types, since only clean chunks are evicted. The times the chunks
+ * 			were last used are updated without a lock, so they are only an
+ * 			estimate when several threads read at once.
+ * @note	the store keeps its file open until it is closed.
+ *
+ * @author Ellen & Marte
+ */
+public class ChunkedTerrainStore implements TerrainStore, Closeable {
+
+	/**
+	 * the extension of chunked world files
+	 */
+	public static final String EXTENSION = ".cwrld";
+
+	/**
+	 * the magic number every chunked world file starts with, "HBWC" in ASCII
+	 */
+	public static final int MAGIC = 0x48425743;
+
+	/**
+	 * the version of the format written by this class
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * the number of cubes along each side of a chunk
+	 */
+	public static final int CHUNK_SIZE = 16;
+
+	private static final int CHUNK_SHIFT = 4, CHUNK_MASK = CHUNK_SIZE - 1;
+
+	private static final int CHUNK_BYTES = CHUNK_SIZE * CHUNK_SIZE * CHUNK_SIZE;
+
+	private static final int HEADER_SIZE = 6 * Integer.BYTES;
+
+	/**
+	 * an interface for the terrain types of a world that is being written
+	 */
+	public interface TerrainSource {
+
+		/**
+		 * return the associated integer of the terrain type of the cube with
+		 * the given coordinates
+		 */
+		int getTerrainType(int x, int y, int z);
+	}
+
+	/**
+	 * write a chunked world file with the given dimensions and terrain types
+	 *
+	 * @param file
+	 *            the file to write, replacing its contents
+	 * @param source
+	 *            the terrain types to write, asked one chunk at a time
+	 * @throws IllegalArgumentException
+	 *             a dimension is not positive, or the source returns an
+	 *             integer not in [0,3]
+	 * @throws IOException
+	 *             the file could not be written
+	 */
+	public static void write(Path file, int nbX, int nbY, int nbZ, TerrainSource source)
+			throws IllegalArgumentException, IOException {
+		if (nbX <= 0 || nbY <= 0 || nbZ <= 0)
+			throw new IllegalArgumentException();
+		int nbChunksX = nbChunks(nbX), nbChunksY = nbChunks(nbY), nbChunksZ = nbChunks(nbZ);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(MAGIC).putInt(VERSION).putInt(nbX).putInt(nbY).putInt(nbZ).putInt(CHUNK_SIZE).flip();
+			writeFully(channel, header);
+			ByteBuffer chunk = ByteBuffer.allocate(CHUNK_BYTES);
+			for (int cz = 0; cz < nbChunksZ; cz++)
+				for (int cy = 0; cy < nbChunksY; cy++)
+					for (int cx = 0; cx < nbChunksX; cx++) {
+						chunk.clear();
+						for (int lz = 0; lz < CHUNK_SIZE; lz++)
+							for (int ly = 0; ly < CHUNK_SIZE; ly++)
+								for (int lx = 0; lx < CHUNK_SIZE; lx++) {
+									int x = (cx << CHUNK_SHIFT) + lx, y = (cy << CHUNK_SHIFT) + ly,
+											z = (cz << CHUNK_SHIFT) + lz;
+									int type = x < nbX && y < nbY && z < nbZ ? source.getTerrainType(x, y, z) : 0;
+									if (type < 0 || type > 3)
+										throw new IllegalArgumentException();
+									chunk.put((byte) type);
+								}
+						chunk.flip();
+						writeFully(channel, chunk);
+					}
+		}
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+	}
+
+	/**
+	 * open the given chunked world file, without loading any chunk yet
+	 *
+	 * @param file
+	 *            the file to read the chunks from
+	 * @param memoryBudget
+	 *            the number of bytes the loaded chunks may take
+	 * @throws IOException
+	 *             the file could not be opened, or is not a chunked world file
+	 *             of a known version
+	 */
+	ChunkedTerrainStore(Path file, long memoryBudget) throws IOException {
+		this.channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			this.readFully(header, 0);
+			header.flip();
+			if (header.getInt() != MAGIC)
+				throw new IOException("Not a chunked world: " + file);
+			int version = header.getInt();
+			if (version != VERSION)
+				throw new IOException("Unknown version " + version + " of chunked world: " + file);
+			this.nbX = header.getInt();
+			this.nbY = header.getInt();
+			this.nbZ = header.getInt();
+			if (header.getInt() != CHUNK_SIZE)
+				throw new IOException("Unknown chunk size of chunked world: " + file);
+			if (this.nbX <= 0 || this.nbY <= 0 || this.nbZ <= 0
+					|| (long) this.nbX * this.nbY * this.nbZ > Integer.MAX_VALUE)
+				throw new IOException("Invalid dimensions of chunked world: " + file);
+		} catch (IOException e) {
+			this.channel.close();
+			throw e;
+		}
+		this.nbXY = this.nbX * this.nbY;
+		this.shiftX = log2(this.nbX);
+		this.shiftXY = log2(this.nbXY);
+		this.nbChunksX = nbChunks(this.nbX);
+		this.nbChunksY = nbChunks(this.nbY);
+		int nbChunks = this.nbChunksX * this.nbChunksY * nbChunks(this.nbZ);
+		this.chunks = new AtomicReferenceArray<byte[]>(nbChunks);
+		this.lastUse = new long[nbChunks];
+		this.dirty = new BitSet(nbChunks);
+		this.maxLoaded = (int) Math.max(1, Math.min(nbChunks, memoryBudget / CHUNK_BYTES));
+		this.loaded = new int[Math.min(nbChunks, this.maxLoaded + 1)];
+	}
+
+	/**
+	 * return the number of cubes in the x, y and z direction of the world in
+	 * this store
+	 */
+	int getNbX() {
+		return this.nbX;
+	}
+
+	int getNbY() {
+		return this.nbY;
+	}
+
+	int getNbZ() {
+		return this.nbZ;
+	}
+
+	private final int nbX, nbY, nbZ, nbXY;
+
+	/**
+	 * the base-2 logarithm of nbX and of nbXY, or -1 if it is not a power of
+	 * two; the index of a cube is split into coordinates with shifts instead
+	 * of divisions when it is
+	 */
+	private final int shiftX, shiftXY;
+
+	private final int nbChunksX, nbChunksY;
+
+	/**
+	 * the channel the chunks are read from
+	 */
+	private final FileChannel channel;
+
+	/**
+	 * the loaded chunks by chunk index, null for chunks that are not loaded
+	 */
+	private final AtomicReferenceArray<byte[]> chunks;
+
+	/**
+	 * the indices of the loaded chunks, in the first nbLoaded positions
+	 */
+	private int[] loaded;
+
+	private int nbLoaded;
+
+	/**
+	 * the number of chunks that fit in the memory budget
+	 */
+	private final int maxLoaded;
+
+	/**
+	 * for every chunk, the value of the clock when it was last used
+	 */
+	private final long[] lastUse;
+
+	private long clock;
+
+	/**
+	 * the chunks that were changed since they were loaded
+	 */
+	private final BitSet dirty;
+
+	/**
+	 * set the supplier of the chunks that must not be evicted
+	 *
+	 * @param pinnedChunks
+	 *            returns the set of the indices of the chunks holding units or
+	 *            materials, asked once every time chunks are evicted
+	 */
+	void setPinnedChunks(Supplier<BitSet> pinnedChunks) {
+		this.pinnedChunks = pinnedChunks;
+	}
+
+	private Supplier<BitSet> pinnedChunks = BitSet::new;
+
+	/**
+	 * return the index of the chunk holding the cube with the given index
+	 */
+	int getChunkOf(int index) {
+		int z = this.zOf(index), rest = index - z * this.nbXY, y = this.yOf(rest), x = rest - y * this.nbX;
+		return this.chunkOf(x, y, z);
+	}
+
+	/**
+	 * return the number of chunks that are loaded
+	 */
+	synchronized int getNbLoadedChunks() {
+		return this.nbLoaded;
+	}
+
+	@Override
+	public byte get(int index) {
+		int z = this.zOf(index), rest = index - z * this.nbXY, y = this.yOf(rest), x = rest - y * this.nbX;
+		int chunk = this.chunkOf(x, y, z);
+		byte[] data = this.chunks.get(chunk);
+		if (data == null)
+			data = this.load(chunk);
+		this.lastUse[chunk] = ++this.clock;
+		return data[offsetInChunk(x, y, z)];
+	}
+
+	@Override
+	public synchronized void set(int index, byte value) {
+		int z = this.zOf(index), rest = index - z * this.nbXY, y = this.yOf(rest), x = rest - y * this.nbX;
+		int chunk = this.chunkOf(x, y, z);
+		byte[] data = this.chunks.get(chunk);
+		if (data == null)
+			data = this.load(chunk);
+		this.lastUse[chunk] = ++this.clock;
+		data[offsetInChunk(x, y, z)] = value;
+		this.dirty.set(chunk);
+	}
+
+	private int zOf(int index) {
+		return this.shiftXY >= 0 ? index >>> this.shiftXY : index / this.nbXY;
+	}
+
+	/**
+	 * return the y coordinate of the cube with the given index within its
+	 * z-level
+	 */
+	private int yOf(int indexInLevel) {
+		return this.shiftX >= 0 ? indexInLevel >>> this.shiftX : indexInLevel / this.nbX;
+	}
+
+	private int chunkOf(int x, int y, int z) {
+		return ((z >> CHUNK_SHIFT) * this.nbChunksY + (y >> CHUNK_SHIFT)) * this.nbChunksX + (x >> CHUNK_SHIFT);
+	}
+
+	/**
+	 * return the chunk with the given index, loading it if no other thread
+	 * loaded it meanwhile
+	 */
+	private synchronized byte[] load(int chunk) {
+		byte[] result = this.chunks.get(chunk);
+		if (result != null)
+			return result;
+		if (this.nbLoaded >= this.maxLoaded)
+			this.evict();
+		result = new byte[CHUNK_BYTES];
+		try {
+			this.readFully(ByteBuffer.wrap(result), HEADER_SIZE + (long) chunk * CHUNK_BYTES);
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not read chunk " + chunk, e);
+		}
+		if (this.nbLoaded == this.loaded.length)
+			this.loaded = Arrays.copyOf(this.loaded, 2 * this.loaded.length);
+		this.loaded[this.nbLoaded++] = chunk;
+		this.lastUse[chunk] = ++this.clock;
+		this.chunks.set(chunk, result);
+		return result;
+	}
+
+	/**
+	 * evict the least recently used chunk that is clean and not pinned, if any
+	 */
+	private void evict() {
+		BitSet pinned = this.pinnedChunks.get();
+		int victim = -1;
+		for (int i = 0; i < this.nbLoaded; i++) {
+			int chunk = this.loaded[i];
+			if (!this.dirty.get(chunk) && !pinned.get(chunk)
+					&& (victim < 0 || this.lastUse[chunk] < this.lastUse[this.loaded[victim]]))
+				victim = i;
+		}
+		if (victim < 0)
+			return;
+		this.chunks.set(this.loaded[victim], null);
+		this.loaded[victim] = this.loaded[--this.nbLoaded];
+	}
+
+	/**
+	 * close the file of this store
+	 *
+	 * @note	the chunks that are loaded can still be read and changed, but
+	 * 			loading any other chunk throws an IllegalStateException.
+	 * @throws IOException
+	 *             the file could not be closed
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		this.channel.close();
+	}
+
+	private void readFully(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = this.channel.read(buffer, position);
+			if (read < 0)
+				throw new IOException("Unexpected end of chunked world");
+			position += read;
+		}
+	}
+
+	private static int offsetInChunk(int x, int y, int z) {
+		return (((z & CHUNK_MASK) << CHUNK_SHIFT) + (y & CHUNK_MASK) << CHUNK_SHIFT) + (x & CHUNK_MASK);
+	}
+
+	private static int log2(int value) {
+		return Integer.bitCount(value) == 1 ? Integer.numberOfTrailingZeros(value) : -1;
+	}
+
+	private static int nbChunks(int nbCubes) {
+		return (nbCubes + CHUNK_MASK) >> CHUNK_SHIFT;
+	}
+}
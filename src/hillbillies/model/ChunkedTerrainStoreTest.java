@@ -0,0 +1,137 @@
+package hillbillies.model;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+
+/**
+ * a test suite for the class ChunkedTerrainStore, comparing it with the terrain
+ * types it was written from
+ * @author Ellen & Marte
+ *
+ */
+public class ChunkedTerrainStoreTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static final int CHUNK_BYTES = 16 * 16 * 16;
+
+	private int[][][] terrainTypes;
+	private Path file;
+
+	@Before
+	public void setUp() throws IOException {
+		Random random = new Random(42);
+		// dimensions that are not multiples of the chunk size
+		this.terrainTypes = new int[37][20][18];
+		for (int x = 0; x < 37; x++)
+			for (int y = 0; y < 20; y++)
+				for (int z = 0; z < 18; z++)
+					this.terrainTypes[x][y][z] = random.nextInt(4);
+		this.file = this.folder.newFile("world" + ChunkedTerrainStore.EXTENSION).toPath();
+		ChunkedTerrainStore.write(this.file, 37, 20, 18, (x, y, z) -> this.terrainTypes[x][y][z]);
+	}
+
+	@Test
+	public void write_FileSize() throws IOException {
+		// 3 * 2 * 2 chunks behind a header of six ints
+		assertEquals(24 + 12 * CHUNK_BYTES, Files.size(this.file));
+	}
+
+	@Test
+	public void get_SameAsWrittenWithinBudget() throws IOException {
+		try (ChunkedTerrainStore store = new ChunkedTerrainStore(this.file, 2 * CHUNK_BYTES)) {
+			TerrainGrid grid = new TerrainGrid(store.getNbX(), store.getNbY(), store.getNbZ(), store);
+			assertEquals(0, store.getNbLoadedChunks());
+			assertArrayEquals(this.terrainTypes, grid.toArray());
+			assertTrue(store.getNbLoadedChunks() <= 2);
+		}
+	}
+
+	@Test
+	public void set_ChangedChunkIsNotEvicted() throws IOException {
+		try (ChunkedTerrainStore store = new ChunkedTerrainStore(this.file, CHUNK_BYTES)) {
+			TerrainGrid grid = new TerrainGrid(store.getNbX(), store.getNbY(), store.getNbZ(), store);
+			int index = grid.indexOf(1, 2, 3);
+			grid.set(index, TerrainType.WORKSHOP);
+			this.terrainTypes[1][2][3] = 3;
+			assertArrayEquals(this.terrainTypes, grid.toArray());
+			assertEquals(3, grid.get(index));
+		}
+	}
+
+	@Test
+	public void get_PinnedChunkIsNotEvicted() throws IOException {
+		try (ChunkedTerrainStore store = new ChunkedTerrainStore(this.file, CHUNK_BYTES)) {
+			TerrainGrid grid = new TerrainGrid(store.getNbX(), store.getNbY(), store.getNbZ(), store);
+			int pinned = grid.indexOf(36, 19, 17);
+			BitSet pinnedChunks = new BitSet();
+			pinnedChunks.set(store.getChunkOf(pinned));
+			store.setPinnedChunks(() -> pinnedChunks);
+			grid.get(pinned);
+			grid.get(grid.indexOf(0, 0, 0));
+			grid.get(grid.indexOf(20, 0, 0));
+			// the pinned chunk stays, the other chunk is replaced
+			assertEquals(2, store.getNbLoadedChunks());
+		}
+	}
+
+	@Test
+	public void close_LoadedChunkCanStillBeRead() throws IOException {
+		ChunkedTerrainStore store = new ChunkedTerrainStore(this.file, CHUNK_BYTES);
+		TerrainGrid grid = new TerrainGrid(store.getNbX(), store.getNbY(), store.getNbZ(), store);
+		int index = grid.indexOf(1, 2, 3);
+		grid.get(index);
+		store.close();
+		assertEquals(this.terrainTypes[1][2][3], grid.get(index));
+		try {
+			grid.get(grid.indexOf(20, 0, 0));
+			fail();
+		} catch (IllegalStateException e) {
+			// the file is closed
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void constructor_NotAChunkedWorld() throws IOException {
+		Path other = this.folder.newFile("other" + ChunkedTerrainStore.EXTENSION).toPath();
+		Files.write(other, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21,
+				22, 23, 24 });
+		new ChunkedTerrainStore(other, CHUNK_BYTES).close();
+	}
+
+	@Test
+	public void fromChunkedFile_SameAsFromArray() throws IOException {
+		this.terrainTypes = new int[20][18][17];
+		this.terrainTypes[3][2][0] = 1;
+		this.terrainTypes[3][2][1] = 1;
+		this.terrainTypes[19][17][16] = 2;
+		ChunkedTerrainStore.write(this.file, 20, 18, 17, (x, y, z) -> this.terrainTypes[x][y][z]);
+		World expected = new World(this.terrainTypes, new DefaultTerrainChangeListener());
+		World world = World.fromChunkedFile(this.file, 2 * CHUNK_BYTES, new DefaultTerrainChangeListener());
+		assertArrayEquals(expected.getTerrainTypesArray(), world.getTerrainTypesArray());
+		// the tree in the air caves in in both worlds
+		assertEquals(expected.getAllMaterials().size(), world.getAllMaterials().size());
+		world.close();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void close_WorldCannotLoadEvictedChunks() throws IOException {
+		World world = World.fromChunkedFile(this.file, CHUNK_BYTES, new DefaultTerrainChangeListener());
+		world.close();
+		// at most the chunks holding materials and the last one used are loaded
+		world.getTerrainTypesArray();
+	}
+}
@@ -241,19 +241,19 @@ public class Cube {
 	 * 			i.e. at most 26 cubes touching this cube with at least one corner point
 	 */
 	public Set<Cube> getAllAdjacentCubes(World world) {
+		if (this.isValidIn(world)) {
+			TerrainGrid terrain = world.getTerrain();
+			int[] indices = new int[26];
+			return getCubesIn(terrain, indices, terrain.getAdjacent(this.getIndexIn(terrain), indices));
+		}
 
 		Set<Cube> result = new HashSet<Cube>();
 		for (int x = -1; x < 2; x++)
 			for (int y = -1; y < 2; y++)
-				for (int z = -1; z < 2; z++) {
-					try {
-						Cube possibleCube = new Cube(this.getX() + x, this.getY() + y, this.getZ() + z);
-						if (possibleCube.isValidIn(world))
-							result.add(possibleCube);
-					} catch (IllegalArgumentException e) {
-					}
-				}
-		result.remove(this);
+				for (int z = -1; z < 2; z++)
+					if ((x != 0 || y != 0 || z != 0)
+							&& isValidCubeCoordinate(this.getX() + x, this.getY() + y, this.getZ() + z, world))
+						result.add(new Cube(this.getX() + x, this.getY() + y, this.getZ() + z));
 		return result;
 	}
 
@@ -268,6 +268,11 @@ public class Cube {
 	 * 			i.e. at most 6 cubes touching this cube with at least one side plane
 	 */
 	public Set<Cube> getAllDirectlyAdjacentCubes(World world) {
+		if (this.isValidIn(world)) {
+			TerrainGrid terrain = world.getTerrain();
+			int[] indices = new int[6];
+			return getCubesIn(terrain, indices, terrain.getDirectlyAdjacent(this.getIndexIn(terrain), indices));
+		}
 		Set<Cube> result = new HashSet<Cube>();
 		for (Cube cube : this.getAllAdjacentCubes(world)) {
 			if (cube.isSameOrDirectlyAdjacentCube(this))
@@ -286,6 +291,11 @@ public class Cube {
 	 * 			i.e. at most 8 cubes in the same z-level touching this cube with at least one side rib
 	 */
 	public Set<Cube> getAllNeighbouringCubes(World world) {
+		if (this.isValidIn(world)) {
+			TerrainGrid terrain = world.getTerrain();
+			int[] indices = new int[8];
+			return getCubesIn(terrain, indices, terrain.getNeighbouring(this.getIndexIn(terrain), indices));
+		}
 		Set<Cube> result = new HashSet<Cube>();
 		for (Cube cube : this.getAllAdjacentCubes(world)) {
 			if (this.isSameOrNeighbouringCube(cube))
@@ -294,6 +304,23 @@ public class Cube {
 		return result;
 	}
 
+	/**
+	 * return the index of this cube in the given terrain grid
+	 */
+	int getIndexIn(TerrainGrid terrain) {
+		return terrain.indexOf(this.getX(), this.getY(), this.getZ());
+	}
+
+	/**
+	 * return a set of the cubes with the first count indices in the given array
+	 */
+	private static Set<Cube> getCubesIn(TerrainGrid terrain, int[] indices, int count) {
+		Set<Cube> result = new HashSet<Cube>();
+		for (int i = 0; i < count; i++)
+			result.add(terrain.getCube(indices[i]));
+		return result;
+	}
+
 	/**
 	 * check whether this cube is solid and connected to the border in the given
 	 * world.
@@ -364,12 +391,9 @@ public class Cube {
 	public boolean isWorkableCubeInBy(World world, Unit unit) {
 		if (unit.getNbMaterials() > 0 && this.getCenter().isValidForObjectIn(world)) {
 			return true;
-		} else if (world.getTerrainType(this) == TerrainType.WORKSHOP && world.getBouldersIn(this).size() > 0
-				&& world.getLogsIn(this).size() > 0) {
+		} else if (world.getBoulderIn(this) != null) {
 			return true;
-		} else if (world.getBouldersIn(this).size() > 0) {
-			return true;
-		} else if (world.getLogsIn(this).size() > 0) {
+		} else if (world.getLogIn(this) != null) {
 			return true;
 		} else if (world.getTerrainType(this) == TerrainType.WOOD || world.getTerrainType(this) == TerrainType.ROCK) {
 			return true;
@@ -377,6 +401,18 @@ public class Cube {
 		return false;
 	}
 
+	/**
+	 * the factor the weight of a movement is multiplied with when going one
+	 * level up
+	 */
+	static final double UPWARD_WEIGHT = 0.5;
+
+	/**
+	 * the factor the weight of a movement is multiplied with when going one
+	 * level down
+	 */
+	static final double DOWNWARD_WEIGHT = 1.2;
+
 	/**
 	 * return the 'weight' of the movement from this cube to the next cube
 	 * @note	necessary for the pathfinding algorithm
@@ -384,17 +420,31 @@ public class Cube {
 	 *            The next cube
 	 * @return the weight of the movement from this cube to the next cube based
 	 *         on distance and z-level
+	 *         | result == getDistanceWeight(next.getX() - this.getX(),
+	 *         |		next.getY() - this.getY(), next.getZ() - this.getZ())
 	 */
 	public double getDistanceWeightTo(Cube next) {
-		double weight = 1;
-		double distance = Math.sqrt((this.getX() - next.getX()) * (this.getX() - next.getX())
-				+ (this.getY() - next.getY()) * (this.getY() - next.getY())
-				+ (this.getZ() - next.getZ()) * (this.getZ() - next.getZ()));
-		weight *= distance;
-		if (this.getZ() - next.getZ() == -1)
-			weight *= 0.5;
-		else if (this.getZ() - next.getZ() == 1)
-			weight *= 1.2;
+		return getDistanceWeight(next.getX() - this.getX(), next.getY() - this.getY(), next.getZ() - this.getZ());
+	}
+
+	/**
+	 * return the 'weight' of a movement over the given distances along each axis
+	 * 
+	 * @param dx
+	 *            the distance along the x-axis
+	 * @param dy
+	 *            the distance along the y-axis
+	 * @param dz
+	 *            the distance along the z-axis
+	 * @return the euclidean distance, multiplied with UPWARD_WEIGHT when going
+	 *         one level up and with DOWNWARD_WEIGHT when going one level down
+	 */
+	static double getDistanceWeight(int dx, int dy, int dz) {
+		double weight = Math.sqrt(dx * dx + dy * dy + dz * dz);
+		if (dz == 1)
+			weight *= UPWARD_WEIGHT;
+		else if (dz == -1)
+			weight *= DOWNWARD_WEIGHT;
 		return weight;
 	}
 }
@@ -0,0 +1,108 @@
+package hillbillies.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * a class indexing objects of a game world by the cube they are in, so the
+ * objects in one cube can be found without looking at all the others
+ *
+ * @note	cubes are identified by their index in the terrain grid of the world.
+ * 			The list for a cube only exists while there are objects in it, so
+ * 			an index takes memory for the occupied cubes only.
+ *
+ * @invar	every object is in the list of exactly one cube, the one it was
+ * 			last put in
+ *
+ * @param <T>
+ *            the type of objects in this index
+ *
+ * @author Ellen & Marte
+ */
+class CubeIndex<T> {
+
+	/**
+	 * the objects in every cube that holds any
+	 */
+	private final Map<Integer, List<T>> objectsIn = new HashMap<Integer, List<T>>();
+
+	/**
+	 * the cube every object in this index was last put in
+	 */
+	private final Map<T, Integer> cubeOf = new HashMap<T, Integer>();
+
+	/**
+	 * put the given object in the cube with the given index, removing it from
+	 * the cube it was in before
+	 *
+	 * @param object
+	 *            the object to put
+	 * @param cube
+	 *            the index of the cube to put it in
+	 * @post the given object is only in the list of the given cube
+	 */
+	void put(T object, int cube) {
+		Integer oldCube = this.cubeOf.put(object, cube);
+		if (oldCube != null) {
+			if (oldCube == cube)
+				return;
+			this.removeFrom(oldCube, object);
+		}
+		this.objectsIn.computeIfAbsent(cube, key -> new ArrayList<T>(2)).add(object);
+	}
+
+	/**
+	 * remove the given object from this index
+	 *
+	 * @param object
+	 *            the object to remove
+	 * @post the given object is in none of the lists of this index
+	 */
+	void remove(T object) {
+		Integer cube = this.cubeOf.remove(object);
+		if (cube != null)
+			this.removeFrom(cube, object);
+	}
+
+	private void removeFrom(int cube, T object) {
+		List<T> objects = this.objectsIn.get(cube);
+		objects.remove(object);
+		if (objects.isEmpty())
+			this.objectsIn.remove(cube);
+	}
+
+	/**
+	 * return the objects in the cube with the given index
+	 *
+	 * @note	the result is a read-only view that changes with this index, it
+	 * 			must be copied before objects are moved while iterating over it
+	 */
+	List<T> getIn(int cube) {
+		List<T> objects = this.objectsIn.get(cube);
+		if (objects == null)
+			return Collections.emptyList();
+		return Collections.unmodifiableList(objects);
+	}
+
+	/**
+	 * return the first object in the cube with the given index, or null if
+	 * there is none
+	 */
+	T getAnyIn(int cube) {
+		List<T> objects = this.objectsIn.get(cube);
+		if (objects == null)
+			return null;
+		return objects.get(0);
+	}
+
+	/**
+	 * return the number of objects in the cube with the given index
+	 */
+	int getNbIn(int cube) {
+		List<T> objects = this.objectsIn.get(cube);
+		return objects == null ? 0 : objects.size();
+	}
+}
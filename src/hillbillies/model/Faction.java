@@ -1,6 +1,6 @@
 package hillbillies.model;
 
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 import be.kuleuven.cs.som.annotate.*;
@@ -25,7 +25,7 @@ public class Faction {
 	 * @post this faction has a new scheduler
 	 */
 	public Faction() {
-		this.units = new HashSet<Unit>();
+		this.units = new LinkedHashSet<Unit>();
 		this.scheduler = new Scheduler(this);
 	}
 
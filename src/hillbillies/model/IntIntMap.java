@@ -0,0 +1,172 @@
+package hillbillies.model;
+
+import java.util.Arrays;
+
+/**
+ * a class mapping non-negative integer keys, such as the indices of cubes, to
+ * integer values, without boxing them
+ *
+ * @note	the keys are kept in an open-addressing table with linear probing
+ * 			that grows when it is half full, so the memory this map takes is
+ * 			proportional to the number of keys in it instead of the number of
+ * 			cubes of a world.
+ *
+ * @invar	every key in this map is not negative
+ *
+ * @author Ellen & Marte
+ */
+class IntIntMap {
+
+	/**
+	 * the key of the slots of the table that hold no key
+	 */
+	private static final int FREE = -1;
+
+	private static final int MIN_CAPACITY = 16;
+
+	/**
+	 * create a new empty map
+	 */
+	IntIntMap() {
+		this.allocate(MIN_CAPACITY);
+	}
+
+	/**
+	 * the keys and values of the table, FREE for slots holding no key
+	 */
+	private int[] keys, values;
+
+	/**
+	 * the number of keys in this map
+	 */
+	private int size;
+
+	/**
+	 * the number of bits the hash of a key is shifted by to find its first
+	 * slot
+	 */
+	private int shift;
+
+	/**
+	 * return the number of keys in this map
+	 */
+	int size() {
+		return this.size;
+	}
+
+	/**
+	 * check whether this map has a value for the given key
+	 */
+	boolean containsKey(int key) {
+		return key >= 0 && this.keys[this.slotOf(key)] == key;
+	}
+
+	/**
+	 * return the value of the given key, or the given default if this map has
+	 * no value for it
+	 */
+	int get(int key, int absent) {
+		if (key < 0)
+			return absent;
+		int slot = this.slotOf(key);
+		return this.keys[slot] == key ? this.values[slot] : absent;
+	}
+
+	/**
+	 * set the value of the given key to the given value
+	 *
+	 * @throws IllegalArgumentException
+	 *             the given key is negative
+	 */
+	void put(int key, int value) throws IllegalArgumentException {
+		if (key < 0)
+			throw new IllegalArgumentException();
+		int slot = this.slotOf(key);
+		if (this.keys[slot] == FREE) {
+			if (2 * (this.size + 1) > this.keys.length) {
+				this.grow();
+				slot = this.slotOf(key);
+			}
+			this.keys[slot] = key;
+			this.size++;
+		}
+		this.values[slot] = value;
+	}
+
+	/**
+	 * remove the given key and its value from this map, if it is in it
+	 *
+	 * @note	the keys after the removed one in its run of slots are moved
+	 * 			back, so no slot has to be marked as removed
+	 */
+	void remove(int key) {
+		if (key < 0)
+			return;
+		int slot = this.slotOf(key);
+		if (this.keys[slot] != key)
+			return;
+		int mask = this.keys.length - 1;
+		int free = slot;
+		for (int next = (free + 1) & mask; this.keys[next] != FREE; next = (next + 1) & mask) {
+			int home = this.hash(this.keys[next]);
+			// move the key back unless its home slot lies after the free slot
+			// in the run
+			if (((next - home) & mask) >= ((next - free) & mask)) {
+				this.keys[free] = this.keys[next];
+				this.values[free] = this.values[next];
+				free = next;
+			}
+		}
+		this.keys[free] = FREE;
+		this.size--;
+	}
+
+	/**
+	 * remove all keys from this map
+	 *
+	 * @note	a table that grew far beyond the number of keys it held is
+	 * 			replaced by a small one, so a map that is cleared and filled
+	 * 			again does not keep the memory of its largest filling
+	 */
+	void clear() {
+		if (this.keys.length > MIN_CAPACITY && this.keys.length > 8 * this.size)
+			this.allocate(MIN_CAPACITY);
+		else
+			Arrays.fill(this.keys, FREE);
+		this.size = 0;
+	}
+
+	/**
+	 * return the slot holding the given key, or the free slot where it would
+	 * be put
+	 */
+	private int slotOf(int key) {
+		int mask = this.keys.length - 1;
+		int slot = this.hash(key);
+		while (this.keys[slot] != key && this.keys[slot] != FREE)
+			slot = (slot + 1) & mask;
+		return slot;
+	}
+
+	private int hash(int key) {
+		return (key * 0x9E3779B9) >>> this.shift;
+	}
+
+	private void grow() {
+		int[] oldKeys = this.keys, oldValues = this.values;
+		this.allocate(2 * oldKeys.length);
+		for (int slot = 0; slot < oldKeys.length; slot++)
+			if (oldKeys[slot] != FREE) {
+				int newSlot = this.slotOf(oldKeys[slot]);
+				this.keys[newSlot] = oldKeys[slot];
+				this.values[newSlot] = oldValues[slot];
+			}
+	}
+
+	private void allocate(int capacity) {
+		this.keys = new int[capacity];
+		Arrays.fill(this.keys, FREE);
+		this.values = new int[capacity];
+		this.shift = Integer.numberOfLeadingZeros(capacity) + 1;
+	}
+}
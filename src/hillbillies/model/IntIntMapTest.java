@@ -0,0 +1,93 @@
+package hillbillies.model;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * a test suite for the class IntIntMap, comparing it with a HashMap
+ * @author Ellen & Marte
+ *
+ */
+public class IntIntMapTest {
+
+	private IntIntMap map;
+	private Map<Integer, Integer> expected;
+	private Random random = new Random(42);
+
+	@Before
+	public void setUp() {
+		this.map = new IntIntMap();
+		this.expected = new HashMap<Integer, Integer>();
+	}
+
+	private void assertMatchesExpected(int maxKey) {
+		assertEquals(this.expected.size(), this.map.size());
+		for (int key = 0; key < maxKey; key++) {
+			assertEquals(this.expected.containsKey(key), this.map.containsKey(key));
+			assertEquals((int) this.expected.getOrDefault(key, -1), this.map.get(key, -1));
+		}
+	}
+
+	@Test
+	public void put_Grows() {
+		for (int key = 0; key < 1000; key++) {
+			this.map.put(key * 7, key);
+			this.expected.put(key * 7, key);
+		}
+		assertMatchesExpected(7000);
+	}
+
+	@Test
+	public void put_ReplacesValue() {
+		this.map.put(5, 1);
+		this.map.put(5, 2);
+		assertEquals(1, this.map.size());
+		assertEquals(2, this.map.get(5, -1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void put_NegativeKey() {
+		this.map.put(-1, 0);
+	}
+
+	@Test
+	public void get_NegativeKey() {
+		assertFalse(this.map.containsKey(-1));
+		assertEquals(3, this.map.get(-1, 3));
+	}
+
+	@Test
+	public void remove_RandomKeys() {
+		for (int i = 0; i < 20000; i++) {
+			int key = this.random.nextInt(500);
+			if (this.random.nextBoolean()) {
+				this.map.put(key, i);
+				this.expected.put(key, i);
+			} else {
+				this.map.remove(key);
+				this.expected.remove(key);
+			}
+		}
+		assertMatchesExpected(500);
+	}
+
+	@Test
+	public void clear_MapCanBeFilledAgain() {
+		for (int key = 0; key < 1000; key++)
+			this.map.put(key, key);
+		this.map.clear();
+		assertEquals(0, this.map.size());
+		assertFalse(this.map.containsKey(10));
+		for (int key = 0; key < 10; key++) {
+			this.map.put(key, -key);
+			this.expected.put(key, -key);
+		}
+		assertMatchesExpected(1000);
+	}
+}
@@ -16,4 +16,13 @@ public class Log extends Material {
 		super();
 	}
 
+	/**
+	 * create a new Log with the given weight
+	 * 
+	 * @effect	create a new material with the given weight
+	 */
+	Log(int weight) throws IllegalArgumentException {
+		super(weight);
+	}
+
 }
@@ -1,6 +1,7 @@
 package hillbillies.model;
 
 import java.util.Random;
+import java.util.SplittableRandom;
 import ogp.framework.util.*;
 
 import be.kuleuven.cs.som.annotate.*;
@@ -41,6 +42,34 @@ public abstract class Material implements ITimeVariableObject {
 		this.weight = 10 + RANDOM_GEN.nextInt(41);
 	}
 
+	/**
+	 * return a random weight for a new material drawn from the given random
+	 * source
+	 *
+	 * @return	a random value in [10, 50]
+	 */
+	static int nextWeight(SplittableRandom random) {
+		return 10 + random.nextInt(41);
+	}
+
+	/**
+	 * create a new Material with the given weight, like one restored from a
+	 * snapshot
+	 *
+	 * @post	The position, world and owner of this new material equal null.
+	 * @post	The weight of this new material equals the given weight.
+	 * @throws	IllegalArgumentException
+	 *          The given weight is not in [10, 50].
+	 */
+	Material(int weight) throws IllegalArgumentException {
+		if (weight < 10 || weight > 50)
+			throw new IllegalArgumentException();
+		this.world = null;
+		this.position = null;
+		this.owner = null;
+		this.weight = weight;
+	}
+
 	/**
 	 * Return the position of this material
 	 * @return	the position in the world, if it is not carried
@@ -108,7 +137,11 @@ public abstract class Material implements ITimeVariableObject {
 				throw new IllegalArgumentException();
 			}
 		}
+		Position oldPosition = this.position;
 		this.position = position;
+		if (this.getWorld() != null && position != null
+				&& (oldPosition == null || !oldPosition.getCube().equals(position.getCube())))
+			this.getWorld().updateCubeIndex(this);
 	}
 
 	/**
@@ -0,0 +1,301 @@
+package hillbillies.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * a class answering which unit, log, boulder or workshop of a game world lies
+ * closest to a given unit or position
+ *
+ * @note	the objects are kept in a uniform grid of cells of CELL_SIZE cubes
+ * 			wide, one per kind of object (and one per faction for units). A query
+ * 			looks at the cells in rings around the cell of the position and stops
+ * 			as soon as no cell further away can contain anything closer.
+ * @note	the same cells answer which objects lie in a box, looking only at the
+ * 			cells the box overlaps.
+ * @note	distances are squared euclidean distances between positions, the
+ * 			position of a workshop is the center of its cube
+ *
+ * @author Ellen & Marte
+ */
+public class NearestQuery {
+
+	/**
+	 * the number of cubes along each side of a cell
+	 */
+	static final int CELL_SIZE = 4;
+
+	/**
+	 * create a new nearest query service for the given world, containing all
+	 * workshops of that world
+	 *
+	 * @param world
+	 *            the world to answer queries for
+	 * @throws IllegalArgumentException
+	 *             the given world is null
+	 */
+	NearestQuery(World world) throws IllegalArgumentException {
+		if (world == null)
+			throw new IllegalArgumentException();
+		this.nbCellsX = (world.getNbCubesX() + CELL_SIZE - 1) / CELL_SIZE;
+		this.nbCellsY = (world.getNbCubesY() + CELL_SIZE - 1) / CELL_SIZE;
+		this.nbCellsZ = (world.getNbCubesZ() + CELL_SIZE - 1) / CELL_SIZE;
+		this.logs = this.newIndex();
+		this.boulders = this.newIndex();
+		this.workshops = this.newIndex();
+		TerrainGrid terrain = world.getTerrain();
+		for (int index = 0; index < terrain.getNbCubes(); index++)
+			if (terrain.getType(index) == TerrainType.WORKSHOP)
+				this.updateWorkshop(terrain.getCube(index), true);
+	}
+
+	/**
+	 * the number of cells in the x, y and z direction
+	 */
+	private final int nbCellsX, nbCellsY, nbCellsZ;
+
+	/**
+	 * the units of every faction, the logs and boulders that are not carried,
+	 * and the workshops of the world, indexed by the cell they are in
+	 */
+	private final Map<Faction, CubeIndex<Unit>> unitsOf = new LinkedHashMap<Faction, CubeIndex<Unit>>();
+	private final CubeIndex<Log> logs;
+	private final CubeIndex<Boulder> boulders;
+	private final CubeIndex<Cube> workshops;
+
+	// QUERIES//
+
+	/**
+	 * return the unit of the same faction closest to the given unit
+	 *
+	 * @param unit
+	 *            the unit to search from
+	 * @return the closest other unit of the faction of the given unit, or null
+	 *         if there is none
+	 */
+	public Unit getNearestFriend(Unit unit) {
+		CubeIndex<Unit> friends = this.unitsOf.get(unit.getFaction());
+		if (friends == null)
+			return null;
+		return findNearest(Collections.singletonList(friends), unit.getPosition(), unit, Unit::getPosition);
+	}
+
+	/**
+	 * return the unit of another faction closest to the given unit
+	 *
+	 * @param unit
+	 *            the unit to search from
+	 * @return the closest unit that does not belong to the faction of the given
+	 *         unit, or null if there is none
+	 */
+	public Unit getNearestEnemy(Unit unit) {
+		List<CubeIndex<Unit>> enemies = new ArrayList<CubeIndex<Unit>>();
+		for (Map.Entry<Faction, CubeIndex<Unit>> entry : this.unitsOf.entrySet())
+			if (entry.getKey() != unit.getFaction())
+				enemies.add(entry.getValue());
+		return findNearest(enemies, unit.getPosition(), unit, Unit::getPosition);
+	}
+
+	/**
+	 * return the unit closest to the given unit
+	 *
+	 * @param unit
+	 *            the unit to search from
+	 * @return the closest unit other than the given unit, or null if there is
+	 *         none
+	 */
+	public Unit getNearestUnit(Unit unit) {
+		return findNearest(this.unitsOf.values(), unit.getPosition(), unit, Unit::getPosition);
+	}
+
+	/**
+	 * return the log that is not carried closest to the given position
+	 *
+	 * @return the closest log, or null if there is none
+	 */
+	public Log getNearestLog(Position position) {
+		return findNearest(Collections.singletonList(this.logs), position, null, Log::getPosition);
+	}
+
+	/**
+	 * return the boulder that is not carried closest to the given position
+	 *
+	 * @return the closest boulder, or null if there is none
+	 */
+	public Boulder getNearestBoulder(Position position) {
+		return findNearest(Collections.singletonList(this.boulders), position, null, Boulder::getPosition);
+	}
+
+	/**
+	 * return the workshop closest to the given position
+	 *
+	 * @return the cube of the closest workshop, or null if there is none
+	 */
+	public Cube getNearestWorkshop(Position position) {
+		return findNearest(Collections.singletonList(this.workshops), position, null, Cube::getCenter);
+	}
+
+	/**
+	 * return the object in the given indices, other than the excluded one,
+	 * closest to the given position
+	 */
+	private <T> T findNearest(Iterable<CubeIndex<T>> indices, Position position, T excluded,
+			Function<T, Position> positionOf) {
+		int cx = this.cellOf(position.getRealX(), this.nbCellsX);
+		int cy = this.cellOf(position.getRealY(), this.nbCellsY);
+		int cz = this.cellOf(position.getRealZ(), this.nbCellsZ);
+		int maxRing = Math.max(this.nbCellsX, Math.max(this.nbCellsY, this.nbCellsZ));
+
+		T nearest = null;
+		double nearestDistance = Double.POSITIVE_INFINITY;
+		for (int ring = 0; ring < maxRing; ring++) {
+			// every cell in this ring lies at least ring-1 cells away
+			double gap = (double) (ring - 1) * CELL_SIZE;
+			if (nearest != null && ring > 0 && nearestDistance <= gap * gap)
+				break;
+			for (int dz = -ring; dz <= ring; dz++) {
+				int z = cz + dz;
+				if (z < 0 || z >= this.nbCellsZ)
+					continue;
+				for (int dy = -ring; dy <= ring; dy++) {
+					int y = cy + dy;
+					if (y < 0 || y >= this.nbCellsY)
+						continue;
+					boolean onShell = Math.abs(dz) == ring || Math.abs(dy) == ring;
+					for (int dx = -ring; dx <= ring; dx += (onShell || ring == 0) ? 1 : 2 * ring) {
+						int x = cx + dx;
+						if (x < 0 || x >= this.nbCellsX)
+							continue;
+						int cell = x + y * this.nbCellsX + z * this.nbCellsX * this.nbCellsY;
+						for (CubeIndex<T> index : indices)
+							for (T object : index.getIn(cell)) {
+								if (object == excluded)
+									continue;
+								double distance = position.getDistanceSquare(positionOf.apply(object));
+								if (distance < nearestDistance) {
+									nearest = object;
+									nearestDistance = distance;
+								}
+							}
+					}
+				}
+			}
+		}
+		return nearest;
+	}
+
+	// BOX QUERIES//
+
+	/**
+	 * add the units, and the logs and boulders that are not carried, whose
+	 * position lies in the given box to the given collection
+	 *
+	 * @param min
+	 *            the lowest x, y and z coordinates of the box, included
+	 * @param max
+	 *            the highest x, y and z coordinates of the box, excluded
+	 * @param result
+	 *            the collection to add the objects to
+	 */
+	void collectInBox(double[] min, double[] max, Collection<Object> result) {
+		this.collectInBox(this.unitsOf.values(), min, max, Unit::getPosition, result);
+		this.collectInBox(Collections.singletonList(this.logs), min, max, Log::getPosition, result);
+		this.collectInBox(Collections.singletonList(this.boulders), min, max, Boulder::getPosition, result);
+	}
+
+	private <T> void collectInBox(Iterable<CubeIndex<T>> indices, double[] min, double[] max,
+			Function<T, Position> positionOf, Collection<Object> result) {
+		if (!(min[0] < max[0] && min[1] < max[1] && min[2] < max[2]))
+			return;
+		int minX = this.cellOf(min[0], this.nbCellsX), maxX = this.cellOf(max[0], this.nbCellsX);
+		int minY = this.cellOf(min[1], this.nbCellsY), maxY = this.cellOf(max[1], this.nbCellsY);
+		int minZ = this.cellOf(min[2], this.nbCellsZ), maxZ = this.cellOf(max[2], this.nbCellsZ);
+		for (int z = minZ; z <= maxZ; z++)
+			for (int y = minY; y <= maxY; y++)
+				for (int x = minX; x <= maxX; x++) {
+					int cell = x + y * this.nbCellsX + z * this.nbCellsX * this.nbCellsY;
+					for (CubeIndex<T> index : indices)
+						for (T object : index.getIn(cell)) {
+							Position position = positionOf.apply(object);
+							if (min[0] <= position.getRealX() && position.getRealX() < max[0]
+									&& min[1] <= position.getRealY() && position.getRealY() < max[1]
+									&& min[2] <= position.getRealZ() && position.getRealZ() < max[2])
+								result.add(object);
+						}
+				}
+	}
+
+	// UPDATES//
+
+	/**
+	 * put the given unit in the cell of its position, in the index of its
+	 * faction
+	 */
+	void updateUnit(Unit unit) {
+		CubeIndex<Unit> index = this.unitsOf.get(unit.getFaction());
+		if (index == null) {
+			index = this.newIndex();
+			this.unitsOf.put(unit.getFaction(), index);
+		}
+		index.put(unit, this.cellOf(unit.getPosition()));
+	}
+
+	/**
+	 * remove the given unit from the index of its faction
+	 */
+	void removeUnit(Unit unit) {
+		CubeIndex<Unit> index = this.unitsOf.get(unit.getFaction());
+		if (index != null)
+			index.remove(unit);
+	}
+
+	/**
+	 * put the given material in the cell of its position
+	 */
+	void updateMaterial(Material material) {
+		if (material instanceof Log)
+			this.logs.put((Log) material, this.cellOf(material.getPosition()));
+		else if (material instanceof Boulder)
+			this.boulders.put((Boulder) material, this.cellOf(material.getPosition()));
+	}
+
+	/**
+	 * remove the given material from this service
+	 */
+	void removeMaterial(Material material) {
+		if (material instanceof Log)
+			this.logs.remove((Log) material);
+		else if (material instanceof Boulder)
+			this.boulders.remove((Boulder) material);
+	}
+
+	/**
+	 * add the given cube as a workshop if isWorkshop is true, remove it
+	 * otherwise
+	 */
+	void updateWorkshop(Cube cube, boolean isWorkshop) {
+		if (isWorkshop)
+			this.workshops.put(cube, this.cellOf(cube.getCenter()));
+		else
+			this.workshops.remove(cube);
+	}
+
+	private <T> CubeIndex<T> newIndex() {
+		return new CubeIndex<T>();
+	}
+
+	private int cellOf(Position position) {
+		return this.cellOf(position.getRealX(), this.nbCellsX)
+				+ this.cellOf(position.getRealY(), this.nbCellsY) * this.nbCellsX
+				+ this.cellOf(position.getRealZ(), this.nbCellsZ) * this.nbCellsX * this.nbCellsY;
+	}
+
+	private int cellOf(double coordinate, int nbCells) {
+		return Math.max(0, Math.min(nbCells - 1, (int) (coordinate / CELL_SIZE)));
+	}
+}
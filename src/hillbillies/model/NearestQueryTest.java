@@ -0,0 +1,141 @@
+package hillbillies.model;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+
+/**
+ * a test suite for the class NearestQuery, comparing it with a search over
+ * all objects
+ * @author Ellen & Marte
+ *
+ */
+public class NearestQueryTest {
+
+	private World world;
+	private Random random = new Random(42);
+
+	@Before
+	public void setUp() {
+		int[][][] terrainTypes = new int[23][17][3];
+		terrainTypes[20][3][0] = 3;
+		terrainTypes[2][15][0] = 3;
+		this.world = new World(terrainTypes, new DefaultTerrainChangeListener());
+		for (int i = 0; i < 15; i++)
+			this.world.addUnit(new Unit(this.random.nextInt(23) + 0.5, this.random.nextInt(17) + 0.5, 0.5, "Ellen",
+					50, 50, 50, 50, false));
+		for (int i = 0; i < 10; i++) {
+			Position position = new Position(this.random.nextInt(23) + 0.5, this.random.nextInt(17) + 0.5, 0.5);
+			this.world.addMaterial(i % 2 == 0 ? new Log() : new Boulder(), position);
+		}
+	}
+
+	private double nearestDistance(Unit from, boolean friends, boolean enemies) {
+		double result = Double.POSITIVE_INFINITY;
+		for (Unit unit : this.world.getAllUnits()) {
+			boolean friend = unit.getFaction() == from.getFaction();
+			if (unit != from && ((friend && friends) || (!friend && enemies)))
+				result = Math.min(result, from.getPosition().getDistanceSquare(unit.getPosition()));
+		}
+		return result;
+	}
+
+	@Test
+	public void getNearestUnit_allUnits() {
+		for (Unit unit : this.world.getAllUnits()) {
+			Unit nearest = this.world.getNearestQuery().getNearestUnit(unit);
+			assertNotSame(unit, nearest);
+			assertEquals(nearestDistance(unit, true, true), unit.getPosition().getDistanceSquare(nearest.getPosition()),
+					1e-9);
+		}
+	}
+
+	@Test
+	public void getNearestFriend_allUnits() {
+		for (Unit unit : this.world.getAllUnits()) {
+			Unit nearest = this.world.getNearestQuery().getNearestFriend(unit);
+			assertNotSame(unit, nearest);
+			assertSame(unit.getFaction(), nearest.getFaction());
+			assertEquals(nearestDistance(unit, true, false),
+					unit.getPosition().getDistanceSquare(nearest.getPosition()), 1e-9);
+		}
+	}
+
+	@Test
+	public void getNearestEnemy_allUnits() {
+		for (Unit unit : this.world.getAllUnits()) {
+			Unit nearest = this.world.getNearestQuery().getNearestEnemy(unit);
+			assertNotSame(unit.getFaction(), nearest.getFaction());
+			assertEquals(nearestDistance(unit, false, true),
+					unit.getPosition().getDistanceSquare(nearest.getPosition()), 1e-9);
+		}
+	}
+
+	@Test
+	public void getNearestLog_allCubes() {
+		for (Cube cube : this.world.getAllCubes()) {
+			double expected = Double.POSITIVE_INFINITY;
+			for (Log log : this.world.getAllLogs())
+				expected = Math.min(expected, cube.getCenter().getDistanceSquare(log.getPosition()));
+			Log nearest = this.world.getNearestQuery().getNearestLog(cube.getCenter());
+			assertEquals(expected, cube.getCenter().getDistanceSquare(nearest.getPosition()), 1e-9);
+		}
+	}
+
+	@Test
+	public void getNearestBoulder_afterRemove() {
+		for (Boulder boulder : this.world.getAllBoulders())
+			this.world.removeMaterial(boulder);
+		assertNull(this.world.getNearestQuery().getNearestBoulder(new Position(1, 1, 1)));
+	}
+
+	private static boolean liesIn(Position position, double[] min, double[] max) {
+		return min[0] <= position.getRealX() && position.getRealX() < max[0] && min[1] <= position.getRealY()
+				&& position.getRealY() < max[1] && min[2] <= position.getRealZ() && position.getRealZ() < max[2];
+	}
+
+	@Test
+	public void getObjectsInBox_randomBoxes() {
+		for (int i = 0; i < 200; i++) {
+			double[] min = { this.random.nextDouble() * 25 - 1, this.random.nextDouble() * 19 - 1,
+					this.random.nextDouble() * 4 - 1 };
+			double[] max = { min[0] + this.random.nextDouble() * 12, min[1] + this.random.nextDouble() * 12,
+					min[2] + this.random.nextDouble() * 3 };
+			Set<Object> expected = new HashSet<Object>();
+			for (Unit unit : this.world.getAllUnits())
+				if (liesIn(unit.getPosition(), min, max))
+					expected.add(unit);
+			for (Material material : this.world.getAllMaterials())
+				if (liesIn(material.getPosition(), min, max))
+					expected.add(material);
+			assertEquals(expected, new HashSet<Object>(
+					this.world.getObjectsInBox(min[0], min[1], min[2], max[0], max[1], max[2])));
+		}
+	}
+
+	@Test
+	public void getObjectsInBox_afterRemove() {
+		Unit unit = this.world.getAllUnits().iterator().next();
+		this.world.removeUnit(unit);
+		assertFalse(this.world.getObjectsInBox(0, 0, 0, 23, 17, 3).contains(unit));
+		assertEquals(14 + 10, this.world.getObjectsInBox(0, 0, 0, 23, 17, 3).size());
+		assertTrue(this.world.getObjectsInBox(5, 5, 0, 5, 6, 1).isEmpty());
+	}
+
+	@Test
+	public void getNearestWorkshop_terrainChanges() {
+		NearestQuery query = this.world.getNearestQuery();
+		assertEquals(new Cube(20, 3, 0), query.getNearestWorkshop(new Position(15.5, 2.5, 0.5)));
+		this.world.setTerrainType(new Cube(20, 3, 0), TerrainType.AIR);
+		assertEquals(new Cube(2, 15, 0), query.getNearestWorkshop(new Position(15.5, 2.5, 0.5)));
+		this.world.setTerrainType(new Cube(16, 2, 0), TerrainType.WORKSHOP);
+		assertEquals(new Cube(16, 2, 0), query.getNearestWorkshop(new Position(15.5, 2.5, 0.5)));
+	}
+}
@@ -0,0 +1,271 @@
+package hillbillies.model;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * a class of path finders that plan a route for units through the cubes of a
+ * world, using the A* algorithm
+ *
+ * @note the search state is kept per cube reached by the search, in arrays
+ *       of nodes that are reused between searches, with a map from the index
+ *       of every reached cube to its node. A path finder so takes memory for
+ *       the cubes its searches reach instead of all cubes of the world, and
+ *       must not be used by more than one thread at the same time.
+ *
+ * @invar the world of a path finder is never null
+ *
+ * @author Ellen & Marte
+ */
+class PathFinder {
+
+	/**
+	 * the lowest cost per cube of chebyshev distance that a path can have:
+	 * going down and back up again costs (0.5+1.2) for two cubes
+	 */
+	private static final double MIN_COST_PER_STEP = (Cube.UPWARD_WEIGHT + Cube.DOWNWARD_WEIGHT) / 2;
+
+	/**
+	 * the extra cost per cube the goal lies lower than the start, and the gain
+	 * per cube it lies higher
+	 */
+	private static final double COST_PER_LEVEL = (Cube.DOWNWARD_WEIGHT - Cube.UPWARD_WEIGHT) / 2;
+
+	/**
+	 * create a new path finder for the given world
+	 *
+	 * @param world
+	 *            the world to plan paths in
+	 * @throws IllegalArgumentException
+	 *             the given world is null
+	 */
+	PathFinder(World world) throws IllegalArgumentException {
+		if (world == null)
+			throw new IllegalArgumentException();
+		this.world = world;
+		this.terrain = world.getTerrain();
+		this.open = new OpenSet();
+	}
+
+	/**
+	 * the world this path finder plans paths in
+	 */
+	private final World world;
+
+	/**
+	 * the terrain of the world, in which the cubes are indexed
+	 */
+	private final TerrainGrid terrain;
+
+	/**
+	 * the node of every cube reached in the current search
+	 */
+	private final IntIntMap nodeOf = new IntIntMap();
+
+	/**
+	 * for every node of the current search, in the order their cubes were
+	 * reached: the index of its cube, the node before it on the cheapest path
+	 * found so far, the cost of that path and whether the node is closed
+	 */
+	private int[] cubeOf = new int[64], cameFrom = new int[64];
+	private double[] costSoFar = new double[64];
+	private boolean[] closed = new boolean[64];
+
+	/**
+	 * the number of nodes of the current search
+	 */
+	private int nbNodes;
+
+	/**
+	 * the indices of the cubes adjacent to the cube being closed
+	 */
+	private final int[] adjacent = new int[26];
+
+	/**
+	 * the nodes that are reached but not yet closed, ordered by estimated
+	 * total cost
+	 */
+	private final OpenSet open;
+
+	/**
+	 * return the cheapest path from the given start cube to the given
+	 * destination
+	 *
+	 * @param start
+	 *            the cube to start from
+	 * @param destination
+	 *            the cube to go to
+	 * @return the cubes to pass through in order, excluding the start cube and
+	 *         including the destination; every cube in the path is stable for
+	 *         a unit and adjacent to the one before it. The result is empty if
+	 *         start equals destination and null if there is no path.
+	 * @throws IllegalArgumentException
+	 *             the start or destination is not a valid cube in the world
+	 */
+	Deque<Cube> findPath(Cube start, Cube destination) throws IllegalArgumentException {
+		if (start == null || destination == null || !start.isValidIn(this.world) || !destination.isValidIn(this.world))
+			throw new IllegalArgumentException();
+		if (start.equals(destination))
+			return new ArrayDeque<Cube>();
+
+		this.startSearch();
+		int goal = destination.getIndexIn(this.terrain);
+		if (!this.terrain.isStableForUnit(goal))
+			return null;
+		int gx = destination.getX(), gy = destination.getY(), gz = destination.getZ();
+
+		int first = this.addNode(start.getIndexIn(this.terrain), 0, -1);
+		this.open.push(first, estimate(start.getX(), start.getY(), start.getZ(), gx, gy, gz));
+
+		while (!this.open.isEmpty()) {
+			int current = this.open.pop();
+			if (this.closed[current])
+				continue;
+			int cube = this.cubeOf[current];
+			if (cube == goal)
+				return this.pathTo(current);
+			this.closed[current] = true;
+
+			int cx = this.terrain.getX(cube), cy = this.terrain.getY(cube), cz = this.terrain.getZ(cube);
+			int nbAdjacent = this.terrain.getAdjacent(cube, this.adjacent);
+			for (int i = 0; i < nbAdjacent; i++) {
+				int next = this.adjacent[i];
+				int node = this.nodeOf.get(next, -1);
+				if ((node >= 0 && this.closed[node]) || !this.terrain.isStableForUnit(next))
+					continue;
+				int x = this.terrain.getX(next), y = this.terrain.getY(next), z = this.terrain.getZ(next);
+				double cost = this.costSoFar[current] + Cube.getDistanceWeight(x - cx, y - cy, z - cz);
+				if (node < 0) {
+					node = this.addNode(next, cost, current);
+				} else if (cost < this.costSoFar[node]) {
+					this.costSoFar[node] = cost;
+					this.cameFrom[node] = current;
+				} else {
+					continue;
+				}
+				this.open.push(node, cost + estimate(x, y, z, gx, gy, gz));
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * start a new search, forgetting the nodes of the previous one
+	 */
+	private void startSearch() {
+		this.open.clear();
+		this.nodeOf.clear();
+		this.nbNodes = 0;
+	}
+
+	/**
+	 * add a node for the cube with the given index, reached with the given
+	 * cost from the given node
+	 *
+	 * @return the new node
+	 */
+	private int addNode(int cube, double cost, int from) {
+		if (this.nbNodes == this.cubeOf.length) {
+			int capacity = 2 * this.nbNodes;
+			this.cubeOf = Arrays.copyOf(this.cubeOf, capacity);
+			this.cameFrom = Arrays.copyOf(this.cameFrom, capacity);
+			this.costSoFar = Arrays.copyOf(this.costSoFar, capacity);
+			this.closed = Arrays.copyOf(this.closed, capacity);
+		}
+		int node = this.nbNodes++;
+		this.cubeOf[node] = cube;
+		this.cameFrom[node] = from;
+		this.costSoFar[node] = cost;
+		this.closed[node] = false;
+		this.nodeOf.put(cube, node);
+		return node;
+	}
+
+	/**
+	 * return the cubes on the path found to the given node
+	 */
+	private Deque<Cube> pathTo(int node) {
+		Deque<Cube> path = new ArrayDeque<Cube>();
+		while (this.cameFrom[node] != -1) {
+			path.addFirst(this.terrain.getCube(this.cubeOf[node]));
+			node = this.cameFrom[node];
+		}
+		return path;
+	}
+
+	/**
+	 * return a lower bound on the cost of going from the first to the second
+	 * set of coordinates
+	 *
+	 * @note every step covers at most one cube of chebyshev distance and one
+	 *       level, so no path can be cheaper than moving up or down the whole
+	 *       height difference and covering the rest of the distance by going
+	 *       down and up again. This bound never decreases by more than the
+	 *       weight of a single step, so a closed cube is never reopened.
+	 */
+	private static double estimate(int x, int y, int z, int gx, int gy, int gz) {
+		int chebyshev = Math.max(Math.abs(gx - x), Math.max(Math.abs(gy - y), Math.abs(gz - z)));
+		return MIN_COST_PER_STEP * chebyshev - COST_PER_LEVEL * (gz - z);
+	}
+
+	/**
+	 * a binary min-heap of nodes, ordered by their estimated total cost; a
+	 * node may be pushed more than once, the stale entries are skipped when
+	 * popped
+	 */
+	private static class OpenSet {
+
+		private int[] nodes = new int[64];
+		private double[] keys = new double[64];
+		private int size;
+
+		boolean isEmpty() {
+			return this.size == 0;
+		}
+
+		void clear() {
+			this.size = 0;
+		}
+
+		void push(int node, double key) {
+			if (this.size == this.nodes.length) {
+				this.nodes = Arrays.copyOf(this.nodes, 2 * this.size);
+				this.keys = Arrays.copyOf(this.keys, 2 * this.size);
+			}
+			int i = this.size++;
+			while (i > 0) {
+				int parent = (i - 1) / 2;
+				if (this.keys[parent] <= key)
+					break;
+				this.nodes[i] = this.nodes[parent];
+				this.keys[i] = this.keys[parent];
+				i = parent;
+			}
+			this.nodes[i] = node;
+			this.keys[i] = key;
+		}
+
+		int pop() {
+			int result = this.nodes[0];
+			int lastNode = this.nodes[--this.size];
+			double lastKey = this.keys[this.size];
+			int i = 0;
+			while (true) {
+				int child = 2 * i + 1;
+				if (child >= this.size)
+					break;
+				if (child + 1 < this.size && this.keys[child + 1] < this.keys[child])
+					child++;
+				if (this.keys[child] >= lastKey)
+					break;
+				this.nodes[i] = this.nodes[child];
+				this.keys[i] = this.keys[child];
+				i = child;
+			}
+			this.nodes[i] = lastNode;
+			this.keys[i] = lastKey;
+			return result;
+		}
+	}
+}
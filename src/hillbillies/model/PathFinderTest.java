@@ -0,0 +1,92 @@
+package hillbillies.model;
+
+import static org.junit.Assert.*;
+
+import java.util.Deque;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+
+/**
+ * a test suite for the class PathFinder
+ * @author Ellen & Marte
+ *
+ */
+public class PathFinderTest {
+
+	private World world;
+	private PathFinder pathFinder;
+
+	@Before
+	public void setUp() {
+		int[][][] terrain = new int[5][5][5];
+		// a wall of rock at x == 2, open at y == 4
+		for (int y = 0; y < 4; y++)
+			for (int z = 0; z < 3; z++)
+				terrain[2][y][z] = 1;
+		this.world = new World(terrain, new DefaultTerrainChangeListener());
+		this.pathFinder = new PathFinder(this.world);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void constructor_IllegalCase() {
+		new PathFinder(null);
+	}
+
+	@Test
+	public void findPath_sameCube() {
+		assertTrue(this.pathFinder.findPath(new Cube(0, 0, 0), new Cube(0, 0, 0)).isEmpty());
+	}
+
+	@Test
+	public void findPath_straightLine() {
+		Deque<Cube> path = this.pathFinder.findPath(new Cube(0, 0, 0), new Cube(0, 3, 0));
+		assertEquals(3, path.size());
+		assertEquals(new Cube(0, 3, 0), path.peekLast());
+	}
+
+	@Test
+	public void findPath_aroundWall() {
+		Cube start = new Cube(0, 0, 0);
+		Cube destination = new Cube(4, 0, 0);
+		Deque<Cube> path = this.pathFinder.findPath(start, destination);
+		assertNotNull(path);
+		assertEquals(destination, path.peekLast());
+		Cube previous = start;
+		for (Cube cube : path) {
+			assertTrue(cube.isSameOrAdjacentCube(previous) && !cube.equals(previous));
+			assertTrue(cube.getCenter().isStableForUnitIn(this.world));
+			previous = cube;
+		}
+	}
+
+	@Test
+	public void findPath_solidDestination() {
+		assertNull(this.pathFinder.findPath(new Cube(0, 0, 0), new Cube(2, 0, 0)));
+	}
+
+	@Test
+	public void findPath_unstableDestination() {
+		assertNull(this.pathFinder.findPath(new Cube(0, 0, 0), new Cube(0, 0, 4)));
+	}
+
+	@Test
+	public void findPath_reusedAfterTerrainChange() {
+		assertNotNull(this.pathFinder.findPath(new Cube(0, 0, 0), new Cube(4, 0, 0)));
+		this.world.setTerrainType(new Cube(2, 4, 0), TerrainType.ROCK);
+		this.world.setTerrainType(new Cube(2, 4, 1), TerrainType.ROCK);
+		this.world.setTerrainType(new Cube(2, 4, 2), TerrainType.ROCK);
+		for (int y = 0; y < 5; y++)
+			this.world.setTerrainType(new Cube(2, y, 3), TerrainType.ROCK);
+		for (int y = 0; y < 5; y++)
+			this.world.setTerrainType(new Cube(2, y, 4), TerrainType.ROCK);
+		assertNull(this.pathFinder.findPath(new Cube(0, 0, 0), new Cube(4, 0, 0)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void findPath_invalidCube() {
+		this.pathFinder.findPath(new Cube(0, 0, 0), new Cube(5, 0, 0));
+	}
+}
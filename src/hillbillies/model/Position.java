@@ -1,7 +1,5 @@
 package hillbillies.model;
 
-import java.util.Iterator;
-
 import be.kuleuven.cs.som.annotate.*;
 
 /**
@@ -92,7 +90,7 @@ public class Position {
 	 * return the x-coordinate inside the cube of this Position
 	 */
 	@Basic
-	private double getX() {
+	double getX() {
 		return this.x;
 	}
 
@@ -107,7 +105,7 @@ public class Position {
 	 * return the y-coordinate inside the cube of this Position
 	 */
 	@Basic
-	private double getY() {
+	double getY() {
 		return this.y;
 	}
 
@@ -122,7 +120,7 @@ public class Position {
 	 * return the z-coordinate inside the cube of this Position
 	 */
 	@Basic
-	private double getZ() {
+	double getZ() {
 		return this.z;
 	}
 
@@ -190,17 +188,7 @@ public class Position {
 		if (!this.isValidForObjectIn(world))
 			return false;
 
-		if (this.getCube().getZ() == 0)
-			return true;
-
-		Iterator<Cube> it = this.getCube().getAllAdjacentCubes(world).iterator();
-		while (it.hasNext()) {
-			Cube NeighbouringCube = it.next();
-			if (!NeighbouringCube.isPassableIn(world))
-				return true;
-		}
-
-		return false;
+		return world.getTerrain().isStableForUnit(this.getCube().getIndexIn(world.getTerrain()));
 	}
 
 	/**
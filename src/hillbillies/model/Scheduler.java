@@ -2,14 +2,22 @@ package hillbillies.model;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.function.Predicate;
 
 import be.kuleuven.cs.som.annotate.*;
 
 /**
+ * @note the tasks that are not being executed and the tasks that are, are kept
+ *       in two indexed heaps by priority. A task notifies its schedulers when
+ *       its priority or its unit changes, so the task of the highest priority
+ *       that is not being executed is always at the top of a heap.
  * @invar Each scheduler must have proper tasks. | hasProperTasks()
  * @invar Each scheduler can have its faction as faction. |
  *        canHaveAsFaction(this.getFaction()
@@ -99,6 +107,10 @@ public class Scheduler {
 	public void addTask(@Raw Task task) {
 		assert canHaveAsTask(task);
 		tasks.add(task);
+		if (task.isBeingExecuted())
+			executing.add(task);
+		else
+			waiting.add(task);
 		task.getAllSchedulers().add(this);
 	}
 
@@ -118,14 +130,43 @@ public class Scheduler {
 	 */
 	@Raw
 	public void removeTask(Task task) throws IllegalStateException {
-		if (this.hasAsTask(task))
+		if (!this.hasAsTask(task))
 			throw new IllegalStateException();
 		tasks.remove(task);
+		waiting.remove(task);
+		executing.remove(task);
 		task.getAllSchedulers().remove(this);
 	}
 
+	/**
+	 * move the given task to its place after a change of its priority or of
+	 * its unit
+	 * 
+	 * @param task
+	 *            the task that changed
+	 * @note called by the task itself, for each of its schedulers
+	 */
+	void updateTask(Task task) {
+		if (!this.hasAsTask(task))
+			return;
+		if (task.isBeingExecuted()) {
+			waiting.remove(task);
+			executing.add(task);
+			executing.update(task);
+		} else {
+			executing.remove(task);
+			waiting.add(task);
+			waiting.update(task);
+		}
+	}
+
+	/**
+	 * return the tasks of this scheduler
+	 * 
+	 * @return a view of the tasks of this scheduler that cannot be modified
+	 */
 	public Set<Task> getAllTasks() {
-		return this.tasks;
+		return Collections.unmodifiableSet(this.tasks);
 	}
 	
 	/**
@@ -174,21 +215,34 @@ public class Scheduler {
 
 	/**
 	 * returns an iterator over the tasks of this scheduler sorted by descending priority
+	 * @note the tasks are merged from the heaps of tasks that are and are not
+	 *       being executed, without sorting all tasks
 	 * @return
 	 */
 	public Iterator<Task> getAllTasksIterator() {
 		return new Iterator<Task>() {
 			public boolean hasNext() {
-				return (index < sortedTasks.size() - 1);
+				return (nextWaiting != null || nextExecuting != null);
 			}
 
 			public Task next() {
-				index += 1;
-				return sortedTasks.get(index);
+				if (!hasNext())
+					throw new NoSuchElementException();
+				Task result;
+				if (nextExecuting == null || (nextWaiting != null && nextWaiting.compareTo(nextExecuting) <= 0)) {
+					result = nextWaiting;
+					nextWaiting = waitingTasks.hasNext() ? waitingTasks.next() : null;
+				} else {
+					result = nextExecuting;
+					nextExecuting = executingTasks.hasNext() ? executingTasks.next() : null;
+				}
+				return result;
 			}
 
-			private ArrayList<Task> sortedTasks = getSortedTasks();
-			private int index = -1;
+			private Iterator<Task> waitingTasks = waiting.iterator();
+			private Iterator<Task> executingTasks = executing.iterator();
+			private Task nextWaiting = waitingTasks.hasNext() ? waitingTasks.next() : null;
+			private Task nextExecuting = executingTasks.hasNext() ? executingTasks.next() : null;
 		};
 	}
 
@@ -197,8 +251,8 @@ public class Scheduler {
 	 * @return
 	 */
 	public ArrayList<Task> getSortedTasks() {
-		ArrayList<Task> result = new ArrayList<Task>(this.tasks);
-		result.sort((a, b) -> a.compareTo(b));
+		ArrayList<Task> result = new ArrayList<Task>(this.tasks.size());
+		getAllTasksIterator().forEachRemaining(result::add);
 		return result;
 	}
 
@@ -207,11 +261,46 @@ public class Scheduler {
 	 * @return
 	 */
 	public Task getHighestPriorityTaskNotExecuted() {
-		for (Task task : getSortedTasks()) {
-			if (!task.isBeingExecuted())
-				return task;
+		return waiting.peek();
+	}
+
+	/**
+	 * assign the tasks of the highest priority that are not being executed to
+	 * the given units and let the units start executing them
+	 * 
+	 * @param units
+	 *            the units waiting for a task
+	 * @param counter
+	 *            the counter limiting the number of instructions the tasks
+	 *            execute
+	 * @effect the task of the highest priority that is not being executed is
+	 *         assigned to the unit closest to the cube of that task, and so
+	 *         on, until there are no more units or tasks
+	 *         | assignTaskToUnit(task, unit) && task.execute(counter)
+	 * @note the tasks are taken from the top of the heap at once, so all units
+	 *       are matched in one pass instead of every unit looking for a task
+	 *       on its own
+	 */
+	void dispatchTasks(List<Unit> units, Counter counter) {
+		List<Task> tasks = new ArrayList<Task>();
+		Iterator<Task> iterator = waiting.iterator();
+		while (tasks.size() < units.size() && iterator.hasNext())
+			tasks.add(iterator.next());
+		List<Unit> idle = new ArrayList<Unit>(units);
+		for (Task task : tasks) {
+			// a task started by an earlier unit may have changed the others
+			if (!hasAsTask(task) || task.isBeingExecuted())
+				continue;
+			Position target = task.getCube().getCenter();
+			int closest = 0;
+			for (int i = 1; i < idle.size(); i++)
+				if (idle.get(i).getPosition().getDistanceSquare(target) < idle.get(closest).getPosition()
+						.getDistanceSquare(target))
+					closest = i;
+			Unit unit = idle.remove(closest);
+			assignTaskToUnit(task, unit);
+			task.execute(counter);
 		}
-		return null;
 	}
 
 	/**
@@ -281,7 +370,15 @@ public class Scheduler {
 	 *        yet terminated. | for each task in tasks: | ( (task != null) && |
 	 *        (! task.isTerminated()) )
 	 */
-	private final Set<Task> tasks = new HashSet<Task>();
+	private final Set<Task> tasks = new LinkedHashSet<Task>();
+
+	/**
+	 * Variables referencing the heaps of the tasks of this scheduler that are
+	 * not being executed and that are being executed.
+	 */
+	private final TaskHeap waiting = new TaskHeap();
+
+	private final TaskHeap executing = new TaskHeap();
 
 	/**
 	 * Return the faction of this scheduler.
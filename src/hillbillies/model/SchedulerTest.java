@@ -1,5 +1,159 @@
 package hillbillies.model;
 
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import hillbillies.model.programs.Program;
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+import hillbillies.part3.programs.TaskParser;
+
+/**
+ * a test suite for the class Scheduler, comparing the order of its tasks with
+ * a sort by priority
+ * @author Ellen & Marte
+ *
+ */
 public class SchedulerTest {
 
+	private World world;
+	private Unit unit;
+	private Scheduler scheduler;
+	private Program program;
+	private Random random = new Random(42);
+
+	@Before
+	public void setUp() {
+		int[][][] terrainTypes = new int[3][3][3];
+		terrainTypes[1][1][0] = 1;
+		terrainTypes[0][0][0] = 1;
+		this.world = new World(terrainTypes, new DefaultTerrainChangeListener());
+		this.unit = new Unit(1.5, 1.5, 1.5, "James O'Hara", 50, 50, 50, 50, false);
+		this.world.addUnit(this.unit);
+		this.scheduler = this.unit.getFaction().getScheduler();
+		this.program = TaskParser.parseTasksFromString("name: \"test\"\npriority: 1\nactivities: work here;",
+				new TaskFactory(), Arrays.asList(new int[][] { { 1, 1, 1 } })).get(0).getProgram();
+	}
+
+	private Task createTask(int priority) {
+		return createTask(priority, new Cube(1, 1, 1));
+	}
+
+	private Task createTask(int priority, Cube cube) {
+		return new Task("test", priority, this.program, cube);
+	}
+
+	private void assertSortedByPriority() {
+		List<Task> expected = new ArrayList<Task>(this.scheduler.getAllTasks());
+		expected.sort((a, b) -> a.compareTo(b));
+		Iterator<Task> iterator = this.scheduler.getAllTasksIterator();
+		for (Task task : expected) {
+			assertTrue(iterator.hasNext());
+			assertEquals(task.getPriority(), iterator.next().getPriority());
+		}
+		assertFalse(iterator.hasNext());
+	}
+
+	@Test
+	public void getHighestPriorityTaskNotExecuted_Empty() {
+		assertNull(this.scheduler.getHighestPriorityTaskNotExecuted());
+		assertFalse(this.scheduler.getAllTasksIterator().hasNext());
+	}
+
+	@Test
+	public void getHighestPriorityTaskNotExecuted_SkipsExecutedTask() {
+		Task high = createTask(10);
+		Task low = createTask(5);
+		this.scheduler.addTask(low);
+		this.scheduler.addTask(high);
+		assertSame(high, this.scheduler.getHighestPriorityTaskNotExecuted());
+		this.scheduler.assignTaskToUnit(high, this.unit);
+		assertSame(low, this.scheduler.getHighestPriorityTaskNotExecuted());
+		high.setUnit(null);
+		assertSame(high, this.scheduler.getHighestPriorityTaskNotExecuted());
+	}
+
+	@Test
+	public void getHighestPriorityTaskNotExecuted_PriorityChanged() {
+		Task first = createTask(10);
+		Task second = createTask(5);
+		this.scheduler.addTask(first);
+		this.scheduler.addTask(second);
+		first.setPriority(1);
+		assertSame(second, this.scheduler.getHighestPriorityTaskNotExecuted());
+	}
+
+	@Test
+	public void removeTask_NoLongerReturned() {
+		Task high = createTask(10);
+		Task low = createTask(5);
+		this.scheduler.addTask(high);
+		this.scheduler.addTask(low);
+		this.scheduler.removeTask(high);
+		assertSame(low, this.scheduler.getHighestPriorityTaskNotExecuted());
+		high.setPriority(20);
+		assertSame(low, this.scheduler.getHighestPriorityTaskNotExecuted());
+		assertSortedByPriority();
+	}
+
+	@Test
+	public void getAllTasksIterator_RandomChanges() {
+		List<Task> tasks = new ArrayList<Task>();
+		for (int i = 0; i < 200; i++) {
+			int choice = this.random.nextInt(4);
+			if (choice == 0 || tasks.isEmpty()) {
+				Task task = createTask(this.random.nextInt(50));
+				tasks.add(task);
+				this.scheduler.addTask(task);
+			} else if (choice == 1) {
+				tasks.get(this.random.nextInt(tasks.size())).setPriority(this.random.nextInt(50));
+			} else if (choice == 2) {
+				Task task = tasks.remove(this.random.nextInt(tasks.size()));
+				if (task.isBeingExecuted())
+					this.unit.setTask(null);
+				task.setUnit(null);
+				this.scheduler.removeTask(task);
+			} else {
+				Task task = tasks.get(this.random.nextInt(tasks.size()));
+				if (task.isBeingExecuted())
+					task.setUnit(null);
+				else
+					this.scheduler.assignTaskToUnit(task, this.unit);
+			}
+			assertSortedByPriority();
+			Task highest = this.scheduler.getHighestPriorityTaskNotExecuted();
+			for (Task task : tasks)
+				if (!task.isBeingExecuted())
+					assertTrue(highest.getPriority() >= task.getPriority());
+		}
+	}
+
+	@Test
+	public void advanceTime_ClosestIdleUnitGetsTask() {
+		this.unit.startDefaultBehaviour();
+		Unit other = new Unit(0.5, 0.5, 1.5, "Mary O'Hara", 50, 50, 50, 50, true);
+		this.world.addUnit(other);
+		Task high = createTask(10, new Cube(0, 0, 1));
+		Task low = createTask(5, new Cube(1, 1, 1));
+		Task lowest = createTask(1, new Cube(0, 0, 1));
+		this.scheduler.addTask(low);
+		this.scheduler.addTask(high);
+		this.scheduler.addTask(lowest);
+		// both units belong to the faction of this scheduler
+		if (other.getFaction() != this.unit.getFaction()) {
+			other.getFaction().removeUnit(other);
+			this.unit.getFaction().addUnit(other);
+		}
+		this.world.advanceTime(0.1f);
+		assertSame(other, high.getUnit());
+		assertSame(this.unit, low.getUnit());
+		assertSame(lowest, this.scheduler.getHighestPriorityTaskNotExecuted());
+	}
 }
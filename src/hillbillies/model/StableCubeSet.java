@@ -0,0 +1,127 @@
+package hillbillies.model;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * a class keeping the set of cubes of a terrain grid a unit can stand in,
+ * updated around every cube whose terrain type changes
+ *
+ * @note	the cubes are stored by index in an array, together with a map from
+ * 			every stable cube to its position in that array, so adding,
+ * 			removing and picking a random cube take constant time and the set
+ * 			only takes memory for the cubes that are stable.
+ *
+ * @invar	a cube is in this set if and only if it is stable for a unit in the
+ * 			terrain grid of this set
+ *
+ * @author Ellen & Marte
+ */
+class StableCubeSet {
+
+	/**
+	 * create a new set of the stable cubes in the given terrain grid
+	 *
+	 * @param terrain
+	 *            the grid to keep the stable cubes of
+	 * @post	this set contains exactly the cubes of the given grid that are
+	 * 			stable for a unit
+	 */
+	StableCubeSet(TerrainGrid terrain) {
+		this.terrain = terrain;
+		for (int index = 0; index < terrain.getNbCubes(); index++)
+			if (terrain.isStableForUnit(index))
+				this.add(index);
+	}
+
+	/**
+	 * the grid this set keeps the stable cubes of
+	 */
+	private final TerrainGrid terrain;
+
+	/**
+	 * the indices of the stable cubes, in the first size positions
+	 */
+	private int[] cubes = new int[64];
+
+	/**
+	 * the position of every stable cube in the array of stable cubes
+	 */
+	private final IntIntMap positionOf = new IntIntMap();
+
+	/**
+	 * the number of stable cubes
+	 */
+	private int size;
+
+	/**
+	 * a buffer for the adjacent cubes of a changed cube
+	 */
+	private final int[] adjacent = new int[26];
+
+	/**
+	 * return the number of stable cubes
+	 */
+	int size() {
+		return this.size;
+	}
+
+	/**
+	 * check whether the cube with the given index is stable
+	 */
+	boolean contains(int index) {
+		return this.positionOf.containsKey(index);
+	}
+
+	/**
+	 * return the index of a stable cube, chosen uniformly with the given
+	 * random generator
+	 *
+	 * @throws IllegalStateException
+	 *             there are no stable cubes
+	 */
+	int getRandom(SplittableRandom random) throws IllegalStateException {
+		if (this.size == 0)
+			throw new IllegalStateException("No stable cubes");
+		return this.cubes[random.nextInt(this.size)];
+	}
+
+	/**
+	 * bring this set up to date after the terrain type of the cube with the
+	 * given index changed
+	 *
+	 * @param index
+	 *            the index of the changed cube
+	 * @post	the changed cube and all cubes adjacent to it are in this set if
+	 * 			and only if they are stable
+	 */
+	void update(int index) {
+		this.updateCube(index);
+		int nbAdjacent = this.terrain.getAdjacent(index, this.adjacent);
+		for (int i = 0; i < nbAdjacent; i++)
+			this.updateCube(this.adjacent[i]);
+	}
+
+	private void updateCube(int index) {
+		boolean stable = this.terrain.isStableForUnit(index);
+		if (stable && !this.contains(index))
+			this.add(index);
+		else if (!stable && this.contains(index))
+			this.remove(index);
+	}
+
+	private void add(int index) {
+		if (this.size == this.cubes.length)
+			this.cubes = Arrays.copyOf(this.cubes, 2 * this.size);
+		this.positionOf.put(index, this.size);
+		this.cubes[this.size++] = index;
+	}
+
+	private void remove(int index) {
+		int position = this.positionOf.get(index, -1);
+		int last = this.cubes[--this.size];
+		this.cubes[position] = last;
+		this.positionOf.put(last, position);
+		this.positionOf.remove(index);
+	}
+}
@@ -0,0 +1,69 @@
+package hillbillies.model;
+
+import static org.junit.Assert.*;
+
+import java.util.SplittableRandom;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+
+/**
+ * a test suite for the class StableCubeSet, comparing it with a scan of the
+ * whole terrain
+ * @author Ellen & Marte
+ *
+ */
+public class StableCubeSetTest {
+
+	private World world;
+	private SplittableRandom random = new SplittableRandom(42);
+
+	@Before
+	public void setUp() {
+		int[][][] terrainTypes = new int[8][7][6];
+		for (int x = 0; x < 8; x++)
+			for (int y = 0; y < 7; y++)
+				for (int z = 0; z < 3; z++)
+					terrainTypes[x][y][z] = 1 + this.random.nextInt(2);
+		this.world = new World(terrainTypes, new DefaultTerrainChangeListener());
+	}
+
+	private void assertMatchesTerrain() {
+		TerrainGrid terrain = this.world.getTerrain();
+		int nbStable = 0;
+		for (int index = 0; index < terrain.getNbCubes(); index++) {
+			assertEquals(terrain.isStableForUnit(index), this.world.getStableCubes().contains(index));
+			if (terrain.isStableForUnit(index))
+				nbStable++;
+		}
+		assertEquals(nbStable, this.world.getStableCubes().size());
+	}
+
+	@Test
+	public void constructor_matchesTerrain() {
+		assertMatchesTerrain();
+	}
+
+	@Test
+	public void setTerrainType_matchesTerrain() {
+		for (int i = 0; i < 100; i++) {
+			Cube cube = new Cube(this.random.nextInt(8), this.random.nextInt(7), this.random.nextInt(6));
+			this.world.setTerrainType(cube, TerrainType.values()[this.random.nextInt(4)]);
+			assertMatchesTerrain();
+		}
+	}
+
+	@Test
+	public void getRandom_onlyStableCubes() {
+		for (int i = 0; i < 100; i++)
+			assertTrue(this.world.getTerrain().isStableForUnit(this.world.getStableCubes().getRandom(this.random)));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void getRandom_noStableCubes() {
+		World solidWorld = new World(new int[][][] { { { 1 } } }, new DefaultTerrainChangeListener());
+		solidWorld.getStableCubes().getRandom(this.random);
+	}
+}
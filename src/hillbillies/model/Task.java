@@ -1,12 +1,14 @@
 package hillbillies.model;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 import be.kuleuven.cs.som.annotate.*;
+import hillbillies.model.programs.ExecutionFrame;
+import hillbillies.model.programs.Program;
 import hillbillies.model.programs.statements.Statement;
+import hillbillies.model.programs.type.Type;
 
 /**
  * @invar Each task can have its name as name. | canHaveAsName(this.getName())
@@ -54,19 +56,48 @@ public class Task implements Comparable<Task> {
 	 * @post This new task has no schedulers yet. | new.getNbSchedulers() == 0
 	 */
 	public Task(String name, int priority, Statement activities, Cube cube) throws IllegalArgumentException {
+		this(name, priority, compile(activities), cube);
+	}
+
+	/**
+	 * Initialize this new task with given name, priority, program and cube.
+	 * The program is shared with the other tasks created from it; this new
+	 * task gets its own execution frame, at the start of the program.
+	 *
+	 * @param name
+	 *            The name for this new task.
+	 * @param priority
+	 *            The priority for this new task.
+	 * @param program
+	 *            The program for this new task.
+	 * @param cube
+	 *            The cube for this new task.
+	 * @post The program of this new task is equal to the given program. |
+	 *       new.getProgram() == program
+	 * @throws IllegalArgumentException
+	 *             This new task cannot have the given name, program or cube.
+	 */
+	public Task(String name, int priority, Program program, Cube cube) throws IllegalArgumentException {
 		if (!canHaveAsName(name))
 			throw new IllegalArgumentException();
 		this.name = name;
 		this.setPriority(priority);
-		if (!canHaveAsActivities(activities))
+		if (program == null)
 			throw new IllegalArgumentException();
-		this.activities = activities;
+		this.program = program;
+		this.frame = new ExecutionFrame(program);
 		if (!canHaveAsCube(cube))
 			throw new IllegalArgumentException();
 		this.cube = cube;
 		this.setUnit(null);
 	}
 
+	private static Program compile(Statement activities) throws IllegalArgumentException {
+		if (activities == null)
+			throw new IllegalArgumentException();
+		return new Program(activities);
+	}
+
 	/**
 	 * check wheter this task is wellFormed
 	 * 
@@ -75,7 +106,7 @@ public class Task implements Comparable<Task> {
 	 *         getActivities().containsActionStatement();
 	 */
 	public boolean isWellFormed() {
-		return getActivities().isWellFormed() && getActivities().containsActionStatement();
+		return getProgram().isWellFormed() && getProgram().containsActionStatement();
 	}
 
 	/**
@@ -158,6 +189,8 @@ public class Task implements Comparable<Task> {
 		if (!isValidPriority(priority))
 			throw new IllegalArgumentException();
 		this.priority = priority;
+		for (Scheduler scheduler : this.schedulers)
+			scheduler.updateTask(this);
 	}
 
 	/**
@@ -172,7 +205,17 @@ public class Task implements Comparable<Task> {
 	@Raw
 	@Immutable
 	public Statement getActivities() {
-		return this.activities;
+		return getProgram().getBody();
+	}
+
+	/**
+	 * Return the program of this task.
+	 */
+	@Basic
+	@Raw
+	@Immutable
+	public Program getProgram() {
+		return this.program;
 	}
 
 	/**
@@ -190,16 +233,30 @@ public class Task implements Comparable<Task> {
 	/**
 	 * check whether this task has been fully executed
 	 * 
-	 * @return this.getActivities().hasBeenFullyExecuted()
+	 * @return the whole program has been executed in the frame of this task
 	 */
 	public boolean hasBeenFullyExecuted() {
-		return getActivities().hasBeenFullyExecuted();
+		return this.frame.hasFinished();
 	}
 
 	/**
-	 * Variable registering the activities of this task.
+	 * Variable registering the program of this task.
 	 */
-	private final Statement activities;
+	private final Program program;
+
+	/**
+	 * Variable registering how far this task got in its program.
+	 */
+	private final ExecutionFrame frame;
+
+	/**
+	 * return the execution frame of this task, holding its variables
+	 */
+	@Basic
+	@Immutable
+	public ExecutionFrame getExecutionFrame() {
+		return this.frame;
+	}
 
 	/**
 	 * Return the cube of this task.
@@ -274,6 +331,8 @@ public class Task implements Comparable<Task> {
 				throw new IllegalArgumentException();
 		}
 		this.unit = unit;
+		for (Scheduler scheduler : this.schedulers)
+			scheduler.updateTask(this);
 	}
 
 	public boolean isBeingExecuted() {
@@ -358,8 +417,7 @@ public class Task implements Comparable<Task> {
 	public void addScheduler(@Raw Scheduler scheduler) throws IllegalArgumentException {
 		if (!canHaveAsScheduler(scheduler))
 			throw new IllegalArgumentException();
-		schedulers.add(scheduler);
-		scheduler.getAllTasks().add(this);
+		scheduler.addTask(this);
 	}
 
 	/**
@@ -380,8 +438,7 @@ public class Task implements Comparable<Task> {
 	public void removeScheduler(Scheduler scheduler) throws IllegalStateException {
 		if (!this.hasAsScheduler(scheduler))
 			throw new IllegalStateException();
-		schedulers.remove(scheduler);
-		scheduler.getAllTasks().remove(this);
+		scheduler.removeTask(this);
 		if (this.getUnit() != null && this.getUnit().getFaction() == scheduler.getFaction()) {
 			this.getUnit().setTask(null);
 			this.getUnit().nextActivity();
@@ -401,39 +458,7 @@ public class Task implements Comparable<Task> {
 	 *        not yet terminated. | for each scheduler in schedulers: | (
 	 *        (scheduler != null) && | (! scheduler.isTerminated()) )
 	 */
-	private final Set<Scheduler> schedulers = new HashSet<Scheduler>();
-
-	/**
-	 * Set a global variable of this program referenced by a given name to a
-	 * given basic expression.
-	 * 
-	 * @param name
-	 *            The name to reference the (new) global variable by.
-	 * @param value
-	 *            The value to set the (new) global value to in the form of a
-	 *            basic expression.
-	 */
-	public void setGlobalVariable(String name, Object value) {
-		this.getGlobalVariables().put(name, value);
-	}
-
-	/**
-	 * removes the global variable with the given name
-	 * 
-	 * @param name
-	 *            the name fro mthe global variable to remove
-	 * @throws IllegalStateException
-	 *             if this task doens't have this variable !
-	 *             !hasAsGlobalVariable(name)
-	 * @effect remove the variable from this task |
-	 *         getGlobelVariables().remove(name)
-	 */
-	public void removeGlobalVariable(String name) throws IllegalStateException {
-		if (!hasGlobalVariable(name)) {
-			throw new IllegalStateException();
-		}
-		this.getGlobalVariables().remove(name);
-	}
+	private final Set<Scheduler> schedulers = new LinkedHashSet<Scheduler>();
 
 	/**
 	 * Get the basic expression containing the value of a global variable of
@@ -441,14 +466,13 @@ public class Task implements Comparable<Task> {
 	 * 
 	 * @param name
 	 *            The name of the global variable.
-	 * @return The basic expression containing the value of the global variable.
+	 * @return The basic expression containing the value of the global variable,
+	 *         null if this program has no such variable or it has not been
+	 *         assigned yet.
 	 */
 	// Public for the purpose of testing. Otherwise protected.
-	public Object getGlobalVariable(String name) {
-		if (!hasGlobalVariable(name)) {
-			System.err.println("Variable with the name '" + name + "' doesn't exist!");
-		}
-		return getGlobalVariables().get(name);
+	public Type getGlobalVariable(String name) {
+		return getProgram().getVariable(this.frame, name);
 	}
 
 	/**
@@ -460,32 +484,44 @@ public class Task implements Comparable<Task> {
 	 * @return True if such a variable exists, false otherwise.
 	 */
 	protected boolean hasGlobalVariable(String name) {
-		return getGlobalVariables().containsKey(name);
+		return getProgram().hasVariable(name);
 	}
 
 	/**
-	 * Return the map referencing the names and respective basic expressions
-	 * containing the values of the global variables of this program.
+	 * execute the instructions of this task until the unit has to perform an
+	 * action, the given counter runs out or the task has been fully executed
+	 * 
+	 * @param counter
+	 *            the counter limiting the number of instructions to execute
+	 * @effect the program of this task is executed in its frame |
+	 *         getProgram().execute(this, frame, counter)
+	 * @effect if this task has been fully executed, it is removed from the
+	 *         schedulers and its unit no longer executes it
 	 */
-	private Map<String, Object> getGlobalVariables() {
-		return globalVariables;
+	public void execute(Counter counter) {
+		getProgram().execute(this, this.frame, counter);
+		if (this.frame.hasFinished() && getUnit() != null) {
+			Unit unit = getUnit();
+			for (Scheduler scheduler : new ArrayList<Scheduler>(getAllSchedulers()))
+				scheduler.removeTask(this);
+			if (unit.getTask() == this)
+				unit.setTask(null);
+			this.setUnit(null);
+		}
 	}
 
 	/**
-	 * A map referencing the names and respective basic expressions containing
-	 * the values of the global variables of this program.
+	 * check whether this task waits for its unit to finish an action
 	 */
-	private final Map<String, Object> globalVariables = new HashMap<String, Object>();
+	public boolean isWaitingForAction() {
+		return this.frame.isWaitingForAction();
+	}
 
-	public void execute(Counter counter) {
-		if (getActivities().hasBeenFullyExecuted()) {
-			getUnit().getFaction().getScheduler().removeTask(this);
-			this.setUnit(null);
-		} else {
-			while (getActivities().canExecute(this, counter) && !getUnit().isDead()) {
-				getActivities().execute(this, counter);
-			}
-		}
+	/**
+	 * let this task continue after its unit finished an action
+	 */
+	public void finishAction() {
+		this.frame.finishAction();
 	}
 
 	/**
@@ -494,13 +530,12 @@ public class Task implements Comparable<Task> {
 	 * @effect if this task is assigned to a unit, it won't be assigned anymore
 	 *         and the unit will be doing the next activity 
 	 *         | (old this).getUnit().setTask(null) && (old this).getUnit().nextActivity() && this.setUnit(null)
-	 * @effect the activities-statement will be reset
-	 * 			| this.getActivities().reset(this)
+	 * @effect the execution frame will be back at the start of the program
 	 */
 	public void reset() {
 		getUnit().setTask(null);
 		getUnit().nextActivity();
 		this.setUnit(null);
-		this.getActivities().reset(this);
+		this.frame.reset();
 	}
 }
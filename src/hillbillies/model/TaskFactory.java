@@ -3,6 +3,7 @@ package hillbillies.model;
 import java.util.ArrayList;
 import java.util.List;
 
+import hillbillies.model.programs.Program;
 import hillbillies.model.programs.expressions.*;
 import hillbillies.model.programs.statements.*;
 import hillbillies.part3.programs.ITaskFactory;
@@ -16,12 +17,41 @@ public class TaskFactory implements ITaskFactory<IExpression<?>, Statement, Task
 	@Override
 	public List<Task> createTasks(String name, int priority, Statement activity, List<int[]> selectedCubes) {
 		List<Task> result = new ArrayList<>();
+		Program program = new Program(activity);
 		for (int[] element : selectedCubes) {
-			result.add(new Task(name, priority, activity, new Cube(element[0], element[1], element[2])));
+			result.add(new Task(name, priority, program, new Cube(element[0], element[1], element[2])));
 		}
 		return result;
 	}
 
+	/**
+	 * A variable read is created before its use is known; it gets the type of
+	 * the expression it is used as.
+	 */
+	private static IBooleanExpression asBoolean(IExpression<?> expression) throws IllegalArgumentException {
+		if (expression instanceof VariableExpression && !(expression instanceof IBooleanExpression))
+			return new BooleanVariableExpresssion(((VariableExpression<?>) expression).getVariableName());
+		if (!(expression instanceof IBooleanExpression))
+			throw new IllegalArgumentException("Expression " + expression + " is not a boolean");
+		return (IBooleanExpression) expression;
+	}
+
+	private static ICubeExpression asCube(IExpression<?> expression) throws IllegalArgumentException {
+		if (expression instanceof VariableExpression && !(expression instanceof ICubeExpression))
+			return new CubeVariableExpression(((VariableExpression<?>) expression).getVariableName());
+		if (!(expression instanceof ICubeExpression))
+			throw new IllegalArgumentException("Expression " + expression + " is not a cube");
+		return (ICubeExpression) expression;
+	}
+
+	private static IUnitExpression asUnit(IExpression<?> expression) throws IllegalArgumentException {
+		if (expression instanceof VariableExpression && !(expression instanceof IUnitExpression))
+			return new UnitVariableExpression(((VariableExpression<?>) expression).getVariableName());
+		if (!(expression instanceof IUnitExpression))
+			throw new IllegalArgumentException("Expression " + expression + " is not a unit");
+		return (IUnitExpression) expression;
+	}
+
 	@Override
 	public AssignmentStatement createAssignment(String variableName, IExpression<?> value, SourceLocation sourceLocation) {
 		return new AssignmentStatement(variableName, value);
@@ -29,13 +59,13 @@ public class TaskFactory implements ITaskFactory<IExpression<?>, Statement, Task
 
 	@Override
 	public WhileStatement createWhile(IExpression<?> condition, Statement body, SourceLocation sourceLocation) {
-		return new WhileStatement((IBooleanExpression) condition, body);
+		return new WhileStatement(asBoolean(condition), body);
 	}
 
 	@Override
 	public IfStatement createIf(IExpression<?> condition, Statement ifBody, Statement elseBody,
 			SourceLocation sourceLocation) {
-		return new IfStatement((BooleanExpression) condition, ifBody, elseBody);
+		return new IfStatement(asBoolean(condition), ifBody, elseBody);
 	}
 
 	@Override
@@ -55,22 +85,22 @@ public class TaskFactory implements ITaskFactory<IExpression<?>, Statement, Task
 
 	@Override
 	public MoveToStatement createMoveTo(IExpression<?> position, SourceLocation sourceLocation) {
-		return new MoveToStatement((ICubeExpression) position);
+		return new MoveToStatement(asCube(position));
 	}
 
 	@Override
 	public WorkStatement createWork(IExpression<?> position, SourceLocation sourceLocation) {
-		return new WorkStatement((ICubeExpression) position);
+		return new WorkStatement(asCube(position));
 	}
 
 	@Override
 	public FollowStatement createFollow(IExpression<?> unit, SourceLocation sourceLocation) {
-		return new FollowStatement((IUnitExpression) unit);
+		return new FollowStatement(asUnit(unit));
 	}
 
 	@Override
 	public AttackStatement createAttack(IExpression<?> unit, SourceLocation sourceLocation) {
-		return new AttackStatement((IUnitExpression) unit);
+		return new AttackStatement(asUnit(unit));
 	}
 
 	@SuppressWarnings("rawtypes")
@@ -81,47 +111,47 @@ public class TaskFactory implements ITaskFactory<IExpression<?>, Statement, Task
 
 	@Override
 	public IsSolidExpression createIsSolid(IExpression<?> position, SourceLocation sourceLocation) {
-		return new IsSolidExpression((ICubeExpression) position);
+		return new IsSolidExpression(asCube(position));
 	}
 
 	@Override
 	public IsPassableExpression createIsPassable(IExpression<?> position, SourceLocation sourceLocation) {
-		return new IsPassableExpression((ICubeExpression) position);
+		return new IsPassableExpression(asCube(position));
 	}
 
 	@Override
 	public IsFriendExpression createIsFriend(IExpression<?> unit, SourceLocation sourceLocation) {
-		return new IsFriendExpression((IUnitExpression) unit);
+		return new IsFriendExpression(asUnit(unit));
 	}
 
 	@Override
 	public IsEnemyExpression createIsEnemy(IExpression<?> unit, SourceLocation sourceLocation) {
-		return new IsEnemyExpression((IUnitExpression) unit);
+		return new IsEnemyExpression(asUnit(unit));
 	}
 
 	@Override
 	public IsAliveExpression createIsAlive(IExpression<?> unit, SourceLocation sourceLocation) {
-		return new IsAliveExpression((IUnitExpression) unit);
+		return new IsAliveExpression(asUnit(unit));
 	}
 
 	@Override
 	public CarriesItemExpression createCarriesItem(IExpression<?> unit, SourceLocation sourceLocation) {
-		return new CarriesItemExpression((IUnitExpression) unit);
+		return new CarriesItemExpression(asUnit(unit));
 	}
 
 	@Override
 	public NotExpression createNot(IExpression<?> expression, SourceLocation sourceLocation) {
-		return new NotExpression((IBooleanExpression) expression);
+		return new NotExpression(asBoolean(expression));
 	}
 
 	@Override
 	public AndExpression createAnd(IExpression<?> left, IExpression<?> right, SourceLocation sourceLocation) {
-		return new AndExpression((IBooleanExpression) left, (BooleanExpression) right);
+		return new AndExpression(asBoolean(left), asBoolean(right));
 	}
 
 	@Override
 	public OrExpression createOr(IExpression<?> left, IExpression<?> right, SourceLocation sourceLocation) {
-		return new OrExpression((IBooleanExpression) left, (BooleanExpression) right);
+		return new OrExpression(asBoolean(left), asBoolean(right));
 	}
 
 	@Override
@@ -151,12 +181,12 @@ public class TaskFactory implements ITaskFactory<IExpression<?>, Statement, Task
 
 	@Override
 	public NextToExpression createNextToPosition(IExpression<?> position, SourceLocation sourceLocation) {
-		return new NextToExpression((ICubeExpression) position);
+		return new NextToExpression(asCube(position));
 	}
 
 	@Override
 	public PositionOfExpression createPositionOf(IExpression<?> unit, SourceLocation sourceLocation) {
-		return new PositionOfExpression((IUnitExpression) unit);
+		return new PositionOfExpression(asUnit(unit));
 	}
 
 	@Override
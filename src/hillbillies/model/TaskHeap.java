@@ -0,0 +1,182 @@
+package hillbillies.model;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * a class of binary heaps of tasks, with the task of the highest priority at
+ * the top
+ *
+ * @note	the heap is indexed: the position of every task in the heap is kept,
+ * 			so a task can be removed or moved after a change of its priority in
+ * 			logarithmic time, without searching the heap.
+ *
+ * @invar	every task is at least as high in priority as its children
+ * 			| for each position in 1..size() - 1:
+ * 			|	tasks[(position - 1) / 2].getPriority() >= tasks[position].getPriority()
+ *
+ * @author Ellen & Marte
+ */
+class TaskHeap implements Iterable<Task> {
+
+	/**
+	 * the tasks in this heap, in the first size positions
+	 */
+	private Task[] tasks = new Task[8];
+
+	private int size;
+
+	/**
+	 * the position of every task in the array of tasks
+	 */
+	private final Map<Task, Integer> positions = new HashMap<Task, Integer>();
+
+	/**
+	 * the number of times this heap has been changed, to detect changes while
+	 * iterating
+	 */
+	private int modifications;
+
+	/**
+	 * return the number of tasks in this heap
+	 */
+	int size() {
+		return this.size;
+	}
+
+	/**
+	 * check whether this heap contains the given task
+	 */
+	boolean contains(Task task) {
+		return this.positions.containsKey(task);
+	}
+
+	/**
+	 * return the task of the highest priority in this heap, null if it is
+	 * empty
+	 */
+	Task peek() {
+		return this.size == 0 ? null : this.tasks[0];
+	}
+
+	/**
+	 * add the given task to this heap, if it is not in it yet
+	 */
+	void add(Task task) {
+		if (this.contains(task))
+			return;
+		if (this.size == this.tasks.length)
+			this.tasks = Arrays.copyOf(this.tasks, 2 * this.size);
+		this.place(task, this.size++);
+		this.siftUp(this.size - 1);
+		this.modifications++;
+	}
+
+	/**
+	 * remove the given task from this heap, if it is in it
+	 */
+	void remove(Task task) {
+		Integer position = this.positions.remove(task);
+		if (position == null)
+			return;
+		Task last = this.tasks[--this.size];
+		this.tasks[this.size] = null;
+		if (position < this.size) {
+			this.place(last, position);
+			this.update(last);
+		}
+		this.modifications++;
+	}
+
+	/**
+	 * move the given task to its place after a change of its priority, if it is
+	 * in this heap
+	 */
+	void update(Task task) {
+		Integer position = this.positions.get(task);
+		if (position == null)
+			return;
+		this.siftDown(this.siftUp(position));
+		this.modifications++;
+	}
+
+	/**
+	 * return an iterator over the tasks of this heap by descending priority
+	 *
+	 * @note	the iterator visits the heap from the top down, keeping the
+	 * 			frontier of tasks whose parent has been returned, so returning
+	 * 			the first k tasks takes O(k log k) time instead of sorting the
+	 * 			whole heap.
+	 * @throws ConcurrentModificationException
+	 *             the heap is changed while iterating
+	 */
+	@Override
+	public Iterator<Task> iterator() {
+		return new Iterator<Task>() {
+
+			private final PriorityQueue<Integer> frontier = new PriorityQueue<Integer>(
+					(a, b) -> tasks[a].compareTo(tasks[b]));
+
+			private final int expectedModifications = modifications;
+
+			{
+				if (size > 0)
+					this.frontier.add(0);
+			}
+
+			@Override
+			public boolean hasNext() {
+				return !this.frontier.isEmpty();
+			}
+
+			@Override
+			public Task next() {
+				if (modifications != this.expectedModifications)
+					throw new ConcurrentModificationException();
+				if (this.frontier.isEmpty())
+					throw new NoSuchElementException();
+				int position = this.frontier.poll();
+				for (int child = 2 * position + 1; child <= 2 * position + 2 && child < size; child++)
+					this.frontier.add(child);
+				return tasks[position];
+			}
+		};
+	}
+
+	private void place(Task task, int position) {
+		this.tasks[position] = task;
+		this.positions.put(task, position);
+	}
+
+	private int siftUp(int position) {
+		Task task = this.tasks[position];
+		while (position > 0) {
+			int parent = (position - 1) / 2;
+			if (this.tasks[parent].compareTo(task) <= 0)
+				break;
+			this.place(this.tasks[parent], position);
+			position = parent;
+		}
+		this.place(task, position);
+		return position;
+	}
+
+	private void siftDown(int position) {
+		Task task = this.tasks[position];
+		while (2 * position + 1 < this.size) {
+			int child = 2 * position + 1;
+			if (child + 1 < this.size && this.tasks[child + 1].compareTo(this.tasks[child]) < 0)
+				child++;
+			if (task.compareTo(this.tasks[child]) <= 0)
+				break;
+			this.place(this.tasks[child], position);
+			position = child;
+		}
+		this.place(task, position);
+	}
+}
@@ -0,0 +1,189 @@
+package hillbillies.model;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import hillbillies.model.programs.Program;
+import hillbillies.model.programs.expressions.CubeVariableExpression;
+import hillbillies.model.programs.expressions.HereExpression;
+import hillbillies.model.programs.expressions.SelectedExpression;
+import hillbillies.model.programs.statements.AssignmentStatement;
+import hillbillies.model.programs.statements.SequenceOfStatements;
+import hillbillies.model.programs.statements.Statement;
+import hillbillies.model.programs.statements.WorkStatement;
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+import hillbillies.part3.programs.TaskParser;
+
+/**
+ * a test suite for the class Task, executing parsed tasks in a small world
+ * @author Ellen & Marte
+ *
+ */
+public class TaskTest {
+
+	private World world;
+	private Unit unit;
+
+	@Before
+	public void setUp() {
+		int[][][] terrainTypes = new int[3][3][3];
+		terrainTypes[1][1][1] = 1;
+		terrainTypes[1][0][1] = 1;
+		terrainTypes[1][1][0] = 1;
+		terrainTypes[1][0][0] = 1;
+		terrainTypes[0][0][0] = 1;
+		this.world = new World(terrainTypes, new DefaultTerrainChangeListener());
+		this.unit = new Unit(0.5, 0.5, 1.5, "James O'Hara", 50, 50, 50, 50, true);
+		this.world.addUnit(this.unit);
+	}
+
+	private List<Task> parse(String activities, int[]... selectedCubes) {
+		return TaskParser.parseTasksFromString("name: \"test\"\npriority: 1\nactivities: " + activities,
+				new TaskFactory(), Arrays.asList(selectedCubes));
+	}
+
+	private void schedule(List<Task> tasks) {
+		for (Task task : tasks)
+			this.unit.getFaction().getScheduler().addTask(task);
+	}
+
+	private void advanceTime(double time) {
+		for (int i = 0; i < time / 0.1; i++)
+			this.world.advanceTime(0.1f);
+	}
+
+	@Test
+	public void createTasks_ShareProgram() {
+		List<Task> tasks = parse("work selected;", new int[] { 1, 1, 1 }, new int[] { 1, 0, 1 });
+		assertEquals(2, tasks.size());
+		assertSame(tasks.get(0).getProgram(), tasks.get(1).getProgram());
+		assertTrue(tasks.get(0).isWellFormed());
+	}
+
+	@Test
+	public void execute_SharedProgramTasksExecuteIndependently() {
+		List<Task> tasks = parse("work selected;", new int[] { 1, 1, 1 }, new int[] { 1, 0, 1 });
+		schedule(tasks);
+		advanceTime(100);
+		assertEquals(0, this.world.getTerrainTypesArray()[1][1][1]);
+		assertEquals(0, this.world.getTerrainTypesArray()[1][0][1]);
+		assertTrue(tasks.get(0).hasBeenFullyExecuted());
+		assertTrue(tasks.get(1).hasBeenFullyExecuted());
+		assertEquals(0, this.unit.getFaction().getScheduler().getNbTasks());
+	}
+
+	@Test
+	public void createProgram_StatementSharedByProgramsIsNotChanged() {
+		CubeVariableExpression read = new CubeVariableExpression("x");
+		Statement work = new WorkStatement(read);
+		// x gets another slot in each program
+		Program first = new Program(new SequenceOfStatements(Arrays.<Statement>asList(
+				new AssignmentStatement("y", new HereExpression()),
+				new AssignmentStatement("x", new SelectedExpression()), work)));
+		Program second = new Program(new SequenceOfStatements(
+				Arrays.<Statement>asList(new AssignmentStatement("x", new SelectedExpression()), work)));
+		Task firstTask = new Task("first", 1, first, new Cube(1, 1, 1));
+		Task secondTask = new Task("second", 1, second, new Cube(1, 0, 1));
+		schedule(Arrays.asList(firstTask, secondTask));
+		advanceTime(100);
+		assertEquals(0, this.world.getTerrainTypesArray()[1][1][1]);
+		assertEquals(0, this.world.getTerrainTypesArray()[1][0][1]);
+		try {
+			read.evaluate(firstTask);
+			fail();
+		} catch (IllegalStateException e) {
+			// the read in the statement is not bound to a slot
+		}
+	}
+
+	@Test
+	public void execute_IfWithoutElse() {
+		List<Task> tasks = parse("if false then moveTo (2, 2, 0); fi work selected;", new int[] { 1, 1, 1 });
+		schedule(tasks);
+		advanceTime(100);
+		assertEquals(0, this.world.getTerrainTypesArray()[1][1][1]);
+		assertTrue(tasks.get(0).hasBeenFullyExecuted());
+	}
+
+	@Test
+	public void execute_WhileWithBreak() {
+		List<Task> tasks = parse("while true do work selected; break; done", new int[] { 1, 1, 1 });
+		schedule(tasks);
+		advanceTime(100);
+		assertEquals(0, this.world.getTerrainTypesArray()[1][1][1]);
+		assertTrue(tasks.get(0).hasBeenFullyExecuted());
+	}
+
+	@Test
+	public void execute_VariableAsCube() {
+		List<Task> tasks = parse("x := selected; if is_solid(x) then work x; fi", new int[] { 1, 1, 1 });
+		schedule(tasks);
+		advanceTime(100);
+		assertEquals(0, this.world.getTerrainTypesArray()[1][1][1]);
+		assertTrue(tasks.get(0).hasBeenFullyExecuted());
+	}
+
+	@Test
+	public void execute_LoopUntilConditionFalse() {
+		List<Task> tasks = parse("while is_solid(selected) do work selected; done", new int[] { 1, 1, 1 });
+		schedule(tasks);
+		advanceTime(100);
+		assertEquals(0, this.world.getTerrainTypesArray()[1][1][1]);
+		assertTrue(tasks.get(0).hasBeenFullyExecuted());
+	}
+
+	@Test
+	public void execute_CounterLimitsInstructions() {
+		List<Task> tasks = parse("while true do x := here; done work here;", new int[] { 1, 1, 1 });
+		Task task = tasks.get(0);
+		this.unit.getFaction().getScheduler().addTask(task);
+		this.unit.getFaction().getScheduler().assignTaskToUnit(task, this.unit);
+		Counter counter = new Counter();
+		counter.setMaxValue(200);
+		task.execute(counter);
+		assertEquals(200, counter.getCount());
+		assertFalse(task.hasBeenFullyExecuted());
+	}
+
+	@Test
+	public void execute_BooleanVariableInLoop() {
+		List<Task> tasks = parse("go := true; while go do work selected; go := is_solid(selected); done",
+				new int[] { 1, 1, 1 });
+		schedule(tasks);
+		advanceTime(100);
+		assertEquals(0, this.world.getTerrainTypesArray()[1][1][1]);
+		assertTrue(tasks.get(0).hasBeenFullyExecuted());
+		assertEquals(false, tasks.get(0).getGlobalVariable("go").getValue());
+	}
+
+	@Test
+	public void parse_UndefinedVariable() {
+		assertNull(parse("work x;", new int[] { 1, 1, 1 }));
+	}
+
+	@Test
+	public void parse_VariableOfAnotherType() {
+		assertNull(parse("x := true; work x;", new int[] { 1, 1, 1 }));
+	}
+
+	@Test
+	public void parse_ConditionNotBoolean() {
+		assertNull(parse("if selected then work selected; fi", new int[] { 1, 1, 1 }));
+	}
+
+	@Test
+	public void parse_VariableConditionNotBoolean() {
+		assertNull(parse("x := selected; while x do work selected; done", new int[] { 1, 1, 1 }));
+	}
+
+	@Test
+	public void isWellFormed_BreakOutsideWhile() {
+		List<Task> tasks = parse("work selected; break;", new int[] { 1, 1, 1 });
+		assertFalse(tasks.get(0).isWellFormed());
+	}
+}
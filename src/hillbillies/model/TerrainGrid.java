@@ -0,0 +1,324 @@
+package hillbillies.model;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import be.kuleuven.cs.som.annotate.*;
+
+/**
+ * a class storing the terrain of a game world by flat index, like ByteMap3D:
+ * index == z*nbX*nbY + y*nbX + x
+ *
+ * @note	the terrain types themselves are kept in a terrain store: one array
+ * 			of bytes for the whole grid, or chunks loaded from a file on demand
+ * 			for worlds that do not fit in memory.
+ *
+ * @note	the neighbours of a cube are listed by index into an array given by
+ * 			the caller, so iterating over them does not create any objects.
+ * 			The buffers must have room for 26 (adjacent), 8 (neighbouring) or 6
+ * 			(directly adjacent) indices.
+ *
+ * @invar	every byte in the grid is the associated integer of a terrain type
+ *
+ * @author Ellen & Marte
+ */
+class TerrainGrid {
+
+	/**
+	 * the offsets of the 26 adjacent cubes, the 8 neighbouring cubes (same
+	 * z-level) and the 6 directly adjacent cubes, as {dx, dy, dz}
+	 */
+	private static final int[][] ADJACENT = offsets(1, 1, 1, false);
+	private static final int[][] NEIGHBOURING = offsets(1, 1, 0, false);
+	private static final int[][] DIRECTLY_ADJACENT = offsets(1, 1, 1, true);
+
+	/**
+	 * whether the terrain type with the associated integer at that position is
+	 * passable
+	 */
+	private static final boolean[] PASSABLE = { true, false, false, true };
+
+	/**
+	 * create a new terrain grid filled with the given terrain types
+	 *
+	 * @param terrainTypes
+	 *            A three-dimensional array (structured as [x][y][z]) with the
+	 *            types of the terrain, encoded as integers
+	 * @pre	the given array has the shape of a box and only contains integers in [0,3]
+	 * @post	the terrain type of every cube equals the one in the given array
+	 */
+	TerrainGrid(int[][][] terrainTypes) {
+		this(terrainTypes.length, terrainTypes[0].length, terrainTypes[0][0].length,
+				new byte[terrainTypes.length * terrainTypes[0].length * terrainTypes[0][0].length]);
+		for (int x = 0; x < this.nbX; x++)
+			for (int y = 0; y < this.nbY; y++)
+				for (int z = 0; z < this.nbZ; z++)
+					this.cubes.set(this.indexOf(x, y, z), (byte) terrainTypes[x][y][z]);
+	}
+
+	/**
+	 * create a new terrain grid with the given dimensions, storing its terrain
+	 * types in the given array
+	 *
+	 * @param cubes
+	 *            the associated integers of the terrain types of all cubes,
+	 *            indexed like ByteMap3D; the grid takes this array over
+	 * @pre	the given array has nbX*nbY*nbZ elements, all in [0,3]
+	 */
+	TerrainGrid(int nbX, int nbY, int nbZ, byte[] cubes) {
+		this(nbX, nbY, nbZ, new ArrayTerrainStore(cubes));
+	}
+
+	/**
+	 * create a new terrain grid with the given dimensions, storing its terrain
+	 * types in the given store
+	 *
+	 * @pre	the given store holds nbX*nbY*nbZ terrain types, all in [0,3]
+	 */
+	TerrainGrid(int nbX, int nbY, int nbZ, TerrainStore cubes) {
+		this.nbX = nbX;
+		this.nbY = nbY;
+		this.nbZ = nbZ;
+		this.nbXY = nbX * nbY;
+		this.cubes = cubes;
+		this.adjacentOffsets = this.indexOffsets(ADJACENT);
+		this.neighbouringOffsets = this.indexOffsets(NEIGHBOURING);
+		this.directlyAdjacentOffsets = this.indexOffsets(DIRECTLY_ADJACENT);
+	}
+
+	/**
+	 * the dimensions of this grid
+	 */
+	private final int nbX, nbY, nbZ, nbXY;
+
+	/**
+	 * the terrain types of all cubes, encoded as their associated integers
+	 */
+	private final TerrainStore cubes;
+
+	/**
+	 * the differences in index between a cube and its adjacent, neighbouring
+	 * and directly adjacent cubes, in the same order as the offsets
+	 */
+	private final int[] adjacentOffsets, neighbouringOffsets, directlyAdjacentOffsets;
+
+	/**
+	 * return the number of cubes in the x, y and z direction of this grid
+	 */
+	@Basic
+	@Immutable
+	int getNbX() {
+		return this.nbX;
+	}
+
+	@Basic
+	@Immutable
+	int getNbY() {
+		return this.nbY;
+	}
+
+	@Basic
+	@Immutable
+	int getNbZ() {
+		return this.nbZ;
+	}
+
+	/**
+	 * return the number of cubes in this grid
+	 */
+	@Immutable
+	int getNbCubes() {
+		return this.nbXY * this.nbZ;
+	}
+
+	/**
+	 * check whether the given coordinates lie within this grid
+	 */
+	boolean contains(int x, int y, int z) {
+		return x >= 0 && x < this.nbX && y >= 0 && y < this.nbY && z >= 0 && z < this.nbZ;
+	}
+
+	/**
+	 * return the index of the cube with the given coordinates
+	 */
+	int indexOf(int x, int y, int z) {
+		return x + y * this.nbX + z * this.nbXY;
+	}
+
+	/**
+	 * return the coordinates of the cube with the given index
+	 */
+	int getX(int index) {
+		return index % this.nbX;
+	}
+
+	int getY(int index) {
+		return (index % this.nbXY) / this.nbX;
+	}
+
+	int getZ(int index) {
+		return index / this.nbXY;
+	}
+
+	/**
+	 * return the cube with the given index
+	 */
+	Cube getCube(int index) {
+		return new Cube(this.getX(index), this.getY(index), this.getZ(index));
+	}
+
+	/**
+	 * return the associated integer of the terrain type of the cube with the
+	 * given index
+	 */
+	int get(int index) {
+		return this.cubes.get(index);
+	}
+
+	/**
+	 * return the terrain type of the cube with the given index
+	 */
+	TerrainType getType(int index) {
+		return TerrainType.fromAssociatedInt(this.cubes.get(index));
+	}
+
+	/**
+	 * set the terrain type of the cube with the given index to the given type
+	 */
+	void set(int index, TerrainType type) {
+		this.cubes.set(index, (byte) type.getAssociatedInt());
+	}
+
+	/**
+	 * check whether the cube with the given index is passable
+	 */
+	boolean isPassable(int index) {
+		return PASSABLE[this.cubes.get(index)];
+	}
+
+	/**
+	 * check whether a unit can stand in the cube with the given index
+	 *
+	 * @return true if the cube is passable and lies on the bottom of the grid
+	 *         or is adjacent to a solid cube
+	 */
+	boolean isStableForUnit(int index) {
+		if (!this.isPassable(index))
+			return false;
+		if (index < this.nbXY)
+			return true;
+		if (this.isInterior(index)) {
+			for (int offset : this.adjacentOffsets)
+				if (!PASSABLE[this.cubes.get(index + offset)])
+					return true;
+			return false;
+		}
+		int x = this.getX(index), y = this.getY(index), z = this.getZ(index);
+		for (int i = 0; i < ADJACENT.length; i++)
+			if (this.contains(x + ADJACENT[i][0], y + ADJACENT[i][1], z + ADJACENT[i][2])
+					&& !PASSABLE[this.cubes.get(index + this.adjacentOffsets[i])])
+				return true;
+		return false;
+	}
+
+	/**
+	 * store the indices of the (at most 26) cubes adjacent to the cube with the
+	 * given index in the given array
+	 *
+	 * @return the number of indices stored
+	 */
+	int getAdjacent(int index, int[] result) {
+		return this.collect(index, ADJACENT, this.adjacentOffsets, result);
+	}
+
+	/**
+	 * store the indices of the (at most 8) cubes neighbouring the cube with the
+	 * given index in the given array
+	 *
+	 * @return the number of indices stored
+	 */
+	int getNeighbouring(int index, int[] result) {
+		return this.collect(index, NEIGHBOURING, this.neighbouringOffsets, result);
+	}
+
+	/**
+	 * store the indices of the (at most 6) cubes directly adjacent to the cube
+	 * with the given index in the given array
+	 *
+	 * @return the number of indices stored
+	 */
+	int getDirectlyAdjacent(int index, int[] result) {
+		return this.collect(index, DIRECTLY_ADJACENT, this.directlyAdjacentOffsets, result);
+	}
+
+	/**
+	 * return a copy of this grid as a three-dimensional array, structured as
+	 * [x][y][z]
+	 */
+	int[][][] toArray() {
+		int[][][] result = new int[this.nbX][this.nbY][this.nbZ];
+		for (int x = 0; x < this.nbX; x++)
+			for (int y = 0; y < this.nbY; y++)
+				for (int z = 0; z < this.nbZ; z++)
+					result[x][y][z] = this.cubes.get(this.indexOf(x, y, z));
+		return result;
+	}
+
+	/**
+	 * release the resources held by the store of this grid
+	 *
+	 * @throws IOException
+	 *             the resources could not be released
+	 */
+	void close() throws IOException {
+		this.cubes.close();
+	}
+
+	/**
+	 * check whether all cubes adjacent to the cube with the given index lie
+	 * within this grid
+	 */
+	private boolean isInterior(int index) {
+		int x = this.getX(index), y = this.getY(index), z = this.getZ(index);
+		return x > 0 && x < this.nbX - 1 && y > 0 && y < this.nbY - 1 && z > 0 && z < this.nbZ - 1;
+	}
+
+	private int collect(int index, int[][] offsets, int[] indexOffsets, int[] result) {
+		int count = 0;
+		if (this.isInterior(index)) {
+			for (int offset : indexOffsets)
+				result[count++] = index + offset;
+			return count;
+		}
+		int x = this.getX(index), y = this.getY(index), z = this.getZ(index);
+		for (int i = 0; i < offsets.length; i++)
+			if (this.contains(x + offsets[i][0], y + offsets[i][1], z + offsets[i][2]))
+				result[count++] = index + indexOffsets[i];
+		return count;
+	}
+
+	private int[] indexOffsets(int[][] offsets) {
+		int[] result = new int[offsets.length];
+		for (int i = 0; i < offsets.length; i++)
+			result[i] = this.indexOf(offsets[i][0], offsets[i][1], offsets[i][2]);
+		return result;
+	}
+
+	/**
+	 * return all offsets {dx, dy, dz} other than {0, 0, 0} within the given
+	 * ranges, only those along one axis if direct is true
+	 */
+	private static int[][] offsets(int rangeX, int rangeY, int rangeZ, boolean direct) {
+		int[][] result = new int[(2 * rangeX + 1) * (2 * rangeY + 1) * (2 * rangeZ + 1) - 1][];
+		int count = 0;
+		for (int dz = -rangeZ; dz <= rangeZ; dz++)
+			for (int dy = -rangeY; dy <= rangeY; dy++)
+				for (int dx = -rangeX; dx <= rangeX; dx++) {
+					int nonZero = Math.abs(dx) + Math.abs(dy) + Math.abs(dz);
+					if (nonZero == 0 || (direct && nonZero > 1))
+						continue;
+					result[count++] = new int[] { dx, dy, dz };
+				}
+		return Arrays.copyOf(result, count);
+	}
+}
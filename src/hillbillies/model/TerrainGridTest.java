@@ -0,0 +1,98 @@
+package hillbillies.model;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * a test suite for the class TerrainGrid
+ * @author Ellen & Marte
+ *
+ */
+public class TerrainGridTest {
+
+	private int[][][] terrainTypes;
+	private TerrainGrid grid;
+
+	@Before
+	public void setUp() {
+		this.terrainTypes = new int[4][3][5];
+		this.terrainTypes[1][2][3] = 1;
+		this.terrainTypes[3][0][0] = 2;
+		this.terrainTypes[0][1][4] = 3;
+		this.grid = new TerrainGrid(this.terrainTypes);
+	}
+
+	@Test
+	public void constructor_LegalCase() {
+		assertEquals(4, this.grid.getNbX());
+		assertEquals(3, this.grid.getNbY());
+		assertEquals(5, this.grid.getNbZ());
+		assertEquals(60, this.grid.getNbCubes());
+		assertArrayEquals(this.terrainTypes, this.grid.toArray());
+	}
+
+	@Test
+	public void indexOf_roundTrip() {
+		int index = this.grid.indexOf(1, 2, 3);
+		assertEquals(1 + 2 * 4 + 3 * 12, index);
+		assertEquals(1, this.grid.getX(index));
+		assertEquals(2, this.grid.getY(index));
+		assertEquals(3, this.grid.getZ(index));
+		assertEquals(TerrainType.ROCK, this.grid.getType(index));
+		assertFalse(this.grid.isPassable(index));
+	}
+
+	@Test
+	public void set_LegalCase() {
+		int index = this.grid.indexOf(2, 2, 2);
+		this.grid.set(index, TerrainType.WOOD);
+		assertEquals(2, this.grid.get(index));
+		assertEquals(TerrainType.WOOD, this.grid.getType(index));
+	}
+
+	@Test
+	public void getAdjacent_interior() {
+		int[] indices = new int[26];
+		assertEquals(26, this.grid.getAdjacent(this.grid.indexOf(1, 1, 1), indices));
+	}
+
+	@Test
+	public void getAdjacent_corner() {
+		int[] indices = new int[26];
+		int count = this.grid.getAdjacent(this.grid.indexOf(0, 0, 0), indices);
+		assertEquals(7, count);
+		Set<Cube> cubes = new HashSet<Cube>();
+		for (int i = 0; i < count; i++)
+			cubes.add(this.grid.getCube(indices[i]));
+		assertTrue(cubes.contains(new Cube(1, 1, 1)));
+		assertFalse(cubes.contains(new Cube(0, 0, 0)));
+	}
+
+	@Test
+	public void getNeighbouring_edge() {
+		int[] indices = new int[8];
+		int count = this.grid.getNeighbouring(this.grid.indexOf(0, 1, 2), indices);
+		assertEquals(5, count);
+		for (int i = 0; i < count; i++)
+			assertEquals(2, this.grid.getZ(indices[i]));
+	}
+
+	@Test
+	public void getDirectlyAdjacent_interior() {
+		int[] indices = new int[6];
+		assertEquals(6, this.grid.getDirectlyAdjacent(this.grid.indexOf(1, 1, 1), indices));
+	}
+
+	@Test
+	public void isStableForUnit_allCases() {
+		assertTrue(this.grid.isStableForUnit(this.grid.indexOf(0, 0, 0)));
+		assertTrue(this.grid.isStableForUnit(this.grid.indexOf(2, 1, 4)));
+		assertFalse(this.grid.isStableForUnit(this.grid.indexOf(1, 2, 3)));
+		assertFalse(this.grid.isStableForUnit(this.grid.indexOf(3, 0, 2)));
+	}
+}
@@ -0,0 +1,38 @@
+package hillbillies.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * an interface for the storage of the terrain types of a terrain grid, by the
+ * index of their cube
+ *
+ * @note	the index of a cube is the one of TerrainGrid: index == z*nbX*nbY +
+ * 			y*nbX + x
+ *
+ * @author Ellen & Marte
+ */
+interface TerrainStore extends Closeable {
+
+	/**
+	 * return the associated integer of the terrain type of the cube with the
+	 * given index
+	 */
+	byte get(int index);
+
+	/**
+	 * set the associated integer of the terrain type of the cube with the
+	 * given index to the given value
+	 */
+	void set(int index, byte value);
+
+	/**
+	 * release the resources held by this store; a store in memory holds none
+	 *
+	 * @throws IOException
+	 *             the resources could not be released
+	 */
+	@Override
+	default void close() throws IOException {
+	}
+}
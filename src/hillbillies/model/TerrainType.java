@@ -35,4 +35,24 @@ public enum TerrainType {
 		else
 			return 0;
 	}
+
+	/**
+	 * return the TerrainType associated with the given integer
+	 * @param associatedInt
+	 * 			the integer to look up
+	 * @return	the TerrainType whose associated integer equals the given integer
+	 * 			| result.getAssociatedInt() == associatedInt
+	 * @throws	IllegalArgumentException
+	 * 			the given integer is not in [0,3]
+	 */
+	static TerrainType fromAssociatedInt(int associatedInt) throws IllegalArgumentException {
+		if (associatedInt < 0 || associatedInt >= BY_ASSOCIATED_INT.length)
+			throw new IllegalArgumentException();
+		return BY_ASSOCIATED_INT[associatedInt];
+	}
+
+	/**
+	 * the TerrainTypes ordered by their associated integer
+	 */
+	private static final TerrainType[] BY_ASSOCIATED_INT = { AIR, ROCK, WOOD, WORKSHOP };
 }
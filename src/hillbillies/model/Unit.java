@@ -1,18 +1,18 @@
 package hillbillies.model;
 
-import java.util.Random;
+import java.io.IOException;
+import java.util.SplittableRandom;
 import java.util.Set;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Queue;
+import java.util.Deque;
 import be.kuleuven.cs.som.annotate.Basic;
 import be.kuleuven.cs.som.annotate.Raw;
-import hillbillies.model.programs.statements.ActionStatement;
 //import hillbillies.model.programs.expressions.LogExpression.LogDistPair;
 //import hillbillies.model.programs.statements.ActionStatement;
 import ogp.framework.util.Util;
@@ -71,9 +71,21 @@ import ogp.framework.util.Util;
 public class Unit implements ITimeVariableObject {
 
 	/**
-	 * constant necessary to create random numbers
+	 * the source of the random numbers of this unit, split from the random
+	 * source of its world when it is added to a world
 	 */
-	private static final Random RANDOM_GEN = new Random();
+	private SplittableRandom random = new SplittableRandom();
+
+	/**
+	 * set the source of the random numbers of this unit to the given source
+	 *
+	 * @param random
+	 *            the random source this unit takes over
+	 * @post the random source of this unit equals the given source
+	 */
+	void setRandom(SplittableRandom random) {
+		this.random = random;
+	}
 
 	/**
 	 * constants for the minimum and maximum values of primary attributes
@@ -318,7 +330,10 @@ public class Unit implements ITimeVariableObject {
 			position = position.getCube().getCenter();
 			this.nextActivity();
 		}
+		Cube oldCube = this.getCube();
 		this.position = position;
+		if (this.getWorld() != null && !oldCube.equals(position.getCube()))
+			this.getWorld().updateCubeIndex(this);
 	}
 
 	/**
@@ -1104,6 +1119,15 @@ public class Unit implements ITimeVariableObject {
 		return materials.size();
 	}
 
+	/**
+	 * return the materials carried by this unit
+	 *
+	 * @note	the result is a read-only view of the materials of this unit
+	 */
+	Set<Material> getAllMaterials() {
+		return Collections.unmodifiableSet(this.materials);
+	}
+
 	/**
 	 * Add the given material to the set of materials of this unit.
 	 * 
@@ -1160,7 +1184,7 @@ public class Unit implements ITimeVariableObject {
 	/**
 	 * Variable registering all the materials carried by this unit.
 	 */
-	private final Set<Material> materials = new HashSet<Material>();
+	private final Set<Material> materials = new LinkedHashSet<Material>();
 
 	// ACTIVITY & BUSY TIME//
 
@@ -1179,7 +1203,7 @@ public class Unit implements ITimeVariableObject {
 	 *         (!this.getActivityQueue().isEmpty()) | then result ==
 	 *         this.activityQueue.get(0) | else result == Activity.NONE
 	 */
-	private Activity getCurrentActivity() {
+	Activity getCurrentActivity() {
 		if (!this.getActivityQueue().isEmpty())
 			return this.activityQueue.get(0);
 		else
@@ -1218,6 +1242,7 @@ public class Unit implements ITimeVariableObject {
 			this.activityQueue.remove(0);
 		this.activityQueue.add(0, activity);
 		this.setBusyTime(this.getBusyTimeFor(this.getCurrentActivity()));
+		this.logActivity();
 	}
 
 	/**
@@ -1245,6 +1270,15 @@ public class Unit implements ITimeVariableObject {
 			return;
 		this.activityQueue.add(0, activity);
 		this.setBusyTime(this.getBusyTimeFor(this.getCurrentActivity()));
+		this.logActivity();
+	}
+
+	/**
+	 * log the current activity of this unit, if its world keeps an event log
+	 */
+	private void logActivity() {
+		if (this.getWorld() != null && this.getWorld().getEventLog() != null)
+			this.getWorld().getEventLog().activityChanged(this, this.getCurrentActivity());
 	}
 
 	/**
@@ -1271,8 +1305,8 @@ public class Unit implements ITimeVariableObject {
 	 */
 	public void nextActivity() {
 		if (this.getWorld() != null && this.getTask() != null) {
-			if (getTask().getActivities().getExecutingStatement() instanceof ActionStatement)
-				getTask().getActivities().getExecutingStatement().SetHasFullyExecutedToTrue();
+			if (getTask().isWaitingForAction())
+				getTask().finishAction();
 			if (!getTask().hasBeenFullyExecuted()) {
 				getTask().execute(this.getWorld().getCounter());
 			} else
@@ -1297,6 +1331,7 @@ public class Unit implements ITimeVariableObject {
 						this.activityQueue.remove(0);
 					else {
 						this.setBusyTime(this.getBusyTimeFor(this.activityQueue.get(0)));
+						this.logActivity();
 						return;
 					}
 				}
@@ -1467,6 +1502,19 @@ public class Unit implements ITimeVariableObject {
 		return (this.getCurrentActivity() == Activity.NONE);
 	}
 
+	/**
+	 * checks whether this unit would take a task from the scheduler of its
+	 * faction
+	 * 
+	 * @result whether this unit is alive, has default behaviour enabled, is
+	 *         doing nothing and has no task | result == (!this.isDead() &&
+	 *         this.defaultBehaviour && this.isBeingUseless() && this.getTask()
+	 *         == null)
+	 */
+	boolean isWaitingForTask() {
+		return (!this.isDead() && this.defaultBehaviour && this.isBeingUseless() && this.getTask() == null);
+	}
+
 	// ADVANCE TIME en helper methods
 
 	/**
@@ -1477,6 +1525,8 @@ public class Unit implements ITimeVariableObject {
 	 *            the amount of seconds to advance time
 	 * @effect reduce the busyTime of the unit with the given seconds if it is
 	 *         not moving, doing nothing or falling
+	 * @effect start following the path to the moveToCube if it still had to be
+	 *         planned |this.handlePathRequest()
 	 * @effect execute the helper method attacking for the given seconds if this
 	 *         unit is attacking
 	 * @effect execute the helper method falling for the given seconds if this
@@ -1501,6 +1551,8 @@ public class Unit implements ITimeVariableObject {
 		if (!(Util.fuzzyGreaterThanOrEqualTo(seconds, 0) && Util.fuzzyLessThanOrEqualTo(seconds, 0.2)))
 			throw new IllegalArgumentException();
 
+		this.handlePathRequest();
+
 		if (!(this.isMoving() || this.isBeingUseless() || this.isFalling())) {
 			this.busyTimeMin(seconds);
 		}
@@ -1746,12 +1798,10 @@ public class Unit implements ITimeVariableObject {
 				this.getWorld().addMaterial(material, this.getWorkAtCube().getCenter());
 
 			} else if (this.getWorld().getTerrainType(this.getWorkAtCube()) == TerrainType.WORKSHOP
-					&& this.getWorld().getBouldersIn(this.getWorkAtCube()).size() > 0
-					&& this.getWorld().getLogsIn(this.getWorkAtCube()).size() > 0) {
-				Iterator<Boulder> iterBoulder = this.getWorld().getBouldersIn(this.getWorkAtCube()).iterator();
-				Boulder boulder = (Boulder) iterBoulder.next();
-				Iterator<Log> iterLog = this.getWorld().getLogsIn(this.getWorkAtCube()).iterator();
-				Log log = (Log) iterLog.next();
+					&& this.getWorld().getBoulderIn(this.getWorkAtCube()) != null
+					&& this.getWorld().getLogIn(this.getWorkAtCube()) != null) {
+				Boulder boulder = this.getWorld().getBoulderIn(this.getWorkAtCube());
+				Log log = this.getWorld().getLogIn(this.getWorkAtCube());
 				int extraWeight = (log.getWeight() + boulder.getWeight()) / 2;
 				int extraToughness = extraWeight / 10;
 				this.setToughness(this.getToughness() + extraToughness);
@@ -1759,15 +1809,11 @@ public class Unit implements ITimeVariableObject {
 				this.getWorld().removeMaterial(boulder);
 				this.getWorld().removeMaterial(log);
 
-			} else if (this.getWorld().getBouldersIn(this.getWorkAtCube()).size() > 0) {
-				Iterator<Boulder> iterBoulder = this.getWorld().getBouldersIn(this.getWorkAtCube()).iterator();
-				Boulder boulder = (Boulder) iterBoulder.next();
-				this.addMaterial(boulder);
+			} else if (this.getWorld().getBoulderIn(this.getWorkAtCube()) != null) {
+				this.addMaterial(this.getWorld().getBoulderIn(this.getWorkAtCube()));
 
-			} else if (this.getWorld().getLogsIn(this.getWorkAtCube()).size() > 0) {
-				Iterator<Log> iterLog = this.getWorld().getLogsIn(this.getWorkAtCube()).iterator();
-				Log log = (Log) iterLog.next();
-				this.addMaterial(log);
+			} else if (this.getWorld().getLogIn(this.getWorkAtCube()) != null) {
+				this.addMaterial(this.getWorld().getLogIn(this.getWorkAtCube()));
 
 			} else if (this.getWorld().getTerrainType(this.getWorkAtCube()) == TerrainType.WOOD
 					|| this.getWorld().getTerrainType(this.getWorkAtCube()) == TerrainType.ROCK) {
@@ -1836,12 +1882,14 @@ public class Unit implements ITimeVariableObject {
 	 * unit will start the next task from the scheduler
 	 */
 	private void nextTask() {
-		if (getTask() != null && getTask().hasBeenFullyExecuted()) {
-			getTask().reset();
-			getFaction().getScheduler().removeTask(getTask());
-		} else {
-			getTask().reset();
-			getTask().setPriority(getTask().getPriority() - 1);
+		Task previous = getTask();
+		if (previous != null && previous.hasBeenFullyExecuted()) {
+			previous.reset();
+			if (getFaction().getScheduler().hasAsTask(previous))
+				getFaction().getScheduler().removeTask(previous);
+		} else if (previous != null) {
+			previous.reset();
+			previous.setPriority(previous.getPriority() - 1);
 		}
 		setTask(getFaction().getScheduler().getHighestPriorityTaskNotExecuted());
 		getTask().setUnit(this);
@@ -1853,14 +1901,14 @@ public class Unit implements ITimeVariableObject {
 	 * choose a random activity for this unit
 	 */
 	private void doRandomBehaviour() {
-		int randomFight = RANDOM_GEN.nextInt(4);
+		int randomFight = this.random.nextInt(4);
 		if (randomFight == 0 && this.getPotentialEnemies().size() != 0) {
 			Set<Unit> potentialEnemies = this.getPotentialEnemies();
 			ArrayList<Unit> potentialEnemiesArray = new ArrayList<Unit>(potentialEnemies);
-			this.attack(potentialEnemiesArray.get(RANDOM_GEN.nextInt(potentialEnemiesArray.size())));
+			this.attack(potentialEnemiesArray.get(this.random.nextInt(potentialEnemiesArray.size())));
 		} else {
 
-			int randomWork = RANDOM_GEN.nextInt(3);
+			int randomWork = this.random.nextInt(3);
 			Set<Cube> allNeighbouringCubes = this.getCube().getAllNeighbouringCubes(this.getWorld());
 			allNeighbouringCubes.add(this.getCube());
 			for (Cube cube : new HashSet<Cube>(allNeighbouringCubes)) {
@@ -1869,10 +1917,10 @@ public class Unit implements ITimeVariableObject {
 			}
 			if (randomWork == 0 && allNeighbouringCubes.size() != 0) {
 				ArrayList<Cube> allNeighbouringCubesArray = new ArrayList<Cube>(allNeighbouringCubes);
-				this.workAt(allNeighbouringCubesArray.get(RANDOM_GEN.nextInt(allNeighbouringCubesArray.size())));
+				this.workAt(allNeighbouringCubesArray.get(this.random.nextInt(allNeighbouringCubesArray.size())));
 			} else {
 
-				int randomMoveOrRest = RANDOM_GEN.nextInt(2);
+				int randomMoveOrRest = this.random.nextInt(2);
 				if (randomMoveOrRest == 0 && (this.getStaminaPoints() != this.getMaxStaminaPoints()
 						|| this.getHitpoints() != this.getMaxHitpoints())) {
 					this.rest();
@@ -1883,13 +1931,8 @@ public class Unit implements ITimeVariableObject {
 					this.setBusyTime(hitpointsTime + staminaTime);
 
 				} else {
-					Set<Cube> allCubes = this.getWorld().getAllCubes();
-					for (Cube cube : new HashSet<Cube>(allCubes)) {
-						if (!cube.getCenter().isStableForUnitIn(this.getWorld()))
-							allCubes.remove(cube);
-					}
-					ArrayList<Cube> allCubesArray = new ArrayList<Cube>(allCubes);
-					moveTo(allCubesArray.get(RANDOM_GEN.nextInt(allCubesArray.size())));
+					int index = this.getWorld().getStableCubes().getRandom(this.random);
+					moveTo(this.getWorld().getTerrain().getCube(index));
 				}
 			}
 		}
@@ -1904,7 +1947,7 @@ public class Unit implements ITimeVariableObject {
 	private Set<Unit> getPotentialEnemies() {
 		Set<Cube> sameOrAdjacentCubes = this.getCube().getAllAdjacentCubes(this.getWorld());
 		sameOrAdjacentCubes.add(this.getCube());
-		Set<Unit> enemiesSoFar = new HashSet<Unit>();
+		Set<Unit> enemiesSoFar = new LinkedHashSet<Unit>();
 		for (Cube cube : sameOrAdjacentCubes) {
 			Set<Unit> unitsInCube = this.getWorld().getUnitsInCube(cube);
 			for (Unit unit : unitsInCube) {
@@ -1923,7 +1966,7 @@ public class Unit implements ITimeVariableObject {
 				|| this.getToughness() != MAX_VAL_PRIMARY_ATTRIBUTE) {
 			boolean leveledUp = false;
 			while (!leveledUp) {
-				int randomGetal = RANDOM_GEN.nextInt(3);
+				int randomGetal = this.random.nextInt(3);
 				if (randomGetal == 0) {
 					if (this.getAgility() != MAX_VAL_PRIMARY_ATTRIBUTE) {
 						this.setAgility(this.getAgility() + 1);
@@ -2059,16 +2102,76 @@ public class Unit implements ITimeVariableObject {
 	/**
 	 * start moving to a cube further away.
 	 * 
+	 * @note the path to the cube is planned when this unit next advances
+	 *       time, so the world can plan the paths of all its units together
 	 * @param cube
 	 *            the cube to move to
 	 * @effect set moveToCube to the given cube |this.setMoveToCube(cube);
-	 * @effect find next cube in path |findNextCubeInPath();
+	 * @effect initiate the next activity if the moveToCube is reached |if
+	 *         (this.getCube().equals(this.getMoveToCube())) | then
+	 *         findNextCubeInPath();
+	 * @post otherwise, this unit has a path request |if
+	 *       (!this.getCube().equals(this.getMoveToCube())) | then
+	 *       new.hasPathRequest()
 	 */
 	public void moveTo(Cube cube) {
 		this.setMoveToCube(cube);
-		findNextCubeInPath();
+		if (this.getCube().equals(this.getMoveToCube())) {
+			findNextCubeInPath();
+			return;
+		}
+		this.path = null;
+		this.pathStart = null;
+		this.pathRequested = true;
+	}
+
+	/**
+	 * check whether this unit still has to plan the path to its moveToCube
+	 */
+	boolean hasPathRequest() {
+		return this.pathRequested && this.getMoveToCube() != null;
+	}
+
+	/**
+	 * plan the path of the path request of this unit with the given path
+	 * finder, without acting on it
+	 * 
+	 * @note this only reads the world, so the path requests of different units
+	 *       can be planned at the same time, each with its own path finder
+	 * @param pathFinder
+	 *            the path finder to plan with
+	 * @post if this unit has a path request, its path is the cheapest path from
+	 *       its cube to the moveToCube found by the given path finder
+	 */
+	void planRequestedPath(PathFinder pathFinder) {
+		if (!this.hasPathRequest() || this.getCube().equals(this.getMoveToCube()))
+			return;
+		this.path = pathFinder.findPath(this.getCube(), this.getMoveToCube());
+		this.pathStart = this.getCube();
+		this.pathDestination = this.getMoveToCube();
+		this.pathTerrainVersion = this.getWorld().getTerrainVersion();
 	}
 
+	/**
+	 * start following the path of the path request of this unit, planning it
+	 * first if that has not been done from the current cube of this unit
+	 * 
+	 * @effect if this unit has a path request, find the next cube in its path
+	 *         |if (this.hasPathRequest()) | then findNextCubeInPath()
+	 */
+	private void handlePathRequest() {
+		boolean requested = this.hasPathRequest();
+		this.pathRequested = false;
+		if (requested)
+			findNextCubeInPath();
+	}
+
+	/**
+	 * a variable registering whether this unit still has to plan the path to
+	 * its moveToCube
+	 */
+	private boolean pathRequested;
+
 	/**
 	 * Moves this unit to the next cube when it's pathfinding to a cube far
 	 * away.
@@ -2076,80 +2179,90 @@ public class Unit implements ITimeVariableObject {
 	 * @effect initiate the next activity when the moveToCube is reached |if
 	 *         (this.getCube().equals(this.getMoveToCube())) | then
 	 *         this.nextActivity();
-	 * @effect if the moveToCube is not yet reached, move to the calculated next
-	 *         cube(x,y,z) in path and initiate the next activity when the
-	 *         moveToCube is reached after this |if
-	 *         !(this.getCube().equals(this.getMoveToCube())) | then
-	 *         (this.moveToAdjacent(x, y, z), if (current ==
-	 *         this.getMoveToCube()) | then this.nextActivity())
+	 * @effect if the moveToCube is not yet reached, plan a new path if the
+	 *         current one is no longer valid and was not just planned from the
+	 *         current cube |if !(this.getCube().equals(this.getMoveToCube()) &&
+	 *         !this.hasValidPath() && !this.hasPlannedFromCube()) | then
+	 *         this.planPath()
+	 * @effect if the moveToCube is not yet reached and there is a path to it,
+	 *         move to the next cube(x,y,z) in that path |this.moveToAdjacent(x, y, z)
 	 */
 	private void findNextCubeInPath() {
 		if (this.getCube().equals(this.getMoveToCube())) {
+			this.path = null;
 			this.nextActivity();
 			return;
 		}
-		Set<Cube> allCubes = this.getWorld().getAllCubes();
-		for (Cube cube : new HashSet<Cube>(allCubes)) {
-			if (!this.canHaveAsPosition(cube.getCenter()) || !cube.getCenter().isStableForUnitIn(this.getWorld()))
-				allCubes.remove(cube);
-		}
+		if (!this.hasValidPath() && !this.hasPlannedFromCube())
+			this.planPath();
+		if (this.path == null || this.path.isEmpty())
+			return;
 
-		Cube current = this.getCube();
-		double currentDistance = 0;
-		Map<Cube, Double> unvisited = new HashMap<Cube, Double>();
-		for (Cube cube : allCubes) {
-			if (cube.equals(this.getCube())) {
-				unvisited.put(cube, currentDistance);
-				current = cube;
-			} else
-				unvisited.put(cube, Double.MAX_VALUE);
-		}
-		Map<Cube, Double> visited = new HashMap<Cube, Double>();
-		Map<Cube, Cube> shortestPath = new HashMap<Cube, Cube>();
-		Queue<DistPair<Cube>> queue = new PriorityQueue<DistPair<Cube>>();
-
-		while (currentDistance != Double.MAX_VALUE) {
-			if (current.equals(this.getMoveToCube())) {
-				while (!shortestPath.get(current).equals(this.getCube()))
-					current = shortestPath.get(current);
-				int x = current.getX() - this.getCube().getX();
-				int y = current.getY() - this.getCube().getY();
-				int z = current.getZ() - this.getCube().getZ();
-				this.moveToAdjacent(x, y, z);
-				if (current == this.getMoveToCube()) {
-					this.nextActivity();
-				}
-				return;
-			}
+		Cube next = this.path.peekFirst();
+		int x = next.getX() - this.getCube().getX();
+		int y = next.getY() - this.getCube().getY();
+		int z = next.getZ() - this.getCube().getZ();
+		this.moveToAdjacent(x, y, z);
+		if (next.equals(this.getMoveToAdjacent()))
+			this.path.pollFirst();
+	}
 
-			for (Cube cube : unvisited.keySet()) {
-				if (cube.isSameOrAdjacentCube(current) && !cube.equals(current)) {
-					double weight = current.getDistanceWeightTo(cube);
-					double newDistance = currentDistance + weight;
-					if (newDistance < unvisited.get(cube)) {
-						unvisited.put(cube, newDistance);
-						shortestPath.put(cube, current);
-						queue.offer(new DistPair<Cube>(cube, newDistance));
-					}
-				}
-			}
+	/**
+	 * check whether the path this unit planned earlier can still be followed
+	 * 
+	 * @return true if and only if the path leads to the moveToCube, the
+	 *         terrain of the world has not changed since it was planned and its
+	 *         next cube is adjacent to the cube of this unit
+	 */
+	private boolean hasValidPath() {
+		if (this.path == null || this.path.isEmpty())
+			return false;
+		if (!this.getMoveToCube().equals(this.pathDestination)
+				|| this.getWorld().getTerrainVersion() != this.pathTerrainVersion)
+			return false;
+		Cube next = this.path.peekFirst();
+		return next.isSameOrAdjacentCube(this.getCube()) && !next.equals(this.getCube());
+	}
 
-			visited.put(current, currentDistance);
-			unvisited.remove(current);
+	/**
+	 * check whether the path of this unit was planned from its current cube to
+	 * the moveToCube in the current terrain, even if no path was found
+	 */
+	private boolean hasPlannedFromCube() {
+		return this.getCube().equals(this.pathStart) && this.getMoveToCube().equals(this.pathDestination)
+				&& this.getWorld().getTerrainVersion() == this.pathTerrainVersion;
+	}
 
-			while (!queue.isEmpty() && visited.containsKey(queue.peek().getThing()))
-				queue.poll();
+	/**
+	 * plan a new path from the cube of this unit to the moveToCube
+	 * 
+	 * @post the path of this unit is the cheapest path to the moveToCube found
+	 *       by the path finder of its world, or null if there is none
+	 */
+	private void planPath() {
+		this.path = this.getWorld().getPathFinder().findPath(this.getCube(), this.getMoveToCube());
+		this.pathStart = this.getCube();
+		this.pathDestination = this.getMoveToCube();
+		this.pathTerrainVersion = this.getWorld().getTerrainVersion();
+	}
 
-			// No next node -> no path
-			if (queue.isEmpty())
-				return;
-			DistPair<Cube> next = queue.poll();
-			current = next.getThing();
-			currentDistance = next.getDistance();
-		}
+	/**
+	 * a variable storing the cubes this unit still has to pass through to
+	 * reach the moveToCube
+	 */
+	private Deque<Cube> path;
 
-		return;
-	}
+	/**
+	 * a variable storing the cubes the path of this unit was planned from and
+	 * leads to
+	 */
+	private Cube pathStart, pathDestination;
+
+	/**
+	 * a variable storing the terrain version of the world at the moment the
+	 * path of this unit was planned
+	 */
+	private long pathTerrainVersion;
 
 	/**
 	 * returns the cube far away where this unit is going.
@@ -2503,16 +2616,16 @@ public class Unit implements ITimeVariableObject {
 	public void defend(Unit attacker) {
 		boolean succeeded = true;
 		// dodging
-		if (RANDOM_GEN.nextDouble() < 0.2 * this.getAgility() / attacker.getAgility()) {
+		if (this.random.nextDouble() < 0.2 * this.getAgility() / attacker.getAgility()) {
 			Set<Cube> allAdjacentCubes = this.getCube().getAllAdjacentCubes(this.getWorld());
 			for (Cube cube : new HashSet<Cube>(allAdjacentCubes)) {
 				if (!cube.getCenter().isValidForObjectIn(this.getWorld()))
 					allAdjacentCubes.remove(cube);
 			}
 			ArrayList<Cube> allAdjacentCubesArray = new ArrayList<Cube>(allAdjacentCubes);
-			this.setPosition((allAdjacentCubesArray.get(RANDOM_GEN.nextInt(allAdjacentCubesArray.size())).getCenter()));
+			this.setPosition((allAdjacentCubesArray.get(this.random.nextInt(allAdjacentCubesArray.size())).getCenter()));
 			// blocking
-		} else if (RANDOM_GEN.nextDouble() < 0.25 * (this.getStrength() + this.getAgility())
+		} else if (this.random.nextDouble() < 0.25 * (this.getStrength() + this.getAgility())
 				/ (attacker.getStrength() + attacker.getAgility())) {
 			// taking damage
 		} else {
@@ -2602,6 +2715,8 @@ public class Unit implements ITimeVariableObject {
 				throw new IllegalArgumentException();
 		}
 		this.task = task;
+		if (this.getWorld() != null && this.getWorld().getEventLog() != null)
+			this.getWorld().getEventLog().taskAssigned(this, task);
 	}
 
 	/**
@@ -2609,4 +2724,134 @@ public class Unit implements ITimeVariableObject {
 	 */
 	private Task task;
 
+	// SNAPSHOTS//
+
+	/**
+	 * create a new unit in the state read from the given snapshot
+	 * 
+	 * @param in
+	 *            the snapshot to read the record of this unit from
+	 * @post the attributes, activities, movement, behaviour, carried materials
+	 *       and task of this new unit are those in the snapshot
+	 * @post the world and faction of this new unit equal null
+	 * @note the unit this unit follows is set once all units of the snapshot
+	 *       have been read
+	 * @throws IOException
+	 *             the record could not be read or is not valid
+	 */
+	Unit(WorldSnapshot.Reader in) throws IOException {
+		this.name = in.readString();
+		if (!isValidName(this.name))
+			throw new IOException("Invalid name in world snapshot");
+		this.position = in.readPosition();
+		this.strength = in.readInt();
+		this.agility = in.readInt();
+		this.toughness = in.readInt();
+		this.weight = in.readInt();
+		this.hitpoints = in.readDouble();
+		this.staminaPoints = in.readDouble();
+		this.orientation = in.readDouble();
+		this.experiencePoints = in.readInt();
+		this.level = in.readInt();
+		for (int nbMaterials = in.readCount(); nbMaterials > 0; nbMaterials--) {
+			Material material = in.readMaterial();
+			this.materials.add(material);
+			material.setOwner(this);
+		}
+
+		for (int nbActivities = in.readCount(); nbActivities > 0; nbActivities--)
+			this.activityQueue.add(in.readActivity());
+		this.busyTime = in.readDouble();
+
+		this.moveToAdjacent = in.readCube();
+		this.moveToCube = in.readCube();
+		this.pathRequested = in.readBoolean();
+		if (in.readBoolean()) {
+			this.path = new ArrayDeque<Cube>();
+			for (int nbCubes = in.readCount(); nbCubes > 0; nbCubes--)
+				this.path.add(in.readCube());
+		}
+		this.pathStart = in.readCube();
+		this.pathDestination = in.readCube();
+		this.pathTerrainVersion = in.readLong();
+		in.readUnitLater(unit -> this.followUnit = unit);
+
+		this.defaultBehaviour = in.readBoolean();
+		this.workAtCube = in.readCube();
+		this.restTimer = in.readDouble();
+		this.canStopResting = in.readBoolean();
+		this.task = in.readTask();
+	}
+
+	/**
+	 * write the state of this unit to the given snapshot, in the order it is
+	 * read by the constructor above
+	 * 
+	 * @param out
+	 *            the snapshot to write the record of this unit to
+	 * @note the world and faction of this unit are written by the snapshot
+	 *       itself
+	 */
+	void writeSnapshot(WorldSnapshot.Writer out) throws IOException {
+		out.writeString(this.name);
+		out.writePosition(this.position);
+		out.writeInt(this.strength);
+		out.writeInt(this.agility);
+		out.writeInt(this.toughness);
+		out.writeInt(this.weight);
+		out.writeDouble(this.hitpoints);
+		out.writeDouble(this.staminaPoints);
+		out.writeDouble(this.orientation);
+		out.writeInt(this.experiencePoints);
+		out.writeInt(this.level);
+		out.writeInt(this.materials.size());
+		for (Material material : this.materials)
+			out.writeMaterial(material);
+
+		out.writeInt(this.activityQueue.size());
+		for (Activity activity : this.activityQueue)
+			out.writeByte(activity.ordinal());
+		out.writeDouble(this.busyTime);
+
+		out.writeCube(this.moveToAdjacent);
+		out.writeCube(this.moveToCube);
+		out.writeBoolean(this.pathRequested);
+		out.writeBoolean(this.path != null);
+		if (this.path != null) {
+			out.writeInt(this.path.size());
+			for (Cube cube : this.path)
+				out.writeCube(cube);
+		}
+		out.writeCube(this.pathStart);
+		out.writeCube(this.pathDestination);
+		out.writeLong(this.pathTerrainVersion);
+		out.writeUnit(this.followUnit);
+
+		out.writeBoolean(this.defaultBehaviour);
+		out.writeCube(this.workAtCube);
+		out.writeDouble(this.restTimer);
+		out.writeBoolean(this.canStopResting);
+		out.writeTask(this.task);
+	}
+
+	/**
+	 * return a fingerprint of the state of this unit: its name, position,
+	 * attributes, current activity and number of carried materials, mixed
+	 * into the state hash of its world
+	 */
+	long getStateHash() {
+		long result = this.name.hashCode();
+		result = World.mixHash(result, this.position.hashCode());
+		result = World.mixHash(result, this.strength);
+		result = World.mixHash(result, this.agility);
+		result = World.mixHash(result, this.toughness);
+		result = World.mixHash(result, this.weight);
+		result = World.mixHash(result, Double.doubleToLongBits(this.hitpoints));
+		result = World.mixHash(result, Double.doubleToLongBits(this.staminaPoints));
+		result = World.mixHash(result, Double.doubleToLongBits(this.orientation));
+		result = World.mixHash(result, this.experiencePoints);
+		result = World.mixHash(result, this.getCurrentActivity().ordinal());
+		return World.mixHash(result, this.materials.size());
+	}
+
 }
@@ -1,7 +1,9 @@
 package hillbillies.model;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ForkJoinPool;
 
 import hillbillies.part2.listener.TerrainChangeListener;
 import hillbillies.util.ConnectedToBorder;
@@ -21,7 +23,6 @@ import be.kuleuven.cs.som.annotate.*;
  */
 public class World implements ITimeVariableObject {
 
-	private static final Random RANDOM_GEN = new Random();
 	/**
 	 * @note	MAX_FACTIONS and MAX_UNITS cannot be 0.
 	 */
@@ -46,33 +47,166 @@ public class World implements ITimeVariableObject {
 	 * @post this new world can have materials if some part of the world
 	 *       specified in terrainTypes should cave in
 	 * @effect initialize the private instance connectedUtil to be able to use
-	 *         the given algorithms in ConnectedToBorder
+	 *         the given algorithms in ConnectedToBorder, with all passable
+	 *         cubes in one pass
+	 * @effect make all cubes that are not connected to the border collapse at
+	 *         once |this.collapseAll(cubes not connected to the border)
 	 * @throws IllegalArgumentException
 	 *             terrainTypes is not valid for this world
 	 */
 	public World(int[][][] terrainTypes, TerrainChangeListener modelListener) throws IllegalArgumentException {
-		if (!canHaveAsTerrainTypes(terrainTypes))
-			throw new IllegalArgumentException();
+		this(toTerrain(terrainTypes), modelListener);
+	}
 
-		this.terrainTypes = terrainTypes;
-		this.modelListener = modelListener;
+	/**
+	 * Initialize this new world with the given dimensions and terrain types,
+	 * given as a flat array.
+	 * 
+	 * @param nbX
+	 *            the number of cubes in the x direction
+	 * @param nbY
+	 *            the number of cubes in the y direction
+	 * @param nbZ
+	 *            the number of cubes in the z direction
+	 * @param terrainTypes
+	 *            the associated integers of the terrain types of all cubes,
+	 *            indexed like ByteMap3D: index == z*nbX*nbY + y*nbX + x
+	 * @param modelListener
+	 * 			an instance to update the GUI
+	 * @effect this new world is initialized like a world with the terrain types
+	 *         at the same coordinates in a three-dimensional array
+	 * @note	the terrain types are copied at once, so loaders that produce a
+	 * 			flat array do not need to build a three-dimensional array first
+	 * @throws IllegalArgumentException
+	 *             a dimension is not positive, the array does not have
+	 *             nbX*nbY*nbZ elements or it contains integers not in [0,3]
+	 */
+	public World(int nbX, int nbY, int nbZ, byte[] terrainTypes, TerrainChangeListener modelListener)
+			throws IllegalArgumentException {
+		this(toTerrain(nbX, nbY, nbZ, terrainTypes), modelListener);
+	}
 
-		this.connectedUtil = new ConnectedToBorder(terrainTypes.length, terrainTypes[0].length,
-				terrainTypes[0][0].length);
-		// iterate over the 3D-array terrainTypes to initialize connectedUtil
-		Set<int[]> caveIns = new HashSet<int[]>();
-		for (int x = 0; x < terrainTypes.length; x++)
-			for (int y = 0; y < terrainTypes[x].length; y++)
-				for (int z = 0; z < terrainTypes[x][y].length; z++) {
-					if (terrainTypes[x][y][z] == 0 || terrainTypes[x][y][z] == 3)
-						caveIns.addAll(connectedUtil.changeSolidToPassable(x, y, z));
-				}
-		// make the caveIns collapse
-		for (int[] cubeCoordinate : caveIns)
-			this.collapse(new Cube(cubeCoordinate[0], cubeCoordinate[1], cubeCoordinate[2]));
+	/**
+	 * return a new world with the terrain of the given chunked world file,
+	 * loading its chunks when they are first used
+	 * 
+	 * @param file
+	 *            the chunked world file to read the terrain from
+	 * @param memoryBudget
+	 *            the number of bytes the loaded chunks of terrain may take
+	 * @param modelListener
+	 * 			an instance to update the GUI
+	 * @return a new world like a world with the terrain types in the given
+	 *         file, whose chunks holding units or materials stay loaded
+	 * @note	besides the loaded chunks, a world takes two bits per cube for
+	 * 			the connectivity of its terrain; its other structures only take
+	 * 			memory for the cubes that are stable, occupied or reached by a
+	 * 			path search. Creating the world still reads every chunk, z-level
+	 * 			by z-level, to let caves collapse and find the stable cubes, so
+	 * 			the memory budget should hold two layers of chunks spanning the
+	 * 			world for every chunk to be read only once per pass.
+	 * @note	the world keeps the file open until it is closed.
+	 * @throws IOException
+	 *             the file could not be read, or is not a chunked world file
+	 */
+	public static World fromChunkedFile(Path file, long memoryBudget, TerrainChangeListener modelListener)
+			throws IOException {
+		ChunkedTerrainStore store = new ChunkedTerrainStore(file, memoryBudget);
+		World result = new World(new TerrainGrid(store.getNbX(), store.getNbY(), store.getNbZ(), store),
+				modelListener);
+		store.setPinnedChunks(() -> result.getOccupiedChunks(store));
+		return result;
+	}
+
+	/**
+	 * release the resources held by the terrain of this world, such as the
+	 * file of a world read from a chunked world file
+	 *
+	 * @effect |this.getTerrain().close()
+	 * @note	a world read from a chunked world file can no longer load the
+	 * 			chunks it evicted, so it should not be advanced any more.
+	 * @throws IOException
+	 *             the resources could not be released
+	 */
+	public void close() throws IOException {
+		this.getTerrain().close();
+	}
+
+	/**
+	 * return the indices of the chunks of the given store holding a unit or a
+	 * material of this world
+	 */
+	private BitSet getOccupiedChunks(ChunkedTerrainStore store) {
+		BitSet result = new BitSet();
+		for (Unit unit : this.getAllUnits()) {
+			Cube cube = unit.getCube();
+			result.set(store.getChunkOf(this.getTerrain().indexOf(cube.getX(), cube.getY(), cube.getZ())));
+		}
+		for (Material material : this.getAllMaterials()) {
+			Cube cube = material.getPosition().getCube();
+			result.set(store.getChunkOf(this.getTerrain().indexOf(cube.getX(), cube.getY(), cube.getZ())));
+		}
+		return result;
+	}
+
+	private World(TerrainGrid terrain, TerrainChangeListener modelListener) {
+		this(terrain, null, 0, modelListener);
+	}
+
+	/**
+	 * create a new game world with the given terrain
+	 * 
+	 * @param terrain
+	 *            the grid storing the terrain types of the new world
+	 * @param connected
+	 *            the indices of the solid cubes connected to the border, or
+	 *            null to find out with one search over the world
+	 * @param terrainVersion
+	 *            the number of changes made to the terrain before
+	 * @param modelListener
+	 * 			an instance to update the GUI
+	 * @effect if the connected cubes are not given, make all cubes that are
+	 *         not connected to the border collapse at once
+	 *         |this.collapseAll(cubes not connected to the border)
+	 * @note	a world restored from a snapshot gives the connected cubes, so
+	 * 			its terrain is taken as it is, without searching for caves
+	 * @note	the materials left by the caves that collapse when a world is
+	 * 			created only depend on its terrain, so worlds created from the
+	 * 			same terrain are the same; the random source of this new world
+	 * 			is not seeded
+	 */
+	World(TerrainGrid terrain, BitSet connected, long terrainVersion, TerrainChangeListener modelListener) {
+		this.terrain = terrain;
+		this.terrainVersion = terrainVersion;
+		this.unitsIndex = new CubeIndex<Unit>();
+		this.logsIndex = new CubeIndex<Log>();
+		this.bouldersIndex = new CubeIndex<Boulder>();
+		this.nearestQuery = new NearestQuery(this);
+		this.modelListener = modelListener;
 
+		this.connectedUtil = new ConnectedToBorder(terrain.getNbX(), terrain.getNbY(), terrain.getNbZ());
+		// initialize connectedUtil with all passable cubes at once
+		BitSet passable = new BitSet(this.terrain.getNbCubes());
+		for (int index = 0; index < this.terrain.getNbCubes(); index++)
+			if (this.terrain.isPassable(index))
+				passable.set(index);
+		this.stableCubes = new StableCubeSet(this.terrain);
+		this.random = new SplittableRandom(INITIAL_COLLAPSE_SEED);
+		if (connected != null) {
+			this.connectedUtil.restoreState(passable, connected);
+		} else {
+			// make the caveIns collapse
+			this.collapseAll(connectedUtil.changeAllSolidToPassable(passable));
+		}
+		this.random = new SplittableRandom();
 	}
 
+	/**
+	 * the seed of the random source that decides which materials the caves
+	 * that collapse when a world is created leave
+	 */
+	private static final long INITIAL_COLLAPSE_SEED = 0;
+
 	// TERRAIN//
 
 	/**
@@ -83,7 +217,7 @@ public class World implements ITimeVariableObject {
 	 *            The array to check.
 	 * @return false if the given array contains integers not in [0,3]
 	 */
-	private boolean canHaveAsTerrainTypes(int[][][] terrainTypes) {
+	private static boolean canHaveAsTerrainTypes(int[][][] terrainTypes) {
 		// iterate over the array terrainTypes
 		for (int x = 0; x < terrainTypes.length; x++)
 			for (int y = 0; y < terrainTypes[x].length; y++)
@@ -96,18 +230,58 @@ public class World implements ITimeVariableObject {
 	}
 
 	/**
-	 * return the 3D-array terrainTypes of this world
+	 * return a new grid with the given terrain types
+	 * 
+	 * @throws IllegalArgumentException
+	 *             the given terrain types are not valid for a world
+	 *             | !canHaveAsTerrainTypes(terrainTypes)
+	 */
+	private static TerrainGrid toTerrain(int[][][] terrainTypes) throws IllegalArgumentException {
+		if (!canHaveAsTerrainTypes(terrainTypes))
+			throw new IllegalArgumentException();
+		return new TerrainGrid(terrainTypes);
+	}
+
+	/**
+	 * return a new grid with the given dimensions and a copy of the given flat
+	 * terrain types
+	 * 
+	 * @throws IllegalArgumentException
+	 *             a dimension is not positive, the array does not have
+	 *             nbX*nbY*nbZ elements or it contains integers not in [0,3]
+	 */
+	private static TerrainGrid toTerrain(int nbX, int nbY, int nbZ, byte[] terrainTypes)
+			throws IllegalArgumentException {
+		if (nbX <= 0 || nbY <= 0 || nbZ <= 0 || terrainTypes == null
+				|| terrainTypes.length != (long) nbX * nbY * nbZ)
+			throw new IllegalArgumentException();
+		for (byte terrainType : terrainTypes)
+			if (terrainType < 0 || terrainType > 3)
+				throw new IllegalArgumentException();
+		return new TerrainGrid(nbX, nbY, nbZ, terrainTypes.clone());
+	}
+
+	/**
+	 * return a copy of the terrain types of this world as a 3D-array,
+	 * structured as [x][y][z]
 	 */
-	@Basic
 	int[][][] getTerrainTypesArray() {
-		return this.terrainTypes;
+		return this.getTerrain().toArray();
+	}
+
+	/**
+	 * return the grid storing the terrain types of this world
+	 */
+	@Basic
+	@Immutable
+	TerrainGrid getTerrain() {
+		return this.terrain;
 	}
 
 	/**
-	 * Variable registering the terrain types of this world in a
-	 * three-dimensional array.
+	 * Variable registering the terrain types of this world in a flat grid.
 	 */
-	private int[][][] terrainTypes;
+	private final TerrainGrid terrain;
 
 	/**
 	 * instance of the provided class ConnectedToBorder to be able to access
@@ -121,12 +295,42 @@ public class World implements ITimeVariableObject {
 	 */
 	private TerrainChangeListener modelListener;
 
+	/**
+	 * return the number of changes made to the terrain of this world since it
+	 * was created
+	 * 
+	 * @note	used to find out whether a path planned earlier might be blocked
+	 */
+	@Basic
+	long getTerrainVersion() {
+		return this.terrainVersion;
+	}
+
+	/**
+	 * variable counting the changes made to the terrain of this world
+	 */
+	private long terrainVersion;
+
+	/**
+	 * return the path finder planning the paths of the units in this world
+	 */
+	PathFinder getPathFinder() {
+		if (this.pathFinder == null)
+			this.pathFinder = new PathFinder(this);
+		return this.pathFinder;
+	}
+
+	/**
+	 * variable storing the path finder of this world, created when first used
+	 */
+	private PathFinder pathFinder;
+
 	/**
 	 * Return the number of cubes in the X direction of this world.
 	 */
 	@Immutable
 	public int getNbCubesX() {
-		return this.getTerrainTypesArray().length;
+		return this.getTerrain().getNbX();
 	}
 
 	/**
@@ -134,7 +338,7 @@ public class World implements ITimeVariableObject {
 	 */
 	@Immutable
 	public int getNbCubesY() {
-		return this.getTerrainTypesArray()[0].length;
+		return this.getTerrain().getNbY();
 	}
 
 	/**
@@ -142,7 +346,7 @@ public class World implements ITimeVariableObject {
 	 */
 	@Immutable
 	public int getNbCubesZ() {
-		return this.getTerrainTypesArray()[0][0].length;
+		return this.getTerrain().getNbZ();
 	}
 
 	/**
@@ -171,7 +375,7 @@ public class World implements ITimeVariableObject {
 	public int getTerrainTypeInt(Cube cube) throws IllegalArgumentException {
 		if (!cube.isValidIn(this))
 			throw new IllegalArgumentException();
-		return this.getTerrainTypesArray()[cube.getX()][cube.getY()][cube.getZ()];
+		return this.getTerrain().get(this.getTerrain().indexOf(cube.getX(), cube.getY(), cube.getZ()));
 	}
 
 	/**
@@ -186,15 +390,7 @@ public class World implements ITimeVariableObject {
 		if (!cube.isValidIn(this))
 			throw new IllegalArgumentException();
 
-		int terrainType = this.getTerrainTypeInt(cube);
-		if (terrainType == 1)
-			return TerrainType.ROCK;
-		if (terrainType == 2)
-			return TerrainType.WOOD;
-		if (terrainType == 3)
-			return TerrainType.WORKSHOP;
-		else
-			return TerrainType.AIR;
+		return this.getTerrain().getType(this.getTerrain().indexOf(cube.getX(), cube.getY(), cube.getZ()));
 	}
 
 	/**
@@ -206,8 +402,9 @@ public class World implements ITimeVariableObject {
 	 *            the terrain type to set to
 	 * @effect update the private instance connectedUtil to be able to use the
 	 *         given algorithms in ConnectedToBorder
-	 * @effect if necessary make other cubes collapse
-	 * @effect update 3D-array terrainTypes for the given cube
+	 * @effect if necessary make other cubes collapse |this.collapseAll(caveIns)
+	 * @effect update the terrain grid for the given cube
+	 * @effect update the stable cubes around the given cube
 	 * @effect	update the GUI
 	 * @throws IllegalArgumentException
 	 *             the given cube is not within the boundaries of this world
@@ -217,11 +414,11 @@ public class World implements ITimeVariableObject {
 			throw new IllegalArgumentException();
 
 		// update connectedUtil and collect caveIns
-		Set<int[]> caveIns = new HashSet<int[]>();
+		List<int[]> caveIns = Collections.emptyList();
 
 			// solid to passable
 		if (!cube.isPassableIn(this) && type.isPassable())
-			caveIns.addAll(connectedUtil.changeSolidToPassable(cube.getX(), cube.getY(), cube.getZ()));
+			caveIns = connectedUtil.changeSolidToPassable(cube.getX(), cube.getY(), cube.getZ());
 
 			// passable to solid
 		if (cube.isPassableIn(this) && !type.isPassable()) {
@@ -232,13 +429,19 @@ public class World implements ITimeVariableObject {
 			}
 		}
 
-		// update terrainTypes
-		this.terrainTypes[cube.getX()][cube.getY()][cube.getZ()] = type.getAssociatedInt();
+		// update the terrain grid
+		if ((this.getTerrainType(cube) == TerrainType.WORKSHOP) != (type == TerrainType.WORKSHOP))
+			this.getNearestQuery().updateWorkshop(cube, type == TerrainType.WORKSHOP);
+		int index = this.getTerrain().indexOf(cube.getX(), cube.getY(), cube.getZ());
+		this.getTerrain().set(index, type);
+		this.getStableCubes().update(index);
+		this.terrainVersion++;
+		if (this.eventLog != null)
+			this.eventLog.terrainChanged(index, type);
 		modelListener.notifyTerrainChanged(cube.getX(), cube.getY(), cube.getZ());
 
 		// make the caveIns collapse
-		for (int[] cubeCoordinate : caveIns)
-			this.collapse(new Cube(cubeCoordinate[0], cubeCoordinate[1], cubeCoordinate[2]));
+		this.collapseAll(caveIns);
 	}
 
 	/**
@@ -257,31 +460,128 @@ public class World implements ITimeVariableObject {
 		if (cube.isPassableIn(this))
 			return;
 
-		double probability = RANDOM_GEN.nextDouble();
+		double probability = this.random.nextDouble();
 		TerrainType oldType = this.getTerrainType(cube);
 		this.setTerrainType(cube, TerrainType.AIR);
 		if (probability < 0.25) {
 			if (oldType == TerrainType.WOOD) {
-				this.addMaterial(new Log(), cube.getCenter());
+				this.addMaterial(new Log(Material.nextWeight(this.random)), cube.getCenter());
 			} else if (oldType == TerrainType.ROCK) {
-				this.addMaterial(new Boulder(), cube.getCenter());
+				this.addMaterial(new Boulder(Material.nextWeight(this.random)), cube.getCenter());
 			}
 		}
 	}
 	
 	/**
-	 * return a set of all cubes where workshops are located in this world.
+	 * make all given cubes collapse at once, each with the possibility to
+	 * create a material
+	 * 
+	 * @param cubes
+	 *            the coordinates {x, y, z} of the cubes to collapse
+	 * @post the given cubes that are solid become air, and so do the cubes
+	 *       that are no longer connected to the border because of that
+	 * @post every collapsed cube of rock or wood leaves a boulder or log with
+	 *       a probability of 0.25
+	 * @effect the stable cubes are updated around every collapsed cube
+	 * @effect the GUI is notified once of all collapsed cubes
+	 *         |modelListener.notifyTerrainChanged(collapsed cubes)
 	 */
-	public Set<Cube> getAllWorkshops(){
-		Set<Cube> workshops = new HashSet<Cube>();
-		for (int i = 0; i < this.getNbCubesX(); i++) {
-			for (int j = 0; j < this.getNbCubesY(); j++) {
-				for (int k = 0; k < this.getNbCubesZ(); k++) {
-					if (this.getTerrainType(new Cube(i,j,k))==TerrainType.WORKSHOP)
-						workshops.add(new Cube(i, j, k));
+	void collapseAll(List<int[]> cubes) {
+		List<int[]> collapsed = new ArrayList<int[]>();
+		Deque<int[]> toCollapse = new ArrayDeque<int[]>(cubes);
+		while (!toCollapse.isEmpty()) {
+			int[] coordinate = toCollapse.poll();
+			int index = this.getTerrain().indexOf(coordinate[0], coordinate[1], coordinate[2]);
+			TerrainType oldType = this.getTerrain().getType(index);
+			if (oldType.isPassable())
+				continue;
+			// the neighbours of a cube that caved in have caved in as well, so
+			// this normally finds nothing new
+			toCollapse.addAll(connectedUtil.changeSolidToPassable(coordinate[0], coordinate[1], coordinate[2]));
+			this.getTerrain().set(index, TerrainType.AIR);
+			this.getStableCubes().update(index);
+			collapsed.add(coordinate);
+			if (this.eventLog != null)
+				this.eventLog.terrainChanged(index, TerrainType.AIR);
+
+			double probability = this.random.nextDouble();
+			if (probability < 0.25) {
+				if (oldType == TerrainType.WOOD) {
+					this.addMaterial(new Log(Material.nextWeight(this.random)),
+							this.getTerrain().getCube(index).getCenter());
+				} else if (oldType == TerrainType.ROCK) {
+					this.addMaterial(new Boulder(Material.nextWeight(this.random)),
+							this.getTerrain().getCube(index).getCenter());
 				}
 			}
 		}
+		if (collapsed.isEmpty())
+			return;
+		this.terrainVersion++;
+		modelListener.notifyTerrainChanged(collapsed);
+	}
+
+	/**
+	 * return the service finding the units, materials and workshops of this
+	 * world closest to a given unit or position
+	 */
+	@Basic
+	@Immutable
+	public NearestQuery getNearestQuery() {
+		return this.nearestQuery;
+	}
+
+	/**
+	 * variable referencing the nearest query service of this world, kept up
+	 * to date with the cube indices and the terrain
+	 */
+	private final NearestQuery nearestQuery;
+
+	/**
+	 * return the units, and the logs and boulders that are not carried, whose
+	 * position lies in the given box
+	 *
+	 * @param minX
+	 *            the lowest x coordinate of the box, included
+	 * @param maxX
+	 *            the highest x coordinate of the box, excluded
+	 * @return the objects of this world whose x, y and z coordinates lie
+	 *         between the given lowest and highest coordinates
+	 * @note	only the cells of the nearest query service that overlap the box
+	 * 			are looked at, so a small box costs about as much as the number
+	 * 			of objects in it, not the number of objects in this world
+	 */
+	public Set<Object> getObjectsInBox(double minX, double minY, double minZ, double maxX, double maxY,
+			double maxZ) {
+		Set<Object> result = new LinkedHashSet<Object>();
+		this.getNearestQuery().collectInBox(new double[] { minX, minY, minZ }, new double[] { maxX, maxY, maxZ },
+				result);
+		return result;
+	}
+
+	/**
+	 * return the set of cubes of this world a unit can stand in
+	 */
+	@Basic
+	@Immutable
+	StableCubeSet getStableCubes() {
+		return this.stableCubes;
+	}
+
+	/**
+	 * variable referencing the stable cubes of this world, updated around
+	 * every cube whose terrain type changes
+	 */
+	private final StableCubeSet stableCubes;
+
+	/**
+	 * return a set of all cubes where workshops are located in this world.
+	 */
+	public Set<Cube> getAllWorkshops(){
+		Set<Cube> workshops = new HashSet<Cube>();
+		for (int index = 0; index < this.getTerrain().getNbCubes(); index++)
+			if (this.getTerrain().getType(index) == TerrainType.WORKSHOP)
+				workshops.add(this.getTerrain().getCube(index));
 		return workshops;
 			
 	}
@@ -301,13 +601,19 @@ public class World implements ITimeVariableObject {
 		// throw new IllegalArgumentException();
 		// this.units.remove(unit);
 
-		if (this.hasAsUnit(unit))
+		if (this.hasAsUnit(unit)) {
 			this.units.remove(unit);
+			this.unitsIndex.remove(unit);
+			this.getNearestQuery().removeUnit(unit);
+			if (this.eventLog != null)
+				this.eventLog.unitRemoved(unit);
+		}
 
 		try {
 			unit.setWorld(null);
 		} catch (IllegalArgumentException e) {
 			this.units.add(unit);
+			this.updateCubeIndex(unit);
 			throw e;
 		}
 	}
@@ -349,16 +655,40 @@ public class World implements ITimeVariableObject {
 						unitsFaction = faction;
 				}
 
-			unitsFaction.addUnit(unit);
+			this.addUnit(unit, unitsFaction);
+		}
+	}
 
-			this.units.add(unit);
-			try {
-				unit.setWorld(this);
-			} catch (IllegalArgumentException e) {
-				this.units.remove(unit);
-				unitsFaction.removeUnit(unit);
-				throw e;
-			}
+	/**
+	 * add a given unit to this world in the given faction of this world
+	 * 
+	 * @param	unit
+	 * 			the unit to add
+	 * @param	faction
+	 * 			the faction to add the unit to
+	 * @post	the given unit belongs to this world and to the given faction
+	 * @post	the random source of the given unit is split from the random
+	 * 			source of this world
+	 * @note	the position of the unit is not checked, so units restored from
+	 * 			a snapshot can be added while they are falling
+	 * @throws	IllegalArgumentException
+	 * 			the given unit cannot be added to the given faction or to this
+	 * 			world
+	 */
+	void addUnit(Unit unit, Faction faction) throws IllegalArgumentException {
+		faction.addUnit(unit);
+
+		this.units.add(unit);
+		try {
+			unit.setWorld(this);
+			this.updateCubeIndex(unit);
+			unit.setRandom(this.random.split());
+			if (this.eventLog != null)
+				this.eventLog.unitAdded(unit);
+		} catch (IllegalArgumentException e) {
+			this.units.remove(unit);
+			faction.removeUnit(unit);
+			throw e;
 		}
 	}
 	
@@ -446,23 +776,34 @@ public class World implements ITimeVariableObject {
 		if (!cube.isValidIn(this))
 			throw new IllegalArgumentException();
 
-		Set<Unit> result = new HashSet<Unit>();
+		return new LinkedHashSet<Unit>(this.unitsIndex.getIn(cube.getIndexIn(this.getTerrain())));
+	}
 
-		Iterator<Unit> it = units.iterator();
-		while (it.hasNext()) {
-			Unit unit = it.next();
-			if (unit.getCube() == cube)
-				result.add(unit);
+	/**
+	 * put the given unit in the index of the cube it is in
+	 * 
+	 * @param unit
+	 *            the unit that moved
+	 * @post if this world contains the given unit, getUnitsInCube of its cube
+	 *       contains it and no other cube does
+	 */
+	void updateCubeIndex(Unit unit) {
+		if (this.hasAsUnit(unit)) {
+			this.unitsIndex.put(unit, unit.getCube().getIndexIn(this.getTerrain()));
+			this.getNearestQuery().updateUnit(unit);
 		}
-
-		return result;
 	}
 
+	/**
+	 * the units of this world, indexed by the cube they are in
+	 */
+	private final CubeIndex<Unit> unitsIndex;
+
 	/**
 	 * return all units present in this world
 	 */
 	public Set<Unit> getAllUnits() {
-		Set<Unit> result = new HashSet<Unit>();
+		Set<Unit> result = new LinkedHashSet<Unit>();
 
 		Iterator<Faction> it = this.getAllFactions().iterator();
 		while (it.hasNext()) {
@@ -484,7 +825,7 @@ public class World implements ITimeVariableObject {
 		return faction.getAllUnits();
 	}
 
-	private final Set<Unit> units = new HashSet<Unit>();
+	private final Set<Unit> units = new LinkedHashSet<Unit>();
 
 	/**
 	 * create a random unit in this world
@@ -501,9 +842,9 @@ public class World implements ITimeVariableObject {
 		// create random stable position
 		Position position = null;
 		while ((position == null) || (!position.isStableForUnitIn(this))) {
-			double x = ThreadLocalRandom.current().nextDouble(0, this.getNbCubesX());
-			double y = ThreadLocalRandom.current().nextDouble(0, this.getNbCubesY());
-			double z = ThreadLocalRandom.current().nextDouble(0, this.getNbCubesZ());
+			double x = this.random.nextDouble(0, this.getNbCubesX());
+			double y = this.random.nextDouble(0, this.getNbCubesY());
+			double z = this.random.nextDouble(0, this.getNbCubesZ());
 			position = new Position(x, y, z);
 		}
 
@@ -513,7 +854,7 @@ public class World implements ITimeVariableObject {
 		// System.out.println(position.getRealZ());
 
 		// choose name random between Ellen and Marte
-		double variable = RANDOM_GEN.nextDouble();
+		double variable = this.random.nextDouble();
 		String name = null;
 		if (variable < 0.5)
 			name = "Ellen";
@@ -521,15 +862,15 @@ public class World implements ITimeVariableObject {
 			name = "Marte";
 
 		// create random initial strength, agility, toughness between 25 and 100
-		// Min + RANDOM_GEN.nextInt(Max - Min) + 1)
-		int strength = 25 + RANDOM_GEN.nextInt(76);
-		int agility = 25 + RANDOM_GEN.nextInt(76);
-		int toughness = 25 + RANDOM_GEN.nextInt(76);
+		// Min + random.nextInt(Max - Min) + 1)
+		int strength = 25 + this.random.nextInt(76);
+		int agility = 25 + this.random.nextInt(76);
+		int toughness = 25 + this.random.nextInt(76);
 
 		// create random initial weight between 25 and 100 that is at least
 		// (strength+agility)/2
 		int minimumWeight = Math.min(25, (int) Math.ceil((double) ((strength + agility) / 2.0)));
-		int weight = minimumWeight + RANDOM_GEN.nextInt((100 - minimumWeight) + 1);
+		int weight = minimumWeight + this.random.nextInt((100 - minimumWeight) + 1);
 
 		Unit unit = new Unit(position.getRealX(), position.getRealY(), position.getRealZ(), name, strength, agility,
 				toughness, weight, enableDefaultBehaviour);
@@ -619,7 +960,7 @@ public class World implements ITimeVariableObject {
 	/**
 	 * return all the factions present in this world as a set
 	 */
-	private Set<Faction> getAllFactions() {
+	Set<Faction> getAllFactions() {
 		return factions;
 	}
 
@@ -627,7 +968,7 @@ public class World implements ITimeVariableObject {
 	 * return all the active factions present in this world as a set
 	 */
 	public Set<Faction> getAllActiveFactions() {
-		Set<Faction> activeFactionsSoFar = new HashSet<Faction>();
+		Set<Faction> activeFactionsSoFar = new LinkedHashSet<Faction>();
 		for (Faction faction : this.getAllFactions())
 			if (faction.getNbUnits() > 0)
 				activeFactionsSoFar.add(faction);
@@ -648,7 +989,7 @@ public class World implements ITimeVariableObject {
 	/**
 	 * a set with all the factions (including non-active) in this world
 	 */
-	private final Set<Faction> factions = new HashSet<Faction>();
+	private final Set<Faction> factions = new LinkedHashSet<Faction>();
 
 	// MATERIALS//
 
@@ -672,8 +1013,12 @@ public class World implements ITimeVariableObject {
 			material.setPosition(position);
 			if (material.getOwner() != null)
 				material.getOwner().removeMaterial(material);
+			this.updateCubeIndex(material);
+			if (this.eventLog != null)
+				this.eventLog.materialAdded(material);
 		} catch (IllegalArgumentException e) {
 			this.materials.remove(material);
+			this.removeFromCubeIndex(material);
 			throw e;
 		}
 	}
@@ -698,13 +1043,17 @@ public class World implements ITimeVariableObject {
 		if (!this.hasAsMaterial(material))
 			throw new IllegalArgumentException();
 		this.materials.remove(material);
+		this.removeFromCubeIndex(material);
 
 		try {
 			material.setWorld(null);
 		} catch (IllegalArgumentException e) {
 			this.materials.add(material);
+			this.updateCubeIndex(material);
 			throw e;
 		}
+		if (this.eventLog != null)
+			this.eventLog.materialRemoved(material);
 	}
 
 	/**
@@ -741,16 +1090,24 @@ public class World implements ITimeVariableObject {
 	Set<Log> getLogsIn(Cube cube) throws IllegalArgumentException {
 		if (!cube.isValidIn(this))
 			throw new IllegalArgumentException();
-		Set<Log> result = new HashSet<Log>();
+		return new LinkedHashSet<Log>(this.logsIndex.getIn(cube.getIndexIn(this.getTerrain())));
+	}
 
-		for (Material material: this.materials) {
-			if (material.getPosition().getCube().equals(cube) && (Log.class.isInstance(material))) {
-				// cast mag gebruikt worden, want je hebt net gecontroleerd of
-				// het een boulder is
-				result.add((Log) material);
-			}
-		}
-		return result;
+	/**
+	 * return a log in one cube of the game world
+	 * 
+	 * @param cube
+	 *            the cube to check
+	 * @return one of the logs in the given cube, or null if there is none
+	 *         |if (this.getLogsIn(cube).isEmpty()) then result == null
+	 *         |else this.getLogsIn(cube).contains(result)
+	 * @throws IllegalArgumentException
+	 *             the given cube is not within the boundaries of this world
+	 */
+	Log getLogIn(Cube cube) throws IllegalArgumentException {
+		if (!cube.isValidIn(this))
+			throw new IllegalArgumentException();
+		return this.logsIndex.getAnyIn(cube.getIndexIn(this.getTerrain()));
 	}
 
 	/**
@@ -765,18 +1122,64 @@ public class World implements ITimeVariableObject {
 	Set<Boulder> getBouldersIn(Cube cube) throws IllegalArgumentException {
 		if (!cube.isValidIn(this))
 			throw new IllegalArgumentException();
-		Set<Boulder> result = new HashSet<Boulder>();
+		return new LinkedHashSet<Boulder>(this.bouldersIndex.getIn(cube.getIndexIn(this.getTerrain())));
+	}
 
-		for (Material material: this.materials) {
-			if (material.getPosition().getCube().equals(cube) && (Boulder.class.isInstance(material))) {
-				// cast mag gebruikt worden, want je hebt net gecontroleerd of
-				// het een boulder is
-				result.add((Boulder) material);
-			}
-		}
-		return result;
+	/**
+	 * return a boulder in one cube of the game world
+	 * 
+	 * @param cube
+	 *            the cube to check
+	 * @return one of the boulders in the given cube, or null if there is none
+	 *         |if (this.getBouldersIn(cube).isEmpty()) then result == null
+	 *         |else this.getBouldersIn(cube).contains(result)
+	 * @throws IllegalArgumentException
+	 *             the given cube is not within the boundaries of this world
+	 */
+	Boulder getBoulderIn(Cube cube) throws IllegalArgumentException {
+		if (!cube.isValidIn(this))
+			throw new IllegalArgumentException();
+		return this.bouldersIndex.getAnyIn(cube.getIndexIn(this.getTerrain()));
 	}
 
+	/**
+	 * put the given material in the index of the cube it is in
+	 * 
+	 * @param material
+	 *            the material that moved
+	 * @post if this world contains the given material and it is not carried,
+	 *       getLogsIn or getBouldersIn of its cube contains it and no other
+	 *       cube does
+	 */
+	void updateCubeIndex(Material material) {
+		if (!this.hasAsMaterial(material) || material.getOwner() != null || material.getPosition() == null)
+			return;
+		int cube = material.getPosition().getCube().getIndexIn(this.getTerrain());
+		if (material instanceof Log)
+			this.logsIndex.put((Log) material, cube);
+		else if (material instanceof Boulder)
+			this.bouldersIndex.put((Boulder) material, cube);
+		this.getNearestQuery().updateMaterial(material);
+	}
+
+	/**
+	 * remove the given material from the index of the cube it is in
+	 */
+	private void removeFromCubeIndex(Material material) {
+		if (material instanceof Log)
+			this.logsIndex.remove((Log) material);
+		else if (material instanceof Boulder)
+			this.bouldersIndex.remove((Boulder) material);
+		this.getNearestQuery().removeMaterial(material);
+	}
+
+	/**
+	 * the logs and boulders of this world that are not carried, indexed by the
+	 * cube they are in
+	 */
+	private final CubeIndex<Log> logsIndex;
+	private final CubeIndex<Boulder> bouldersIndex;
+
 	/**
 	 * return a set containing all the materials in this world
 	 */
@@ -788,7 +1191,7 @@ public class World implements ITimeVariableObject {
 	 * return a set containing all the logs in this world
 	 */
 	public Set<Log> getAllLogs() {
-		Set<Log> result = new HashSet<Log>();
+		Set<Log> result = new LinkedHashSet<Log>();
 
 		Iterator<Material> it = this.getAllMaterials().iterator();
 		while (it.hasNext()) {
@@ -805,7 +1208,7 @@ public class World implements ITimeVariableObject {
 	 * return a set containing all the boulders in this world
 	 */
 	public Set<Boulder> getAllBoulders() {
-		Set<Boulder> result = new HashSet<Boulder>();
+		Set<Boulder> result = new LinkedHashSet<Boulder>();
 
 		Iterator<Material> it = this.getAllMaterials().iterator();
 		while (it.hasNext()) {
@@ -867,23 +1270,130 @@ public class World implements ITimeVariableObject {
 	 * @invar Each material registered in the referenced list is effective and
 	 *        not yet terminated.
 	 */
-	private final Set<Material> materials = new HashSet<Material>();
+	private final Set<Material> materials = new LinkedHashSet<Material>();
+
+	// EVENT LOG//
+
+	/**
+	 * return the event log of this world, null if it has none
+	 */
+	@Basic
+	WorldEventLog getEventLog() {
+		return this.eventLog;
+	}
+
+	/**
+	 * log every change made to this world from now on to the given event log
+	 *
+	 * @param eventLog
+	 *            the event log to write to, or null to stop logging; the event
+	 *            log this world had before is not closed
+	 * @effect the terrain, units and materials of this world are written to the
+	 *         given event log first |eventLog.begin(this)
+	 * @post the event log of this world equals the given event log
+	 * @throws IllegalStateException
+	 *             the given event log has been given to a world before
+	 */
+	public void setEventLog(WorldEventLog eventLog) throws IllegalStateException {
+		if (eventLog != null)
+			eventLog.begin(this);
+		this.eventLog = eventLog;
+	}
+
+	/**
+	 * the event log of this world, null if it has none
+	 */
+	private WorldEventLog eventLog;
+
+	// REPRODUCIBILITY//
+
+	/**
+	 * re-seed the random source of this world with the given seed, and give
+	 * every unit of this world a new random source split from it, in the order
+	 * the units were added
+	 *
+	 * @param seed
+	 *            the seed of the new random source
+	 * @post	worlds in the same state that are given the same seed make the
+	 * 			same random choices when they advance time by the same steps:
+	 * 			the units they spawn, the materials caves leave, and the
+	 * 			default behaviour, dodging, blocking and levelling up of their
+	 * 			units
+	 * @note	snapshots do not store random sources, so a restored world must
+	 * 			be given a seed as well to continue in the same way every time
+	 */
+	public void setSeed(long seed) {
+		this.random = new SplittableRandom(seed);
+		for (Unit unit : this.units)
+			unit.setRandom(this.random.split());
+	}
+
+	/**
+	 * the source of the random numbers of this world
+	 */
+	private SplittableRandom random;
+
+	/**
+	 * return a fingerprint of the state of this world: its terrain, the
+	 * position, attributes and activity of every unit of every faction, and
+	 * the kind, weight and position of every material
+	 *
+	 * @note	two runs of worlds created in the same way, given the same seed
+	 * 			and advanced by the same steps, have the same state hash after
+	 * 			every step, so they are compared without comparing every object;
+	 * 			different states have the same hash only by accident
+	 */
+	public long getStateHash() {
+		long result = this.getTerrain().getNbCubes();
+		for (int index = 0; index < this.getTerrain().getNbCubes(); index++)
+			result = mixHash(result, this.getTerrain().get(index));
+		for (Faction faction : this.getAllFactions()) {
+			result = mixHash(result, faction.getNbUnits());
+			for (Unit unit : faction.getAllUnits())
+				result = mixHash(result, unit.getStateHash());
+		}
+		for (Material material : this.getAllMaterials()) {
+			result = mixHash(result, material instanceof Log ? 1 : 2);
+			result = mixHash(result, material.getWeight());
+			result = mixHash(result, material.getPosition().hashCode());
+		}
+		return result;
+	}
+
+	/**
+	 * return the given hash with the given value mixed in
+	 */
+	static long mixHash(long hash, long value) {
+		return (Long.rotateLeft(hash, 31) ^ value) * 0x9E3779B97F4A7C15L;
+	}
 
 	// OTHERS//
 
 	/**
 	 * advance time for this world
+	 * @effect	the units of every faction that wait for a task are given the
+	 * 			tasks of the highest priority of its scheduler
+	 * 			|this.dispatchTasks(this.getAllUnits())
+	 * @effect	if this world has a tick pool, plan the requested paths of all
+	 * 			units on that pool first |this.planRequestedPaths(this.getAllUnits())
 	 * @effect	advance time for all objects (units, materials) in this world
 	 */
 	public void advanceTime(float seconds) throws IllegalArgumentException {
 		if (! (Util.fuzzyGreaterThanOrEqualTo(seconds, 0) && Util.fuzzyLessThanOrEqualTo(seconds, 0.2)))
 			throw new IllegalArgumentException();
 		
+		if (this.eventLog != null)
+			this.eventLog.tick(seconds);
 		this.setCounter(new Counter());
 		this.getCounter().setMaxValue((int) (seconds/0.001));
 		
+		Set<Unit> units = this.getAllUnits();
+		this.dispatchTasks(units);
+		if (this.getTickPool() != null)
+			this.planRequestedPaths(units);
+
 		// advanceTime voor elke unit
-		for (Unit unit : this.getAllUnits())
+		for (Unit unit : units)
 			unit.advanceTime(seconds);
 
 		// advanceTime voor elk material
@@ -891,6 +1401,106 @@ public class World implements ITimeVariableObject {
 			material.advanceTime(seconds);
 	}
 	
+	/**
+	 * give each of the given units that waits for a task a task of the
+	 * scheduler of its faction, one faction at a time
+	 * 
+	 * @effect	the scheduler of every faction dispatches its tasks to the units
+	 * 			of that faction that wait for a task
+	 * 			|for each faction in getAllFactions():
+	 * 			|	faction.getScheduler().dispatchTasks(...)
+	 */
+	private void dispatchTasks(Set<Unit> units) {
+		Map<Faction, List<Unit>> waiting = new LinkedHashMap<Faction, List<Unit>>();
+		for (Unit unit : units)
+			if (unit.isWaitingForTask())
+				waiting.computeIfAbsent(unit.getFaction(), faction -> new ArrayList<Unit>()).add(unit);
+		for (Map.Entry<Faction, List<Unit>> entry : waiting.entrySet())
+			entry.getKey().getScheduler().dispatchTasks(entry.getValue(), this.getCounter());
+	}
+
+	/**
+	 * plan the requested paths of the given units at the same time on the tick
+	 * pool of this world
+	 * 
+	 * @note	the terrain does not change while the paths are planned, and a
+	 * 			unit only uses its planned path if it is still at the same cube
+	 * 			and the terrain is unchanged when it advances time, so the units
+	 * 			move exactly as if they planned their paths one by one
+	 * @effect	every unit with a path request plans its path with a path finder
+	 * 			of its own |for each unit in units: unit.planRequestedPath(...)
+	 */
+	private void planRequestedPaths(Set<Unit> units) {
+		List<Unit> requests = new ArrayList<Unit>();
+		for (Unit unit : units)
+			if (unit.hasPathRequest())
+				requests.add(unit);
+		if (requests.size() < 2)
+			return;
+		this.getTickPool().submit(() -> requests.parallelStream().forEach(unit -> {
+			PathFinder pathFinder = this.borrowPathFinder();
+			try {
+				unit.planRequestedPath(pathFinder);
+			} finally {
+				this.returnPathFinder(pathFinder);
+			}
+		})).join();
+	}
+
+	/**
+	 * return a path finder for this world that is not in use, creating one if
+	 * there is none
+	 */
+	private PathFinder borrowPathFinder() {
+		synchronized (this.idlePathFinders) {
+			if (!this.idlePathFinders.isEmpty())
+				return this.idlePathFinders.pop();
+		}
+		return new PathFinder(this);
+	}
+
+	/**
+	 * make the given path finder available again
+	 */
+	private void returnPathFinder(PathFinder pathFinder) {
+		synchronized (this.idlePathFinders) {
+			this.idlePathFinders.push(pathFinder);
+		}
+	}
+
+	/**
+	 * variable collecting the path finders for planning paths on the tick
+	 * pool that are not in use
+	 */
+	private final Deque<PathFinder> idlePathFinders = new ArrayDeque<PathFinder>();
+
+	/**
+	 * return the pool the paths of the units of this world are planned on
+	 * while advancing time, null if they are planned one by one
+	 */
+	@Basic
+	public ForkJoinPool getTickPool() {
+		return this.tickPool;
+	}
+
+	/**
+	 * set the pool the paths of the units of this world are planned on while
+	 * advancing time
+	 * 
+	 * @param tickPool
+	 *            the pool to use, or null to plan the paths one by one
+	 * @post	the tick pool of this world equals the given pool
+	 * 			|new.getTickPool() == tickPool
+	 */
+	public void setTickPool(ForkJoinPool tickPool) {
+		this.tickPool = tickPool;
+	}
+
+	/**
+	 * variable referencing the pool the paths of the units are planned on
+	 */
+	private ForkJoinPool tickPool;
+
 	public Counter getCounter() {
 		return this.counter;
 	}
@@ -0,0 +1,312 @@
+package hillbillies.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * a class of append-only logs of the changes made to one world while it runs
+ *
+ * @note	a log starts with a header of the magic number and the version of
+ * 			the format as big-endian ints and the number of cubes in the x, y
+ * 			and z direction as ints, followed by the terrain types as one byte
+ * 			per cube in the order of ByteMap3D. Then come the events, each a
+ * 			byte with the kind of event followed by its fields. Units and
+ * 			materials are referred to by a number they are given when they
+ * 			are first logged, and every tick starts with a TICK event holding
+ * 			its duration.
+ * @note	the units and materials a world has when it gets its log are
+ * 			logged as added before the first tick, so a log can be attached to
+ * 			a world at any time.
+ * @note	the model cannot throw an IOException while it changes, so the
+ * 			first error while writing stops the log, and is thrown by flush
+ * 			and close.
+ * @note	WorldReplay reconstructs a world from a log.
+ *
+ * @author Ellen & Marte
+ */
+public class WorldEventLog implements Closeable {
+
+	/**
+	 * the extension of event log files
+	 */
+	public static final String EXTENSION = ".hblog";
+
+	/**
+	 * the magic number every event log starts with, "HBEL" in ASCII
+	 */
+	public static final int MAGIC = 0x4842454C;
+
+	/**
+	 * the version of the format written by this class
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * the kinds of events
+	 */
+	static final byte TICK = 0, TERRAIN = 1, UNIT_ADDED = 2, UNIT_REMOVED = 3, ACTIVITY = 4, MATERIAL_ADDED = 5,
+			MATERIAL_PICKED_UP = 6, MATERIAL_REMOVED = 7, TASK = 8;
+
+	static final byte LOG = 0, BOULDER = 1;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * create a new event log writing to the given channel
+	 *
+	 * @param channel
+	 *            the channel to write the log to; it is closed with this log
+	 */
+	public WorldEventLog(WritableByteChannel channel) {
+		this.channel = channel;
+	}
+
+	/**
+	 * create a new event log writing to the given file, replacing its contents
+	 *
+	 * @effect |this(channel to the given file)
+	 * @throws IOException
+	 *             the file could not be opened
+	 */
+	public WorldEventLog(Path file) throws IOException {
+		this(FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING));
+	}
+
+	private final WritableByteChannel channel;
+
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+	/**
+	 * the first error while writing this log, null if there was none
+	 */
+	private IOException error;
+
+	/**
+	 * whether the world of this log has been written
+	 */
+	private boolean begun;
+
+	/**
+	 * the factions, units and materials logged so far with their number, and
+	 * the last activity logged for every unit
+	 */
+	private final Map<Faction, Integer> factions = new HashMap<Faction, Integer>();
+	private final Map<Unit, Integer> units = new HashMap<Unit, Integer>();
+	private final Map<Material, Integer> materials = new HashMap<Material, Integer>();
+	private final Map<Unit, Activity> activities = new HashMap<Unit, Activity>();
+
+	/**
+	 * the number of units logged so far, removed ones included
+	 */
+	private int nbUnitsLogged;
+
+	/**
+	 * write everything logged so far to the channel of this log
+	 *
+	 * @throws IOException
+	 *             this log could not be written, now or before
+	 */
+	public void flush() throws IOException {
+		if (this.error == null)
+			try {
+				this.writeBuffer();
+			} catch (IOException e) {
+				this.error = e;
+			}
+		if (this.error != null)
+			throw this.error;
+	}
+
+	/**
+	 * write everything logged so far and close the channel of this log
+	 *
+	 * @throws IOException
+	 *             this log could not be written, now or before
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			this.flush();
+		} finally {
+			this.channel.close();
+		}
+	}
+
+	// EVENTS//
+
+	/**
+	 * write the header, the terrain and the units and materials of the given
+	 * world, which gets this log
+	 *
+	 * @throws IllegalStateException
+	 *             this log already belongs to a world
+	 */
+	void begin(World world) throws IllegalStateException {
+		if (this.begun)
+			throw new IllegalStateException("Event log already in use");
+		this.begun = true;
+		TerrainGrid terrain = world.getTerrain();
+		this.ensure(5 * Integer.BYTES).putInt(MAGIC).putInt(VERSION).putInt(terrain.getNbX())
+				.putInt(terrain.getNbY()).putInt(terrain.getNbZ());
+		for (int index = 0; index < terrain.getNbCubes(); index++)
+			this.ensure(Byte.BYTES).put((byte) terrain.get(index));
+		for (Faction faction : world.getAllFactions())
+			for (Unit unit : faction.getAllUnits())
+				if (world.hasAsUnit(unit)) {
+					this.unitAdded(unit);
+					for (Material material : unit.getAllMaterials()) {
+						this.materialAt(material, unit.getPosition());
+						this.materialPickedUp(material, unit);
+					}
+				}
+		for (Material material : world.getAllMaterials())
+			this.materialAdded(material);
+	}
+
+	/**
+	 * log the start of a tick of the given number of seconds
+	 */
+	void tick(float seconds) {
+		this.ensure(Byte.BYTES + Float.BYTES).put(TICK).putFloat(seconds);
+	}
+
+	/**
+	 * log that the cube with the given index got the given terrain type
+	 */
+	void terrainChanged(int index, TerrainType type) {
+		this.ensure(Byte.BYTES + Integer.BYTES + Byte.BYTES).put(TERRAIN).putInt(index)
+				.put((byte) type.getAssociatedInt());
+	}
+
+	/**
+	 * log that the given unit was added to the world of this log
+	 */
+	void unitAdded(Unit unit) {
+		Integer faction = this.factions.get(unit.getFaction());
+		if (faction == null) {
+			faction = this.factions.size();
+			this.factions.put(unit.getFaction(), faction);
+		}
+		byte[] name = unit.getName().getBytes(StandardCharsets.UTF_8);
+		Activity activity = unit.getCurrentActivity();
+		this.activities.put(unit, activity);
+		this.ensure(Byte.BYTES + 3 * Integer.BYTES + name.length + 3 * Double.BYTES + 4 * Integer.BYTES
+				+ Byte.BYTES).put(UNIT_ADDED).putInt(this.idOf(unit)).putInt(faction).putInt(name.length).put(name);
+		this.putPosition(unit.getPosition());
+		this.buffer.putInt(unit.getStrength()).putInt(unit.getAgility()).putInt(unit.getToughness())
+				.putInt(unit.getWeight()).put((byte) activity.ordinal());
+	}
+
+	/**
+	 * log that the given unit was removed from the world of this log
+	 */
+	void unitRemoved(Unit unit) {
+		this.activities.remove(unit);
+		Integer id = this.units.remove(unit);
+		if (id != null)
+			this.ensure(Byte.BYTES + Integer.BYTES).put(UNIT_REMOVED).putInt(id);
+	}
+
+	/**
+	 * log the given activity of the given unit with its position, if it is
+	 * not the activity logged last for that unit
+	 */
+	void activityChanged(Unit unit, Activity activity) {
+		if (!this.units.containsKey(unit) || this.activities.put(unit, activity) == activity)
+			return;
+		this.ensure(Byte.BYTES + Integer.BYTES + Byte.BYTES + 3 * Double.BYTES).put(ACTIVITY)
+				.putInt(this.units.get(unit)).put((byte) activity.ordinal());
+		this.putPosition(unit.getPosition());
+	}
+
+	/**
+	 * log that the given material was put in the world of this log, at its
+	 * position
+	 */
+	void materialAdded(Material material) {
+		this.materialAt(material, material.getPosition());
+	}
+
+	/**
+	 * log that the given material was removed from the world of this log,
+	 * picked up by its owner if it has one
+	 */
+	void materialRemoved(Material material) {
+		if (material.getOwner() != null && this.units.containsKey(material.getOwner()))
+			this.materialPickedUp(material, material.getOwner());
+		else
+			this.ensure(Byte.BYTES + Integer.BYTES).put(MATERIAL_REMOVED).putInt(this.idOf(material));
+	}
+
+	/**
+	 * log that the given unit got the given task, which may be null
+	 */
+	void taskAssigned(Unit unit, Task task) {
+		if (!this.units.containsKey(unit))
+			return;
+		byte[] name = task == null ? new byte[0] : task.getName().getBytes(StandardCharsets.UTF_8);
+		this.ensure(Byte.BYTES + 3 * Integer.BYTES + name.length).put(TASK).putInt(this.units.get(unit))
+				.putInt(task == null ? -1 : name.length).put(name);
+	}
+
+	private void materialAt(Material material, Position position) {
+		this.ensure(Byte.BYTES + Integer.BYTES + Byte.BYTES + Integer.BYTES + 3 * Double.BYTES).put(MATERIAL_ADDED)
+				.putInt(this.idOf(material)).put(material instanceof Log ? LOG : BOULDER).putInt(material.getWeight());
+		this.putPosition(position);
+	}
+
+	private void materialPickedUp(Material material, Unit unit) {
+		this.ensure(Byte.BYTES + 2 * Integer.BYTES).put(MATERIAL_PICKED_UP).putInt(this.idOf(material))
+				.putInt(this.units.get(unit));
+	}
+
+	private void putPosition(Position position) {
+		this.buffer.putDouble(position.getRealX()).putDouble(position.getRealY()).putDouble(position.getRealZ());
+	}
+
+	private int idOf(Unit unit) {
+		return this.units.computeIfAbsent(unit, key -> this.nbUnitsLogged++);
+	}
+
+	private int idOf(Material material) {
+		return this.materials.computeIfAbsent(material, key -> this.materials.size());
+	}
+
+	// WRITING//
+
+	/**
+	 * return the buffer, after writing it out if it has no room for the given
+	 * number of bytes
+	 *
+	 * @note	after an error, the buffer is emptied instead, and its contents
+	 * 			are lost
+	 */
+	private ByteBuffer ensure(int nbBytes) {
+		if (this.buffer.remaining() < nbBytes) {
+			if (this.error == null)
+				try {
+					this.writeBuffer();
+				} catch (IOException e) {
+					this.error = e;
+				}
+			this.buffer.clear();
+		}
+		return this.buffer;
+	}
+
+	private void writeBuffer() throws IOException {
+		this.buffer.flip();
+		while (this.buffer.hasRemaining())
+			this.channel.write(this.buffer);
+		this.buffer.clear();
+	}
+}
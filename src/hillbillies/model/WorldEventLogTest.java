@@ -0,0 +1,163 @@
+package hillbillies.model;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import hillbillies.model.WorldReplay.ReplayedMaterial;
+import hillbillies.model.WorldReplay.ReplayedUnit;
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+import hillbillies.part3.programs.TaskParser;
+
+/**
+ * a test suite for the classes WorldEventLog and WorldReplay, comparing
+ * replayed worlds with the worlds they were logged from
+ * @author Ellen & Marte
+ *
+ */
+public class WorldEventLogTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private World world;
+	private Unit walker, worker;
+	private int[][][] terrainTypes;
+	private ByteArrayOutputStream bytes;
+	private WorldEventLog log;
+
+	@Before
+	public void setUp() {
+		this.terrainTypes = new int[8][8][4];
+		this.terrainTypes[4][4][0] = 1;
+		this.terrainTypes[2][5][0] = 2;
+		this.world = new World(this.terrainTypes, new DefaultTerrainChangeListener());
+		this.world.setSeed(42);
+		this.walker = new Unit(0.5, 0.5, 0.5, "James O'Hara", 50, 60, 70, 80, false);
+		this.worker = new Unit(2.5, 4.5, 0.5, "Mary O'Hara", 40, 50, 60, 70, false);
+		this.world.addUnit(this.walker);
+		this.bytes = new ByteArrayOutputStream();
+		this.log = new WorldEventLog(Channels.newChannel(this.bytes));
+		this.world.setEventLog(this.log);
+		this.world.addUnit(this.worker);
+	}
+
+	private WorldReplay replay(long nbTicks) throws IOException {
+		this.log.flush();
+		return WorldReplay.read(Channels.newChannel(new ByteArrayInputStream(this.bytes.toByteArray())), nbTicks);
+	}
+
+	private static Map<String, ReplayedUnit> byName(WorldReplay replay) {
+		Map<String, ReplayedUnit> result = new HashMap<String, ReplayedUnit>();
+		for (ReplayedUnit unit : replay.getUnits())
+			result.put(unit.getName(), unit);
+		return result;
+	}
+
+	private static void advanceTime(World world, int nbTicks) {
+		for (int i = 0; i < nbTicks; i++)
+			world.advanceTime(0.1f);
+	}
+
+	@Test
+	public void read_UnitsBeforeAndAfterLog() throws IOException {
+		WorldReplay replay = replay(0);
+		assertEquals(0, replay.getNbTicks());
+		assertArrayEquals(this.terrainTypes, replay.getTerrainTypesArray());
+		assertEquals(2, replay.getUnits().size());
+		ReplayedUnit worker = byName(replay).get("Mary O'Hara");
+		assertArrayEquals(new double[] { 2.5, 4.5, 0.5 }, worker.getPosition(), 0);
+		assertEquals(40, worker.getStrength());
+		assertEquals(Activity.NONE, worker.getActivity());
+		assertNotEquals(byName(replay).get("James O'Hara").getFaction(), worker.getFaction());
+	}
+
+	@Test
+	public void read_TerrainAndMaterialsAtTick() throws IOException {
+		this.worker.workAt(new Cube(2, 5, 0));
+		advanceTime(this.world, 200);
+		WorldReplay replay = replay(Long.MAX_VALUE);
+		assertEquals(200, replay.getNbTicks());
+		assertEquals(20, replay.getGameTime(), 1e-3);
+		assertArrayEquals(this.world.getTerrainTypesArray(), replay.getTerrainTypesArray());
+		assertEquals(this.world.getAllMaterials().size(), replay.getMaterials().size());
+		for (ReplayedMaterial material : replay.getMaterials())
+			assertEquals(this.world.getLogIn(new Cube(2, 5, 0)).getWeight(), material.getWeight());
+		// the tree is still there after the first tick
+		assertEquals(2, replay(1).getTerrainType(2, 5, 0));
+		assertEquals(Activity.WORKING, byName(replay(1)).get("Mary O'Hara").getActivity());
+	}
+
+	@Test
+	public void read_ActivityAndCarriedMaterial() throws IOException {
+		this.worker.workAt(new Cube(2, 5, 0));
+		advanceTime(this.world, 200);
+		this.worker.workAt(new Cube(2, 5, 0));
+		advanceTime(this.world, 200);
+		this.walker.moveTo(new Cube(7, 7, 0));
+		advanceTime(this.world, 3);
+		assertEquals(1, this.worker.getNbMaterials());
+		WorldReplay replay = replay(Long.MAX_VALUE);
+		ReplayedUnit worker = byName(replay).get("Mary O'Hara");
+		ReplayedMaterial log = replay.getMaterials().iterator().next();
+		assertSame(worker, log.getCarrier());
+		assertArrayEquals(worker.getPosition(), log.getPosition(), 0);
+		assertEquals(Activity.WALKING, byName(replay).get("James O'Hara").getActivity());
+
+		advanceTime(this.world, 200);
+		replay = replay(Long.MAX_VALUE);
+		ReplayedUnit walker = byName(replay).get("James O'Hara");
+		assertEquals(Activity.NONE, walker.getActivity());
+		assertArrayEquals(new double[] { this.walker.getPosition().getRealX(), this.walker.getPosition().getRealY(),
+				this.walker.getPosition().getRealZ() }, walker.getPosition(), 0);
+	}
+
+	@Test
+	public void read_Task() throws IOException {
+		Task task = TaskParser.parseTasksFromString("name: \"go\"\npriority: 3\nactivities: moveTo selected;",
+				new TaskFactory(), Arrays.asList(new int[][] { { 7, 7, 0 } })).get(0);
+		this.walker.getFaction().getScheduler().addTask(task);
+		this.walker.startDefaultBehaviour();
+		advanceTime(this.world, 1);
+		assertEquals("go", byName(replay(1)).get("James O'Hara").getTaskName());
+		assertNull(byName(replay(1)).get("Mary O'Hara").getTaskName());
+		advanceTime(this.world, 200);
+		assertNull(byName(replay(Long.MAX_VALUE)).get("James O'Hara").getTaskName());
+	}
+
+	@Test
+	public void read_FromFile() throws IOException {
+		Path file = this.folder.newFile("world" + WorldEventLog.EXTENSION).toPath();
+		WorldEventLog log = new WorldEventLog(file);
+		World other = new World(this.terrainTypes, new DefaultTerrainChangeListener());
+		other.setEventLog(log);
+		other.spawnUnit(true);
+		advanceTime(other, 50);
+		log.close();
+		WorldReplay replay = WorldReplay.read(file, 50);
+		assertEquals(50, replay.getNbTicks());
+		assertEquals(1, replay.getUnits().size());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void setEventLog_LogInUse() {
+		new World(this.terrainTypes, new DefaultTerrainChangeListener()).setEventLog(this.log);
+	}
+
+	@Test(expected = IOException.class)
+	public void read_NotALog() throws IOException {
+		WorldReplay.read(Channels.newChannel(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 })), 0);
+	}
+}
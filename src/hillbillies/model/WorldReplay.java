@@ -0,0 +1,485 @@
+package hillbillies.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import be.kuleuven.cs.som.annotate.*;
+
+/**
+ * a class of worlds reconstructed from an event log up to a given tick, by
+ * applying the logged events one after the other instead of simulating the
+ * world
+ *
+ * @note	a replayed world holds what the log records: the terrain, the units
+ * 			with their faction, primary attributes, current activity and task,
+ * 			and the materials lying in the world or carried by a unit. The
+ * 			position of a unit is its position at the last event logged for
+ * 			it, such as the start of its current activity.
+ *
+ * @author Ellen & Marte
+ */
+public class WorldReplay {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private static final Activity[] ACTIVITIES = Activity.values();
+
+	private WorldReplay(ReadableByteChannel channel) {
+		this.channel = channel;
+		this.buffer.limit(0);
+	}
+
+	/**
+	 * return the world in the event log read from the given channel as it was
+	 * after the given number of ticks
+	 *
+	 * @param channel
+	 *            the channel to read the log from
+	 * @param nbTicks
+	 *            the number of ticks to replay
+	 * @return the world after the given number of ticks, or at the end of the
+	 *         log if it has fewer ticks
+	 * @note	the events logged between the ticks, like units ordered to move
+	 * 			by the user, are part of the tick before them
+	 * @throws IOException
+	 *             the log could not be read, or is not an event log of a known
+	 *             version
+	 */
+	public static WorldReplay read(ReadableByteChannel channel, long nbTicks) throws IOException {
+		WorldReplay result = new WorldReplay(channel);
+		result.readHeader();
+		while (!result.atEnd()) {
+			int kind = result.ensure(Byte.BYTES).get();
+			if (kind == WorldEventLog.TICK) {
+				if (result.nbTicks == nbTicks)
+					break;
+				result.nbTicks++;
+				result.gameTime += result.ensure(Float.BYTES).getFloat();
+			} else
+				result.apply(kind);
+		}
+		return result;
+	}
+
+	/**
+	 * return the world in the event log in the given file as it was after the
+	 * given number of ticks
+	 *
+	 * @effect |read(channel from the given file, nbTicks)
+	 */
+	public static WorldReplay read(Path file, long nbTicks) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return read(channel, nbTicks);
+		}
+	}
+
+	/**
+	 * return the number of ticks replayed
+	 */
+	@Basic
+	public long getNbTicks() {
+		return this.nbTicks;
+	}
+
+	private long nbTicks;
+
+	/**
+	 * return the game time in seconds of the ticks replayed
+	 */
+	@Basic
+	public double getGameTime() {
+		return this.gameTime;
+	}
+
+	private double gameTime;
+
+	// TERRAIN//
+
+	/**
+	 * return the number of cubes in the x, y and z direction of this world
+	 */
+	@Basic
+	public int getNbX() {
+		return this.nbX;
+	}
+
+	@Basic
+	public int getNbY() {
+		return this.nbY;
+	}
+
+	@Basic
+	public int getNbZ() {
+		return this.nbZ;
+	}
+
+	private int nbX, nbY, nbZ;
+
+	/**
+	 * return the associated integer of the terrain type of the cube with the
+	 * given coordinates
+	 */
+	public int getTerrainType(int x, int y, int z) {
+		return this.terrainTypes[(z * this.nbY + y) * this.nbX + x];
+	}
+
+	/**
+	 * return the terrain types of this world, indexed [x][y][z]
+	 */
+	public int[][][] getTerrainTypesArray() {
+		int[][][] result = new int[this.nbX][this.nbY][this.nbZ];
+		for (int x = 0; x < this.nbX; x++)
+			for (int y = 0; y < this.nbY; y++)
+				for (int z = 0; z < this.nbZ; z++)
+					result[x][y][z] = this.getTerrainType(x, y, z);
+		return result;
+	}
+
+	/**
+	 * the associated integers of the terrain types of all cubes, indexed like
+	 * ByteMap3D
+	 */
+	private byte[] terrainTypes;
+
+	// UNITS AND MATERIALS//
+
+	/**
+	 * return the units in this world, in the order they were added
+	 */
+	public Collection<ReplayedUnit> getUnits() {
+		return Collections.unmodifiableCollection(this.units.values());
+	}
+
+	private final Map<Integer, ReplayedUnit> units = new LinkedHashMap<Integer, ReplayedUnit>();
+
+	/**
+	 * return the materials lying in this world or carried by one of its
+	 * units, in the order they were logged first
+	 */
+	public Collection<ReplayedMaterial> getMaterials() {
+		return Collections.unmodifiableCollection(this.materials.values());
+	}
+
+	private final Map<Integer, ReplayedMaterial> materials = new LinkedHashMap<Integer, ReplayedMaterial>();
+
+	/**
+	 * a class of units as recorded in an event log
+	 */
+	public static class ReplayedUnit {
+
+		private ReplayedUnit(int id, int faction, String name) {
+			this.id = id;
+			this.faction = faction;
+			this.name = name;
+		}
+
+		/**
+		 * return the number of this unit in the log
+		 */
+		@Basic
+		@Immutable
+		public int getId() {
+			return this.id;
+		}
+
+		private final int id;
+
+		/**
+		 * return the number of the faction of this unit in the log
+		 */
+		@Basic
+		@Immutable
+		public int getFaction() {
+			return this.faction;
+		}
+
+		private final int faction;
+
+		@Basic
+		@Immutable
+		public String getName() {
+			return this.name;
+		}
+
+		private final String name;
+
+		/**
+		 * return the position of this unit at the last event logged for it,
+		 * as {x, y, z}
+		 */
+		public double[] getPosition() {
+			return this.position.clone();
+		}
+
+		private double[] position;
+
+		/**
+		 * return the strength, agility, toughness and weight of this unit
+		 * when it was added
+		 */
+		@Basic
+		public int getStrength() {
+			return this.strength;
+		}
+
+		@Basic
+		public int getAgility() {
+			return this.agility;
+		}
+
+		@Basic
+		public int getToughness() {
+			return this.toughness;
+		}
+
+		@Basic
+		public int getWeight() {
+			return this.weight;
+		}
+
+		private int strength, agility, toughness, weight;
+
+		/**
+		 * return the current activity of this unit
+		 */
+		@Basic
+		public Activity getActivity() {
+			return this.activity;
+		}
+
+		private Activity activity;
+
+		/**
+		 * return the name of the task of this unit, null if it has none
+		 */
+		@Basic
+		public String getTaskName() {
+			return this.taskName;
+		}
+
+		private String taskName;
+	}
+
+	/**
+	 * a class of materials as recorded in an event log
+	 */
+	public static class ReplayedMaterial {
+
+		private ReplayedMaterial(int id) {
+			this.id = id;
+		}
+
+		/**
+		 * return the number of this material in the log
+		 */
+		@Basic
+		@Immutable
+		public int getId() {
+			return this.id;
+		}
+
+		private final int id;
+
+		/**
+		 * return whether this material is a log, and not a boulder
+		 */
+		@Basic
+		public boolean isLog() {
+			return this.isLog;
+		}
+
+		private boolean isLog;
+
+		@Basic
+		public int getWeight() {
+			return this.weight;
+		}
+
+		private int weight;
+
+		/**
+		 * return the position of this material as {x, y, z}, the position of
+		 * its carrier at the last event logged for it if it is carried
+		 */
+		public double[] getPosition() {
+			if (this.carrier != null)
+				return this.carrier.getPosition();
+			return this.position.clone();
+		}
+
+		private double[] position;
+
+		/**
+		 * return the unit carrying this material, null if it lies in the world
+		 */
+		@Basic
+		public ReplayedUnit getCarrier() {
+			return this.carrier;
+		}
+
+		private ReplayedUnit carrier;
+	}
+
+	// READING//
+
+	private void readHeader() throws IOException {
+		if (this.atEnd() || this.ensure(Integer.BYTES).getInt() != WorldEventLog.MAGIC)
+			throw new IOException("Not a world event log");
+		int version = this.ensure(Integer.BYTES).getInt();
+		if (version != WorldEventLog.VERSION)
+			throw new IOException("Unknown version " + version + " of world event log");
+		this.nbX = this.readInt();
+		this.nbY = this.readInt();
+		this.nbZ = this.readInt();
+		if (this.nbX <= 0 || this.nbY <= 0 || this.nbZ <= 0
+				|| (long) this.nbX * this.nbY * this.nbZ > Integer.MAX_VALUE - 8)
+			throw new IOException("Invalid dimensions in world event log");
+		this.terrainTypes = new byte[this.nbX * this.nbY * this.nbZ];
+		for (int offset = 0; offset < this.terrainTypes.length; offset += BUFFER_SIZE) {
+			int length = Math.min(BUFFER_SIZE, this.terrainTypes.length - offset);
+			this.ensure(length).get(this.terrainTypes, offset, length);
+		}
+	}
+
+	/**
+	 * apply the event of the given kind, read from the log
+	 */
+	private void apply(int kind) throws IOException {
+		switch (kind) {
+		case WorldEventLog.TERRAIN:
+			int index = this.readInt();
+			if (index < 0 || index >= this.terrainTypes.length)
+				throw new IOException("Invalid cube in world event log");
+			this.terrainTypes[index] = this.ensure(Byte.BYTES).get();
+			break;
+		case WorldEventLog.UNIT_ADDED:
+			int id = this.readInt(), faction = this.readInt();
+			ReplayedUnit unit = new ReplayedUnit(id, faction, this.readString());
+			unit.position = this.readPosition();
+			unit.strength = this.readInt();
+			unit.agility = this.readInt();
+			unit.toughness = this.readInt();
+			unit.weight = this.readInt();
+			unit.activity = this.readActivity();
+			this.units.put(id, unit);
+			break;
+		case WorldEventLog.UNIT_REMOVED:
+			this.units.remove(this.readInt());
+			break;
+		case WorldEventLog.ACTIVITY:
+			unit = this.readUnit();
+			unit.activity = this.readActivity();
+			unit.position = this.readPosition();
+			break;
+		case WorldEventLog.MATERIAL_ADDED:
+			id = this.readInt();
+			ReplayedMaterial material = this.materials.computeIfAbsent(id, ReplayedMaterial::new);
+			material.isLog = this.ensure(Byte.BYTES).get() == WorldEventLog.LOG;
+			material.weight = this.readInt();
+			material.position = this.readPosition();
+			material.carrier = null;
+			break;
+		case WorldEventLog.MATERIAL_PICKED_UP:
+			material = this.readMaterial();
+			material.carrier = this.readUnit();
+			break;
+		case WorldEventLog.MATERIAL_REMOVED:
+			this.materials.remove(this.readInt());
+			break;
+		case WorldEventLog.TASK:
+			unit = this.readUnit();
+			int length = this.readInt();
+			unit.taskName = length < 0 ? null : this.readBytes(length);
+			break;
+		default:
+			throw new IOException("Unknown event " + kind + " in world event log");
+		}
+	}
+
+	private int readInt() throws IOException {
+		return this.ensure(Integer.BYTES).getInt();
+	}
+
+	private String readString() throws IOException {
+		int length = this.readInt();
+		if (length < 0)
+			throw new IOException("Invalid name in world event log");
+		return this.readBytes(length);
+	}
+
+	private String readBytes(int length) throws IOException {
+		byte[] bytes = new byte[length];
+		this.ensure(length).get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private double[] readPosition() throws IOException {
+		ByteBuffer buffer = this.ensure(3 * Double.BYTES);
+		return new double[] { buffer.getDouble(), buffer.getDouble(), buffer.getDouble() };
+	}
+
+	private Activity readActivity() throws IOException {
+		int ordinal = this.ensure(Byte.BYTES).get();
+		if (ordinal < 0 || ordinal >= ACTIVITIES.length)
+			throw new IOException("Invalid activity in world event log");
+		return ACTIVITIES[ordinal];
+	}
+
+	private ReplayedUnit readUnit() throws IOException {
+		ReplayedUnit result = this.units.get(this.readInt());
+		if (result == null)
+			throw new IOException("Unknown unit in world event log");
+		return result;
+	}
+
+	private ReplayedMaterial readMaterial() throws IOException {
+		ReplayedMaterial result = this.materials.get(this.readInt());
+		if (result == null)
+			throw new IOException("Unknown material in world event log");
+		return result;
+	}
+
+	private final ReadableByteChannel channel;
+
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+	/**
+	 * return whether the whole log has been read
+	 */
+	private boolean atEnd() throws IOException {
+		if (this.buffer.hasRemaining())
+			return false;
+		this.buffer.clear();
+		int read = 0;
+		while (read == 0)
+			read = this.channel.read(this.buffer);
+		this.buffer.flip();
+		return read < 0;
+	}
+
+	/**
+	 * return the buffer, after reading more of the log into it if it has less
+	 * than the given number of bytes left
+	 */
+	private ByteBuffer ensure(int nbBytes) throws IOException {
+		if (nbBytes > BUFFER_SIZE)
+			throw new IOException("Record too long in world event log: " + nbBytes + " bytes");
+		if (this.buffer.remaining() < nbBytes) {
+			this.buffer.compact();
+			while (this.buffer.position() < nbBytes)
+				if (this.channel.read(this.buffer) < 0)
+					throw new IOException("Unexpected end of world event log");
+			this.buffer.flip();
+		}
+		return this.buffer;
+	}
+}
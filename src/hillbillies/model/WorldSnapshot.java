@@ -0,0 +1,612 @@
+package hillbillies.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import hillbillies.model.programs.ExecutionFrame;
+import hillbillies.model.programs.Program;
+import hillbillies.model.programs.type.CubeType;
+import hillbillies.model.programs.type.Type;
+import hillbillies.model.programs.type.UnitType;
+import hillbillies.part2.listener.TerrainChangeListener;
+
+/**
+ * a class writing running worlds to snapshots and restoring worlds from them
+ *
+ * @note	a snapshot starts with a header of the magic number and the version
+ * 			of the format as big-endian ints, the number of cubes in the x, y
+ * 			and z direction as ints and the terrain version of the world as a
+ * 			long. The terrain types follow as one byte per cube and the solid
+ * 			cubes connected to the border as one bit per cube, both in the
+ * 			order of ByteMap3D. Then come the number of factions, the programs,
+ * 			the tasks, the units and the materials lying in the world, each as
+ * 			a count followed by compact records that refer to factions, units,
+ * 			tasks and programs by their index in the snapshot.
+ * @note	programs are not written themselves: a task refers to its program
+ * 			by its index in a list of programs given when writing, and the same
+ * 			list must be given when restoring. Only the number of slots of every
+ * 			program is written, to check the list.
+ * @note	a world is restored with its terrain and connectivity as they were,
+ * 			so restoring does not search for caves nor let anything collapse.
+ *
+ * @author Ellen & Marte
+ */
+public class WorldSnapshot {
+
+	/**
+	 * the extension of snapshot files
+	 */
+	public static final String EXTENSION = ".hbsnap";
+
+	/**
+	 * the magic number every snapshot starts with, "HBWS" in ASCII
+	 */
+	public static final int MAGIC = 0x48425753;
+
+	/**
+	 * the version of the format written by this class
+	 */
+	public static final int VERSION = 1;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private static final byte LOG = 0, BOULDER = 1;
+
+	private static final byte NO_VALUE = 0, CUBE_VALUE = 1, UNIT_VALUE = 2;
+
+	private WorldSnapshot() {
+	}
+
+	// WRITING//
+
+	/**
+	 * write a snapshot of the given world to the given channel
+	 *
+	 * @param world
+	 *            the world to write
+	 * @param programs
+	 *            the programs the tasks of the world refer to by index; the
+	 *            programs of tasks that are not in this list yet are added at
+	 *            its end
+	 * @param channel
+	 *            the channel to write to, which is not closed
+	 * @throws IOException
+	 *             the snapshot could not be written
+	 */
+	public static void write(World world, List<Program> programs, WritableByteChannel channel) throws IOException {
+		Writer out = new Writer(world, programs, channel);
+		TerrainGrid terrain = world.getTerrain();
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(terrain.getNbX());
+		out.writeInt(terrain.getNbY());
+		out.writeInt(terrain.getNbZ());
+		out.writeLong(world.getTerrainVersion());
+
+		for (int index = 0; index < terrain.getNbCubes(); index++)
+			out.writeByte(terrain.get(index));
+		for (int index = 0; index < terrain.getNbCubes(); index += 8) {
+			int bits = 0;
+			for (int bit = 0; bit < 8 && index + bit < terrain.getNbCubes(); bit++)
+				if (world.connectedUtil.isSolidConnectedToBorder(terrain.getX(index + bit), terrain.getY(index + bit),
+						terrain.getZ(index + bit)))
+					bits |= 1 << bit;
+			out.writeByte(bits);
+		}
+
+		out.writeInt(out.factions.size());
+
+		out.writeInt(programs.size());
+		for (Program program : programs) {
+			out.writeInt(program.getNbBooleanSlots());
+			out.writeInt(program.getNbReferenceSlots());
+		}
+
+		out.writeInt(out.tasks.size());
+		for (Task task : out.tasks.keySet()) {
+			out.writeString(task.getName());
+			out.writeInt(task.getPriority());
+			out.writeCube(task.getCube());
+			out.writeInt(out.programs.get(task.getProgram()));
+			ExecutionFrame frame = task.getExecutionFrame();
+			out.writeInt(frame.getProgramCounter());
+			out.writeBoolean(frame.isWaitingForAction());
+			for (int slot = 0; slot < task.getProgram().getNbBooleanSlots(); slot++)
+				out.writeBoolean(frame.getBoolean(slot));
+			for (int slot = 0; slot < task.getProgram().getNbReferenceSlots(); slot++)
+				out.writeValue(frame.getReference(slot));
+			out.writeUnit(task.getUnit());
+			List<Integer> schedulers = new ArrayList<Integer>();
+			for (Scheduler scheduler : task.getAllSchedulers())
+				if (out.factions.containsKey(scheduler.getFaction()))
+					schedulers.add(out.factions.get(scheduler.getFaction()));
+			out.writeInt(schedulers.size());
+			for (int faction : schedulers)
+				out.writeInt(faction);
+		}
+
+		out.writeInt(out.units.size());
+		for (Unit unit : out.units.keySet()) {
+			out.writeInt(out.factions.get(unit.getFaction()));
+			unit.writeSnapshot(out);
+		}
+
+		out.writeInt(world.getAllMaterials().size());
+		for (Material material : world.getAllMaterials()) {
+			out.writeMaterial(material);
+			out.writePosition(material.getPosition());
+		}
+		out.flush();
+	}
+
+	/**
+	 * write a snapshot of the given world to the given file, replacing its
+	 * contents
+	 *
+	 * @effect |write(world, programs, channel to the given file)
+	 */
+	public static void write(World world, List<Program> programs, Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			write(world, programs, channel);
+		}
+	}
+
+	/**
+	 * a class of buffered writers of the records of one snapshot
+	 */
+	static class Writer {
+
+		private Writer(World world, List<Program> programs, WritableByteChannel channel) {
+			this.channel = channel;
+			for (Faction faction : world.getAllFactions())
+				this.factions.put(faction, this.factions.size());
+			for (Faction faction : this.factions.keySet()) {
+				for (Unit unit : faction.getAllUnits())
+					if (world.hasAsUnit(unit))
+						this.units.put(unit, this.units.size());
+				for (Task task : faction.getScheduler().getAllTasks())
+					if (!this.tasks.containsKey(task))
+						this.tasks.put(task, this.tasks.size());
+			}
+			for (int i = 0; i < programs.size(); i++)
+				this.programs.putIfAbsent(programs.get(i), i);
+			for (Task task : this.tasks.keySet())
+				if (!this.programs.containsKey(task.getProgram())) {
+					this.programs.put(task.getProgram(), programs.size());
+					programs.add(task.getProgram());
+				}
+		}
+
+		private final WritableByteChannel channel;
+
+		private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+		/**
+		 * the factions, units, tasks and programs of the snapshot with their
+		 * index
+		 */
+		private final Map<Faction, Integer> factions = new LinkedHashMap<Faction, Integer>();
+		private final Map<Unit, Integer> units = new LinkedHashMap<Unit, Integer>();
+		private final Map<Task, Integer> tasks = new LinkedHashMap<Task, Integer>();
+		private final Map<Program, Integer> programs = new HashMap<Program, Integer>();
+
+		void writeByte(int value) throws IOException {
+			this.ensure(Byte.BYTES).put((byte) value);
+		}
+
+		void writeBoolean(boolean value) throws IOException {
+			this.writeByte(value ? 1 : 0);
+		}
+
+		void writeInt(int value) throws IOException {
+			this.ensure(Integer.BYTES).putInt(value);
+		}
+
+		void writeLong(long value) throws IOException {
+			this.ensure(Long.BYTES).putLong(value);
+		}
+
+		void writeDouble(double value) throws IOException {
+			this.ensure(Double.BYTES).putDouble(value);
+		}
+
+		void writeString(String value) throws IOException {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			this.writeInt(bytes.length);
+			this.ensure(bytes.length).put(bytes);
+		}
+
+		/**
+		 * write the given cube, which may be null
+		 */
+		void writeCube(Cube cube) throws IOException {
+			this.writeBoolean(cube != null);
+			if (cube != null) {
+				this.writeInt(cube.getX());
+				this.writeInt(cube.getY());
+				this.writeInt(cube.getZ());
+			}
+		}
+
+		/**
+		 * write the given position as its cube and the coordinates inside that
+		 * cube, so it is restored exactly
+		 */
+		void writePosition(Position position) throws IOException {
+			this.writeCube(position.getCube());
+			this.writeDouble(position.getX());
+			this.writeDouble(position.getY());
+			this.writeDouble(position.getZ());
+		}
+
+		/**
+		 * write the index of the given unit, -1 if it is null or not in the
+		 * world of the snapshot
+		 */
+		void writeUnit(Unit unit) throws IOException {
+			Integer index = unit == null ? null : this.units.get(unit);
+			this.writeInt(index == null ? -1 : index);
+		}
+
+		/**
+		 * write the index of the given task, -1 if it is null or not scheduled
+		 * in the world of the snapshot
+		 */
+		void writeTask(Task task) throws IOException {
+			Integer index = task == null ? null : this.tasks.get(task);
+			this.writeInt(index == null ? -1 : index);
+		}
+
+		/**
+		 * write the kind and weight of the given material
+		 */
+		void writeMaterial(Material material) throws IOException {
+			this.writeByte(material instanceof Log ? LOG : BOULDER);
+			this.writeInt(material.getWeight());
+		}
+
+		/**
+		 * write the value of a cube or unit variable, which may be null
+		 */
+		private void writeValue(Type value) throws IOException {
+			if (value instanceof CubeType) {
+				this.writeByte(CUBE_VALUE);
+				this.writeCube((Cube) value.getValue());
+			} else if (value instanceof UnitType) {
+				this.writeByte(UNIT_VALUE);
+				this.writeUnit((Unit) value.getValue());
+			} else
+				this.writeByte(NO_VALUE);
+		}
+
+		/**
+		 * return the buffer, after writing it out if it has no room for the
+		 * given number of bytes
+		 */
+		private ByteBuffer ensure(int nbBytes) throws IOException {
+			if (this.buffer.remaining() < nbBytes) {
+				this.flush();
+				if (this.buffer.remaining() < nbBytes)
+					throw new IOException("Record too long for snapshot: " + nbBytes + " bytes");
+			}
+			return this.buffer;
+		}
+
+		private void flush() throws IOException {
+			this.buffer.flip();
+			while (this.buffer.hasRemaining())
+				this.channel.write(this.buffer);
+			this.buffer.clear();
+		}
+	}
+
+	// READING//
+
+	/**
+	 * restore the world in the snapshot read from the given channel
+	 *
+	 * @param channel
+	 *            the channel to read from, which is not closed
+	 * @param programs
+	 *            the programs the tasks in the snapshot refer to by index, as
+	 *            given when the snapshot was written
+	 * @param modelListener
+	 * 			an instance to update the GUI
+	 * @return a new world with the terrain, factions, units, materials and
+	 *         tasks in the snapshot, each in the state it was written in
+	 * @throws IOException
+	 *             the snapshot could not be read, is not a snapshot of a known
+	 *             version, or does not match the given programs
+	 */
+	public static World read(ReadableByteChannel channel, List<Program> programs,
+			TerrainChangeListener modelListener) throws IOException {
+		Reader in = new Reader(channel);
+		try {
+			if (in.readInt() != MAGIC)
+				throw new IOException("Not a world snapshot");
+			int version = in.readInt();
+			if (version != VERSION)
+				throw new IOException("Unknown version " + version + " of world snapshot");
+			int nbX = in.readInt(), nbY = in.readInt(), nbZ = in.readInt();
+			if (nbX <= 0 || nbY <= 0 || nbZ <= 0 || (long) nbX * nbY * nbZ > Integer.MAX_VALUE - 8)
+				throw new IOException("Invalid dimensions of world snapshot");
+			long terrainVersion = in.readLong();
+
+			byte[] terrainTypes = new byte[nbX * nbY * nbZ];
+			in.readFully(terrainTypes);
+			for (byte terrainType : terrainTypes)
+				if (terrainType < 0 || terrainType > 3)
+					throw new IOException("Invalid terrain type in world snapshot");
+			BitSet connected = new BitSet(terrainTypes.length);
+			for (int index = 0; index < terrainTypes.length; index += 8) {
+				int bits = in.readByte();
+				for (int bit = 0; bit < 8 && index + bit < terrainTypes.length; bit++)
+					if ((bits >> bit & 1) != 0)
+						connected.set(index + bit);
+			}
+			World world = new World(new TerrainGrid(nbX, nbY, nbZ, terrainTypes), connected, terrainVersion,
+					modelListener);
+
+			in.factions = new Faction[in.readCount()];
+			for (int i = 0; i < in.factions.length; i++) {
+				in.factions[i] = new Faction();
+				world.addFaction(in.factions[i]);
+			}
+
+			int nbPrograms = in.readCount();
+			if (nbPrograms > programs.size())
+				throw new IOException("World snapshot refers to " + nbPrograms + " programs, only "
+						+ programs.size() + " given");
+			for (int i = 0; i < nbPrograms; i++)
+				if (in.readInt() != programs.get(i).getNbBooleanSlots()
+						|| in.readInt() != programs.get(i).getNbReferenceSlots())
+					throw new IOException("Program " + i + " does not match the world snapshot");
+
+			in.tasks = new Task[in.readCount()];
+			for (int i = 0; i < in.tasks.length; i++) {
+				String name = in.readString();
+				int priority = in.readInt();
+				Cube cube = in.readCube();
+				Program program = programs.get(in.readIndex(nbPrograms));
+				Task task = new Task(name, priority, program, cube);
+				ExecutionFrame frame = task.getExecutionFrame();
+				frame.setProgramCounter(in.readInt());
+				if (in.readBoolean())
+					frame.waitForAction();
+				for (int slot = 0; slot < program.getNbBooleanSlots(); slot++)
+					frame.setBoolean(slot, in.readBoolean());
+				for (int slot = 0; slot < program.getNbReferenceSlots(); slot++)
+					in.readValue(frame, slot);
+				in.readUnitLater(task::setUnit);
+				for (int nbSchedulers = in.readCount(); nbSchedulers > 0; nbSchedulers--)
+					task.addScheduler(in.factions[in.readIndex(in.factions.length)].getScheduler());
+				in.tasks[i] = task;
+			}
+
+			in.units = new Unit[in.readCount()];
+			for (int i = 0; i < in.units.length; i++) {
+				Faction faction = in.factions[in.readIndex(in.factions.length)];
+				in.units[i] = new Unit(in);
+				world.addUnit(in.units[i], faction);
+			}
+
+			for (int nbMaterials = in.readCount(); nbMaterials > 0; nbMaterials--) {
+				Material material = in.readMaterial();
+				world.addMaterial(material, in.readPosition());
+			}
+
+			in.resolveUnits();
+			return world;
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Invalid world snapshot", e);
+		}
+	}
+
+	/**
+	 * restore the world in the snapshot in the given file
+	 *
+	 * @effect |read(channel from the given file, programs, modelListener)
+	 */
+	public static World read(Path file, List<Program> programs, TerrainChangeListener modelListener)
+			throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return read(channel, programs, modelListener);
+		}
+	}
+
+	/**
+	 * a class of buffered readers of the records of one snapshot
+	 */
+	static class Reader {
+
+		private Reader(ReadableByteChannel channel) {
+			this.channel = channel;
+			this.buffer.limit(0);
+		}
+
+		private final ReadableByteChannel channel;
+
+		private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+		/**
+		 * the factions, tasks and units read so far, by index
+		 */
+		private Faction[] factions;
+		private Task[] tasks;
+		private Unit[] units;
+
+		/**
+		 * the indices of the units that are referred to before all units are
+		 * read, with what to do with each of them
+		 */
+		private final List<Integer> laterUnits = new ArrayList<Integer>();
+		private final List<Consumer<Unit>> laterActions = new ArrayList<Consumer<Unit>>();
+
+		int readByte() throws IOException {
+			return this.ensure(Byte.BYTES).get();
+		}
+
+		boolean readBoolean() throws IOException {
+			return this.readByte() != 0;
+		}
+
+		int readInt() throws IOException {
+			return this.ensure(Integer.BYTES).getInt();
+		}
+
+		long readLong() throws IOException {
+			return this.ensure(Long.BYTES).getLong();
+		}
+
+		double readDouble() throws IOException {
+			return this.ensure(Double.BYTES).getDouble();
+		}
+
+		String readString() throws IOException {
+			int length = this.readCount();
+			byte[] bytes = new byte[length];
+			this.ensure(length).get(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		/**
+		 * read a number of records or bytes, which cannot be negative
+		 */
+		int readCount() throws IOException {
+			int result = this.readInt();
+			if (result < 0)
+				throw new IOException("Invalid count in world snapshot");
+			return result;
+		}
+
+		Cube readCube() throws IOException {
+			if (!this.readBoolean())
+				return null;
+			return new Cube(this.readInt(), this.readInt(), this.readInt());
+		}
+
+		Position readPosition() throws IOException {
+			Cube cube = this.readCube();
+			double x = this.readDouble(), y = this.readDouble(), z = this.readDouble();
+			if (!(x >= 0 && x < Cube.SIDE_LENGTH && y >= 0 && y < Cube.SIDE_LENGTH && z >= 0 && z < Cube.SIDE_LENGTH))
+				throw new IOException("Invalid position in world snapshot");
+			return new Position(x, y, z, cube);
+		}
+
+		Activity readActivity() throws IOException {
+			int ordinal = this.readByte();
+			if (ordinal < 0 || ordinal >= Activity.values().length)
+				throw new IOException("Invalid activity in world snapshot");
+			return Activity.values()[ordinal];
+		}
+
+		/**
+		 * read the index of a task, returning the task with that index or null
+		 * for -1
+		 */
+		Task readTask() throws IOException {
+			int index = this.readInt();
+			if (index == -1)
+				return null;
+			if (index < 0 || index >= this.tasks.length)
+				throw new IOException("Invalid task in world snapshot");
+			return this.tasks[index];
+		}
+
+		/**
+		 * read the index of a unit, and give the unit with that index, or null
+		 * for -1, to the given action once all units have been read
+		 */
+		void readUnitLater(Consumer<Unit> action) throws IOException {
+			this.laterUnits.add(this.readInt());
+			this.laterActions.add(action);
+		}
+
+		/**
+		 * read the kind and weight of a material, returning a new material
+		 * that belongs to nothing yet
+		 */
+		Material readMaterial() throws IOException {
+			int kind = this.readByte();
+			int weight = this.readInt();
+			if (kind == LOG)
+				return new Log(weight);
+			if (kind == BOULDER)
+				return new Boulder(weight);
+			throw new IOException("Invalid material in world snapshot");
+		}
+
+		/**
+		 * read the value of a cube or unit variable into the given slot of
+		 * the given frame
+		 */
+		private void readValue(ExecutionFrame frame, int slot) throws IOException {
+			int kind = this.readByte();
+			if (kind == CUBE_VALUE)
+				frame.setReference(slot, new CubeType(this.readCube()));
+			else if (kind == UNIT_VALUE)
+				this.readUnitLater(unit -> frame.setReference(slot, unit == null ? null : new UnitType(unit)));
+			else if (kind != NO_VALUE)
+				throw new IOException("Invalid variable in world snapshot");
+		}
+
+		/**
+		 * read an index, which must be in [0, size[
+		 */
+		private int readIndex(int size) throws IOException {
+			int result = this.readInt();
+			if (result < 0 || result >= size)
+				throw new IOException("Invalid index in world snapshot");
+			return result;
+		}
+
+		private void resolveUnits() throws IOException {
+			for (int i = 0; i < this.laterUnits.size(); i++) {
+				int index = this.laterUnits.get(i);
+				if (index < -1 || index >= this.units.length)
+					throw new IOException("Invalid unit in world snapshot");
+				this.laterActions.get(i).accept(index == -1 ? null : this.units[index]);
+			}
+		}
+
+		private void readFully(byte[] bytes) throws IOException {
+			int offset = 0;
+			while (offset < bytes.length) {
+				int length = Math.min(BUFFER_SIZE, bytes.length - offset);
+				this.ensure(length).get(bytes, offset, length);
+				offset += length;
+			}
+		}
+
+		/**
+		 * return the buffer, after reading more of the snapshot into it if it
+		 * has less than the given number of bytes left
+		 */
+		private ByteBuffer ensure(int nbBytes) throws IOException {
+			if (nbBytes > BUFFER_SIZE)
+				throw new IOException("Record too long in world snapshot: " + nbBytes + " bytes");
+			if (this.buffer.remaining() < nbBytes) {
+				this.buffer.compact();
+				while (this.buffer.position() < nbBytes)
+					if (this.channel.read(this.buffer) < 0)
+						throw new IOException("Unexpected end of world snapshot");
+				this.buffer.flip();
+			}
+			return this.buffer;
+		}
+	}
+}
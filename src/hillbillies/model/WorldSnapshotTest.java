@@ -0,0 +1,177 @@
+package hillbillies.model;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import hillbillies.model.programs.ExecutionFrame;
+import hillbillies.model.programs.Program;
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+import hillbillies.part3.programs.TaskParser;
+
+/**
+ * a test suite for the class WorldSnapshot, comparing restored worlds with the
+ * worlds they were written from
+ * @author Ellen & Marte
+ *
+ */
+public class WorldSnapshotTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private World world;
+	private Unit walker, worker;
+	private List<Program> programs;
+
+	@Before
+	public void setUp() {
+		int[][][] terrainTypes = new int[8][8][4];
+		terrainTypes[4][4][0] = 1;
+		terrainTypes[4][4][1] = 1;
+		terrainTypes[2][5][0] = 2;
+		terrainTypes[6][1][0] = 3;
+		this.world = new World(terrainTypes, new DefaultTerrainChangeListener());
+		this.walker = new Unit(0.5, 0.5, 0.5, "James O'Hara", 50, 60, 70, 80, false);
+		this.worker = new Unit(2.5, 4.5, 0.5, "Mary O'Hara", 40, 50, 60, 70, false);
+		this.world.addUnit(this.walker);
+		this.world.addUnit(this.worker);
+		this.programs = new ArrayList<Program>();
+	}
+
+	private World roundTrip() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		WorldSnapshot.write(this.world, this.programs, Channels.newChannel(bytes));
+		return WorldSnapshot.read(Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())),
+				this.programs, new DefaultTerrainChangeListener());
+	}
+
+	private static Map<String, Unit> byName(World world) {
+		Map<String, Unit> result = new HashMap<String, Unit>();
+		for (Unit unit : world.getAllUnits())
+			result.put(unit.getName(), unit);
+		return result;
+	}
+
+	private static void advanceTime(World world, int nbTicks) {
+		for (int i = 0; i < nbTicks; i++)
+			world.advanceTime(0.1f);
+	}
+
+	@Test
+	public void read_SameTerrainUnitsAndMaterials() throws IOException {
+		this.worker.workAt(new Cube(2, 5, 0));
+		advanceTime(this.world, 200);
+		this.walker.moveTo(new Cube(7, 7, 0));
+		advanceTime(this.world, 3);
+		World restored = roundTrip();
+		assertArrayEquals(this.world.getTerrainTypesArray(), restored.getTerrainTypesArray());
+		assertEquals(this.world.getAllMaterials().size(), restored.getAllMaterials().size());
+		assertEquals(2, restored.getAllUnits().size());
+		assertEquals(2, restored.getAllActiveFactions().size());
+		for (Unit unit : this.world.getAllUnits()) {
+			Unit other = byName(restored).get(unit.getName());
+			assertEquals(unit.getPosition().getRealX(), other.getPosition().getRealX(), 0);
+			assertEquals(unit.getPosition().getRealY(), other.getPosition().getRealY(), 0);
+			assertEquals(unit.getPosition().getRealZ(), other.getPosition().getRealZ(), 0);
+			assertEquals(unit.getHitpoints(), other.getHitpoints(), 0);
+			assertEquals(unit.getStaminaPoints(), other.getStaminaPoints(), 0);
+			assertEquals(unit.getExperiencePoints(), other.getExperiencePoints());
+			assertEquals(unit.getWeight(), other.getWeight());
+			assertEquals(unit.getNbMaterials(), other.getNbMaterials());
+			assertEquals(unit.isMoving(), other.isMoving());
+			assertSame(restored, other.getWorld());
+		}
+		// the tree was cut, and solid cubes are still connected to the border
+		assertEquals(0, restored.getTerrainTypeInt(new Cube(2, 5, 0)));
+		assertTrue(restored.connectedUtil.isSolidConnectedToBorder(4, 4, 1));
+	}
+
+	@Test
+	public void read_ContinuesLikeOriginal() throws IOException {
+		this.walker.moveTo(new Cube(7, 7, 0));
+		this.worker.moveTo(new Cube(5, 4, 0));
+		advanceTime(this.world, 7);
+		World restored = roundTrip();
+		advanceTime(this.world, 40);
+		advanceTime(restored, 40);
+		for (Unit unit : this.world.getAllUnits()) {
+			Unit other = byName(restored).get(unit.getName());
+			assertEquals(unit.getPosition().getRealX(), other.getPosition().getRealX(), 0);
+			assertEquals(unit.getPosition().getRealY(), other.getPosition().getRealY(), 0);
+			assertEquals(unit.getPosition().getRealZ(), other.getPosition().getRealZ(), 0);
+			assertEquals(unit.getStaminaPoints(), other.getStaminaPoints(), 0);
+		}
+	}
+
+	@Test
+	public void read_TaskAtSameExecutionPosition() throws IOException {
+		List<Task> tasks = TaskParser.parseTasksFromString(
+				"name: \"go\"\npriority: 3\nactivities: c := selected; moveTo c;", new TaskFactory(),
+				Arrays.asList(new int[][] { { 7, 7, 0 } }));
+		Task task = tasks.get(0);
+		this.walker.getFaction().getScheduler().addTask(task);
+		this.walker.startDefaultBehaviour();
+		advanceTime(this.world, 1);
+		assertSame(this.walker, task.getUnit());
+
+		World restored = roundTrip();
+		assertEquals(Arrays.asList(task.getProgram()), this.programs);
+		Unit walker = byName(restored).get(this.walker.getName());
+		Task other = walker.getTask();
+		assertEquals("go", other.getName());
+		assertEquals(3, other.getPriority());
+		assertSame(walker, other.getUnit());
+		assertSame(task.getProgram(), other.getProgram());
+		assertTrue(walker.getFaction().getScheduler().hasAsTask(other));
+		assertNull(walker.getFaction().getScheduler().getHighestPriorityTaskNotExecuted());
+		ExecutionFrame frame = task.getExecutionFrame(), otherFrame = other.getExecutionFrame();
+		assertEquals(frame.getProgramCounter(), otherFrame.getProgramCounter());
+		assertEquals(frame.isWaitingForAction(), otherFrame.isWaitingForAction());
+		assertEquals(new Cube(7, 7, 0), other.getGlobalVariable("c").getValue());
+
+		advanceTime(restored, 200);
+		assertTrue(other.hasBeenFullyExecuted());
+		assertEquals(0, walker.getFaction().getScheduler().getNbTasks());
+	}
+
+	@Test
+	public void read_FromFile() throws IOException {
+		Path file = this.folder.newFile("world" + WorldSnapshot.EXTENSION).toPath();
+		WorldSnapshot.write(this.world, this.programs, file);
+		World restored = WorldSnapshot.read(file, this.programs, new DefaultTerrainChangeListener());
+		assertArrayEquals(this.world.getTerrainTypesArray(), restored.getTerrainTypesArray());
+		assertEquals(2, restored.getAllUnits().size());
+	}
+
+	@Test(expected = IOException.class)
+	public void read_ProgramsNotGiven() throws IOException {
+		Task task = TaskParser.parseTasksFromString("name: \"idle\"\npriority: 1\nactivities: work here;",
+				new TaskFactory(), Arrays.asList(new int[][] { { 1, 1, 0 } })).get(0);
+		this.walker.getFaction().getScheduler().addTask(task);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		WorldSnapshot.write(this.world, this.programs, Channels.newChannel(bytes));
+		WorldSnapshot.read(Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())),
+				new ArrayList<Program>(), new DefaultTerrainChangeListener());
+	}
+
+	@Test(expected = IOException.class)
+	public void read_NotASnapshot() throws IOException {
+		WorldSnapshot.read(Channels.newChannel(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 })),
+				this.programs, new DefaultTerrainChangeListener());
+	}
+}
@@ -2,8 +2,12 @@ package hillbillies.model;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.Test;
 
@@ -177,6 +181,81 @@ public class WorldTest {
 		assertEquals(testWorld.getTerrainType(testCube3), TerrainType.AIR);
 	}
 	
+	@Test
+	public void constructorWorld_CollapsesFloatingCubesAtOnce(){
+		int[][][] terrainTypes = new int[6][6][6];
+		terrainTypes[0][0][0] = 1;
+		terrainTypes[2][2][2] = 1;
+		terrainTypes[2][3][2] = 2;
+		terrainTypes[3][3][3] = 1;
+		List<List<int[]>> notifications = new ArrayList<List<int[]>>();
+		World testWorld = new World(terrainTypes, new DefaultTerrainChangeListener() {
+			@Override
+			public void notifyTerrainChanged(List<int[]> cubes) {
+				notifications.add(cubes);
+			}
+		});
+		assertEquals(TerrainType.ROCK, testWorld.getTerrainType(new Cube(0,0,0)));
+		assertEquals(TerrainType.AIR, testWorld.getTerrainType(new Cube(2,2,2)));
+		assertEquals(TerrainType.AIR, testWorld.getTerrainType(new Cube(2,3,2)));
+		assertEquals(TerrainType.AIR, testWorld.getTerrainType(new Cube(3,3,3)));
+		assertEquals(1, notifications.size());
+		assertEquals(3, notifications.get(0).size());
+	}
+
+	@Test
+	public void setTerrainType_CaveInNotifiedAtOnce(){
+		int[][][] terrainTypes = new int[5][5][5];
+		terrainTypes[1][1][0] = 2;
+		terrainTypes[1][1][1] = 2;
+		terrainTypes[2][1][1] = 1;
+		List<List<int[]>> notifications = new ArrayList<List<int[]>>();
+		World testWorld = new World(terrainTypes, new DefaultTerrainChangeListener() {
+			@Override
+			public void notifyTerrainChanged(List<int[]> cubes) {
+				notifications.add(cubes);
+			}
+		});
+		testWorld.setTerrainType(new Cube(1,1,0), TerrainType.AIR);
+		assertEquals(1, notifications.size());
+		assertEquals(2, notifications.get(0).size());
+	}
+
+	private List<Unit> moveUnitsAround(World world, Random random) {
+		List<Unit> units = new ArrayList<Unit>();
+		for (int i = 0; i < 12; i++) {
+			Unit unit = new Unit(random.nextInt(15) + 0.5, random.nextInt(15) + 0.5, 0.5, "Ellen", 50, 50, 50, 50, false);
+			world.addUnit(unit);
+			units.add(unit);
+		}
+		// few enough ticks that no unit levels up, which is random
+		for (int tick = 0; tick < 30; tick++) {
+			if (tick % 15 == 0)
+				for (Unit unit : units)
+					unit.moveTo(new Cube(random.nextInt(15), random.nextInt(15), 0));
+			if (tick == 8)
+				world.setTerrainType(new Cube(7, 7, 0), TerrainType.ROCK);
+			world.advanceTime(0.2f);
+		}
+		return units;
+	}
+
+	@Test
+	public void advanceTime_TickPoolSameAsSequential() {
+		int[][][] terrainTypes = new int[15][15][3];
+		for (int y = 2; y < 13; y++)
+			terrainTypes[7][y][0] = 1;
+		World sequential = new World(terrainTypes, new DefaultTerrainChangeListener());
+		World parallel = new World(terrainTypes, new DefaultTerrainChangeListener());
+		parallel.setTickPool(new ForkJoinPool(4));
+		List<Unit> sequentialUnits = moveUnitsAround(sequential, new Random(7));
+		List<Unit> parallelUnits = moveUnitsAround(parallel, new Random(7));
+		for (int i = 0; i < sequentialUnits.size(); i++) {
+			assertEquals(sequentialUnits.get(i).getPosition(), parallelUnits.get(i).getPosition());
+			assertEquals(sequentialUnits.get(i).getExperiencePoints(), parallelUnits.get(i).getExperiencePoints());
+		}
+	}
+
 	@Test
 	public void getAllWorkshops_Full() {
 		int[][][] terrainTypes = new int[5][5][5];
@@ -402,4 +481,80 @@ public class WorldTest {
 		testWorld.advanceTime((float)-0.000000001);
 		throw new IllegalArgumentException();
 	}
+
+	@Test
+	public void getLogsIn_afterFalling(){
+		int[][][] terrainTypes = new int [5][5][5];
+		World testWorld = new World(terrainTypes, new DefaultTerrainChangeListener());
+		Log testLog = new Log();
+		testWorld.addMaterial(testLog, new Position(1.5,1.5,2.5));
+		assertTrue(testWorld.getLogsIn(new Cube(1,1,2)).contains(testLog));
+		assertNull(testWorld.getBoulderIn(new Cube(1,1,2)));
+		for (int i = 0; i < 10; i++)
+			testWorld.advanceTime((float)0.2);
+		assertTrue(testWorld.getLogsIn(new Cube(1,1,2)).isEmpty());
+		assertEquals(testLog, testWorld.getLogIn(new Cube(1,1,0)));
+	}
+	
+	@Test
+	public void getBouldersIn_afterRemove(){
+		int[][][] terrainTypes = new int [5][5][5];
+		World testWorld = new World(terrainTypes, new DefaultTerrainChangeListener());
+		Boulder testBoulder = new Boulder();
+		testWorld.addMaterial(testBoulder, new Position(1.5,1.5,0.5));
+		assertEquals(testBoulder, testWorld.getBoulderIn(new Cube(1,1,0)));
+		testWorld.removeMaterial(testBoulder);
+		assertTrue(testWorld.getBouldersIn(new Cube(1,1,0)).isEmpty());
+	}
+	
+	@Test
+	public void getUnitsInCube_LegalCase(){
+		int[][][] terrainTypes = new int [5][5][5];
+		World testWorld = new World(terrainTypes, new DefaultTerrainChangeListener());
+		Unit testUnit = new Unit(1.5, 1.5, 0.5, "Ellen", 50, 50, 50, 50, false);
+		testWorld.addUnit(testUnit);
+		assertTrue(testWorld.getUnitsInCube(new Cube(1,1,0)).contains(testUnit));
+		testUnit.moveToAdjacent(1, 0, 0);
+		for (int i = 0; i < 20; i++)
+			testWorld.advanceTime((float)0.2);
+		assertTrue(testWorld.getUnitsInCube(new Cube(1,1,0)).isEmpty());
+		assertTrue(testWorld.getUnitsInCube(new Cube(2,1,0)).contains(testUnit));
+	}
+	
+	private static long runSeeded(long seed, int nbTicks) {
+		int[][][] terrainTypes = new int[10][10][4];
+		for (int x = 0; x < 10; x += 3) {
+			terrainTypes[x][2][0] = 2;
+			terrainTypes[x][7][0] = 1;
+		}
+		terrainTypes[5][5][3] = 2;
+		World testWorld = new World(terrainTypes, new DefaultTerrainChangeListener());
+		testWorld.setSeed(seed);
+		for (int i = 0; i < 8; i++)
+			testWorld.spawnUnit(true);
+		for (int i = 0; i < nbTicks; i++)
+			testWorld.advanceTime((float)0.1);
+		return testWorld.getStateHash();
+	}
+	
+	@Test
+	public void getStateHash_SameSeedSameRun(){
+		assertEquals(runSeeded(42, 300), runSeeded(42, 300));
+	}
+	
+	@Test
+	public void getStateHash_OtherSeedOtherRun(){
+		assertNotEquals(runSeeded(42, 300), runSeeded(43, 300));
+	}
+	
+	@Test
+	public void constructorWorld_SameTerrainSameMaterials(){
+		int[][][] terrainTypes = new int[5][5][5];
+		for (int x = 1; x < 4; x++)
+			for (int y = 1; y < 4; y++)
+				terrainTypes[x][y][3] = 2;
+		World testWorld = new World(terrainTypes, new DefaultTerrainChangeListener());
+		World otherWorld = new World(terrainTypes, new DefaultTerrainChangeListener());
+		assertEquals(testWorld.getStateHash(), otherWorld.getStateHash());
+	}
 }
@@ -0,0 +1,146 @@
+package hillbillies.model.programs;
+
+import java.util.Arrays;
+
+import be.kuleuven.cs.som.annotate.*;
+import hillbillies.model.programs.type.Type;
+
+/**
+ * a class of execution frames, keeping the state of one task executing a
+ * program
+ *
+ * @note	since loops and breaks are compiled to jumps, the position of the
+ * 			next instruction is all the frame needs to know where the task is.
+ * 			The variables are kept in slots resolved when the program was
+ * 			compiled: booleans in an array of booleans, cubes and units in an
+ * 			array of references.
+ *
+ * @author Ellen & Marte
+ */
+public class ExecutionFrame {
+
+	/**
+	 * create a new frame at the start of the given program
+	 *
+	 * @param program
+	 *            the program to execute
+	 * @effect	the frame is reset
+	 * 			| reset()
+	 * @throws IllegalArgumentException
+	 *             the given program is not effective
+	 */
+	public ExecutionFrame(Program program) throws IllegalArgumentException {
+		if (program == null)
+			throw new IllegalArgumentException();
+		this.program = program;
+		this.booleans = new boolean[program.getNbBooleanSlots()];
+		this.references = new Type[program.getNbReferenceSlots()];
+		this.reset();
+	}
+
+	/**
+	 * return the program executed in this frame
+	 */
+	@Basic
+	@Immutable
+	public Program getProgram() {
+		return this.program;
+	}
+
+	private final Program program;
+
+	/**
+	 * bring this frame back to the start of its program
+	 *
+	 * @post	the first instruction is executed next, no action is awaited and
+	 * 			there are no variables
+	 */
+	public void reset() {
+		this.programCounter = 0;
+		this.waitingForAction = false;
+		Arrays.fill(this.booleans, false);
+		Arrays.fill(this.references, null);
+	}
+
+	/**
+	 * check whether the whole program has been executed
+	 */
+	public boolean hasFinished() {
+		return this.programCounter < 0;
+	}
+
+	/**
+	 * return the position of the instruction that is executed next, negative
+	 * if the program has ended
+	 */
+	@Basic
+	public int getProgramCounter() {
+		return this.programCounter;
+	}
+
+	/**
+	 * set the position of the instruction that is executed next
+	 */
+	public void setProgramCounter(int programCounter) {
+		this.programCounter = programCounter;
+	}
+
+	private int programCounter;
+
+	/**
+	 * check whether the execution waits for the unit to finish an action
+	 */
+	@Basic
+	public boolean isWaitingForAction() {
+		return this.waitingForAction;
+	}
+
+	/**
+	 * let the execution wait for the unit to finish an action
+	 */
+	public void waitForAction() {
+		this.waitingForAction = true;
+	}
+
+	/**
+	 * let the execution continue after the unit finished its action
+	 */
+	public void finishAction() {
+		this.waitingForAction = false;
+	}
+
+	private boolean waitingForAction;
+
+	/**
+	 * return the value of the boolean variable in the given slot
+	 */
+	public boolean getBoolean(int slot) {
+		return this.booleans[slot];
+	}
+
+	/**
+	 * set the value of the boolean variable in the given slot
+	 */
+	public void setBoolean(int slot, boolean value) {
+		this.booleans[slot] = value;
+	}
+
+	private final boolean[] booleans;
+
+	/**
+	 * return the value of the cube or unit variable in the given slot, null if
+	 * it has not been assigned yet
+	 */
+	public Type getReference(int slot) {
+		return this.references[slot];
+	}
+
+	/**
+	 * set the value of the cube or unit variable in the given slot
+	 */
+	public void setReference(int slot, Type value) {
+		this.references[slot] = value;
+	}
+
+	private final Type[] references;
+}
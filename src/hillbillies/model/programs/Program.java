@@ -0,0 +1,287 @@
+package hillbillies.model.programs;
+
+import be.kuleuven.cs.som.annotate.*;
+import hillbillies.model.Counter;
+import hillbillies.model.Cube;
+import hillbillies.model.Task;
+import hillbillies.model.Unit;
+import hillbillies.model.programs.expressions.IExpression;
+import hillbillies.model.programs.statements.Statement;
+import hillbillies.model.programs.type.BooleanType;
+import hillbillies.model.programs.type.Type;
+
+/**
+ * a class of compiled task programs, shared by all tasks created from the same
+ * activities
+ *
+ * @note	the statements are lowered into an array of instructions, each an
+ * 			opcode followed by its operands. Expressions are operands by their
+ * 			index in the expressions of the program, variables by their slot in
+ * 			the execution frame and jumps by the position of their target. A
+ * 			program is immutable; everything that changes while a task
+ * 			executes is kept in the execution frame of that task.
+ *
+ * @invar	the body of each program is effective
+ * 			| getBody() != null
+ *
+ * @author Ellen & Marte
+ */
+public class Program {
+
+	/**
+	 * end the program
+	 */
+	static final int END = 0;
+
+	/**
+	 * jump to the target operand
+	 */
+	static final int JUMP = 1;
+
+	/**
+	 * evaluate the expression operand, jump to the target operand if it is
+	 * false
+	 */
+	static final int JUMP_IF_FALSE = 2;
+
+	/**
+	 * set the boolean slot operand to the value of the expression operand
+	 */
+	static final int ASSIGN_BOOLEAN = 3;
+
+	/**
+	 * print the value of the expression operand
+	 */
+	static final int PRINT = 4;
+
+	/**
+	 * let the unit perform an action with the value of the expression operand
+	 */
+	static final int MOVE_TO = 5, WORK = 6, FOLLOW = 7, ATTACK = 8;
+
+	/**
+	 * set the reference slot operand to the value of the expression operand
+	 */
+	static final int ASSIGN_REFERENCE = 9;
+
+	/**
+	 * compile the given statement into a new program
+	 *
+	 * @param body
+	 *            the statement to execute
+	 * @post	the body of this new program is the given statement
+	 * 			| new.getBody() == body
+	 * @throws IllegalArgumentException
+	 *             the given statement is not effective
+	 *             | body == null
+	 * @throws IllegalArgumentException
+	 *             the given statement reads a variable that is not assigned,
+	 *             or reads a variable as another type than it is assigned
+	 * @throws IllegalArgumentException
+	 *             the given statement has a condition that is not a boolean,
+	 *             or an action with an argument of another type
+	 */
+	public Program(Statement body) throws IllegalArgumentException {
+		if (body == null)
+			throw new IllegalArgumentException();
+		this.body = body;
+		this.wellFormed = body.isWellFormed();
+		this.containsActionStatement = body.containsActionStatement();
+		ProgramCompiler compiler = new ProgramCompiler();
+		compiler.compile(body);
+		this.code = compiler.getCode();
+		this.expressions = compiler.getExpressions();
+		this.variables = compiler.getVariables();
+		this.booleanVariables = compiler.getBooleanVariables();
+		this.slots = compiler.getSlots();
+		this.nbBooleanSlots = compiler.getNbBooleanSlots();
+		this.nbReferenceSlots = compiler.getNbReferenceSlots();
+	}
+
+	/**
+	 * return the statement this program executes
+	 */
+	@Basic
+	@Immutable
+	public Statement getBody() {
+		return this.body;
+	}
+
+	private final Statement body;
+
+	/**
+	 * check whether the structure of this program is correct
+	 */
+	@Basic
+	@Immutable
+	public boolean isWellFormed() {
+		return this.wellFormed;
+	}
+
+	private final boolean wellFormed;
+
+	/**
+	 * check whether this program makes its unit do something
+	 */
+	@Basic
+	@Immutable
+	public boolean containsActionStatement() {
+		return this.containsActionStatement;
+	}
+
+	private final boolean containsActionStatement;
+
+	private final int[] code;
+
+	private final IExpression<?>[] expressions;
+
+	/**
+	 * the names of the variables of this program, whether each holds a
+	 * boolean and its slot
+	 */
+	private final String[] variables;
+
+	private final boolean[] booleanVariables;
+
+	private final int[] slots;
+
+	/**
+	 * return the number of boolean slots an execution frame of this program
+	 * needs
+	 */
+	@Basic
+	@Immutable
+	public int getNbBooleanSlots() {
+		return this.nbBooleanSlots;
+	}
+
+	private final int nbBooleanSlots;
+
+	/**
+	 * return the number of reference slots an execution frame of this program
+	 * needs
+	 */
+	@Basic
+	@Immutable
+	public int getNbReferenceSlots() {
+		return this.nbReferenceSlots;
+	}
+
+	private final int nbReferenceSlots;
+
+	/**
+	 * return the value of the variable with the given name in the given
+	 * frame, null if this program has no such variable or it has no value
+	 * yet
+	 */
+	public Type getVariable(ExecutionFrame frame, String name) {
+		for (int variable = 0; variable < this.variables.length; variable++)
+			if (this.variables[variable].equals(name))
+				return this.booleanVariables[variable] ? BooleanType.valueOf(frame.getBoolean(this.slots[variable]))
+						: frame.getReference(this.slots[variable]);
+		return null;
+	}
+
+	/**
+	 * check whether this program has a variable with the given name
+	 */
+	public boolean hasVariable(String name) {
+		for (String variable : this.variables)
+			if (variable.equals(name))
+				return true;
+		return false;
+	}
+
+	/**
+	 * execute the given task, whose state is kept in the given frame, until
+	 * its unit has to perform an action, the given counter runs out or the
+	 * program has ended
+	 *
+	 * @param task
+	 *            the task executing this program
+	 * @param frame
+	 *            the execution frame of the task
+	 * @param counter
+	 *            the counter limiting the number of instructions to execute,
+	 *            incremented once for every instruction
+	 * @note	an action whose argument has no value, such as moving to the
+	 * 			nearest boulder when there are none, is skipped.
+	 * @note	the frame is up to date before the unit starts an action, since
+	 * 			a unit can finish some actions immediately and continue its
+	 * 			task from inside this method.
+	 */
+	public void execute(Task task, ExecutionFrame frame, Counter counter) {
+		int[] code = this.code;
+		int pc = frame.getProgramCounter();
+		while (pc >= 0 && !frame.isWaitingForAction() && counter.getCount() < counter.getMaxValue()
+				&& !task.getUnit().isDead()) {
+			counter.increment();
+			switch (code[pc]) {
+			case END:
+				pc = -1;
+				break;
+			case JUMP:
+				pc = code[pc + 1];
+				break;
+			case JUMP_IF_FALSE:
+				pc = this.test(code[pc + 1], task) ? pc + 3 : code[pc + 2];
+				break;
+			case ASSIGN_BOOLEAN:
+				frame.setBoolean(code[pc + 1], this.test(code[pc + 2], task));
+				pc += 3;
+				break;
+			case ASSIGN_REFERENCE:
+				frame.setReference(code[pc + 1], this.evaluate(code[pc + 2], task));
+				pc += 3;
+				break;
+			case PRINT:
+				System.out.println(this.evaluate(code[pc + 1], task).toString());
+				pc += 2;
+				break;
+			default:
+				Type argument = this.evaluate(code[pc + 1], task);
+				if (argument == null || argument.getValue() == null) {
+					// there is nothing to perform the action on, e.g. no boulder
+					pc += 2;
+					break;
+				}
+				frame.setProgramCounter(pc + 2);
+				frame.waitForAction();
+				this.startAction(code[pc], task.getUnit(), argument.getValue());
+				return;
+			}
+		}
+		frame.setProgramCounter(pc);
+	}
+
+	private Type evaluate(int expression, Task task) {
+		return this.expressions[expression].evaluate(task);
+	}
+
+	/**
+	 * evaluate the given expression, which the compiler checked to be a
+	 * boolean
+	 */
+	private boolean test(int expression, Task task) {
+		return ((BooleanType) this.evaluate(expression, task)).booleanValue();
+	}
+
+	private void startAction(int opcode, Unit unit, Object argument) {
+		switch (opcode) {
+		case MOVE_TO:
+			unit.moveTo((Cube) argument);
+			break;
+		case WORK:
+			unit.workAt((Cube) argument);
+			break;
+		case FOLLOW:
+			unit.follow((Unit) argument);
+			break;
+		case ATTACK:
+			unit.attack((Unit) argument);
+			break;
+		default:
+			throw new IllegalStateException("Unknown opcode " + opcode);
+		}
+	}
+}
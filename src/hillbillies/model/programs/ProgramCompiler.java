@@ -0,0 +1,368 @@
+package hillbillies.model.programs;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+import hillbillies.model.programs.expressions.IBooleanExpression;
+import hillbillies.model.programs.expressions.ICubeExpression;
+import hillbillies.model.programs.expressions.IExpression;
+import hillbillies.model.programs.expressions.IUnitExpression;
+import hillbillies.model.programs.expressions.VariableExpression;
+import hillbillies.model.programs.statements.Statement;
+
+/**
+ * a class lowering statements into the instructions of a program
+ *
+ * @note	every statement emits its own instructions. Control flow is lowered
+ * 			to jumps: a jump whose target is not known yet is emitted with an
+ * 			open target and patched once the target is reached, and every break
+ * 			becomes a jump to the end of its innermost while loop.
+ * @note	variables are resolved to slots once all statements are compiled.
+ * 			The type of a variable is the type of the values assigned to it;
+ * 			booleans get a slot in the boolean slots of the execution frame,
+ * 			cubes and units in its reference slots. Reading a variable that is
+ * 			never assigned, or as another type, is an error.
+ * @note	conditions must be booleans, the arguments of moveTo and work
+ * 			cubes and those of follow and attack units; other arguments are
+ * 			type errors, found when the program is compiled rather than when
+ * 			it executes.
+ * @note	the instructions refer to copies of the expressions with their
+ * 			variable reads bound to slots; the statements and expressions
+ * 			that are compiled are not changed.
+ *
+ * @author Ellen & Marte
+ */
+public class ProgramCompiler {
+
+	/**
+	 * create a new compiler without instructions
+	 */
+	ProgramCompiler() {
+	}
+
+	/**
+	 * the instructions emitted so far, in the first size positions
+	 */
+	private int[] code = new int[32];
+
+	private int size;
+
+	/**
+	 * the expressions the instructions refer to
+	 */
+	private final List<IExpression<?>> expressions = new ArrayList<IExpression<?>>();
+
+	/**
+	 * the names of the variables that are assigned, with their types
+	 */
+	private final List<String> variables = new ArrayList<String>();
+
+	private final List<Integer> variableTypes = new ArrayList<Integer>();
+
+	/**
+	 * the types of variables
+	 */
+	private static final int UNKNOWN = 0, BOOLEAN = 1, CUBE = 2, UNIT = 3;
+
+	/**
+	 * the expressions whose type is fixed by the instruction using them, with
+	 * that type
+	 */
+	private final List<Integer> typedExpressions = new ArrayList<Integer>();
+
+	private final List<Integer> expectedTypes = new ArrayList<Integer>();
+
+	/**
+	 * the positions of the assignment instructions
+	 */
+	private final List<Integer> assignments = new ArrayList<Integer>();
+
+	/**
+	 * the variables read by the expressions
+	 */
+	private final List<VariableExpression<?>> reads = new ArrayList<VariableExpression<?>>();
+
+	/**
+	 * for every variable, its slot in the boolean or reference slots
+	 */
+	private int[] slots;
+
+	private int nbBooleanSlots, nbReferenceSlots;
+
+	/**
+	 * for every while loop that is being compiled, the positions of the
+	 * targets of its breaks
+	 */
+	private final Deque<List<Integer>> breaks = new ArrayDeque<List<Integer>>();
+
+	/**
+	 * return the position of the next instruction
+	 */
+	public int getPosition() {
+		return this.size;
+	}
+
+	/**
+	 * emit an instruction jumping to the given position
+	 */
+	public void emitJump(int target) {
+		this.emit(Program.JUMP, target);
+	}
+
+	/**
+	 * emit an instruction jumping to a position that is not known yet
+	 *
+	 * @return the position of the target of the jump, to patch
+	 */
+	public int emitForwardJump() {
+		this.emit(Program.JUMP, -1);
+		return this.size - 1;
+	}
+
+	/**
+	 * emit an instruction evaluating the given condition and jumping to a
+	 * position that is not known yet if it is false
+	 *
+	 * @return the position of the target of the jump, to patch
+	 */
+	public int emitJumpIfFalse(IBooleanExpression condition) {
+		this.emit(Program.JUMP_IF_FALSE, this.expression(condition, BOOLEAN), -1);
+		return this.size - 1;
+	}
+
+	/**
+	 * let the jump with its target at the given position jump to the next
+	 * instruction
+	 */
+	public void patch(int targetPosition) {
+		this.code[targetPosition] = this.size;
+	}
+
+	/**
+	 * start compiling the body of a while loop
+	 */
+	public void startLoop() {
+		this.breaks.push(new ArrayList<Integer>());
+	}
+
+	/**
+	 * finish compiling the body of a while loop, letting its breaks jump to
+	 * the next instruction
+	 */
+	public void endLoop() {
+		for (int targetPosition : this.breaks.pop())
+			this.patch(targetPosition);
+	}
+
+	/**
+	 * emit the instructions of a break
+	 *
+	 * @note	a break outside a while loop ends the program; such programs are
+	 * 			not well formed
+	 */
+	public void emitBreak() {
+		if (this.breaks.isEmpty())
+			this.emit(Program.END);
+		else
+			this.breaks.peek().add(this.emitForwardJump());
+	}
+
+	/**
+	 * emit an assignment; its opcode and slot are set when the variables are
+	 * resolved
+	 */
+	public void emitAssignment(String variableName, IExpression<?> value) {
+		this.assignments.add(this.size);
+		this.emit(Program.ASSIGN_REFERENCE, this.variable(variableName), this.expression(value));
+	}
+
+	/**
+	 * register the given variable read, to resolve its slot
+	 */
+	public void addRead(VariableExpression<?> read) {
+		this.reads.add(read);
+	}
+
+	public void emitPrint(IExpression<?> value) {
+		this.emit(Program.PRINT, this.expression(value));
+	}
+
+	public void emitMoveTo(ICubeExpression cube) {
+		this.emit(Program.MOVE_TO, this.expression(cube, CUBE));
+	}
+
+	public void emitWork(ICubeExpression cube) {
+		this.emit(Program.WORK, this.expression(cube, CUBE));
+	}
+
+	public void emitFollow(IUnitExpression unit) {
+		this.emit(Program.FOLLOW, this.expression(unit, UNIT));
+	}
+
+	public void emitAttack(IUnitExpression unit) {
+		this.emit(Program.ATTACK, this.expression(unit, UNIT));
+	}
+
+	/**
+	 * compile the given statement, followed by the end of the program
+	 */
+	void compile(Statement body) throws IllegalArgumentException {
+		body.compile(this);
+		this.emit(Program.END);
+		this.resolveVariables();
+	}
+
+	/**
+	 * give every variable a type and a slot, and let the assignments and
+	 * reads use them
+	 *
+	 * @throws IllegalArgumentException
+	 *             a variable is read but never assigned, read as another type
+	 *             than it is assigned or assigned values of different types
+	 * @throws IllegalArgumentException
+	 *             a condition is not a boolean, or an action gets an argument
+	 *             of another type than it acts on
+	 */
+	private void resolveVariables() throws IllegalArgumentException {
+		// a variable assigned another variable gets its type once that one
+		// has one
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (int position : this.assignments) {
+				int variable = this.code[position + 1];
+				int type = this.typeOf(this.expressions.get(this.code[position + 2]));
+				int known = this.variableTypes.get(variable);
+				if (type != UNKNOWN && known == UNKNOWN) {
+					this.variableTypes.set(variable, type);
+					changed = true;
+				} else if (type != UNKNOWN && type != known)
+					throw new IllegalArgumentException(
+							"Variable " + this.variables.get(variable) + " is assigned values of different types");
+			}
+		}
+		this.slots = new int[this.variables.size()];
+		for (int variable = 0; variable < this.slots.length; variable++)
+			this.slots[variable] = this.variableTypes.get(variable) == BOOLEAN ? this.nbBooleanSlots++
+					: this.nbReferenceSlots++;
+		for (VariableExpression<?> read : this.reads) {
+			int variable = this.variables.indexOf(read.getVariableName());
+			if (variable < 0 || this.variableTypes.get(variable) == UNKNOWN)
+				throw new IllegalArgumentException("Undefined variable " + read.getVariableName());
+			int expected = this.typeOf(read);
+			if (expected != UNKNOWN && expected != this.variableTypes.get(variable))
+				throw new IllegalArgumentException("Variable " + read.getVariableName() + " has another type");
+		}
+		for (int i = 0; i < this.typedExpressions.size(); i++) {
+			IExpression<?> expression = this.expressions.get(this.typedExpressions.get(i));
+			if (this.typeOf(expression) != this.expectedTypes.get(i))
+				throw new IllegalArgumentException("Expression " + expression + " has another type");
+		}
+		for (int position : this.assignments) {
+			int variable = this.code[position + 1];
+			this.code[position] = this.variableTypes.get(variable) == BOOLEAN ? Program.ASSIGN_BOOLEAN
+					: Program.ASSIGN_REFERENCE;
+			this.code[position + 1] = this.slots[variable];
+		}
+		for (int expression = 0; expression < this.expressions.size(); expression++)
+			this.expressions.set(expression, this.expressions.get(expression).bind(this));
+	}
+
+	/**
+	 * return the slot of the variable with the given name, once the variables
+	 * are resolved
+	 */
+	public int getSlotOf(String variableName) {
+		return this.slots[this.variables.indexOf(variableName)];
+	}
+
+	/**
+	 * check whether the variable with the given name is kept in a boolean
+	 * slot, once the variables are resolved
+	 */
+	public boolean isBooleanVariable(String variableName) {
+		return this.variableTypes.get(this.variables.indexOf(variableName)) == BOOLEAN;
+	}
+
+	/**
+	 * return the type of the values of the given expression, UNKNOWN for a
+	 * variable read that is not typed yet
+	 */
+	private int typeOf(IExpression<?> expression) throws IllegalArgumentException {
+		if (expression instanceof IBooleanExpression)
+			return BOOLEAN;
+		if (expression instanceof ICubeExpression)
+			return CUBE;
+		if (expression instanceof IUnitExpression)
+			return UNIT;
+		if (expression instanceof VariableExpression) {
+			int variable = this.variables.indexOf(((VariableExpression<?>) expression).getVariableName());
+			return variable < 0 ? UNKNOWN : this.variableTypes.get(variable);
+		}
+		throw new IllegalArgumentException("Expression " + expression + " has no type");
+	}
+
+	int[] getCode() {
+		return Arrays.copyOf(this.code, this.size);
+	}
+
+	IExpression<?>[] getExpressions() {
+		return this.expressions.toArray(new IExpression<?>[this.expressions.size()]);
+	}
+
+	String[] getVariables() {
+		return this.variables.toArray(new String[this.variables.size()]);
+	}
+
+	int[] getSlots() {
+		return this.slots;
+	}
+
+	boolean[] getBooleanVariables() {
+		boolean[] result = new boolean[this.variables.size()];
+		for (int variable = 0; variable < result.length; variable++)
+			result[variable] = this.variableTypes.get(variable) == BOOLEAN;
+		return result;
+	}
+
+	int getNbBooleanSlots() {
+		return this.nbBooleanSlots;
+	}
+
+	int getNbReferenceSlots() {
+		return this.nbReferenceSlots;
+	}
+
+	private int expression(IExpression<?> expression) {
+		expression.resolveVariables(this);
+		this.expressions.add(expression);
+		return this.expressions.size() - 1;
+	}
+
+	private int expression(IExpression<?> expression, int type) {
+		int result = this.expression(expression);
+		this.typedExpressions.add(result);
+		this.expectedTypes.add(type);
+		return result;
+	}
+
+	private int variable(String name) {
+		int index = this.variables.indexOf(name);
+		if (index < 0) {
+			this.variables.add(name);
+			this.variableTypes.add(UNKNOWN);
+			index = this.variables.size() - 1;
+		}
+		return index;
+	}
+
+	private void emit(int... instruction) {
+		if (this.size + instruction.length > this.code.length)
+			this.code = Arrays.copyOf(this.code, 2 * this.code.length + instruction.length);
+		for (int word : instruction)
+			this.code[this.size++] = word;
+	}
+}
@@ -1,6 +1,7 @@
 package hillbillies.model.programs.expressions;
 
 import hillbillies.model.Task;
+import hillbillies.model.programs.ProgramCompiler;
 import hillbillies.model.programs.type.BooleanType;
 
 public class AndExpression extends BooleanExpression {
@@ -41,4 +42,14 @@ public class AndExpression extends BooleanExpression {
 		return getFirstExpression().toString() + "AND" + getSecondExpression().toString();
 	}
 
+	@Override
+	public void resolveVariables(ProgramCompiler compiler) {
+		getFirstExpression().resolveVariables(compiler);
+		getSecondExpression().resolveVariables(compiler);
+	}
+
+	@Override
+	public AndExpression bind(ProgramCompiler compiler) {
+		return new AndExpression(getFirstExpression().bind(compiler), getSecondExpression().bind(compiler));
+	}
 }
@@ -1,9 +1,7 @@
 package hillbillies.model.programs.expressions;
 
 import hillbillies.model.Task;
-import hillbillies.model.Unit;
 import hillbillies.model.programs.type.UnitType;
-import hillbillies.model.DistPair;
 
 public class AnyExpression extends UnitExpression {
 
@@ -11,17 +9,14 @@ public class AnyExpression extends UnitExpression {
 	}
 
 	@Override
-	public UnitType evaluate(Task task) {		
+	public UnitType evaluate(Task task) {
 		try {
-			return new UnitType((Unit) task.getUnit().getWorld().getAllUnits()
-					.stream()
-					.map(unit -> new DistPair<Unit>((Unit) unit, task.getUnit().getPosition().getDistanceSquare(unit.getPosition())))
-					.reduce(DistPair<Unit>::getMinimum).get().getThing());
+			return new UnitType(task.getUnit().getWorld().getNearestQuery().getNearestUnit(task.getUnit()));
 		} catch (NullPointerException exc) {
 			return null;
 		}
 	}
-	
+
 	@Override
 	public String toString() {
 		return "any";
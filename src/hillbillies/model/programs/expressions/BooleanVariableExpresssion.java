@@ -1,5 +1,6 @@
 package hillbillies.model.programs.expressions;
 
+import hillbillies.model.programs.ProgramCompiler;
 import hillbillies.model.programs.type.BooleanType;
 
 public class BooleanVariableExpresssion extends VariableExpression<BooleanType> implements IBooleanExpression {
@@ -8,4 +9,13 @@ public class BooleanVariableExpresssion extends VariableExpression<BooleanType>
 		super(name);
 	}
 
+	private BooleanVariableExpresssion(String name, int slot) {
+		super(name, true, slot);
+	}
+
+	@Override
+	public BooleanVariableExpresssion bind(ProgramCompiler compiler) {
+		return new BooleanVariableExpresssion(getVariableName(), compiler.getSlotOf(getVariableName()));
+	}
+
 }
@@ -1,8 +1,5 @@
 package hillbillies.model.programs.expressions;
 
-import hillbillies.model.Boulder;
-import hillbillies.model.Cube;
-import hillbillies.model.DistPair;
 import hillbillies.model.Task;
 import hillbillies.model.programs.type.CubeType;
 
@@ -14,11 +11,8 @@ public class BoulderExpression extends CubeExpression {
 	@Override
 	public CubeType evaluate(Task task) {
 		try {
-			return new CubeType((Cube) task.getUnit().getWorld().getAllMaterials()
-					.stream()
-					.filter(material -> material instanceof Boulder)
-					.map(boulder -> new DistPair<Boulder>((Boulder) boulder, task.getUnit().getPosition().getDistanceSquare(boulder.getPosition())))
-					.reduce(DistPair<Boulder>::getMinimum).get().getThing().getPosition().getCube());
+			return new CubeType(task.getUnit().getWorld().getNearestQuery()
+					.getNearestBoulder(task.getUnit().getPosition()).getPosition().getCube());
 		} catch (NullPointerException exc) {
 			return null;
 		}
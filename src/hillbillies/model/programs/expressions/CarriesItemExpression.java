@@ -1,6 +1,7 @@
 package hillbillies.model.programs.expressions;
 
 import hillbillies.model.Task;
+import hillbillies.model.programs.ProgramCompiler;
 import hillbillies.model.Unit;
 import hillbillies.model.programs.type.BooleanType;
 import hillbillies.model.programs.type.UnitType;
@@ -32,4 +33,13 @@ public class CarriesItemExpression extends BooleanExpression {
 		return getExpression().toString() + "carriesItem";
 	}
 
+	@Override
+	public void resolveVariables(ProgramCompiler compiler) {
+		getExpression().resolveVariables(compiler);
+	}
+
+	@Override
+	public CarriesItemExpression bind(ProgramCompiler compiler) {
+		return new CarriesItemExpression(getExpression().bind(compiler));
+	}
 }
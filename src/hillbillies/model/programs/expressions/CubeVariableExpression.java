@@ -1,5 +1,6 @@
 package hillbillies.model.programs.expressions;
 
+import hillbillies.model.programs.ProgramCompiler;
 import hillbillies.model.programs.type.CubeType;
 
 public class CubeVariableExpression extends VariableExpression<CubeType> implements ICubeExpression {
@@ -8,4 +9,13 @@ public class CubeVariableExpression extends VariableExpression<CubeType> impleme
 		super(name);
 	}
 
+	private CubeVariableExpression(String name, int slot) {
+		super(name, false, slot);
+	}
+
+	@Override
+	public CubeVariableExpression bind(ProgramCompiler compiler) {
+		return new CubeVariableExpression(getVariableName(), compiler.getSlotOf(getVariableName()));
+	}
+
 }
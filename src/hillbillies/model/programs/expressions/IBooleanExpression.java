@@ -1,7 +1,12 @@
 package hillbillies.model.programs.expressions;
 
+import hillbillies.model.programs.ProgramCompiler;
 import hillbillies.model.programs.type.BooleanType;
 
 public interface IBooleanExpression extends IExpression<BooleanType> {
 
+	@Override
+	public default IBooleanExpression bind(ProgramCompiler compiler) {
+		return this;
+	}
 }
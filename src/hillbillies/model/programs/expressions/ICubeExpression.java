@@ -1,7 +1,12 @@
 package hillbillies.model.programs.expressions;
 
+import hillbillies.model.programs.ProgramCompiler;
 import hillbillies.model.programs.type.CubeType;
 
 public interface ICubeExpression extends IExpression<CubeType> {
 
+	@Override
+	public default ICubeExpression bind(ProgramCompiler compiler) {
+		return this;
+	}
 }
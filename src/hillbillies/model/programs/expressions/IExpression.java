@@ -1,10 +1,27 @@
 package hillbillies.model.programs.expressions;
 
 import hillbillies.model.Task;
+import hillbillies.model.programs.ProgramCompiler;
 import hillbillies.model.programs.type.Type;
 
 public interface IExpression<T extends Type> {
 	
 	public abstract T evaluate(Task task);
 
+	/**
+	 * Register the variables read by this expression with the given compiler,
+	 * which resolves them to their slots.
+	 */
+	public default void resolveVariables(ProgramCompiler compiler) {
+	}
+
+	/**
+	 * Return this expression with the variables it reads bound to the slots
+	 * the given compiler resolved. This expression itself is left unchanged,
+	 * so a parse tree can be compiled into several programs.
+	 */
+	public default IExpression<T> bind(ProgramCompiler compiler) {
+		return this;
+	}
+
 }
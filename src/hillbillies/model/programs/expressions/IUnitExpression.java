@@ -1,7 +1,12 @@
 package hillbillies.model.programs.expressions;
 
+import hillbillies.model.programs.ProgramCompiler;
 import hillbillies.model.programs.type.UnitType;
 
 public interface IUnitExpression extends IExpression<UnitType> {
 
+	@Override
+	public default IUnitExpression bind(ProgramCompiler compiler) {
+		return this;
+	}
 }
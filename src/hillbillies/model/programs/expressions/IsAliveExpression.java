@@ -1,6 +1,7 @@
 package hillbillies.model.programs.expressions;
 
 import hillbillies.model.Task;
+import hillbillies.model.programs.ProgramCompiler;
 import hillbillies.model.Unit;
 import hillbillies.model.programs.type.BooleanType;
 import hillbillies.model.programs.type.UnitType;
@@ -31,4 +32,13 @@ public class IsAliveExpression extends BooleanExpression {
 		return getExpression().toString()+"isAlive";
 	}
 
+	@Override
+	public void resolveVariables(ProgramCompiler compiler) {
+		getExpression().resolveVariables(compiler);
+	}
+
+	@Override
+	public IsAliveExpression bind(ProgramCompiler compiler) {
+		return new IsAliveExpression(getExpression().bind(compiler));
+	}
 }
@@ -1,6 +1,7 @@
 package hillbillies.model.programs.expressions;
 
 import hillbillies.model.Task;
+import hillbillies.model.programs.ProgramCompiler;
 import hillbillies.model.Unit;
 import hillbillies.model.programs.type.BooleanType;
 import hillbillies.model.programs.type.Type;
@@ -30,4 +31,14 @@ public class IsFriendExpression extends BooleanExpression {
 	public String toString(){
 		return getExpression().toString() + "isFriend";
 	}
-}
\ No newline at end of file
+
+	@Override
+	public void resolveVariables(ProgramCompiler compiler) {
+		getExpression().resolveVariables(compiler);
+	}
+
+	@Override
+	public IsFriendExpression bind(ProgramCompiler compiler) {
+		return new IsFriendExpression(getExpression().bind(compiler));
+	}
+}
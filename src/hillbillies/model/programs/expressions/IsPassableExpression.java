@@ -2,6 +2,7 @@ package hillbillies.model.programs.expressions;
 
 import hillbillies.model.Cube;
 import hillbillies.model.Task;
+import hillbillies.model.programs.ProgramCompiler;
 import hillbillies.model.programs.type.BooleanType;
 import hillbillies.model.programs.type.CubeType;
 
@@ -31,4 +32,13 @@ public class IsPassableExpression extends BooleanExpression {
 		return getExpression().toString()+"isPassable";
 	}
 
+	@Override
+	public void resolveVariables(ProgramCompiler compiler) {
+		getExpression().resolveVariables(compiler);
+	}
+
+	@Override
+	public IsPassableExpression bind(ProgramCompiler compiler) {
+		return new IsPassableExpression(getExpression().bind(compiler));
+	}
 }
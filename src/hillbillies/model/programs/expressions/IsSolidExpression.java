@@ -4,6 +4,7 @@ import hillbillies.model.programs.type.BooleanType;
 import hillbillies.model.programs.type.CubeType;
 import hillbillies.model.Cube;
 import hillbillies.model.Task;
+import hillbillies.model.programs.ProgramCompiler;
 
 public class IsSolidExpression extends BooleanExpression {
 
@@ -31,4 +32,13 @@ public class IsSolidExpression extends BooleanExpression {
 		return getExpression().toString()+"isSolid";
 	}
 
+	@Override
+	public void resolveVariables(ProgramCompiler compiler) {
+		getExpression().resolveVariables(compiler);
+	}
+
+	@Override
+	public IsSolidExpression bind(ProgramCompiler compiler) {
+		return new IsSolidExpression(getExpression().bind(compiler));
+	}
 }
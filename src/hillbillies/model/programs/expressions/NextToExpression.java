@@ -2,6 +2,7 @@ package hillbillies.model.programs.expressions;
 
 import hillbillies.model.Cube;
 import hillbillies.model.Task;
+import hillbillies.model.programs.ProgramCompiler;
 import hillbillies.model.programs.type.CubeType;
 
 public class NextToExpression extends CubeExpression {
@@ -34,4 +35,13 @@ public class NextToExpression extends CubeExpression {
 		return "nextTo" + getExpression().toString();
 	}
 
+	@Override
+	public void resolveVariables(ProgramCompiler compiler) {
+		getExpression().resolveVariables(compiler);
+	}
+
+	@Override
+	public NextToExpression bind(ProgramCompiler compiler) {
+		return new NextToExpression(getExpression().bind(compiler));
+	}
 }
@@ -1,6 +1,7 @@
 package hillbillies.model.programs.expressions;
 
 import hillbillies.model.Task;
+import hillbillies.model.programs.ProgramCompiler;
 import hillbillies.model.programs.type.BooleanType;
 
 public class NotExpression extends BooleanExpression {
@@ -28,4 +29,14 @@ public class NotExpression extends BooleanExpression {
 	public String toString(){
 		return "NOT" + getExpression().toString();
 	}
+
+	@Override
+	public void resolveVariables(ProgramCompiler compiler) {
+		getExpression().resolveVariables(compiler);
+	}
+
+	@Override
+	public NotExpression bind(ProgramCompiler compiler) {
+		return new NotExpression(getExpression().bind(compiler));
+	}
 }
@@ -1,6 +1,7 @@
 package hillbillies.model.programs.expressions;
 
 import hillbillies.model.Task;
+import hillbillies.model.programs.ProgramCompiler;
 import hillbillies.model.programs.type.Type;
 
 public class ParenthesisExpression<T extends Type> extends Expression<T> {
@@ -30,4 +31,13 @@ public class ParenthesisExpression<T extends Type> extends Expression<T> {
 		return "("+getExpression().toString()+")";
 	}
 
+	@Override
+	public void resolveVariables(ProgramCompiler compiler) {
+		getExpression().resolveVariables(compiler);
+	}
+
+	@Override
+	public ParenthesisExpression<T> bind(ProgramCompiler compiler) {
+		return new ParenthesisExpression<T>((Expression<?>) getExpression().bind(compiler));
+	}
 }
@@ -1,6 +1,7 @@
 package hillbillies.model.programs.expressions;
 
 import hillbillies.model.Task;
+import hillbillies.model.programs.ProgramCompiler;
 import hillbillies.model.Unit;
 import hillbillies.model.programs.type.CubeType;
 import hillbillies.model.programs.type.UnitType;
@@ -31,4 +32,13 @@ public class PositionOfExpression extends CubeExpression {
 		return "positionOf" + getExpression().toString();
 	}
 
+	@Override
+	public void resolveVariables(ProgramCompiler compiler) {
+		getExpression().resolveVariables(compiler);
+	}
+
+	@Override
+	public PositionOfExpression bind(ProgramCompiler compiler) {
+		return new PositionOfExpression(getExpression().bind(compiler));
+	}
 }
@@ -1,5 +1,6 @@
 package hillbillies.model.programs.expressions;
 
+import hillbillies.model.programs.ProgramCompiler;
 import hillbillies.model.programs.type.UnitType;
 
 public class UnitVariableExpression extends VariableExpression<UnitType> implements IUnitExpression {
@@ -8,4 +9,13 @@ public class UnitVariableExpression extends VariableExpression<UnitType> impleme
 		super(name);
 	}
 
+	private UnitVariableExpression(String name, int slot) {
+		super(name, false, slot);
+	}
+
+	@Override
+	public UnitVariableExpression bind(ProgramCompiler compiler) {
+		return new UnitVariableExpression(getVariableName(), compiler.getSlotOf(getVariableName()));
+	}
+
 }
@@ -1,20 +1,61 @@
 package hillbillies.model.programs.expressions;
 
 import hillbillies.model.Task;
+import hillbillies.model.programs.ExecutionFrame;
+import hillbillies.model.programs.ProgramCompiler;
+import hillbillies.model.programs.type.BooleanType;
 import hillbillies.model.programs.type.Type;
 
 public class VariableExpression<T extends Type> extends Expression<T> {
 
 	public VariableExpression(String name) {
+		this(name, false, -1);
+	}
+
+	/**
+	 * Create a read of the given variable from the given slot of the execution
+	 * frame.
+	 */
+	protected VariableExpression(String name, boolean booleanSlot, int slot) {
 		variableName = name;
+		this.booleanSlot = booleanSlot;
+		this.slot = slot;
 	}
 	
-	private String variableName;	
+	public String getVariableName() {
+		return variableName;
+	}
+
+	private final String variableName;
+
+	/**
+	 * The slot this variable is read from, -1 for a read in a parse tree that
+	 * is not bound to a program yet.
+	 */
+	private final boolean booleanSlot;
+
+	private final int slot;
 
 	@SuppressWarnings("unchecked")
 	@Override
-	public T evaluate(Task task) {
-		return (T) task.getGlobalVariable(variableName);
+	public T evaluate(Task task) throws IllegalStateException {
+		if (slot < 0)
+			throw new IllegalStateException("Variable " + variableName + " is not resolved");
+		ExecutionFrame frame = task.getExecutionFrame();
+		if (booleanSlot)
+			return (T) BooleanType.valueOf(frame.getBoolean(slot));
+		return (T) frame.getReference(slot);
+	}
+
+	@Override
+	public void resolveVariables(ProgramCompiler compiler) {
+		compiler.addRead(this);
+	}
+
+	@Override
+	public VariableExpression<T> bind(ProgramCompiler compiler) {
+		return new VariableExpression<T>(variableName, compiler.isBooleanVariable(variableName),
+				compiler.getSlotOf(variableName));
 	}
 	
 	@Override
@@ -1,6 +1,5 @@
 package hillbillies.model.programs.expressions;
 
-import hillbillies.model.Cube;
 import hillbillies.model.Task;
 import hillbillies.model.programs.type.CubeType;
 
@@ -11,15 +10,7 @@ public class WorkshopExpression extends CubeExpression {
 
 	@Override
 	public CubeType evaluate(Task task) {
-		Cube nearestWorkshopSoFar = null;
-		for (Cube workshop : task.getUnit().getWorld().getAllWorkshops()) {
-				if (nearestWorkshopSoFar == null)
-					nearestWorkshopSoFar = workshop;
-				else if (task.getUnit().getPosition().getDistanceSquare(workshop.getCenter()) < task.getUnit().getPosition()
-						.getDistanceSquare(nearestWorkshopSoFar.getCenter()))
-					nearestWorkshopSoFar = workshop;
-		}
-		return new CubeType(nearestWorkshopSoFar);
+		return new CubeType(task.getUnit().getWorld().getNearestQuery().getNearestWorkshop(task.getUnit().getPosition()));
 	}
 
 	@Override
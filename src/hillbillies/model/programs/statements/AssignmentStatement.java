@@ -1,34 +1,18 @@
 package hillbillies.model.programs.statements;
 
-import hillbillies.model.Counter;
-import hillbillies.model.Task;
+import hillbillies.model.programs.ProgramCompiler;
 import hillbillies.model.programs.expressions.IExpression;
-import hillbillies.model.programs.type.Type;
 
 public class AssignmentStatement extends Statement {
-	
-	private AssignmentStatement(String variableName, IExpression<?> value, boolean hasBeenFullyExecuted) {
-		super(hasBeenFullyExecuted);
-		this.variableName = variableName;
-		this.expression = value;	
-	}
 
 	public AssignmentStatement(String variableName, IExpression<?> value) {
-		this(variableName, value, false);
+		this.variableName = variableName;
+		this.expression = value;
 	}
 
 	@Override
-	public void execute(Task task, Counter counter) {
-		counter.increment();
-		task.setGlobalVariable(getVariableName(), new Type(getExpression().evaluate(task)));
-		SetHasFullyExecutedToTrue();
-	}
-
-	@Override
-	public boolean canExecute(Task task, Counter counter) {
-		if (hasBeenFullyExecuted() || counter.getCount() + 1 > counter.getMaxValue())
-			return false;
-		return true;
+	public void compile(ProgramCompiler compiler) {
+		compiler.emitAssignment(getVariableName(), getExpression());
 	}
 
 	public String getVariableName() {
@@ -44,7 +28,7 @@ public class AssignmentStatement extends Statement {
 	private final IExpression<?> expression;
 
 	@Override
-	public boolean isWellFormed() {
+	protected boolean isWellFormed(boolean insideWhile) {
 		return true;
 	}
 
@@ -52,16 +36,5 @@ public class AssignmentStatement extends Statement {
 	public boolean containsActionStatement() {
 		return false;
 	}
-	
-	@Override
-	public AssignmentStatement clone() {
-		return new AssignmentStatement(variableName, expression, hasBeenFullyExecuted());
-	}
-	
-	@Override
-	public void reset(Task task) {
-		task.removeGlobalVariable(getVariableName());
-		super.reset(task);
-	}
 
 }
@@ -1,44 +1,27 @@
 package hillbillies.model.programs.statements;
 
-import hillbillies.model.Task;
+import hillbillies.model.programs.ProgramCompiler;
 import hillbillies.model.programs.expressions.IExpression;
-import hillbillies.model.Counter;
 
 public class PrintStatement extends Statement {
-	
-	private PrintStatement(IExpression<?> expression, boolean hasBeenFullyExecuted) {
-		super(hasBeenFullyExecuted);
-		this.expression = expression;
-	}
 
 	public PrintStatement(IExpression<?> expression) {
-		this(expression, false);
+		this.expression = expression;
 	}
-	
+
 	public IExpression<?> getExpression() {
 		return expression;
 	}
-	
-	private final IExpression<?> expression;
 
-	@Override
-	public void execute(Task task, Counter counter) {
-		counter.increment();
-		System.out.println(expression.evaluate(task).toString());
-		super.SetHasFullyExecutedToTrue();
-	}
+	private final IExpression<?> expression;
 
 	@Override
-	public boolean canExecute(Task task, Counter counter) {
-		counter.increment();
-		if (counter.getCount() + 1 > counter.getMaxValue() || hasBeenFullyExecuted()) {
-			return false;
-		}
-		return true;
+	public void compile(ProgramCompiler compiler) {
+		compiler.emitPrint(getExpression());
 	}
 
 	@Override
-	public boolean isWellFormed() {
+	protected boolean isWellFormed(boolean insideWhile) {
 		return true;
 	}
 
@@ -47,9 +30,4 @@ public class PrintStatement extends Statement {
 		return false;
 	}
 
-	@Override
-	public PrintStatement clone() {
-		return new PrintStatement(getExpression(), hasBeenFullyExecuted());
-	}
-	
 }
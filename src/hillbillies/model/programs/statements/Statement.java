@@ -1,70 +1,28 @@
 package hillbillies.model.programs.statements;
 
-import java.util.HashSet;
+import hillbillies.model.programs.ProgramCompiler;
 
-import hillbillies.model.Counter;
-import hillbillies.model.Task;
-
-public abstract class Statement implements Cloneable {
-
-	protected Statement(boolean hasFullyExecuted) {
-		this.hasFullyExecuted = hasFullyExecuted;
-	}
+/**
+ * Statements are immutable, so the statements of one program can be shared by
+ * all its tasks. They are not executed themselves, but compiled into the
+ * instructions of a program.
+ */
+public abstract class Statement {
 
 	protected Statement() {
-		this(false);
 	}
 
 	/**
-	 * Naming with 'fully' to avoid confusion since execute() doesn't per se
-	 * make this attribute true
+	 * Emit the instructions executing this statement.
 	 */
-	private boolean hasFullyExecuted;
+	public abstract void compile(ProgramCompiler compiler);
 
-	public boolean hasBeenFullyExecuted() {
-		return hasFullyExecuted;
+	public boolean isWellFormed() {
+		return isWellFormed(false);
 	}
 
-	public void SetHasFullyExecutedToTrue() {
-		hasFullyExecuted = true;
-	}
-
-	public Statement getExecutingStatement() {
-		return this;
-	}
-
-	public abstract void execute(Task task, Counter counter);
-
-	public abstract boolean canExecute(Task task, Counter counter);
-
-	public abstract boolean isWellFormed();
+	protected abstract boolean isWellFormed(boolean insideWhile);
 
 	public abstract boolean containsActionStatement();
 
-	public abstract Statement clone();
-
-	public HashSet<Statement> getDirectChildStatements() {
-		return new HashSet<Statement>();
-	}
-
-	protected Statement getParentStatement() {
-		return parentStatement;
-	}
-
-	public void setParentStatement(Statement parentStatement) {
-		this.parentStatement = parentStatement;
-	}
-
-	protected boolean hasParentStatement() {
-		return (getParentStatement() != null);
-	}
-
-	private Statement parentStatement = null;
-
-	public void reset(Task task) {
-		this.hasFullyExecuted = false;
-		for (Statement child : getDirectChildStatements())
-			child.reset(task);
-	}
-
 }
@@ -1,89 +1,45 @@
 package hillbillies.model.programs.statements;
 
-import hillbillies.model.Counter;
-import hillbillies.model.Task;
+import hillbillies.model.programs.ProgramCompiler;
 import hillbillies.model.programs.expressions.IBooleanExpression;
 
 public class WhileStatement extends Statement {
-	
-	private WhileStatement(Statement body, Statement bodyCopy, IBooleanExpression condition, boolean hasBeenFullyExecuted) {
-		super(hasBeenFullyExecuted);
+
+	public WhileStatement(IBooleanExpression condition, Statement body) {
 		this.condition = condition;
-		this.bodyCopy = bodyCopy.clone();
-		this.setBody(body.clone());
-	}	
-	
-	public WhileStatement(IBooleanExpression condition, Statement statement) {
-		this(statement, statement, condition, false);
-		this.body.SetHasFullyExecutedToTrue();
+		this.body = body;
 	}
-	
+
 	private Statement getBody() {
 		return this.body;
 	}
-	
-	private void setBody(Statement body) {
-		this.body = body;
-		body.setParentStatement(this);
-	}
-	
-	private Statement body;
-	
-	private Statement getBodyCopy() {
-		return this.bodyCopy;
-	}
-	
-	private final Statement bodyCopy;
-	
+
+	private final Statement body;
+
 	private IBooleanExpression getCondition() {
 		return this.condition;
 	}
-	
+
 	private final IBooleanExpression condition;
-	
-	@Override
-	public Statement getExecutingStatement() {
-		if (!getBody().hasBeenFullyExecuted())
-			return getBody().getExecutingStatement();
-		else
-			return this;
-	}
-	
-	@Override
-	public void execute(Task task, Counter counter) {
-		counter.increment();
-		if (!getBody().hasBeenFullyExecuted()) {
-			getBody().execute(task, counter);
-			return;
-		}
-		if ((boolean) getCondition().evaluate(task).getValue()) {
-			this.setBody(this.bodyCopy.clone());
-			getBody().execute(task, counter);
-			return;
-		}
-		SetHasFullyExecutedToTrue();
-		
-	}
 
+	/**
+	 * The condition is evaluated once per iteration, before the body; the
+	 * body ends with a jump back to the condition.
+	 */
 	@Override
-	public boolean canExecute(Task task, Counter counter) {
-		counter.increment();
-		if (counter.getCount() > 1000 || hasBeenFullyExecuted()) {
-			return false;
-		}
-		if (!getBody().hasBeenFullyExecuted())
-			return getBody().canExecute(task, counter);
-		if ((boolean) getCondition().evaluate(task).getValue()) {
-			return getBodyCopy().canExecute(task, counter);
-		}
-		// body has finished and condition is false. Next time this statement is executed it
-		// will be set to fully executed.
-		return true;
+	public void compile(ProgramCompiler compiler) {
+		int start = compiler.getPosition();
+		int exit = compiler.emitJumpIfFalse(getCondition());
+		compiler.startLoop();
+		getBody().compile(compiler);
+		compiler.emitJump(start);
+		compiler.endLoop();
+		compiler.patch(exit);
 	}
 
 	@Override
-	public boolean isWellFormed() {
-		return getBody().isWellFormed();
+	protected boolean isWellFormed(boolean insideWhile) {
+		return getBody().isWellFormed(true);
 	}
 
 	@Override
@@ -91,16 +47,4 @@ public class WhileStatement extends Statement {
 		return getBody().containsActionStatement();
 	}
 
-	@Override
-	public WhileStatement clone() {
-		return new WhileStatement(getBody().clone(), getBodyCopy().clone(), condition, hasBeenFullyExecuted());
-	}
-	
-	@Override
-	public void reset(Task task) {
-		this.setBody(this.getBodyCopy());
-		this.getBody().SetHasFullyExecutedToTrue();
-		super.reset(task);
-	}
-
 }
@@ -6,4 +6,17 @@ public class BooleanType extends Type {
 		super(b);
 	}
 
+	private static final BooleanType TRUE = new BooleanType(true), FALSE = new BooleanType(false);
+
+	/**
+	 * Return a boolean type with the given value, without creating one.
+	 */
+	public static BooleanType valueOf(boolean b) {
+		return b ? TRUE : FALSE;
+	}
+
+	public boolean booleanValue() {
+		return (Boolean) getValue();
+	}
+
 }
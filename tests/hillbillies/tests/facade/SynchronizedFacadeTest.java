@@ -0,0 +1,92 @@
+package hillbillies.tests.facade;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import hillbillies.common.internal.controller.SynchronizedFacade;
+import hillbillies.model.Faction;
+import hillbillies.model.Scheduler;
+import hillbillies.model.Task;
+import hillbillies.model.Unit;
+import hillbillies.model.World;
+import hillbillies.part2.listener.DefaultTerrainChangeListener;
+import hillbillies.part3.facade.Facade;
+import hillbillies.part3.facade.IFacade;
+import hillbillies.part3.programs.TaskParser;
+import ogp.framework.util.ModelException;
+
+public class SynchronizedFacadeTest {
+
+	private static final int NB_UNITS = 10;
+	private static final int NB_TASKS = 200;
+
+	private final Object lock = new Object();
+
+	private IFacade facade;
+	private World world;
+	private Scheduler scheduler;
+
+	@Before
+	public void setup() throws ModelException {
+		Facade model = new Facade();
+		this.facade = (IFacade) SynchronizedFacade.wrap(model, lock);
+		this.world = facade.createWorld(new int[10][10][3], new DefaultTerrainChangeListener());
+		Faction faction = null;
+		for (int i = 0; i < NB_UNITS; i++) {
+			Unit unit = facade.createUnit("Test", new int[] { i, 0, 0 }, 50, 50, 50, 50, true);
+			facade.addUnit(unit, world);
+			faction = facade.getFaction(unit);
+		}
+		this.scheduler = facade.getScheduler(faction);
+		for (int i = 0; i < NB_TASKS; i++) {
+			List<int[]> selected = new ArrayList<>();
+			selected.add(new int[] { i % 10, (i / 10) % 10, 0 });
+			for (Task task : TaskParser.parseTasksFromString(
+					"name: \"move task\"\npriority: " + (i % 17) + "\nactivities: moveTo selected;",
+					facade.createTaskFactory(), selected)) {
+				facade.schedule(scheduler, task);
+			}
+		}
+	}
+
+	@Test
+	public void getAllTasksIterator_WhileWorldTicks() throws Exception {
+		AtomicReference<Throwable> tickFailure = new AtomicReference<>();
+		Thread ticker = new Thread(() -> {
+			try {
+				for (int i = 0; i < 2000 && !Thread.currentThread().isInterrupted(); i++) {
+					facade.advanceTime(world, 0.02);
+					Thread.yield();
+				}
+			} catch (Throwable e) {
+				tickFailure.set(e);
+			}
+		});
+		ticker.start();
+		try {
+			while (ticker.isAlive()) {
+				Iterator<Task> it = facade.getAllTasksIterator(scheduler);
+				Task previous = null;
+				while (it.hasNext()) {
+					Task task = it.next();
+					assertNotNull(task);
+					if (previous != null)
+						assertTrue(facade.getPriority(previous) >= facade.getPriority(task));
+					previous = task;
+					Thread.yield();
+				}
+			}
+		} finally {
+			ticker.interrupt();
+			ticker.join();
+		}
+		assertNull(tickFailure.get());
+	}
+}
@@ -0,0 +1,97 @@
+package hillbillies.tests.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import hillbillies.util.ConnectedToBorder;
+
+/**
+ * a test suite for the class ConnectedToBorder, comparing it with a flood fill
+ * from the border of the world after every change
+ *
+ */
+public class ConnectedToBorderTest {
+
+	private static final int NB_X = 9, NB_Y = 7, NB_Z = 6;
+
+	private final boolean[][][] solid = new boolean[NB_X][NB_Y][NB_Z];
+
+	private boolean[][][] floodFromBorder() {
+		boolean[][][] connected = new boolean[NB_X][NB_Y][NB_Z];
+		Deque<int[]> queue = new ArrayDeque<int[]>();
+		for (int x = 0; x < NB_X; x++)
+			for (int y = 0; y < NB_Y; y++)
+				for (int z = 0; z < NB_Z; z++)
+					if (solid[x][y][z] && (x == 0 || y == 0 || z == 0 || x == NB_X - 1 || y == NB_Y - 1
+							|| z == NB_Z - 1)) {
+						connected[x][y][z] = true;
+						queue.add(new int[] { x, y, z });
+					}
+		int[][] offsets = { { 1, 0, 0 }, { -1, 0, 0 }, { 0, 1, 0 }, { 0, -1, 0 }, { 0, 0, 1 }, { 0, 0, -1 } };
+		while (!queue.isEmpty()) {
+			int[] cube = queue.poll();
+			for (int[] offset : offsets) {
+				int x = cube[0] + offset[0], y = cube[1] + offset[1], z = cube[2] + offset[2];
+				if (x >= 0 && y >= 0 && z >= 0 && x < NB_X && y < NB_Y && z < NB_Z && solid[x][y][z]
+						&& !connected[x][y][z]) {
+					connected[x][y][z] = true;
+					queue.add(new int[] { x, y, z });
+				}
+			}
+		}
+		return connected;
+	}
+
+	private Set<Integer> asIndices(List<int[]> cubes) {
+		Set<Integer> result = new HashSet<Integer>();
+		for (int[] cube : cubes)
+			assertTrue(result.add(cube[0] + NB_X * (cube[1] + NB_Y * cube[2])));
+		return result;
+	}
+
+	@Test
+	public void randomChanges_matchFloodFill() {
+		Random random = new Random(42);
+		for (int run = 0; run < 20; run++) {
+			ConnectedToBorder connectedToBorder = new ConnectedToBorder(NB_X, NB_Y, NB_Z);
+			for (int x = 0; x < NB_X; x++)
+				for (int y = 0; y < NB_Y; y++)
+					for (int z = 0; z < NB_Z; z++)
+						solid[x][y][z] = true;
+			boolean[][][] before = floodFromBorder();
+			for (int change = 0; change < 250; change++) {
+				int x = random.nextInt(NB_X), y = random.nextInt(NB_Y), z = random.nextInt(NB_Z);
+				boolean toSolid = !solid[x][y][z] && random.nextInt(4) == 0;
+				List<int[]> changed;
+				if (toSolid) {
+					solid[x][y][z] = true;
+					changed = connectedToBorder.changePassableToSolid(x, y, z);
+				} else {
+					solid[x][y][z] = false;
+					changed = connectedToBorder.changeSolidToPassable(x, y, z);
+				}
+				boolean[][][] after = floodFromBorder();
+				Set<Integer> expected = new HashSet<Integer>();
+				for (int i = 0; i < NB_X; i++)
+					for (int j = 0; j < NB_Y; j++)
+						for (int k = 0; k < NB_Z; k++) {
+							assertEquals(after[i][j][k], connectedToBorder.isSolidConnectedToBorder(i, j, k));
+							if (!toSolid && before[i][j][k] && !after[i][j][k] && solid[i][j][k])
+								expected.add(i + NB_X * (j + NB_Y * k));
+							if (toSolid && !before[i][j][k] && after[i][j][k])
+								expected.add(i + NB_X * (j + NB_Y * k));
+						}
+				assertEquals(expected, asIndices(changed));
+				before = after;
+			}
+		}
+	}
+}